@@ -31,7 +31,13 @@ public enum PlogConfigType {
     /** Number of scan interval considered as health check */ 
     HEALTH_CHECK_INTERVAL_COUNT ("plog.health.check.interval", "10"),
     /** Number of health check scans prior to considering it offline */
-    SCAN_QUIT_INTERVAL_COUNT ("plog.scan.offline.interval", "100");
+    SCAN_QUIT_INTERVAL_COUNT ("plog.scan.offline.interval", "100"),
+    /** Number of complete PLOGs to open and warm ahead, 0 to disable */
+    READ_AHEAD_COUNT ("plog.read.ahead.count", "0"),
+    /** Watch PLOG location for new PLOGs instead of listing it per scan */
+    WATCH_LOCATION ("plog.location.watch", "false"),
+    /** Location of snapshots of PLOG caches for restarts, empty for none */
+    SNAPSHOT_LOCATION ("plog.snapshot.location", "");
     
     private final String property;
     private final String defaultValue;
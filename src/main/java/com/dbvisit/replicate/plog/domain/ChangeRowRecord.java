@@ -20,13 +20,17 @@ import java.sql.Timestamp;
 import java.util.List;
 
 import com.dbvisit.replicate.plog.domain.util.DomainJSONConverter;
+import com.dbvisit.replicate.plog.reader.criteria.ColumnFilterableRecord;
+import com.dbvisit.replicate.plog.reader.criteria.ObjectFilterableRecord;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /** 
  * Logical domain abstraction for a change record, that is a record that
  * represents the state of a record after change was applied
  */
-public class ChangeRowRecord extends DomainRecord {
+public class ChangeRowRecord extends DomainRecord
+implements ColumnFilterableRecord<DomainRecordType>,
+           ObjectFilterableRecord<DomainRecordType> {
     /** Type of change */
     private ChangeAction action;
     
@@ -503,6 +507,18 @@ public class ChangeRowRecord extends DomainRecord {
         return getSchemaIdentifier();
     }
 
+    /**
+     * Return the object ID of the parent table of this change record, to
+     * memoise criteria decisions per table
+     * 
+     * @return ID of parent table, or -1 if it has not been set
+     */
+    @Override
+    @JsonIgnore
+    public int getRecordObjectId() {
+        return tableId > 0 ? tableId : -1;
+    }
+
     /**
      * Identify all change records with decoded column values as a data
      * record to the domain layer
@@ -515,6 +531,79 @@ public class ChangeRowRecord extends DomainRecord {
         return columnValues != null && !columnValues.isEmpty();
     }
     
+    /**
+     * Return whether or not this change record has a value for a column,
+     * needed for filtering by column value
+     * 
+     * @param column the column name
+     * 
+     * @return true if column has a value, else false
+     */
+    @Override
+    public boolean hasRecordColumn (String column) {
+        return findColumnValue (column) != null;
+    }
+    
+    /**
+     * Return the value of a column, decoding only this column value if it
+     * has not been decoded yet, needed for filtering by column value
+     * 
+     * @param column the column name
+     * 
+     * @return decoded column value, or null if the change record has no
+     *         value for it
+     * @throws Exception if the column value failed to decode
+     */
+    @Override
+    public Object getRecordColumnValue (String column) throws Exception {
+        ColumnValue columnValue = findColumnValue (column);
+        
+        if (columnValue == null) {
+            return null;
+        }
+        
+        columnValue.decodeValue();
+        
+        return columnValue.getValue();
+    }
+    
+    /**
+     * Find the column value of a column by name
+     * 
+     * @param column the column name
+     * 
+     * @return the column value, or null if not present
+     */
+    protected ColumnValue findColumnValue (String column) {
+        return findColumnValue (columnValues, column);
+    }
+    
+    /**
+     * Find the column value of a column by name in a list of values, the
+     * column name is matched ignoring case
+     * 
+     * @param values the column values to search, may be null
+     * @param column the column name
+     * 
+     * @return the column value, or null if not present
+     */
+    protected static ColumnValue findColumnValue (
+        List<ColumnValue> values,
+        String column
+    ) {
+        if (values != null && column != null) {
+            for (ColumnValue columnValue : values) {
+                if (columnValue != null &&
+                    column.equalsIgnoreCase (columnValue.getName()))
+                {
+                    return columnValue;
+                }
+            }
+        }
+        
+        return null;
+    }
+    
     /**
      * Identify the ID of parent PLOG for this domain record
      * 
@@ -185,6 +185,29 @@ public class ChangeSetRecord extends ChangeRowRecord {
                lobValues.size() > 0;
     }
     
+    /**
+     * Find the column value of a column by name, the new value after the
+     * change, or if none the key value or old value before the change
+     * 
+     * @param column the column name
+     * 
+     * @return the column value, or null if not present in change set
+     */
+    @Override
+    protected ColumnValue findColumnValue (String column) {
+        ColumnValue columnValue = findColumnValue (newValues, column);
+        
+        if (columnValue == null) {
+            columnValue = findColumnValue (keyValues, column);
+        }
+        
+        if (columnValue == null) {
+            columnValue = findColumnValue (oldValues, column);
+        }
+        
+        return columnValue;
+    }
+    
     /**
      * De-serialize JSON logical change set record string to domain object
      * 
@@ -71,9 +71,13 @@ public enum ColumnDataType {
     private String type;
     
     /** Internal index for translating raw data types to enum entry */
-    private static Map<String, ColumnDataType> index = 
+    private static final Map<String, ColumnDataType> index = 
         new HashMap<String, ColumnDataType>();
     
+    static {
+        buildIndex();
+    }
+    
     /** 
      * Create column data type for a given raw Oracle type, as string
      * 
@@ -110,16 +114,10 @@ public enum ColumnDataType {
      * @throws Exception when no column data entry exist for raw data type
      */
     public ColumnDataType find (String type) throws Exception {
-        if (index.size() == 0) {
-            buildIndex ();
-        }
+        /* raw types are decoded as cached strings, their hash is cached */
+        ColumnDataType dataType = index.get (type);
         
-        ColumnDataType dataType = null;
-        
-        if (index.containsKey (type)) {
-            dataType = index.get (type);
-        }
-        else {
+        if (dataType == null) {
             throw new Exception (
                 "No column data type found for type: " + type
             );
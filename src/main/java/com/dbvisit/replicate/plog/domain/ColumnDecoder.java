@@ -0,0 +1,375 @@
+package com.dbvisit.replicate.plog.domain;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.dbvisit.replicate.plog.format.decoder.ColumnDataDecoder;
+import com.dbvisit.replicate.plog.format.decoder.DataDecoder;
+import com.dbvisit.replicate.plog.format.decoder.LOBDataDecoder;
+import com.dbvisit.replicate.plog.metadata.Column;
+
+/**
+ * Decoder of raw PLOG encoded column values of one data type, bound to
+ * the precision and scale of its column. The choice of how to decode a
+ * column is made once, when the decoder is created for the column meta
+ * data, instead of for every value decoded.
+ */
+public abstract class ColumnDecoder {
+    /** Shared decoders for the data types that do not need meta data */
+    private static final Map<ColumnDataType, ColumnDecoder> decoders =
+        new EnumMap<ColumnDataType, ColumnDecoder>(ColumnDataType.class);
+
+    static {
+        for (ColumnDataType type : ColumnDataType.values()) {
+            ColumnDecoder decoder = null;
+
+            switch (type) {
+                case VARCHAR2:
+                case VARCHAR:
+                case CHAR:
+                case LONG:
+                    decoder = new StringDecoder (type);
+                    break;
+                case NVARCHAR2:
+                case NVARCHAR:
+                case NCHAR:
+                    decoder = new NationalStringDecoder (type);
+                    break;
+                case RAW:
+                case LONG_RAW:
+                    decoder = new BinaryDecoder (type);
+                    break;
+                case CLOB:
+                case NCLOB:
+                case CLOB_UTF16:
+                    decoder = new CLOBDecoder (type);
+                    break;
+                case BLOB:
+                    decoder = new BLOBDecoder (type);
+                    break;
+                case DATE:
+                    decoder = new DateDecoder (type);
+                    break;
+                case TIMESTAMP:
+                    decoder = new TimestampDecoder (type);
+                    break;
+                case TIMESTAMP_WITH_TIME_ZONE:
+                    decoder = new TimestampWithTzDecoder (type);
+                    break;
+                case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                    decoder = new TimestampWithLocalTzDecoder (type);
+                    break;
+                case INTERVAL_DAY_TO_SECOND:
+                    decoder = new IntervalDayToSecDecoder (type);
+                    break;
+                case INTERVAL_YEAR_TO_MONTH:
+                    decoder = new IntervalYearToMonthDecoder (type);
+                    break;
+                case NUMBER:
+                case UNKNOWN:
+                default:
+                    break;
+            }
+
+            if (decoder != null) {
+                decoders.put (type, decoder);
+            }
+        }
+    }
+
+    /** The data type decoded */
+    private final ColumnDataType type;
+
+    /**
+     * Create decoder for a column data type
+     *
+     * @param type the column data type decoded
+     */
+    protected ColumnDecoder (ColumnDataType type) {
+        this.type = type;
+    }
+
+    /**
+     * Return the column data type decoded by this decoder
+     *
+     * @return the column data type
+     */
+    public ColumnDataType getType () {
+        return this.type;
+    }
+
+    /**
+     * Decode a raw PLOG encoded column value to its domain type
+     *
+     * @param rawValue  the raw encoded value, as little endian view
+     * @param lobLength the length of the LOB, only used for LOB types
+     *
+     * @return the decoded value
+     * @throws Exception when decoding failed
+     */
+    public abstract Object decode (ByteBuffer rawValue, long lobLength)
+    throws Exception;
+
+    /**
+     * Return the decoder for a column data type bound to its column meta
+     * data, numbers are decoded as int, long or big decimal depending on
+     * their precision and scale
+     *
+     * @param type     the column data type
+     * @param metadata the column meta data, for scale and precision, only
+     *                 required for numbers
+     *
+     * @return the decoder for the column
+     * @throws Exception when data type is invalid or has no meta data
+     */
+    public static ColumnDecoder forColumn (
+        ColumnDataType type,
+        Column metadata
+    ) throws Exception {
+        if (type == null || type.equals (ColumnDataType.UNKNOWN)) {
+            throw new Exception ("Invalid column type: " + type);
+        }
+
+        if (!type.equals (ColumnDataType.NUMBER)) {
+            return decoders.get (type);
+        }
+
+        if (metadata == null) {
+            throw new Exception (
+                "Unable to decode column value of type: " + type + ", " +
+                "reason: no column meta data"
+            );
+        }
+
+        int scale     = metadata.getScale();
+        int precision = metadata.getPrecision();
+
+        if (
+            scale > 0 ||
+            precision <= 0 ||
+            precision - scale >= DataDecoder.NUMBER_LONG_MAX_PRECISION
+        ) {
+            return new NumberDecoder (scale);
+        }
+        else if (
+            precision - Math.abs(scale) <
+                DataDecoder.NUMBER_INTEGER_MAX_PRECISION
+        ) {
+            return new IntegerDecoder (scale);
+        }
+
+        return new LongDecoder (scale);
+    }
+
+    /** Decoder of numbers with fraction or large precision */
+    private static class NumberDecoder extends ColumnDecoder {
+        /** The scale of number */
+        private final int scale;
+
+        private NumberDecoder (int scale) {
+            super (ColumnDataType.NUMBER);
+            this.scale = scale;
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeNumber (rawValue, scale);
+        }
+    }
+
+    /** Decoder of whole numbers that fit in an integer */
+    private static class IntegerDecoder extends ColumnDecoder {
+        /** The scale of number */
+        private final int scale;
+
+        private IntegerDecoder (int scale) {
+            super (ColumnDataType.NUMBER);
+            this.scale = scale;
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeNumberAsInt (rawValue, scale);
+        }
+    }
+
+    /** Decoder of whole numbers that fit in a long */
+    private static class LongDecoder extends ColumnDecoder {
+        /** The scale of number */
+        private final int scale;
+
+        private LongDecoder (int scale) {
+            super (ColumnDataType.NUMBER);
+            this.scale = scale;
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeNumberAsLong (rawValue, scale);
+        }
+    }
+
+    /** Decoder of character strings */
+    private static class StringDecoder extends ColumnDecoder {
+        private StringDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeString (rawValue);
+        }
+    }
+
+    /** Decoder of character strings in national character set */
+    private static class NationalStringDecoder extends ColumnDecoder {
+        private NationalStringDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeNationalString (rawValue);
+        }
+    }
+
+    /** Decoder of byte strings */
+    private static class BinaryDecoder extends ColumnDecoder {
+        private BinaryDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeBinary (rawValue);
+        }
+    }
+
+    /** Decoder of large character data */
+    private static class CLOBDecoder extends ColumnDecoder {
+        private CLOBDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return LOBDataDecoder.decodeCLOB (rawValue, lobLength);
+        }
+    }
+
+    /** Decoder of large binary data */
+    private static class BLOBDecoder extends ColumnDecoder {
+        private BLOBDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            /* support have simple LOBs decode it as binary */
+            return LOBDataDecoder.decodeBLOB (rawValue, lobLength);
+        }
+    }
+
+    /** Decoder of dates */
+    private static class DateDecoder extends ColumnDecoder {
+        private DateDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeDate (rawValue);
+        }
+    }
+
+    /** Decoder of time stamps */
+    private static class TimestampDecoder extends ColumnDecoder {
+        private TimestampDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeTimestamp (rawValue);
+        }
+    }
+
+    /** Decoder of time stamps with time zone */
+    private static class TimestampWithTzDecoder extends ColumnDecoder {
+        private TimestampWithTzDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeTimestampWithTz (rawValue);
+        }
+    }
+
+    /** Decoder of time stamps with local time zone */
+    private static class TimestampWithLocalTzDecoder extends ColumnDecoder {
+        private TimestampWithLocalTzDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeTimestampWithLocalTz (rawValue);
+        }
+    }
+
+    /** Decoder of day to second intervals */
+    private static class IntervalDayToSecDecoder extends ColumnDecoder {
+        private IntervalDayToSecDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeIntervalDayToSec (rawValue);
+        }
+    }
+
+    /** Decoder of year to month intervals */
+    private static class IntervalYearToMonthDecoder extends ColumnDecoder {
+        private IntervalYearToMonthDecoder (ColumnDataType type) {
+            super (type);
+        }
+
+        @Override
+        public Object decode (ByteBuffer rawValue, long lobLength)
+        throws Exception {
+            return ColumnDataDecoder.decodeIntervalYearToMonth (rawValue);
+        }
+    }
+}
@@ -16,16 +16,20 @@ package com.dbvisit.replicate.plog.domain;
  * limitations under the License.
  **/
 
+import java.nio.ByteBuffer;
+
 import javax.sql.rowset.serial.SerialBlob;
 
 import com.dbvisit.replicate.plog.format.decoder.DataDecoder;
+import com.dbvisit.replicate.plog.metadata.Column;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
 /** 
- * Column value for single change record
+ * Column value for single change record, the value may be decoded when it
+ * is parsed or be decoded lazily from its raw PLOG encoding on first access
  */
 public class ColumnValue {
     /** Column ID, the ordinal number of column in parent */ 
@@ -37,6 +41,15 @@ public class ColumnValue {
     /** Type agnostic column value as decoded */
     @JsonSerialize(using = ToStringSerializer.class)
     private Object         value;
+    /** Raw encoded value, retained until it is decoded on first access */
+    @JsonIgnore
+    private ByteBuffer     rawValue;
+    /** Column meta data needed for decoding the raw value */
+    @JsonIgnore
+    private Column         metadata;
+    /** Decoder bound to column meta data for decoding the raw value */
+    @JsonIgnore
+    private ColumnDecoder  decoder;
     
     /** Offset of a LOB part in multi-part LOB */
     @JsonIgnore
@@ -159,17 +172,105 @@ public class ColumnValue {
      * @param value decoded value for column
      */
     public void setValue (Object value) {
-        this.value = value;
+        this.value    = value;
+        this.rawValue = null;
+        this.metadata = null;
+        this.decoder  = null;
     }
 
     /**
-     * Return the value for this column as type agnostic object
+     * Return the value for this column as type agnostic object, decoding
+     * the raw value first if it has not been decoded yet
      * 
      * @return value object
+     * @throws IllegalStateException when the raw value failed to decode
      */
     public Object getValue () {
+        if (rawValue != null) {
+            try {
+                decodeValue();
+            } catch (Exception e) {
+                throw new IllegalStateException (
+                    "Failed to decode value of column: " + name + ", " +
+                    "reason: " + e.getMessage(),
+                    e
+                );
+            }
+        }
         return this.value;
     }
+    
+    /**
+     * Set the raw PLOG encoded value for column, to be decoded on first
+     * access of its value using the data type of this column value and
+     * the column meta data provided. The LOB length, if any, must be
+     * set before the value is decoded
+     * 
+     * @param rawValue the raw encoded value, as little endian view
+     * @param metadata the column meta data, for scale and precision
+     */
+    public void setRawValue (ByteBuffer rawValue, Column metadata) {
+        this.value    = null;
+        this.rawValue = rawValue;
+        this.metadata = metadata;
+        this.decoder  = null;
+    }
+    
+    /**
+     * Set the raw PLOG encoded value for column, to be decoded on first
+     * access of its value by a decoder already bound to the data type and
+     * column meta data, as prepared by a column decode plan. The LOB
+     * length, if any, must be set before the value is decoded
+     * 
+     * @param rawValue the raw encoded value, as little endian view
+     * @param decoder  the decoder for the data type of this column value
+     */
+    public void setRawValue (ByteBuffer rawValue, ColumnDecoder decoder) {
+        this.value    = null;
+        this.rawValue = rawValue;
+        this.metadata = null;
+        this.decoder  = decoder;
+    }
+    
+    /**
+     * Return whether or not the value of this column has been decoded, or
+     * was set directly
+     * 
+     * @return true if value is available as decoded, else false if the
+     *         raw value has not yet been decoded
+     */
+    @JsonIgnore
+    public boolean isDecoded () {
+        return this.rawValue == null;
+    }
+    
+    /**
+     * Decode the raw PLOG encoded value for column to its domain type,
+     * a no-op when the value has already been decoded. The raw value is
+     * released after decoding
+     * 
+     * @throws Exception when data type is invalid or decoding failed
+     */
+    public void decodeValue () throws Exception {
+        if (rawValue == null) {
+            return;
+        }
+        
+        if (type == null) {
+            throw new Exception ("Invalid column type: " + type);
+        }
+        
+        if (decoder == null) {
+            decoder = ColumnDecoder.forColumn (type, metadata);
+        }
+        
+        value = decoder.decode (rawValue, lobLength);
+        
+        /* decoded, no longer need the raw value */
+        rawValue = null;
+        metadata = null;
+        decoder  = null;
+    }
 
     /**
      * Set the offset of LOB part in parent LOB
@@ -253,6 +354,7 @@ public class ColumnValue {
     @JsonProperty ("value")
     public String getValueAsString () {
         String str = null;
+        Object value = getValue();
         if (value != null) {
             if (value instanceof SerialBlob) {
                 SerialBlob sb = (SerialBlob)value;
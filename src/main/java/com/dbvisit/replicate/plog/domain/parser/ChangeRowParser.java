@@ -17,38 +17,41 @@ package com.dbvisit.replicate.plog.domain.parser;
  **/
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dbvisit.replicate.plog.domain.ChangeAction;
 import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnDecoder;
 import com.dbvisit.replicate.plog.domain.ColumnValue;
 import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.DomainRecordType;
 import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
+import com.dbvisit.replicate.plog.domain.parser.ColumnProjection.TableProjection;
 import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
-import com.dbvisit.replicate.plog.format.decoder.ColumnDataDecoder;
-import com.dbvisit.replicate.plog.format.decoder.DataDecoder;
-import com.dbvisit.replicate.plog.format.decoder.LOBDataDecoder;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 import com.dbvisit.replicate.plog.metadata.Column;
 import com.dbvisit.replicate.plog.metadata.DDLMetaData;
 import com.dbvisit.replicate.plog.metadata.Table;
+import com.dbvisit.replicate.plog.reader.criteria.CompiledCriteria;
+import com.dbvisit.replicate.plog.reader.criteria.Criteria;
 
 /**
  * Parses change row record that represent the state of the source record
  * after the logical change have been applied, a snapshot record at point in
  * time
  */
-public class ChangeRowParser implements DomainParser {
+public class ChangeRowParser implements ParallelDomainParser {
     private static final Logger logger = LoggerFactory.getLogger(
         ChangeRowParser.class
     );
@@ -59,6 +62,30 @@ public class ChangeRowParser implements DomainParser {
     /* Merge multi-part data LCRs */
     private boolean mergeMultiPartLCRs = false;
     
+    /* Defer decoding of column values until first accessed */
+    private boolean lazyColumnDecoding = false;
+    
+    /* Columns to parse per table, null to parse all */
+    private ColumnProjection columnProjection = null;
+    
+    /* Criteria on column values of change records, null for none */
+    private Criteria<DomainRecordType> columnCriteria = null;
+    
+    /* Columns to parse per table, including the ones tested by column
+     * criteria, null to parse all */
+    private ColumnProjection parsedProjection = null;
+    
+    /* IDs of the columns of the current record that are parsed only to
+     * be tested by column criteria, they are not emitted */
+    private final Set<Integer> testedColumns = new HashSet<Integer>();
+    
+    /* Defer decoding of column values of the current record until its
+     * column criteria is met */
+    private boolean deferColumnDecoding = false;
+    
+    /* Decode plan for the columns of the current record, if any */
+    private ColumnDecodePlan decodePlan = null;
+    
     /* Meta data parser */
     final MetaDataParser metaDataParser = new MetaDataParser();
     
@@ -84,6 +111,216 @@ public class ChangeRowParser implements DomainParser {
     public boolean mergeMultiPartLCRs () {
         return this.mergeMultiPartLCRs;
     }
+    
+    /**
+     * Set whether or not to decode column values lazily, when enabled the
+     * column values retain their raw PLOG encoded value and column meta
+     * data and only decode it on first access of their value, this avoids
+     * decoding columns of wide tables that are never used
+     * 
+     * @param lazyColumnDecoding whether or not column values should be
+     *                           decoded on first access
+     */
+    public void setLazyColumnDecoding (boolean lazyColumnDecoding) {
+        this.lazyColumnDecoding = lazyColumnDecoding;
+    }
+    
+    /**
+     * Return whether or not column values are decoded on first access
+     * 
+     * @return true if decoded lazily, else false if decoded when parsed
+     */
+    public boolean lazyColumnDecoding () {
+        return this.lazyColumnDecoding;
+    }
+    
+    /**
+     * Set the projection of table columns to parse, the column values
+     * of columns not projected are never decoded and left as null in
+     * the change records, key columns are always parsed
+     * 
+     * @param columnProjection the columns to parse per table, null to
+     *                         parse all columns
+     */
+    public void setColumnProjection (ColumnProjection columnProjection) {
+        this.columnProjection = columnProjection;
+        this.parsedProjection = toParsedProjection();
+    }
+    
+    /**
+     * Return the projection of table columns to parse
+     * 
+     * @return the columns to parse per table, or null if all columns
+     *         are parsed
+     */
+    public ColumnProjection getColumnProjection () {
+        return this.columnProjection;
+    }
+    
+    /**
+     * Set the criteria that the column values of change records must meet
+     * to be emitted, the column values of a change record are only decoded
+     * when tested by the criteria, the rest are only decoded when the
+     * change record meets it, else it is abandoned
+     * 
+     * @param columnCriteria the criteria to test change records with when
+     *                       parsed, null for none
+     */
+    public void setColumnCriteria (
+        Criteria<DomainRecordType> columnCriteria
+    ) {
+        this.columnCriteria = CompiledCriteria.compile (columnCriteria);
+        this.parsedProjection = toParsedProjection();
+    }
+    
+    /**
+     * Return the criteria that the column values of change records must
+     * meet to be emitted
+     * 
+     * @return the criteria on column values, or null if none
+     */
+    public Criteria<DomainRecordType> getColumnCriteria () {
+        return CompiledCriteria.source (this.columnCriteria);
+    }
+    
+    /**
+     * Return the column projection to parse change records with, the
+     * columns tested by the column criteria are parsed for the criteria
+     * to test them, whether or not they are projected
+     * 
+     * @return the column projection extended by the column criteria, or
+     *         null if all columns are parsed
+     */
+    private ColumnProjection toParsedProjection () {
+        return 
+            columnProjection != null
+            ? columnProjection.withColumnCriteria (getColumnCriteria())
+            : null;
+    }
+    
+    /**
+     * Return the projection of the columns of a table to parse, it
+     * includes the columns tested by column criteria
+     * 
+     * @param schema the full name of table
+     * 
+     * @return the columns of table to parse, or null for all
+     */
+    protected TableProjection projectionFor (String schema) {
+        return 
+            parsedProjection != null
+            ? parsedProjection.forTable (schema)
+            : null;
+    }
+
+    /**
+     * Create a new change row parser with the same multi-part merge,
+     * column decoding, projection and criteria behavior as this parser,
+     * for a worker thread
+     * 
+     * @return new change row parser
+     */
+    @Override
+    public ParallelDomainParser newWorkerParser () {
+        ChangeRowParser workerParser = new ChangeRowParser();
+        workerParser.setMergeMultiPartLCRs (mergeMultiPartLCRs);
+        workerParser.setLazyColumnDecoding (lazyColumnDecoding);
+        workerParser.setColumnProjection (columnProjection);
+        /* share the compiled criteria, it is thread safe */
+        workerParser.setColumnCriteria (columnCriteria);
+
+        return workerParser;
+    }
+
+    /**
+     * Data change records can be parsed out of order, unless multi-part
+     * LCRs are merged, which is done using the partial records cached in
+     * PLOG, or their table has no key definition. Only applies to this
+     * parser, not sub classes, which may keep their own state between
+     * records.
+     * 
+     * @param plog PLOG file
+     * @param rec  PLOG entry record
+     * 
+     * @return true if the record is a data change record that can be
+     *         parsed on worker thread, else false
+     */
+    @Override
+    public boolean canParseInParallel (PlogFile plog, EntryRecord rec) {
+        return getClass() == ChangeRowParser.class &&
+               !mergeMultiPartLCRs &&
+               canParseColumnDataInParallel (plog, rec);
+    }
+
+    /**
+     * Check that the record only has column data to decode, it is not
+     * a JSON meta data or dictionary record that updates the PLOG caches.
+     * The columns of a table without a key definition are marked as key
+     * columns when its records are parsed, the PLOG caches are updated,
+     * so these records are parsed in order as well
+     * 
+     * @param plog PLOG file with schema and dictionary cache
+     * @param rec  PLOG entry record
+     * 
+     * @return true if a data change record, else false
+     */
+    protected boolean canParseColumnDataInParallel (
+        PlogFile plog,
+        EntryRecord rec
+    ) {
+        return rec.hasColumnData() &&
+               !rec.isJSONMetaData() &&
+               !rec.hasColumnMetaData() &&
+               hasKeyDefinition (plog, rec);
+    }
+    
+    /**
+     * Check whether or not the table of a data change record has a key
+     * definition in both the schema and, for compact PLOGs, dictionary
+     * cache. Called before record is parsed, on the thread that reads it
+     * 
+     * @param plog PLOG file with schema and dictionary cache
+     * @param rec  PLOG entry record
+     * 
+     * @return true if the table has a key definition, else false if it
+     *         has none or its meta data is not cached
+     */
+    private boolean hasKeyDefinition (PlogFile plog, EntryRecord rec) {
+        String schema = rec.getRecordSchema();
+        
+        if (schema == null || plog.getSchemas() == null) {
+            return false;
+        }
+        
+        DDLMetaData md = plog.getSchemas().get (schema);
+        
+        if (md == null || !md.hasKey()) {
+            return false;
+        }
+        
+        if (plog.isCompact()) {
+            EntryTagRecord tag = 
+                rec.getEntryTags().first (EntryTagType.TAG_OBJ_ID);
+            
+            if (tag == null) {
+                return false;
+            }
+            
+            Table table;
+            try {
+                table = plog.getDictionaryTable (
+                    SimpleDataDecoder.decodeInteger (tag.getData())
+                );
+            } catch (Exception e) {
+                /* parse in order, which reports the invalid object ID */
+                return false;
+            }
+            
+            return table != null && table.hasKey();
+        }
+        
+        return true;
+    }
 
     /**
      * Parse a PLOG entry and convert it to a LCR
@@ -113,7 +350,17 @@ public class ChangeRowParser implements DomainParser {
         }
 
         if (rec.hasColumnData() && lcr.hasTableOwner()) {
-            parseColumnData (plog, rec);
+            if (!parseFilteredColumnData (plog, rec)) {
+                if (mergeMultiPartLCRs && !rec.isLOB()) {
+                    /* abandon the first part of multi-part LCR as well */
+                    plog.getPartialRecords().remove (lcr.getUniqueKey());
+                }
+                
+                /* abandon the record, it is not emitted */
+                lcr = null;
+                
+                return;
+            }
             
             if (mergeMultiPartLCRs && !rec.isLOB()) {
                 /* cache partial LCRs by their unique key, may be
@@ -353,83 +600,82 @@ public class ChangeRowParser implements DomainParser {
     protected void parseFields (PlogFile plog, EntryRecord rec) 
     throws Exception {
         try {
-            Map <EntryTagType, List<EntryTagRecord>> tags = 
-                rec.getEntryTags();
+            EntryTags tags = rec.getEntryTags();
             
             EntryTagRecord tag;
             
             /* eagerly read the LCR properties from tags using decoders */
             EntryTagType type = EntryTagType.TAG_PLOGSEQ;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setPlogId (
-                    SimpleDataDecoder.decodeInteger (tag.getRawData())
+                    SimpleDataDecoder.decodeInteger (tag.getData())
                 );
             }
             
             type = EntryTagType.TAG_LCR_ID;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setId(
-                    SimpleDataDecoder.decodeLong(tag.getRawData()) 
+                    SimpleDataDecoder.decodeLong(tag.getData()) 
                     + (1000000000L * lcr.getPlogId())
                 );
             }
             
             type = EntryTagType.TAG_XID;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setTransactionId(
-                    SimpleDataDecoder.decodeCharString(tag.getRawData())
+                    SimpleDataDecoder.decodeCharString(tag.getData())
                 );
             }
             
             type = EntryTagType.TAG_SAVEPOINT_ID;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setSavePointId(
-                    SimpleDataDecoder.decodeLong (tag.getRawData())
+                    SimpleDataDecoder.decodeLong (tag.getData())
                 );
             }
             
             type = EntryTagType.TAG_SCN;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setSystemChangeNumber(
-                    SimpleDataDecoder.decodeLong (tag.getRawData())
+                    SimpleDataDecoder.decodeLong (tag.getData())
                 );
             }
             
             type = EntryTagType.TAG_DTIME;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setTimestamp(
-                    SimpleDataDecoder.decodeDate(tag.getRawData())
+                    SimpleDataDecoder.decodeDate(tag.getData())
                 );
             }
             
             /* all LCRs at least need basic table meta data */
             type = EntryTagType.TAG_OBJ_OWNER;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setTableOwner(
-                    SimpleDataDecoder.decodeCharString(tag.getRawData())
+                    SimpleDataDecoder.decodeCharString(tag.getData())
                 );
             }
             
             type = EntryTagType.TAG_OBJ_NAME;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setTableName(
-                    SimpleDataDecoder.decodeCharString(tag.getRawData())
+                    SimpleDataDecoder.decodeCharString(tag.getData())
                 );
             }
             
             type = EntryTagType.TAG_OBJ_ID;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 lcr.setTableId(
-                    SimpleDataDecoder.decodeInteger(tag.getRawData())
+                    SimpleDataDecoder.decodeInteger(tag.getData())
                 );
                 
                 if (rec.hasColumnData() && !lcr.hasTableOwner()) {
@@ -437,21 +683,13 @@ public class ChangeRowParser implements DomainParser {
                      * persist. If it's not in PLOG dictionary it has 
                      * been filtered 
                      */
-                    if (plog.getDictionary().containsKey (
-                            lcr.getTableId()
-                        )
-                    ) {
-                        lcr.setTableOwner(
-                            plog.getDictionary().get (
-                                lcr.getTableId()
-                            ).getOwner()
-                        );
+                    Table table = plog.getDictionaryTable (
+                        lcr.getTableId()
+                    );
 
-                        lcr.setTableName(
-                            plog.getDictionary().get (
-                                lcr.getTableId()
-                            ).getName()
-                        );
+                    if (table != null) {
+                        lcr.setTableOwner(table.getOwner());
+                        lcr.setTableName(table.getName());
                     }
                 }
             }
@@ -496,7 +734,7 @@ public class ChangeRowParser implements DomainParser {
     protected void parseColumnData (PlogFile plog, EntryRecord rec) 
     throws Exception {
         /* parse value tags */
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
         
         /* tag loop counter */
         int t;
@@ -504,7 +742,7 @@ public class ChangeRowParser implements DomainParser {
         /* tag type */
         EntryTagType type;
         
-        if (!tags.containsKey (EntryTagType.TAG_COL_ID)) {
+        if (!tags.contains (EntryTagType.TAG_COL_ID)) {
             /* this LCR contains no column data */
             return;
         }
@@ -516,9 +754,10 @@ public class ChangeRowParser implements DomainParser {
         String schema = lcr.getSchemaIdentifier();
         
         /* use dictionary, if none use schema definition */
-        if (plog.getDictionary().containsKey (lcr.getTableId())) {
-            numCols = 
-                plog.getDictionary().get (lcr.getTableId()).getColumns().size();
+        Table table = plog.getDictionaryTable (lcr.getTableId());
+
+        if (table != null) {
+            numCols = table.getColumns().size();
         }
         else if (plog.getSchemas().containsKey(schema)) {
             numCols = 
@@ -536,6 +775,12 @@ public class ChangeRowParser implements DomainParser {
             return;
         }
 
+        /* supplemental key columns are sequential */
+        int numKeys = tags.count (EntryTagType.TAG_KEYIMAGE);
+        
+        /* columns to parse for this table, null if all */
+        TableProjection projection = projectionFor (schema);
+        
         /* column index mask */
         boolean[] columnIdxMask = new boolean[numCols];
         
@@ -562,10 +807,8 @@ public class ChangeRowParser implements DomainParser {
         type = EntryTagType.TAG_COL_ID;
         
         for (EntryTagRecord tag : tags.get (type)) {
-            ColumnValue cdr = new ColumnValue ();
-            
             /* column id */
-            int id = SimpleDataDecoder.decodeInteger(tag.getRawData());
+            int id = SimpleDataDecoder.decodeInteger(tag.getData());
             
             /* column index */
             int columnIdx = Column.toColumnIdx (id);
@@ -593,13 +836,24 @@ public class ChangeRowParser implements DomainParser {
             }
             
             /* handle PRE/POST/KEY images, prepare column value only once */
-            if (columnIdx < numCols && !columnIdxMask[columnIdx]) {
+            if (columnIdx < numCols && 
+                !columnIdxMask[columnIdx] &&
+                isProjectedColumn (
+                    plog,
+                    projection,
+                    table,
+                    id,
+                    t < numKeys && !rec.isLOB(),
+                    numKeys > 0
+                ))
+            {
                 /* column meta data is sorted by ordinal number, however 
                  * array index is zero based and ordinal number is 1 based,
                  * map meta data column index to lcr's column value index
                  */
                 columnIdxMask[columnIdx] = true;
 
+                ColumnValue cdr = new ColumnValue ();
                 cdr.setId(id);
                 columnValues.set (columnIdx, cdr);
             }
@@ -610,9 +864,7 @@ public class ChangeRowParser implements DomainParser {
         }
        
         if (plog.isCompact()) {
-            /* read column meta data from PLOG cache */
-            Table table = plog.getDictionary().get(lcr.getTableId());
-            
+            /* read column meta data from PLOG cache, as looked up above */
             if (table == null) {
                 throw new Exception (
                     "PLOG: " + plog.getFileName() + " has compactly encoded " +
@@ -638,7 +890,7 @@ public class ChangeRowParser implements DomainParser {
                     else if (
                         !table.hasKey() && 
                         !column.isKey() &&
-                        !tags.containsKey (EntryTagType.TAG_KEYIMAGE) &&
+                        !tags.contains (EntryTagType.TAG_KEYIMAGE) &&
                         column.canUseAsSuplogKey()
                     ) {
                         logger.debug (
@@ -682,9 +934,12 @@ public class ChangeRowParser implements DomainParser {
                 /* only retain tag loop needed */
                 if (tagToColumnIdx.containsKey (t)) {
                     int idx = tagToColumnIdx.get (t);
-                    columnValues.get(idx).setName(
-                        SimpleDataDecoder.decodeCharString(tag.getRawData())
-                    );
+                    
+                    if (columnValues.get (idx) != null) {
+                        columnValues.get(idx).setName(
+                            SimpleDataDecoder.decodeCharString(tag.getData())
+                        );
+                    }
                     check++;
                 }
                 t++;
@@ -707,12 +962,15 @@ public class ChangeRowParser implements DomainParser {
                 /* only retain tag loop needed */
                 if (tagToColumnIdx.containsKey (t)) {
                     int idx = tagToColumnIdx.get (t);
-                    String typeStr = 
-                        SimpleDataDecoder.decodeCharString(tag.getRawData());
+                    
+                    if (columnValues.get (idx) != null) {
+                        String typeStr = 
+                            SimpleDataDecoder.decodeCharString(tag.getData());
                 
-                    columnValues.get(idx).setType(
-                        ColumnDataType.UNKNOWN.find(typeStr)
-                    );
+                        columnValues.get(idx).setType(
+                            ColumnDataType.UNKNOWN.find(typeStr)
+                        );
+                    }
                     check++;
                 }
                 t++;
@@ -726,38 +984,23 @@ public class ChangeRowParser implements DomainParser {
         }
         
         /* now decode data values in their encoded order for PRE/POST/KEY/LOB */
-        List<EntryTagRecord> recs = null;
         
-        /* supplemental key columns are sequential */
-        int numKeys = 0;
-        
-        /* build the list of tags to go through in the correct order */
-        recs = new LinkedList<EntryTagRecord>();
-        List<List<EntryTagRecord>> datasets = 
-            new ArrayList<List<EntryTagRecord>>();
-        
-        datasets.add(tags.get (EntryTagType.TAG_KEYIMAGE));
-        datasets.add(tags.get (EntryTagType.TAG_PREIMAGE));
-        datasets.add(tags.get (EntryTagType.TAG_POSTIMAGE));
-        datasets.add(tags.get (EntryTagType.TAG_LOBDATA));
-        
-        for (List<EntryTagRecord> dataset : datasets) {
-            if (dataset != null) {
-                recs.addAll (dataset);
+        /* iterate through sequence of tags and process data tags, counting
+         * the data tags in t */
+        t = -1;
+        for (int s = 0; s < tags.getNumTags(); s++) {
+            type = tags.getTagType (s);
+            
+            if (type != EntryTagType.TAG_KEYIMAGE  &&
+                type != EntryTagType.TAG_PREIMAGE  &&
+                type != EntryTagType.TAG_POSTIMAGE &&
+                type != EntryTagType.TAG_LOBDATA)
+            {
+                continue;
             }
-        }
-        
-        if (datasets.get(0) != null) {
-            /* set number of keys logged */
-            numKeys = datasets.get(0).size();
-        }
-        
-        /* sort by encoded order */
-        Collections.sort (recs);
-        
-        /* iterate through sequence of tags and process */
-        for (t = 0; t < recs.size(); t++) {
-            EntryTagRecord tag = recs.get (t);
+            
+            EntryTagRecord tag = tags.getTag (s);
+            t++;
             
             if (!tagToColumnIdx.containsKey (t)) {
                 throw new Exception (
@@ -768,8 +1011,8 @@ public class ChangeRowParser implements DomainParser {
             /* lookup the column index for this tag */
             int idx = tagToColumnIdx.get (t);
             
-            if (!columnIdxMask[idx]) {
-                /* skip this column, it's not needed */
+            if (idx >= numCols || !columnIdxMask[idx]) {
+                /* skip this column, it's not needed or not projected */
                 continue;
             }
                 
@@ -810,14 +1053,170 @@ public class ChangeRowParser implements DomainParser {
 
             parseColumnValue (plog, rec, tag, cdr);
         }
+    }
+    
+    /**
+     * Parse the column data of PLOG entry record and test the change record
+     * against the column criteria, if any. The column values are decoded
+     * when tested, the rest only when it meets the criteria. The decode
+     * plan of the table is resolved once for all of its column values.
+     * 
+     * @param plog The current PLOG being parsed
+     * @param rec  The parsed PLOG entry record
+     * 
+     * @return true if the change record meets the column criteria, else
+     *         false if it is to be abandoned
+     * @throws Exception Failed to parse or decode column data
+     */
+    protected boolean parseFilteredColumnData (PlogFile plog, EntryRecord rec)
+    throws Exception {
+        /* resolve the decoders of the table columns once per record */
+        decodePlan = ColumnDecodePlan.forSchema (
+            plog,
+            lcr.getSchemaIdentifier()
+        );
+        deferColumnDecoding = columnCriteria != null;
+        testedColumns.clear();
+        try {
+            parseColumnData (plog, rec);
+        } finally {
+            decodePlan = null;
+            deferColumnDecoding = false;
+        }
+        
+        if (columnCriteria == null) {
+            return true;
+        }
+        
+        if (!columnCriteria.meetCriteria (lcr)) {
+            return false;
+        }
+        
+        if (!testedColumns.isEmpty()) {
+            /* the columns tested by criteria but not projected are not
+             * emitted */
+            dropTestedColumns (testedColumns);
+            testedColumns.clear();
+        }
+        
+        if (!lazyColumnDecoding) {
+            /* decode the rest of the column values before the raw
+             * record is recycled */
+            decodeColumnValues();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Decode the column values of the current change record that have not
+     * been decoded yet
+     * 
+     * @throws Exception if any column value failed to decode
+     */
+    protected void decodeColumnValues () throws Exception {
+        decodeColumnValues (lcr.getColumnValues());
+    }
+    
+    /**
+     * Drop the column values of the current change record that were only
+     * parsed to be tested by the column criteria, they are left as null
+     * as for any other column that is not projected
+     * 
+     * @param ids the IDs of the columns to drop
+     */
+    protected void dropTestedColumns (Set<Integer> ids) {
+        List<ColumnValue> columnValues = lcr.getColumnValues();
         
-        recs.clear();
-        recs = null;
+        for (Integer id : ids) {
+            int columnIdx = Column.toColumnIdx (id);
+            
+            if (columnIdx < columnValues.size()) {
+                columnValues.set (columnIdx, null);
+            }
+        }
+    }
+    
+    /**
+     * Decode the column values in a list that have not been decoded yet
+     * 
+     * @param columnValues the column values, may contain null values
+     * 
+     * @throws Exception if any column value failed to decode
+     */
+    protected static void decodeColumnValues (List<ColumnValue> columnValues)
+    throws Exception {
+        if (columnValues != null) {
+            for (ColumnValue columnValue : columnValues) {
+                if (columnValue != null) {
+                    columnValue.decodeValue();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Check whether or not to parse the value of a column in the projection
+     * of its table, key columns are always parsed. The columns tested by
+     * column criteria, but not projected, are parsed and recorded to be
+     * dropped once tested
+     * 
+     * @param plog        The current PLOG with the replicated schema cache
+     * @param projection  The column projection of table, null for all
+     * @param table       The dictionary table, null if not compact PLOG
+     * @param id          The column ID
+     * @param keyImage    Whether or not value is part of KEY image
+     * @param hasKeyImage Whether or not change record has a KEY image
+     * 
+     * @return true if column value is parsed, else false
+     */
+    protected boolean isProjectedColumn (
+        PlogFile plog,
+        TableProjection projection,
+        Table table,
+        int id,
+        boolean keyImage,
+        boolean hasKeyImage
+    ) {
+        if (projection == null || keyImage) {
+            return true;
+        }
+        
+        Column column = null;
+        
+        if (table != null) {
+            int idx = Column.toColumnIdx (id);
+            
+            if (idx < table.getColumns().size()) {
+                column = table.getColumns().get (idx);
+            }
+        }
+        else {
+            DDLMetaData md = plog.getSchemas().get (lcr.getSchemaIdentifier());
+            
+            if (md != null) {
+                column = md.getColumn (id);
+            }
+        }
+        
+        if (projection.parse (table, column, keyImage, hasKeyImage)) {
+            return true;
+        }
+        
+        if (column != null && projection.isTestedOnly (column.getName())) {
+            testedColumns.add (id);
+            return true;
+        }
+        
+        return false;
     }
     
     /**
      * Parse a column value by decoding the raw Oracle data type encoded in
-     * PLOG entry record to domain types
+     * PLOG entry record to domain types, or when decoding lazily retain the
+     * raw value and its column decoder for decoding on first access. The
+     * column decoder is taken from the decode plan of the table, if the
+     * column is in it, else created from its column meta data
      * 
      * @param plog The current PLOG file with cache to assist in decoding
      *             raw fields
@@ -834,219 +1233,128 @@ public class ChangeRowParser implements DomainParser {
         ColumnValue columnValue
     ) throws Exception
     {
-        Column metadata = null;
+        EntryTags tags = rec.getEntryTags();
         
-        String schema = lcr.getSchemaIdentifier();
+        ColumnDecoder decoder = null;
         
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
-
-        if (plog.getSchemas().containsKey(schema)) {
-            int colId = columnValue.getId();
-            metadata =
-                plog.getSchemas().get(schema).getColumns().get(colId);
-
-            if (metadata == null) {
-                throw new Exception (
-                    "No column definition found for " + schema +
-                    " column ID: " + colId
-                );
-            }
-        }
-        else {
-            throw new Exception (
-                "No schema definition found for: " + schema        
+        if (decodePlan != null) {
+            decoder = decodePlan.getDecoder (
+                columnValue.getId(),
+                columnValue.getType()
             );
         }
-            
+        
+        if (decoder == null) {
+            /* not in decode plan, decode using column meta data */
+            decoder = toColumnDecoder (plog, columnValue);
+        }
+        
         switch (columnValue.getType ()) {
-            case NUMBER:
-            {
-                int scale = metadata.getScale();
-                if (
-                    scale > 0 ||
-                    metadata.getPrecision() <= 0 ||
-                    metadata.getPrecision() - scale >= 
-                        DataDecoder.NUMBER_LONG_MAX_PRECISION
-                ) {
-                    columnValue.setValue (
-                        ColumnDataDecoder.decodeNumber (
-                            tag.getRawData(),
-                            scale
-                        )
-                    );
-                }
-                else if (
-                    scale <= 0 && 
-                    metadata.getPrecision() - Math.abs(scale) < 
-                        DataDecoder.NUMBER_INTEGER_MAX_PRECISION
-                ) {
-                    columnValue.setValue (
-                        ColumnDataDecoder.decodeNumberAsInt (
-                            tag.getRawData(),
-                            scale
-                        )
-                    );
-                }
-                else {
-                    columnValue.setValue (
-                        ColumnDataDecoder.decodeNumberAsLong (
-                            tag.getRawData(),
-                            scale
-                        )
-                    );
-                }
-                break;
-            }
-            case VARCHAR2:
-            case VARCHAR:
-            case CHAR:
-            case LONG:
-            {
-                columnValue.setValue(
-                    ColumnDataDecoder.decodeString(tag.getRawData())
-                );
-                break;
-            }   
-            case NVARCHAR2:
-            case NVARCHAR:
-            case NCHAR:
-            {
-                columnValue.setValue(
-                    ColumnDataDecoder.decodeNationalString(tag.getRawData())
-                );
-                break;
-            }
-            case RAW:
-            case LONG_RAW:
-            {
-                columnValue.setValue (
-                    ColumnDataDecoder.decodeBinary(tag.getRawData())
-                );
-                break;
-            }
             case CLOB:
             case NCLOB:
             case CLOB_UTF16:
             {
                 /* decode additional fields required by cLOB */
-                if (tags.containsKey (EntryTagType.TAG_LOBLEN)) {
-                    EntryTagRecord tr = 
-                        tags.get (EntryTagType.TAG_LOBLEN).get (0);
+                if (tags.contains (EntryTagType.TAG_LOBLEN)) {
+                    EntryTagRecord tr = tags.first (EntryTagType.TAG_LOBLEN);
                     
                     /* decode CLOB length in bytes */
                     columnValue.setLobLength (
-                        SimpleDataDecoder.decodeLong(tr.getRawData())
+                        SimpleDataDecoder.decodeLong(tr.getData())
                     );
                 }
-                
-                columnValue.setValue(
-                    LOBDataDecoder.decodeCLOB(
-                        tag.getRawData(),
-                        columnValue.getLobLength()
-                    )
-                );
-                
                 break;
             }
             case BLOB:
             {
                 /* decode additional fields required by BLOB */
-                if (tags.containsKey (EntryTagType.TAG_LOBLEN)) {
-                    EntryTagRecord tr = 
-                        tags.get (EntryTagType.TAG_LOBLEN).get (0);
+                if (tags.contains (EntryTagType.TAG_LOBLEN)) {
+                    EntryTagRecord tr = tags.first (EntryTagType.TAG_LOBLEN);
                     
                     /* decode lob length */
                     columnValue.setLobLength (
-                        SimpleDataDecoder.decodeLong(tr.getRawData())
+                        SimpleDataDecoder.decodeLong(tr.getData())
                     );
                 }
                 
-                if (tags.containsKey (EntryTagType.TAG_LOB_POSITION)) {
-                    EntryTagRecord tr = 
-                        tags.get (EntryTagType.TAG_LOB_POSITION).get (0);
+                if (tags.contains (EntryTagType.TAG_LOB_POSITION)) {
+                    EntryTagRecord tr = tags.first (EntryTagType.TAG_LOB_POSITION);
                     
                     /* decode lob position */
                     columnValue.setLobPosition (
-                        SimpleDataDecoder.decodeInteger(tr.getRawData())
+                        SimpleDataDecoder.decodeInteger(tr.getData())
                     );
                     
                 }
                 
-                if (tags.containsKey (EntryTagType.TAG_LOBOFFSET)) {
-                    EntryTagRecord tr = 
-                        tags.get (EntryTagType.TAG_LOBOFFSET).get (0);
+                if (tags.contains (EntryTagType.TAG_LOBOFFSET)) {
+                    EntryTagRecord tr = tags.first (EntryTagType.TAG_LOBOFFSET);
                     
                     /* decode lob offset */
                     columnValue.setLobOffset (
-                        SimpleDataDecoder.decodeLong(tr.getRawData())
+                        SimpleDataDecoder.decodeLong(tr.getData())
                     );
                 }
-                
-                /* support have simple LOBs decode it as binary */
-                columnValue.setValue (
-                    LOBDataDecoder.decodeBLOB(
-                        tag.getRawData(),
-                        columnValue.getLobLength()
-                    )
-                );
-                break;
-            }
-            case DATE:
-            {
-                columnValue.setValue (
-                    ColumnDataDecoder.decodeDate(tag.getRawData())        
-                );
-                break;
-            }
-            case TIMESTAMP:
-            {
-                columnValue.setValue (
-                    ColumnDataDecoder.decodeTimestamp(tag.getRawData())    
-                );
-                break;
-            }
-            case TIMESTAMP_WITH_TIME_ZONE:
-            {
-                columnValue.setValue (
-                    ColumnDataDecoder.decodeTimestampWithTz(
-                        tag.getRawData()
-                    )    
-                );
-                break;
-            }
-            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
-            {
-                columnValue.setValue (
-                    ColumnDataDecoder.decodeTimestampWithLocalTz(
-                        tag.getRawData()
-                    )    
-                );
-                break;
-            }
-            case INTERVAL_DAY_TO_SECOND:
-            {
-                columnValue.setValue (
-                    ColumnDataDecoder.decodeIntervalDayToSec(
-                        tag.getRawData()
-                    )
-                );
-               break;
-            }
-            case INTERVAL_YEAR_TO_MONTH:
-            {
-                columnValue.setValue (
-                    ColumnDataDecoder.decodeIntervalYearToMonth(
-                        tag.getRawData()
-                    )
-                );
                 break;
             }
-            case UNKNOWN:
             default:
-                throw new Exception (
-                    "Invalid column type: " + columnValue.getType()
-                );
+                break;
+        }
+        
+        if (!lazyColumnDecoding && !deferColumnDecoding) {
+            columnValue.setRawValue (tag.getData(), decoder);
+            columnValue.decodeValue();
         }
+        else if (!lazyColumnDecoding) {
+            /* retain raw value until the column criteria is tested, the
+             * rest are decoded before the record is recycled */
+            columnValue.setRawValue (tag.getData(), decoder);
+        }
+        else {
+            /* retain raw value with its decoder, copy it if the reader
+             * reuses its buffer for the next record */
+            columnValue.setRawValue (
+                rec.hasRecycledPayload() ? tag.copyData() : tag.getData(),
+                decoder
+            );
+        }
+    }
+    
+    /**
+     * Create the decoder for a column value that is not in the decode plan
+     * of its table from the schema meta data of its column
+     * 
+     * @param plog        The current PLOG file with schema cache
+     * @param columnValue The prepared column value to decode
+     * 
+     * @return the decoder for the data type of column value
+     * @throws Exception if the schema or column is not defined, or the
+     *                   data type is invalid
+     */
+    private ColumnDecoder toColumnDecoder (
+        PlogFile plog,
+        ColumnValue columnValue
+    ) throws Exception {
+        String schema = lcr.getSchemaIdentifier();
+        
+        if (!plog.getSchemas().containsKey(schema)) {
+            throw new Exception (
+                "No schema definition found for: " + schema        
+            );
+        }
+        
+        int colId = columnValue.getId();
+        Column metadata =
+            plog.getSchemas().get(schema).getColumn(colId);
+
+        if (metadata == null) {
+            throw new Exception (
+                "No column definition found for " + schema +
+                " column ID: " + colId
+            );
+        }
+        
+        return ColumnDecoder.forColumn (columnValue.getType(), metadata);
     }
     
     /**
@@ -1,9 +1,9 @@
 package com.dbvisit.replicate.plog.domain.parser;
 
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,10 +14,12 @@ import com.dbvisit.replicate.plog.domain.ColumnDataType;
 import com.dbvisit.replicate.plog.domain.ColumnValue;
 import com.dbvisit.replicate.plog.domain.DomainRecord;
 import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
+import com.dbvisit.replicate.plog.domain.parser.ColumnProjection.TableProjection;
 import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 import com.dbvisit.replicate.plog.metadata.Column;
 import com.dbvisit.replicate.plog.metadata.DDLMetaData;
@@ -59,10 +61,64 @@ public class ChangeSetParser extends ChangeRowParser {
         }
 
         if (rec.hasColumnData() && csr.hasTableOwner()) {
-            parseColumnData (plog, rec);
+            if (!parseFilteredColumnData (plog, rec)) {
+                /* abandon the change set, it is not emitted */
+                csr = null;
+                lcr = null;
+            }
         }
     }
 
+    /**
+     * Decode the key, old, new and LOB values of the current change set
+     * that have not been decoded yet
+     * 
+     * @throws Exception if any column value failed to decode
+     */
+    @Override
+    protected void decodeColumnValues () throws Exception {
+        decodeColumnValues (csr.getKeyValues());
+        decodeColumnValues (csr.getOldValues());
+        decodeColumnValues (csr.getNewValues());
+        decodeColumnValues (csr.getLobValues());
+    }
+    
+    /**
+     * Drop the old, new and LOB values of the current change set that
+     * were only parsed to be tested by the column criteria
+     * 
+     * @param ids the IDs of the columns to drop
+     */
+    @Override
+    protected void dropTestedColumns (Set<Integer> ids) {
+        dropTestedColumns (csr.getOldValues(), ids);
+        dropTestedColumns (csr.getNewValues(), ids);
+        dropTestedColumns (csr.getLobValues(), ids);
+    }
+    
+    /**
+     * Remove the column values of columns from a list of column values
+     * 
+     * @param columnValues the column values, may be null
+     * @param ids          the IDs of the columns to remove
+     */
+    private static void dropTestedColumns (
+        List<ColumnValue> columnValues,
+        Set<Integer> ids
+    ) {
+        if (columnValues != null) {
+            Iterator<ColumnValue> it = columnValues.iterator();
+            
+            while (it.hasNext()) {
+                ColumnValue columnValue = it.next();
+                
+                if (columnValue != null && ids.contains (columnValue.getId())) {
+                    it.remove();
+                }
+            }
+        }
+    }
+    
     @Override
     public DomainRecord emit() {
         ChangeSetRecord result = null;
@@ -109,33 +165,68 @@ public class ChangeSetParser extends ChangeRowParser {
     public boolean supportMultiPartMerging() {
         return false;
     }
+
+    /**
+     * Create a new change set parser with the same column decoding,
+     * projection and criteria behavior as this parser, for a worker thread
+     * 
+     * @return new change set parser
+     */
+    @Override
+    public ParallelDomainParser newWorkerParser () {
+        ChangeSetParser workerParser = new ChangeSetParser();
+        workerParser.setLazyColumnDecoding (lazyColumnDecoding());
+        workerParser.setColumnProjection (getColumnProjection());
+        workerParser.setColumnCriteria (getColumnCriteria());
+
+        return workerParser;
+    }
+
+    /**
+     * Data change records can be parsed out of order, change sets do
+     * not merge multi-part records, unless their table has no key
+     * definition. Only applies to this parser, not sub classes.
+     * 
+     * @param plog PLOG file
+     * @param rec  PLOG entry record
+     * 
+     * @return true if the record is a data change record that can be
+     *         parsed on worker thread, else false
+     */
+    @Override
+    public boolean canParseInParallel (PlogFile plog, EntryRecord rec) {
+        return getClass() == ChangeSetParser.class &&
+               canParseColumnDataInParallel (plog, rec);
+    }
     
     @Override
     protected void parseColumnData (PlogFile plog, EntryRecord rec) 
     throws Exception {
         LinkedList<ColumnValue> columnValues = prepareColumnValues (plog, rec);
         
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
-        List<EntryTagRecord> recs = new LinkedList<EntryTagRecord>();
-        
-        /* need to parse in correct tag sequence */
-        if (tags.containsKey(EntryTagType.TAG_KEYIMAGE)) {
-            recs.addAll (tags.get(EntryTagType.TAG_KEYIMAGE));
-        }
-        if (tags.containsKey(EntryTagType.TAG_PREIMAGE)) {
-            recs.addAll (tags.get(EntryTagType.TAG_PREIMAGE));
-        }
-        if (tags.containsKey(EntryTagType.TAG_POSTIMAGE)) {
-            recs.addAll (tags.get(EntryTagType.TAG_POSTIMAGE));
-        }
-        if (tags.containsKey(EntryTagType.TAG_LOBDATA)) {
-            recs.addAll (tags.get(EntryTagType.TAG_LOBDATA));
-        }
-        
-        Collections.sort (recs);
+        EntryTags tags = rec.getEntryTags();
         
-        for (EntryTagRecord tag :recs) {
-            switch (EntryTagType.TAG_UNKNOWN.find (tag.getId())) {
+        /* need to parse in correct tag sequence, the encoded order */
+        for (int s = 0; s < tags.getNumTags(); s++) {
+            EntryTagType type = tags.getTagType (s);
+            
+            if (type != EntryTagType.TAG_KEYIMAGE  &&
+                type != EntryTagType.TAG_PREIMAGE  &&
+                type != EntryTagType.TAG_POSTIMAGE &&
+                type != EntryTagType.TAG_LOBDATA)
+            {
+                continue;
+            }
+            
+            EntryTagRecord tag = tags.getTag (s);
+            
+            if (columnValues.peek() == null) {
+                /* column is not projected, skip its value */
+                columnValues.pop();
+                continue;
+            }
+            
+            switch (type) {
                 case TAG_KEYIMAGE:
                 {
                     /* populate value for key and pop it from 
@@ -154,7 +245,7 @@ public class ChangeSetParser extends ChangeRowParser {
                         if (!md.hasKey()) {
                             /* we have key image, apply it, this is not an INSERT */
                             Column col =
-                                md.getColumns().get(keyValue.getId());
+                                md.getColumn(keyValue.getId());
                             /* check schema meta data for tag */
                             if (!col.isKey()) {
                                 logger.debug (
@@ -171,10 +262,14 @@ public class ChangeSetParser extends ChangeRowParser {
                             
                     csr.addKeyValue(keyValue);
                             
-                    logger.debug (
-                        "key tag seq: " + tag.getSequence() + " " + 
-                        "key value: " + keyValue.toString()
-                    );
+                    if (logger.isDebugEnabled()) {
+                        /* value is not decoded for logging */
+                        logger.debug (
+                            "key tag seq: " + tag.getSequence() + " " + 
+                            "key column: " + keyValue.getId() + " " +
+                            "type: " + keyValue.getType()
+                        );
+                    }
                     
                     break;
                 }
@@ -187,10 +282,14 @@ public class ChangeSetParser extends ChangeRowParser {
                     
                     csr.addOldValue(oldValue);
                     
-                    logger.debug (
-                        "old tag seq: " + tag.getSequence() + " " + 
-                        "old value: " + oldValue.toString()
-                    );
+                    if (logger.isDebugEnabled()) {
+                        /* value is not decoded for logging */
+                        logger.debug (
+                            "old tag seq: " + tag.getSequence() + " " + 
+                            "old column: " + oldValue.getId() + " " +
+                            "type: " + oldValue.getType()
+                        );
+                    }
                     
                     break;
                 }
@@ -203,10 +302,14 @@ public class ChangeSetParser extends ChangeRowParser {
                     
                     csr.addNewValue(newValue);
                     
-                    logger.debug (
-                        "new tag seq: " + tag.getSequence() + " " + 
-                        "new value: " + newValue.toString()
-                    );
+                    if (logger.isDebugEnabled()) {
+                        /* value is not decoded for logging */
+                        logger.debug (
+                            "new tag seq: " + tag.getSequence() + " " + 
+                            "new column: " + newValue.getId() + " " +
+                            "type: " + newValue.getType()
+                        );
+                    }
                     
                     break;
                 }
@@ -219,13 +322,17 @@ public class ChangeSetParser extends ChangeRowParser {
                     
                     csr.addLobValue(lobValue);
                     
-                    logger.debug (
-                        "lob tag seq: " + tag.getSequence() + " " + 
-                        "lob value: " + lobValue.toString() + " " +
-                        "lob length: " + lobValue.getLobLength() + " " +
-                        "lob offset: " + lobValue.getLobOffset() + " " +
-                        "lob position: " + lobValue.getLobPosition()
-                    );
+                    if (logger.isDebugEnabled()) {
+                        /* value is not decoded for logging */
+                        logger.debug (
+                            "lob tag seq: " + tag.getSequence() + " " + 
+                            "lob column: " + lobValue.getId() + " " +
+                            "type: " + lobValue.getType() + " " +
+                            "lob length: " + lobValue.getLobLength() + " " +
+                            "lob offset: " + lobValue.getLobOffset() + " " +
+                            "lob position: " + lobValue.getLobPosition()
+                        );
+                    }
                     
                     break;
                 }
@@ -243,7 +350,8 @@ public class ChangeSetParser extends ChangeRowParser {
      * @param plog The parent PLOG with cache to use
      * @param rec  The parent PLOG entry record
      * 
-     * @return List of prepared ColumnValue in encoded order
+     * @return List of prepared ColumnValue in encoded order, with null
+     *         for the values of columns that are not projected
      */
     private LinkedList<ColumnValue> prepareColumnValues (
         PlogFile plog,
@@ -252,21 +360,41 @@ public class ChangeSetParser extends ChangeRowParser {
     {
         LinkedList<ColumnValue> columnValues = new LinkedList<ColumnValue>();
         
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
+        
+        /* columns to parse for this table, null if all */
+        TableProjection projection = 
+            projectionFor (lcr.getSchemaIdentifier());
+        Table projected = 
+            projection != null
+            ? plog.getDictionaryTable (lcr.getTableId())
+            : null;
         
-        Collections.sort(tags.get (EntryTagType.TAG_COL_ID));
+        /* supplemental key columns are sequential */
+        int numKeys = tags.count (EntryTagType.TAG_KEYIMAGE);
+        
+        /* tags of a type are in their encoded order */
         int i = 0;
         for (EntryTagRecord tag : tags.get (EntryTagType.TAG_COL_ID)) {
-            columnValues.add (new ColumnValue());
-            columnValues.get(i).setId(
-                SimpleDataDecoder.decodeInteger(tag.getRawData())
-            );
+            int id = SimpleDataDecoder.decodeInteger(tag.getData());
+            
+            if (isProjectedColumn (
+                    plog, projection, projected, id, i < numKeys, numKeys > 0
+                ))
+            {
+                columnValues.add (new ColumnValue());
+                columnValues.get(i).setId(id);
+            }
+            else {
+                /* keep encoded order, value is skipped */
+                columnValues.add (null);
+            }
             i++;
         }
         
         if (plog.isCompact()) {
             /* read column meta data from PLOG cache */
-            Table table = plog.getDictionary().get(lcr.getTableId());
+            Table table = plog.getDictionaryTable(lcr.getTableId());
             
             if (table == null) {
                 throw new Exception (
@@ -277,6 +405,10 @@ public class ChangeSetParser extends ChangeRowParser {
             }
 
             for (ColumnValue cv : columnValues) {
+                if (cv == null) {
+                    continue;
+                }
+                
                 int c = Column.toColumnIdx(cv.getId());
                 Column column = 
                     table.getColumns().get(c);
@@ -298,7 +430,7 @@ public class ChangeSetParser extends ChangeRowParser {
                 else if (
                     !table.hasKey() && 
                     !column.isKey() &&
-                    !tags.containsKey (EntryTagType.TAG_KEYIMAGE) &&
+                    !tags.contains (EntryTagType.TAG_KEYIMAGE) &&
                     column.canUseAsSuplogKey()
                 ) {
                     logger.debug (
@@ -330,33 +462,42 @@ public class ChangeSetParser extends ChangeRowParser {
             }
         }
         else {
-            Collections.sort(tags.get (EntryTagType.TAG_COL_NAME));
             i = 0;
             for (EntryTagRecord tag : tags.get (EntryTagType.TAG_COL_NAME)) {
                 columnValues.add (new ColumnValue());
+                
+                if (columnValues.get (i) == null) {
+                    /* column is not projected */
+                    i++;
+                    continue;
+                }
+                
                 columnValues.get(i).setName(
-                    SimpleDataDecoder.decodeCharString(tag.getRawData())
+                    SimpleDataDecoder.decodeCharString(tag.getData())
                 );
                 /* set key column flag from cache if present */
-                if (plog.getDictionary().containsKey(lcr.getTableId())) {
+                Table table = plog.getDictionaryTable(lcr.getTableId());
+                if (table != null) {
                     columnValues.get(i).setIsKeyValue(
-                        plog.getDictionary()
-                            .get(lcr.getTableId())
-                            .getColumns()
-                            .get(i)
-                            .isKey()
+                        table.getColumns().get(i).isKey()
                     );
                 }
                 i++;
             }
             
-            Collections.sort(tags.get (EntryTagType.TAG_COL_TYPE));
             i = 0;
             for (EntryTagRecord tag : tags.get (EntryTagType.TAG_COL_TYPE)) {
                 columnValues.add (new ColumnValue());
+                
+                if (columnValues.get (i) == null) {
+                    /* column is not projected */
+                    i++;
+                    continue;
+                }
+                
                 columnValues.get(i).setType (
                     ColumnDataType.UNKNOWN.find (
-                        SimpleDataDecoder.decodeCharString(tag.getRawData())
+                        SimpleDataDecoder.decodeCharString(tag.getData())
                     )
                 );
                 i++;
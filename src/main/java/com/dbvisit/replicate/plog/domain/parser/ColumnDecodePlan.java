@@ -0,0 +1,156 @@
+package com.dbvisit.replicate.plog.domain.parser;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.util.Map;
+
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnDecoder;
+import com.dbvisit.replicate.plog.file.PlogFile;
+import com.dbvisit.replicate.plog.metadata.Column;
+import com.dbvisit.replicate.plog.metadata.DDLMetaData;
+
+/**
+ * Plan for decoding the column values of a replicated table, built once
+ * from its schema meta data as the decoder of each column, bound to its
+ * data type, precision and scale, and looked up by column ID. A plan is
+ * only valid for the version of the schema it was built from, it is
+ * cached per PLOG and rebuilt when the schema is replaced by a newer
+ * version or invalidated when its meta data is replaced in the cache.
+ * Immutable once built.
+ */
+public class ColumnDecodePlan {
+    /** The schema meta data this plan was built from */
+    private final DDLMetaData metadata;
+    /** The SCN since which the schema meta data was valid */
+    private final Long validSinceSCN;
+    /** Column decoders by column ID, null if not densely indexed */
+    private final ColumnDecoder[] decoders;
+
+    /**
+     * Build the decode plan for the columns of a schema
+     *
+     * @param metadata the schema meta data of table
+     */
+    ColumnDecodePlan (DDLMetaData metadata) {
+        this.metadata      = metadata;
+        this.validSinceSCN = metadata.getValidSinceSCN();
+
+        /* decode the columns that are densely indexed by meta data */
+        int maxId = metadata.getMaxIndexedColumnId();
+
+        decoders = new ColumnDecoder[maxId + 1];
+
+        for (int id = 0; id <= maxId; id++) {
+            Column column = metadata.getColumn (id);
+
+            if (column != null) {
+                decoders[id] = toDecoder (column);
+            }
+        }
+    }
+
+    /**
+     * Return the decoder for a column, as long as the data type of its
+     * value is the one defined by schema
+     *
+     * @param id   the column ID
+     * @param type the data type of column value to decode
+     *
+     * @return the column decoder, or null if the column is not in plan
+     *         or its data type differs
+     */
+    public ColumnDecoder getDecoder (int id, ColumnDataType type) {
+        if (id >= 0 && id < decoders.length) {
+            ColumnDecoder decoder = decoders[id];
+
+            if (decoder != null && decoder.getType() == type) {
+                return decoder;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Check whether or not this plan was built from the current version
+     * of schema meta data
+     *
+     * @param md the current schema meta data of table
+     *
+     * @return true if the plan is for the schema version, else false
+     */
+    boolean isPlanFor (DDLMetaData md) {
+        if (md != metadata) {
+            return false;
+        }
+
+        return validSinceSCN == null
+               ? md.getValidSinceSCN() == null
+               : validSinceSCN.equals (md.getValidSinceSCN());
+    }
+
+    /**
+     * Return the decode plan of a schema for the current version of its
+     * meta data in PLOG cache, building it if needed
+     *
+     * @param plog   the PLOG with schema and decode plan cache
+     * @param schema the schema identifier of table
+     *
+     * @return the decode plan, or null if the schema is not defined
+     */
+    public static ColumnDecodePlan forSchema (PlogFile plog, String schema) {
+        if (schema == null || plog.getSchemas() == null) {
+            return null;
+        }
+
+        DDLMetaData md = plog.getSchemas().get (schema);
+
+        if (md == null) {
+            return null;
+        }
+
+        Map<String, ColumnDecodePlan> plans = plog.getDecodePlans();
+        ColumnDecodePlan plan = plans.get (schema);
+
+        if (plan == null || !plan.isPlanFor (md)) {
+            plan = new ColumnDecodePlan (md);
+            plans.put (schema, plan);
+        }
+
+        return plan;
+    }
+
+    /**
+     * Create the decoder for the data type, precision and scale of column
+     *
+     * @param column the column meta data
+     *
+     * @return the column decoder, or null if its data type is not one
+     *         that can be decoded, left to be reported when decoded
+     */
+    private static ColumnDecoder toDecoder (Column column) {
+        try {
+            return ColumnDecoder.forColumn (
+                ColumnDataType.UNKNOWN.find (column.getType()),
+                column
+            );
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
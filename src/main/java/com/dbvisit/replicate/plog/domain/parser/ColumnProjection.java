@@ -0,0 +1,334 @@
+package com.dbvisit.replicate.plog.domain.parser;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import com.dbvisit.replicate.plog.metadata.Column;
+import com.dbvisit.replicate.plog.metadata.Table;
+import com.dbvisit.replicate.plog.reader.criteria.Criteria;
+import com.dbvisit.replicate.plog.reader.criteria.CriteriaUtility;
+
+/**
+ * Projection of the columns of replicated tables to the columns that
+ * are needed, defined per table as the list of column names to parse.
+ * Both table and column names may contain simple wildcards, eg. SOE.*
+ * and *_ID, and are matched ignoring case. When more than one table
+ * wildcard matches a table the first one defined is used, tables that
+ * match none are not projected and all of their columns are parsed.
+ *
+ * <p>
+ * The columns that are not projected are never decoded nor emitted in
+ * change records. Key columns, and columns that make up the supplemental
+ * key of a change, are always parsed, regardless of projection, they
+ * are needed to identify and merge change records. The columns tested
+ * by column value criteria are parsed too, for the criteria to test
+ * them, but are not emitted unless projected. Thread safe.
+ * </p>
+ */
+public class ColumnProjection {
+    /** The projection of a table that is not projected */
+    private static final TableProjection ALL_COLUMNS = new TableProjection();
+
+    /** Table name wildcards, in order defined */
+    private final Pattern[] tablePatterns;
+    /** Projection for each table wildcard, in same order */
+    private final TableProjection[] tableProjections;
+    /** Criteria on column values whose columns are parsed, or null */
+    private final Criteria<?> columnCriteria;
+    /** Resolved projection per table name */
+    private final Map<String, TableProjection> projections =
+        new ConcurrentHashMap<String, TableProjection>();
+
+    /**
+     * Create a column projection from the columns to parse per table
+     *
+     * @param columns the column names to parse, as list of names or
+     *                wildcards, per table name or wildcard
+     *
+     * @throws Exception if the projection of any table has no columns
+     */
+    public ColumnProjection (final Map<String, List<String>> columns)
+    throws Exception {
+        if (columns == null || columns.isEmpty()) {
+            throw new Exception (
+                "Invalid column projection, reason: no tables defined"
+            );
+        }
+
+        /* keep order of tables */
+        Map<String, List<String>> ordered =
+            new LinkedHashMap<String, List<String>>(columns);
+
+        tablePatterns    = new Pattern[ordered.size()];
+        tableProjections = new TableProjection[ordered.size()];
+
+        int i = 0;
+        for (Map.Entry<String, List<String>> table : ordered.entrySet()) {
+            if (table.getValue() == null || table.getValue().isEmpty()) {
+                throw new Exception (
+                    "Invalid column projection for table: " +
+                    table.getKey() + ", reason: no columns defined"
+                );
+            }
+            tablePatterns[i]    = compileWildcard (table.getKey());
+            tableProjections[i] = new TableProjection (table.getValue());
+            i++;
+        }
+
+        columnCriteria = null;
+    }
+
+    /**
+     * Create a column projection that also parses the columns tested by
+     * column value criteria
+     *
+     * @param projection     the column projection
+     * @param columnCriteria the criteria on column values
+     */
+    private ColumnProjection (
+        final ColumnProjection projection,
+        final Criteria<?> columnCriteria
+    ) {
+        this.tablePatterns    = projection.tablePatterns;
+        this.tableProjections = projection.tableProjections;
+        this.columnCriteria   = columnCriteria;
+    }
+
+    /**
+     * Return this column projection extended to parse the columns that
+     * are tested by column value criteria, they are needed to test the
+     * change records but are not emitted unless projected
+     *
+     * @param criteria the criteria on column values, or null
+     *
+     * @return the extended column projection, or this projection if there
+     *         is no criteria
+     */
+    public ColumnProjection withColumnCriteria (final Criteria<?> criteria) {
+        if (criteria == null) {
+            return this;
+        }
+
+        return new ColumnProjection (this, criteria);
+    }
+
+    /**
+     * Return the column projection of a table
+     *
+     * @param table the full name of table, as owner and table name
+     *
+     * @return the projection of table, or null if all of its columns
+     *         are parsed
+     */
+    public TableProjection forTable (final String table) {
+        if (table == null) {
+            return null;
+        }
+
+        TableProjection projection = projections.get (table);
+
+        if (projection == null) {
+            projection = ALL_COLUMNS;
+
+            for (int i = 0; i < tablePatterns.length; i++) {
+                if (tablePatterns[i].matcher(table).matches()) {
+                    projection = tableProjections[i];
+                    break;
+                }
+            }
+
+            if (projection != ALL_COLUMNS && columnCriteria != null) {
+                Set<String> tested = CriteriaUtility.testedColumns (
+                    columnCriteria,
+                    table
+                );
+
+                if (!tested.isEmpty()) {
+                    projection = new TableProjection (projection, tested);
+                }
+            }
+
+            projections.put (table, projection);
+        }
+
+        return projection != ALL_COLUMNS ? projection : null;
+    }
+
+    /**
+     * Compile a table or column name wildcard, ignoring case
+     *
+     * @param wildcard the name or wildcard
+     *
+     * @return compiled regular expression
+     */
+    private static Pattern compileWildcard (final String wildcard) {
+        return Pattern.compile (
+            CriteriaUtility.wildcardToRegex (wildcard),
+            Pattern.CASE_INSENSITIVE
+        );
+    }
+
+    /**
+     * The projected columns of a table
+     */
+    public static class TableProjection {
+        /** Column name wildcards to parse */
+        private final Pattern[] columnPatterns;
+        /** Names of columns parsed only to be tested by criteria, or null */
+        private final Set<String> testedColumns;
+        /** Resolved projection per column name */
+        private final Map<String, Boolean> projected =
+            new ConcurrentHashMap<String, Boolean>();
+
+        /**
+         * Projection that includes all columns, for tables that are not
+         * projected
+         */
+        private TableProjection () {
+            this.columnPatterns = null;
+            this.testedColumns  = null;
+        }
+
+        /**
+         * Create the projection of a table from its column names or
+         * wildcards
+         *
+         * @param columns the column names, or wildcards, to parse
+         */
+        private TableProjection (final List<String> columns) {
+            List<Pattern> patterns = new ArrayList<Pattern>(columns.size());
+
+            for (String column : columns) {
+                if (column != null) {
+                    patterns.add (compileWildcard (column));
+                }
+            }
+
+            this.columnPatterns = patterns.toArray (
+                new Pattern[patterns.size()]
+            );
+            this.testedColumns  = null;
+        }
+
+        /**
+         * Create the projection of a table that also parses the columns
+         * tested by column value criteria
+         *
+         * @param projection the projection of table
+         * @param tested     the names of columns tested by criteria
+         */
+        private TableProjection (
+            final TableProjection projection,
+            final Set<String> tested
+        ) {
+            this.columnPatterns = projection.columnPatterns;
+            this.testedColumns  = tested;
+        }
+
+        /**
+         * Check whether or not a column is tested by column value criteria
+         * and not projected, it is parsed for the criteria only and must
+         * not be emitted
+         *
+         * @param column the column name
+         *
+         * @return true if column is only parsed to be tested, else false
+         */
+        public boolean isTestedOnly (final String column) {
+            return testedColumns != null &&
+                   testedColumns.contains (column) &&
+                   !includes (column);
+        }
+
+        /**
+         * Check whether or not a column name is in the projection of table
+         *
+         * @param column the column name
+         *
+         * @return true if column is projected, else false
+         */
+        public boolean includes (final String column) {
+            if (columnPatterns == null) {
+                return true;
+            }
+
+            if (column == null) {
+                return false;
+            }
+
+            Boolean include = projected.get (column);
+
+            if (include == null) {
+                include = false;
+
+                for (Pattern columnPattern : columnPatterns) {
+                    if (columnPattern.matcher(column).matches()) {
+                        include = true;
+                        break;
+                    }
+                }
+
+                projected.put (column, include);
+            }
+
+            return include;
+        }
+
+        /**
+         * Check whether or not to parse a column of a table in projection,
+         * key columns are always parsed
+         *
+         * @param table       the dictionary table of column, or null if
+         *                    meta data is from JSON DDL
+         * @param column      the column definition, or null if unknown
+         * @param keyImage    whether or not the column value is part of
+         *                    the supplemental key image of change
+         * @param hasKeyImage whether or not the change has a key image
+         *
+         * @return true if column must be parsed, else false
+         */
+        public boolean parse (
+            final Table table,
+            final Column column,
+            final boolean keyImage,
+            final boolean hasKeyImage
+        ) {
+            if (keyImage || column == null || column.isKey()) {
+                /* always parse keys, and leave unknown columns to fail */
+                return true;
+            }
+
+            if (table != null &&
+                !table.hasKey() &&
+                !hasKeyImage &&
+                column.canUseAsSuplogKey())
+            {
+                /* fall back key of a table without key constraints */
+                return true;
+            }
+
+            return includes (column.getName());
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.dbvisit.replicate.plog.domain.parser;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,11 +12,13 @@ import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 import com.dbvisit.replicate.plog.metadata.Column;
 import com.dbvisit.replicate.plog.metadata.ColumnState;
 import com.dbvisit.replicate.plog.metadata.DDLMetaData;
 import com.dbvisit.replicate.plog.metadata.Table;
+import com.dbvisit.replicate.plog.util.IntObjectHashMap;
 
 /**
  * Copyright 2016 Dbvisit Software Limited
@@ -61,7 +62,7 @@ public class DictionaryParser {
             rec.hasColumnMetaData()) 
         {
             if (plog.getDictionary() == null) {
-                plog.setDictionary(new HashMap<Integer, Table>());
+                plog.setDictionary(new IntObjectHashMap<Table>());
             }
 
             Map<Integer, Table> dictionary = plog.getDictionary();
@@ -118,15 +119,15 @@ public class DictionaryParser {
     throws Exception {
         Table table = new Table();
         
-        Map<EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
         EntryTagType type  = null;
         EntryTagRecord tag = null;
 
         type = EntryTagType.TAG_OBJ_ID;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             table.setId( 
-                SimpleDataDecoder.decodeInteger(tag.getRawData())
+                SimpleDataDecoder.decodeInteger(tag.getData())
             );
         }
         else {
@@ -137,10 +138,10 @@ public class DictionaryParser {
         }
         
         type = EntryTagType.TAG_OBJ_OWNER;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             table.setOwner( 
-                SimpleDataDecoder.decodeCharString(tag.getRawData())
+                SimpleDataDecoder.decodeCharString(tag.getData())
             );
         }
         else if (plog.getDictionary().containsKey(table.getId())) {
@@ -156,10 +157,10 @@ public class DictionaryParser {
         }
 
         type = EntryTagType.TAG_OBJ_NAME;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             table.setName(
-                SimpleDataDecoder.decodeCharString(tag.getRawData())
+                SimpleDataDecoder.decodeCharString(tag.getData())
             );
         }
         else if (plog.getDictionary().containsKey(table.getId())) {
@@ -197,7 +198,7 @@ public class DictionaryParser {
         List<Column> columns = null;
         
         if (rec.hasColumnMetaData()) {
-            Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+            EntryTags tags = rec.getEntryTags();
             
             Map <Integer, Integer> idxToId = 
                 new LinkedHashMap <Integer, Integer>();
@@ -207,7 +208,7 @@ public class DictionaryParser {
             /* decode column ordinal numbers and set number of columns */
             int i = 0;
             for (EntryTagRecord tag : tags.get (EntryTagType.TAG_COL_ID)) {
-                int id = SimpleDataDecoder.decodeInteger(tag.getRawData());
+                int id = SimpleDataDecoder.decodeInteger(tag.getData());
                 
                 if (numCols < id) {
                     numCols = id;
@@ -230,7 +231,7 @@ public class DictionaryParser {
              */
             type = EntryTagType.TAG_COL_ID;
             for (EntryTagRecord tag : tags.get (type)) {
-                int id = SimpleDataDecoder.decodeInteger(tag.getRawData());
+                int id = SimpleDataDecoder.decodeInteger(tag.getData());
                 Column column = new Column();
                 column.setId (id);
 
@@ -251,7 +252,7 @@ public class DictionaryParser {
                 int idx = Column.toColumnIdx (idxToId.get(i++));
                 
                 String colName =
-                    SimpleDataDecoder.decodeCharString(tag.getRawData());
+                    SimpleDataDecoder.decodeCharString(tag.getData());
                 
                 if (idx >= 0) {
                     columns.get(idx).setName(colName);
@@ -267,7 +268,7 @@ public class DictionaryParser {
                 int idx = Column.toColumnIdx (idxToId.get(i++));
                 
                 String colType = 
-                    SimpleDataDecoder.decodeCharString(tag.getRawData());
+                    SimpleDataDecoder.decodeCharString(tag.getData());
                 
                 if (idx >= 0) {
                     columns.get(idx).setType(colType);
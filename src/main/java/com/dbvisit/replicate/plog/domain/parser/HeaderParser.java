@@ -16,9 +16,6 @@ package com.dbvisit.replicate.plog.domain.parser;
  * limitations under the License.
  **/
 
-import java.util.List;
-import java.util.Map;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +25,7 @@ import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.format.EntryTagType.EntryFeature;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 
@@ -81,31 +79,31 @@ public class HeaderParser implements DomainParser {
         /* default to incoming PLOG, will be overwritten if encoded */
         hdr.setPlogId(plog.getId());
         
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
             
         EntryTagRecord tag;
         EntryTagType type = EntryTagType.TAG_PLOGSEQ;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             hdr.setPlogId (
-                SimpleDataDecoder.decodeInteger (tag.getRawData())
+                SimpleDataDecoder.decodeInteger (tag.getData())
             );
         }
 
         type = EntryTagType.TAG_LCR_ID;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             hdr.setId(
-                SimpleDataDecoder.decodeLong(tag.getRawData()) 
+                SimpleDataDecoder.decodeLong(tag.getData()) 
                 + (1000000000L * hdr.getPlogId())
             );
         }
         
         type = EntryTagType.TAG_MINE_UUID;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             hdr.setMineUUID(
-                SimpleDataDecoder.decodeCharString(tag.getRawData())
+                SimpleDataDecoder.decodeCharString(tag.getData())
             );
         }
     }
@@ -121,14 +119,14 @@ public class HeaderParser implements DomainParser {
      */
     private void parseFeatures (PlogFile plog, EntryRecord rec)
     throws Exception {
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
         
         /* check PLOG dictionary feature first */
         if (rec.isHeader() &&
-            tags.containsKey(EntryTagType.TAG_FEATURES_1)) 
+            tags.contains(EntryTagType.TAG_FEATURES_1)) 
         {
             int features = SimpleDataDecoder.decodeInteger(
-                tags.get (EntryTagType.TAG_FEATURES_1).get(0).getRawData()
+                tags.first (EntryTagType.TAG_FEATURES_1).getData()
             );
             
             boolean isCompact = (
@@ -17,7 +17,6 @@ package com.dbvisit.replicate.plog.domain.parser;
  **/
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -29,6 +28,7 @@ import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 import com.dbvisit.replicate.plog.metadata.DDLMetaData;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -86,31 +86,31 @@ public class MetaDataParser implements DomainParser {
         /* default to incoming PLOG, will be overwritten if encoded */
         mdr.setPlogId(plog.getId());
         
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
             
         EntryTagRecord tag;
         EntryTagType type = EntryTagType.TAG_PLOGSEQ;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             mdr.setPlogId (
-                SimpleDataDecoder.decodeInteger (tag.getRawData())
+                SimpleDataDecoder.decodeInteger (tag.getData())
             );
         }
 
         type = EntryTagType.TAG_LCR_ID;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             mdr.setId(
-                SimpleDataDecoder.decodeLong(tag.getRawData()) 
+                SimpleDataDecoder.decodeLong(tag.getData()) 
                 + (1000000000L * mdr.getPlogId())
             );
         }
 
         type = EntryTagType.TAG_SCN;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             mdr.setSCN(
-                SimpleDataDecoder.decodeLong (tag.getRawData())
+                SimpleDataDecoder.decodeLong (tag.getData())
             );
         }
     }
@@ -134,12 +134,12 @@ public class MetaDataParser implements DomainParser {
         String json = null;
         
         EntryTagType type = EntryTagType.TAG_JSON_TEXT;
-        Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
         
-        if (tags.containsKey(type)) {
-            EntryTagRecord tag = tags.get (type).get(0);
+        EntryTagRecord tag = tags.first (type);
+        if (tag != null) {
             json = 
-                SimpleDataDecoder.decodeCharString(tag.getRawData());
+                SimpleDataDecoder.decodeCharString(tag.getData());
         }
         
         if (json != null && json.length() >= 0) {
@@ -156,7 +156,7 @@ public class MetaDataParser implements DomainParser {
                 
                 /* filter virtual columns from index */
                 if (ddl.getColumns().containsKey (VIRTUAL_COLUMN_ID)) {
-                    ddl.getColumns().remove (VIRTUAL_COLUMN_ID);
+                    ddl.removeColumn (VIRTUAL_COLUMN_ID);
                 }
                 /* filter virtual columns */
                 int i = 0;
@@ -184,11 +184,13 @@ public class MetaDataParser implements DomainParser {
                             md.getTableColumns()
                         );
                         plog.getSchemas().put(schemaName, ddl);
+                        plog.invalidateDecodePlan(schemaName);
                         mdr.setComplete(true);
                     }
                 }
                 else {
                     plog.getSchemas().put(schemaName, ddl);
+                    plog.invalidateDecodePlan(schemaName);
                     plog.setUpdatedSchema(true);
                     mdr.setComplete(true);
                 }
@@ -0,0 +1,50 @@
+package com.dbvisit.replicate.plog.domain.parser;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import com.dbvisit.replicate.plog.file.PlogFile;
+import com.dbvisit.replicate.plog.format.EntryRecord;
+
+/**
+ * Define behavior for domain parsers that are able to parse PLOG entry
+ * records on worker threads, out of order. These are parsers that emit
+ * one domain record per entry record and only read the PLOG meta data
+ * caches, never update them, when parsing the records they accept.
+ */
+public interface ParallelDomainParser extends DomainParser {
+    /**
+     * Create a new domain parser of the same type and configured the same
+     * as this parser, for use by one worker thread only
+     * 
+     * @return new domain parser for a worker thread
+     */
+    ParallelDomainParser newWorkerParser();
+
+    /**
+     * Check whether or not a PLOG entry record can be parsed on a worker
+     * thread, as in the record does not update the dictionary, schema
+     * or partial record caches of PLOG and does not depend on the state
+     * left behind by the records before it, other than the meta data
+     * 
+     * @param plog Handle to PLOG that represent the parsed PLOG file on disk
+     * @param rec  The raw PLOG entry record read from byte stream
+     * 
+     * @return true if the record can be parsed out of order by a worker
+     *         parser, else false, it must be parsed in order by this parser
+     */
+    boolean canParseInParallel (PlogFile plog, EntryRecord rec);
+}
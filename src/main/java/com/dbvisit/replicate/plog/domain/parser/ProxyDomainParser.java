@@ -28,6 +28,7 @@ import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.format.EntryType;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 import com.dbvisit.replicate.plog.reader.DomainReader;
@@ -154,16 +155,15 @@ public class ProxyDomainParser implements DomainParser {
     private void parseCoreFields (EntryRecord rec) 
     throws Exception {
         try {
-            Map <EntryTagType, List<EntryTagRecord>> tags = 
-                rec.getEntryTags();
+            EntryTags tags = rec.getEntryTags();
             
             EntryTagRecord tag;
             
             EntryTagType type = EntryTagType.TAG_PLOGSEQ;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 this.childId =
-                    SimpleDataDecoder.decodeInteger (tag.getRawData());
+                    SimpleDataDecoder.decodeInteger (tag.getData());
             }
             else {
                 throw new Exception (
@@ -172,10 +172,10 @@ public class ProxyDomainParser implements DomainParser {
             }
             
             type = EntryTagType.TAG_PLOGNAME;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 this.plogName =
-                    SimpleDataDecoder.decodeCharString(tag.getRawData());
+                    SimpleDataDecoder.decodeCharString(tag.getData());
             }
             else {
                 throw new Exception (
@@ -184,10 +184,10 @@ public class ProxyDomainParser implements DomainParser {
             }
             
             type = EntryTagType.TAG_PLOG_FILENAME;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 this.plogFileName =
-                    SimpleDataDecoder.decodeCharString(tag.getRawData());
+                    SimpleDataDecoder.decodeCharString(tag.getData());
             }
             else {
                 throw new Exception (
@@ -196,10 +196,10 @@ public class ProxyDomainParser implements DomainParser {
             }
             
             type = EntryTagType.TAG_SCN;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 this.startSCN =
-                    SimpleDataDecoder.decodeLong (tag.getRawData());
+                    SimpleDataDecoder.decodeLong (tag.getData());
             }
             else {
                 throw new Exception (
@@ -224,15 +224,14 @@ public class ProxyDomainParser implements DomainParser {
     private void parseStatsFields (EntryRecord rec) 
     throws Exception {
         try {
-            Map <EntryTagType, List<EntryTagRecord>> tags = 
-                rec.getEntryTags();
+            EntryTags tags = rec.getEntryTags();
             
             EntryTagRecord tag;
             
             EntryTagType type = EntryTagType.TAG_PLOGSEQ;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
-                int id = SimpleDataDecoder.decodeInteger (tag.getRawData());
+            tag = tags.first (type);
+            if (tag != null) {
+                int id = SimpleDataDecoder.decodeInteger (tag.getData());
                 
                 if (id != childId) {
                     throw new Exception (
@@ -248,10 +247,10 @@ public class ProxyDomainParser implements DomainParser {
             }
             
             type = EntryTagType.TAG_PLOGNAME;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 String name =
-                    SimpleDataDecoder.decodeCharString(tag.getRawData());
+                    SimpleDataDecoder.decodeCharString(tag.getData());
                 
                 if (!name.equals (plogName)) {
                     throw new Exception (
@@ -268,10 +267,10 @@ public class ProxyDomainParser implements DomainParser {
             }
             
             type = EntryTagType.TAG_PLOG_FILENAME;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 String fileName =
-                    SimpleDataDecoder.decodeCharString(tag.getRawData());
+                    SimpleDataDecoder.decodeCharString(tag.getData());
                 
                 if (!fileName.equals(plogFileName)) {
                     throw new Exception (
@@ -288,10 +287,10 @@ public class ProxyDomainParser implements DomainParser {
             }
             
             type = EntryTagType.TAG_SCN;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 this.endSCN =
-                    SimpleDataDecoder.decodeLong (tag.getRawData());
+                    SimpleDataDecoder.decodeLong (tag.getData());
             }
             else {
                 throw new Exception (
@@ -300,10 +299,10 @@ public class ProxyDomainParser implements DomainParser {
             }
             
             type = EntryTagType.TAG_ROW_COUNT;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 this.rowCount =
-                    SimpleDataDecoder.decodeInteger (tag.getRawData());
+                    SimpleDataDecoder.decodeInteger (tag.getData());
             }
             else {
                 throw new Exception (
@@ -359,6 +358,16 @@ public class ProxyDomainParser implements DomainParser {
                 .domainParsers(copyOfParsers)
                 .aggregateReader(parentReader.isAggregateReader())
                 .flushLastTransactions(parentReader.shouldFlushLastTransactions())
+                .readerBackend(parentReader.getReaderBackend())
+                .maxRetainedPayloadSize(
+                    parentReader.getMaxRetainedPayloadSize()
+                )
+                .pipelineWorkers(parentReader.getPipelineWorkers())
+                .shardByTable(parentReader.isShardByTable())
+                .tailing(parentReader.isTailing())
+                .indexInterval(parentReader.getIndexInterval())
+                .columnProjection(parentReader.getColumnProjection())
+                .columnCriteria(parentReader.getColumnCriteria())
                 .build()
         );
         
@@ -17,8 +17,6 @@ package com.dbvisit.replicate.plog.domain.parser;
  **/
 
 import java.sql.Timestamp;
-import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +27,7 @@ import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 
 
@@ -67,7 +66,7 @@ public class TransactionInfoParser implements DomainParser {
     public void parse(PlogFile plog, EntryRecord rec) throws Exception {
         try {
             /* decode core fields from LCR use to build up transaction info */
-            Map <EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+            EntryTags tags = rec.getEntryTags();
             
             EntryTagRecord tag;
             int plogId = plog.getId();
@@ -81,9 +80,9 @@ public class TransactionInfoParser implements DomainParser {
             
             /* first parse transaction ID only */
             EntryTagType type = EntryTagType.TAG_XID;
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
-                txId = SimpleDataDecoder.decodeCharString(tag.getRawData());
+            tag = tags.first (type);
+            if (tag != null) {
+                txId = SimpleDataDecoder.decodeCharString(tag.getData());
             }
             
             /* do not process records with no transaction ID and omit
@@ -131,15 +130,15 @@ public class TransactionInfoParser implements DomainParser {
                 }
                 
                 type = EntryTagType.TAG_PLOGSEQ;
-                if (tags.containsKey(type)) {
-                    tag = tags.get (type).get(0);
-                    plogId = SimpleDataDecoder.decodeInteger (tag.getRawData());
+                tag = tags.first (type);
+                if (tag != null) {
+                    plogId = SimpleDataDecoder.decodeInteger (tag.getData());
                 }
 
                 type = EntryTagType.TAG_LCR_ID;
-                if (tags.containsKey(type)) {
-                    tag = tags.get (type).get(0);
-                    lcrId = SimpleDataDecoder.decodeLong(tag.getRawData()) 
+                tag = tags.first (type);
+                if (tag != null) {
+                    lcrId = SimpleDataDecoder.decodeLong(tag.getData()) 
                             + (1000000000L * plogId);
                     
                     /* LCR ids */
@@ -167,9 +166,9 @@ public class TransactionInfoParser implements DomainParser {
                 /* TAG_SAVEPOINT_ID: not needed for pessimistic commit */
 
                 type = EntryTagType.TAG_SCN;
-                if (tags.containsKey(type)) {
-                    tag = tags.get (type).get(0);
-                    scn = SimpleDataDecoder.decodeLong (tag.getRawData());
+                tag = tags.first (type);
+                if (tag != null) {
+                    scn = SimpleDataDecoder.decodeLong (tag.getData());
                     
                     /* SCNs */
                     if (currentTxr.getStartSCN() == 0L ||
@@ -185,9 +184,9 @@ public class TransactionInfoParser implements DomainParser {
                 }
 
                 type = EntryTagType.TAG_DTIME;
-                if (tags.containsKey(type)) {
-                    tag = tags.get (type).get(0);
-                    time = SimpleDataDecoder.decodeDate(tag.getRawData());
+                tag = tags.first (type);
+                if (tag != null) {
+                    time = SimpleDataDecoder.decodeDate(tag.getData());
                     
                     /* time */
                     if (currentTxr.getStartTime() == null ||
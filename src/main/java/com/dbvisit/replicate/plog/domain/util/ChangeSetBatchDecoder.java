@@ -0,0 +1,589 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import static com.dbvisit.replicate.plog.domain.util.ChangeSetBatchFormat.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import com.dbvisit.replicate.plog.domain.ChangeAction;
+import com.dbvisit.replicate.plog.domain.ChangeSetRecord;
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.metadata.DDLMetaData;
+
+/**
+ * Decodes a binary columnar batch of change set records, as encoded by
+ * {@link ChangeSetBatchEncoder}, back to change set records in the order
+ * they were encoded.
+ *
+ * @see ChangeSetBatchFormat
+ */
+public class ChangeSetBatchDecoder {
+    /**
+     * Decode the change set records of a batch
+     *
+     * @param data encoded batch
+     *
+     * @return change set records, in batch order
+     * @throws Exception if the data is not a valid change set batch
+     */
+    public static List<ChangeSetRecord> decode (final byte[] data)
+    throws Exception {
+        try {
+            Input in = new Input (data);
+            int num = readHeader (in);
+            String[] dictionary = readDictionary (in);
+            List<DDLMetaData> schemas = readSchemas (in, dictionary);
+
+            return readRecords (in, num, dictionary, schemas);
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new Exception (
+                "Unable to decode change set batch, reason: truncated data"
+            );
+        }
+        catch (Exception e) {
+            throw new Exception (
+                "Unable to decode change set batch, reason: " +
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Decode the schemas of a batch, without decoding its records, as
+     * data definitions with only the object ID of table, as schema ID,
+     * the SCN it is valid since, as schema version, and its owner and
+     * table name
+     *
+     * @param data encoded batch
+     *
+     * @return schemas of batch, in order of their first record
+     * @throws Exception if the data is not a valid change set batch
+     */
+    public static List<DDLMetaData> decodeSchemas (final byte[] data)
+    throws Exception {
+        try {
+            Input in = new Input (data);
+            readHeader (in);
+
+            return readSchemas (in, readDictionary (in));
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new Exception (
+                "Unable to decode change set batch, reason: truncated data"
+            );
+        }
+        catch (Exception e) {
+            throw new Exception (
+                "Unable to decode change set batch, reason: " +
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Read and check the header of batch
+     *
+     * @param in batch input
+     *
+     * @return number of records in batch
+     * @throws Exception if not a change set batch of a supported version
+     */
+    private static int readHeader (final Input in) throws Exception {
+        if (in.getInt() != MAGIC) {
+            throw new Exception ("not a change set batch");
+        }
+
+        byte version = in.get();
+
+        if (version != VERSION) {
+            throw new Exception ("unsupported version: " + version);
+        }
+
+        return in.getLength();
+    }
+
+    /**
+     * Read the dictionary of batch
+     *
+     * @param in batch input
+     *
+     * @return strings of dictionary
+     * @throws Exception if a length is invalid
+     */
+    private static String[] readDictionary (final Input in)
+    throws Exception {
+        String[] dictionary = new String[in.getLength()];
+
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.getString();
+        }
+
+        return dictionary;
+    }
+
+    /**
+     * Read the schemas of batch
+     *
+     * @param in         batch input
+     * @param dictionary strings of dictionary
+     *
+     * @return schemas of batch
+     * @throws Exception if a reference is invalid
+     */
+    private static List<DDLMetaData> readSchemas (
+        final Input in,
+        final String[] dictionary
+    ) throws Exception {
+        int num = in.getLength();
+        List<DDLMetaData> schemas = new ArrayList<DDLMetaData>(num);
+
+        for (int s = 0; s < num; s++) {
+            DDLMetaData schema = new DDLMetaData();
+
+            schema.setObjectId ((int) unZigZag (in.getVarLong()));
+            schema.setValidSinceSCN (unZigZag (in.getVarLong()));
+            schema.setSchemaName (lookup (dictionary, in.getVarLong()));
+            schema.setTableName (lookup (dictionary, in.getVarLong()));
+
+            schemas.add (schema);
+        }
+
+        return schemas;
+    }
+
+    /**
+     * Read the records of batch and the images of their schemas
+     *
+     * @param in         batch input
+     * @param num        number of records
+     * @param dictionary strings of dictionary
+     * @param schemas    schemas of batch
+     *
+     * @return change set records, in batch order
+     * @throws Exception if the records are invalid
+     */
+    private static List<ChangeSetRecord> readRecords (
+        final Input in,
+        final int num,
+        final String[] dictionary,
+        final List<DDLMetaData> schemas
+    ) throws Exception {
+        List<ChangeSetRecord> records = new ArrayList<ChangeSetRecord>(num);
+        int[] recordSchemas = new int[num];
+
+        /* the records of each schema, in batch order */
+        List<List<ChangeSetRecord>> schemaRecords =
+            new ArrayList<List<ChangeSetRecord>>(schemas.size());
+
+        for (int s = 0; s < schemas.size(); s++) {
+            schemaRecords.add (new ArrayList<ChangeSetRecord>());
+        }
+
+        for (int r = 0; r < num; r++) {
+            recordSchemas[r] = (int) in.getVarLong();
+
+            if (recordSchemas[r] >= schemas.size()) {
+                throw new Exception (
+                    "invalid schema index: " + recordSchemas[r]
+                );
+            }
+
+            DDLMetaData schema = schemas.get (recordSchemas[r]);
+            ChangeSetRecord rec = new ChangeSetRecord();
+
+            rec.setTableId (schema.getObjectId());
+            rec.setTableOwner (schema.getSchemaName());
+            rec.setTableName (schema.getTableName());
+
+            records.add (rec);
+            schemaRecords.get (recordSchemas[r]).add (rec);
+        }
+
+        for (ChangeSetRecord rec : records) {
+            String action = lookup (dictionary, in.getVarLong());
+
+            if (action != null) {
+                rec.setAction (ChangeAction.valueOf (action));
+            }
+        }
+
+        long prev = 0L;
+        for (ChangeSetRecord rec : records) {
+            prev += unZigZag (in.getVarLong());
+            rec.setId (prev);
+        }
+
+        prev = 0L;
+        for (ChangeSetRecord rec : records) {
+            prev += unZigZag (in.getVarLong());
+            rec.setPlogId ((int) prev);
+        }
+
+        for (ChangeSetRecord rec : records) {
+            rec.setTransactionId (lookup (dictionary, in.getVarLong()));
+        }
+
+        prev = 0L;
+        for (ChangeSetRecord rec : records) {
+            prev += unZigZag (in.getVarLong());
+            rec.setSystemChangeNumber (prev);
+        }
+
+        byte[] nulls = in.getBitmap (num);
+        prev = 0L;
+        for (int r = 0; r < num; r++) {
+            if (!isSet (nulls, r)) {
+                prev += unZigZag (in.getVarLong());
+                records.get (r).setTimestamp (
+                    toTimestamp (prev, in.getVarLong())
+                );
+            }
+        }
+
+        byte[] multiPart = in.getBitmap (num);
+        for (int r = 0; r < num; r++) {
+            records.get (r).setIsMultiPart (isSet (multiPart, r));
+        }
+
+        nulls = in.getBitmap (num);
+        long prevUID = 0L;
+        prev = 0L;
+        for (int r = 0; r < num; r++) {
+            if (!isSet (nulls, r)) {
+                prevUID += unZigZag (in.getVarLong());
+                prev += unZigZag (in.getVarLong());
+                records.get (r).setReplicateOffset (
+                    new ReplicateOffset (prevUID, prev)
+                );
+            }
+        }
+
+        for (List<ChangeSetRecord> recs : schemaRecords) {
+            for (int i = 0; i < NUM_IMAGES; i++) {
+                readImage (in, dictionary, recs, i);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Read an image of the records of a schema
+     *
+     * @param in         batch input
+     * @param dictionary strings of dictionary
+     * @param records    the records of schema, in batch order
+     * @param image      the image to read
+     *
+     * @throws Exception if the image is invalid
+     */
+    private static void readImage (
+        final Input in,
+        final String[] dictionary,
+        final List<ChangeSetRecord> records,
+        final int image
+    ) throws Exception {
+        int numSlots = in.getLength();
+        int[] ids = new int[numSlots];
+        String[] names = new String[numSlots];
+        ColumnDataType[] types = new ColumnDataType[numSlots];
+        byte[] kinds = new byte[numSlots];
+
+        for (int s = 0; s < numSlots; s++) {
+            ids[s]   = (int) in.getVarLong();
+            names[s] = lookup (dictionary, in.getVarLong());
+
+            String type = lookup (dictionary, in.getVarLong());
+            types[s] = type != null ? ColumnDataType.valueOf (type) : null;
+            kinds[s] = in.get();
+        }
+
+        /* the column values of each slot, in record order */
+        List<List<ColumnValue>> slotValues =
+            new ArrayList<List<ColumnValue>>(numSlots);
+
+        for (int s = 0; s < numSlots; s++) {
+            slotValues.add (new ArrayList<ColumnValue>());
+        }
+
+        for (ChangeSetRecord rec : records) {
+            int num = in.getLength();
+
+            for (int v = 0; v < num; v++) {
+                int s = (int) in.getVarLong();
+
+                if (s >= numSlots) {
+                    throw new Exception ("invalid column slot: " + s);
+                }
+
+                ColumnValue value = new ColumnValue (
+                    ids[s], types[s], names[s], null, false
+                );
+
+                switch (image) {
+                    case KEY_IMAGE:
+                        rec.addKeyValue (value);
+                        break;
+                    case OLD_IMAGE:
+                        rec.addOldValue (value);
+                        break;
+                    case NEW_IMAGE:
+                        rec.addNewValue (value);
+                        break;
+                    default:
+                        rec.addLobValue (value);
+                        break;
+                }
+
+                slotValues.get (s).add (value);
+            }
+        }
+
+        for (int s = 0; s < numSlots; s++) {
+            readSlot (in, kinds[s], slotValues.get (s));
+        }
+    }
+
+    /**
+     * Read the bitmaps and vector of values of a column slot
+     *
+     * @param in     batch input
+     * @param kind   kind of values in slot
+     * @param values the column values of slot, in record order
+     *
+     * @throws Exception if the values are invalid
+     */
+    private static void readSlot (
+        final Input in,
+        final byte kind,
+        final List<ColumnValue> values
+    ) throws Exception {
+        int num = values.size();
+        byte[] nulls   = in.getBitmap (num);
+        byte[] supLogs = in.getBitmap (num);
+        byte[] keys    = in.getBitmap (num);
+        long prev = 0L;
+
+        for (int v = 0; v < num; v++) {
+            ColumnValue value = values.get (v);
+
+            value.setIsSupLogKey (isSet (supLogs, v));
+            value.setIsKeyValue (isSet (keys, v));
+
+            if (isSet (nulls, v)) {
+                continue;
+            }
+
+            switch (kind) {
+                case KIND_INT:
+                    value.setValue ((int) unZigZag (in.getVarLong()));
+                    break;
+                case KIND_LONG:
+                    value.setValue (unZigZag (in.getVarLong()));
+                    break;
+                case KIND_DECIMAL:
+                    value.setValue (getDecimal (in));
+                    break;
+                case KIND_STRING:
+                    value.setValue (in.getString());
+                    break;
+                case KIND_BINARY:
+                    value.setValue (new SerialBlob (in.getBytes()));
+                    break;
+                case KIND_TIMESTAMP:
+                    prev += unZigZag (in.getVarLong());
+                    value.setValue (toTimestamp (prev, in.getVarLong()));
+                    break;
+                default:
+                    throw new Exception (
+                        "invalid kind of column values: " + kind
+                    );
+            }
+        }
+    }
+
+    /**
+     * Read decimal as scale and its unscaled value
+     *
+     * @param in batch input
+     *
+     * @return decimal value
+     * @throws Exception if the decimal is invalid
+     */
+    private static BigDecimal getDecimal (final Input in) throws Exception {
+        int scale = (int) unZigZag (in.getVarLong());
+        byte format = in.get();
+
+        if (format == DECIMAL_LONG) {
+            return BigDecimal.valueOf (unZigZag (in.getVarLong()), scale);
+        }
+        else if (format == DECIMAL_BYTES) {
+            return new BigDecimal (new BigInteger (in.getBytes()), scale);
+        }
+
+        throw new Exception ("invalid decimal format: " + format);
+    }
+
+    /**
+     * Create time stamp from epoch milli seconds and its nanos within the
+     * last milli second
+     *
+     * @param millis epoch milli seconds
+     * @param nanos  nanos within last milli second
+     *
+     * @return time stamp
+     */
+    private static Timestamp toTimestamp (final long millis, final long nanos)
+    {
+        Timestamp timestamp = new Timestamp (millis);
+
+        if (nanos != 0) {
+            timestamp.setNanos (timestamp.getNanos() + (int) nanos);
+        }
+
+        return timestamp;
+    }
+
+    /**
+     * Lookup string in dictionary by its reference
+     *
+     * @param dictionary strings of dictionary
+     * @param ref        zero for null, else index plus one
+     *
+     * @return the string
+     * @throws Exception if the reference is invalid
+     */
+    private static String lookup (final String[] dictionary, final long ref)
+    throws Exception {
+        if (ref == 0) {
+            return null;
+        }
+
+        if (ref > dictionary.length) {
+            throw new Exception ("invalid dictionary reference: " + ref);
+        }
+
+        return dictionary[(int) ref - 1];
+    }
+
+    /**
+     * Check whether or not bit is set in bitmap
+     *
+     * @param bitmap the bitmap
+     * @param bit    the bit to check
+     *
+     * @return true if set, else false
+     */
+    private static boolean isSet (final byte[] bitmap, final int bit) {
+        return (bitmap[bit >>> 3] & (1 << (bit & 7))) != 0;
+    }
+
+    /** Input of batch being decoded */
+    private static class Input {
+        private final byte[] buf;
+        private int pos;
+
+        Input (final byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte get () {
+            return buf[pos++];
+        }
+
+        int getInt () {
+            return ((buf[pos++] & 0xFF) << 24) |
+                   ((buf[pos++] & 0xFF) << 16) |
+                   ((buf[pos++] & 0xFF) << 8)  |
+                   (buf[pos++] & 0xFF);
+        }
+
+        long getVarLong () throws Exception {
+            long value = 0L;
+
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new Exception ("variable length value is too long");
+        }
+
+        /* lengths and counts cannot exceed the remaining data */
+        int getLength () throws Exception {
+            long length = getVarLong();
+
+            if (length < 0 || length > buf.length - pos) {
+                throw new Exception (
+                    "truncated data, invalid length: " + length
+                );
+            }
+
+            return (int) length;
+        }
+
+        byte[] getBytes () throws Exception {
+            int length = getLength();
+            byte[] bytes = new byte[length];
+
+            System.arraycopy (buf, pos, bytes, 0, length);
+            pos += length;
+
+            return bytes;
+        }
+
+        String getString () throws Exception {
+            int length = getLength();
+            String value = new String (
+                buf, pos, length, StandardCharsets.UTF_8
+            );
+            pos += length;
+
+            return value;
+        }
+
+        byte[] getBitmap (final int num) throws Exception {
+            int size = bitmapSize (num);
+
+            if (size > buf.length - pos) {
+                throw new Exception ("truncated data");
+            }
+
+            byte[] bitmap = new byte[size];
+
+            System.arraycopy (buf, pos, bitmap, 0, size);
+            pos += size;
+
+            return bitmap;
+        }
+    }
+}
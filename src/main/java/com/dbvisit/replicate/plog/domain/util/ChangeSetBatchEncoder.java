@@ -0,0 +1,873 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import static com.dbvisit.replicate.plog.domain.util.ChangeSetBatchFormat.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import com.dbvisit.replicate.plog.domain.ChangeSetRecord;
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.MetaDataRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.metadata.DDLMetaData;
+
+/**
+ * Encodes the change set records of a list of domain records, as flushed
+ * by the PLOG stream reader, into a dense binary columnar batch, as an
+ * alternative to JSON. Records are grouped per schema, identified by the
+ * object ID of their table and versioned by the SCN since which its data
+ * definition is valid, and the column values of their key, old, new and
+ * LOB images are written as typed vectors per column with null bitmaps.
+ * Table, column, type and action names and transaction IDs are dictionary
+ * encoded.
+ *
+ * <p>
+ * The encoder keeps the data definitions of schemas it was created with
+ * and updates them from the meta data records encountered in order, so
+ * that change records are encoded with the schema version in effect when
+ * they were parsed. All other domain records are not encoded.
+ * </p>
+ *
+ * <p>
+ * An encoder is not thread safe.
+ * </p>
+ *
+ * @see ChangeSetBatchDecoder
+ * @see ChangeSetBatchFormat
+ */
+public class ChangeSetBatchEncoder {
+    /** Data definitions of schemas, by schema identifier */
+    private final Map<String, DDLMetaData> schemas;
+
+    /**
+     * Create an encoder without known data definitions, these are only
+     * learned from the meta data records encoded
+     */
+    public ChangeSetBatchEncoder () {
+        this (null);
+    }
+
+    /**
+     * Create an encoder with the data definitions of schemas already
+     * known, eg. the schema cache of PLOG being read
+     *
+     * @param schemas data definitions of schemas, by schema identifier,
+     *                may be null
+     */
+    public ChangeSetBatchEncoder (final Map<String, DDLMetaData> schemas) {
+        this.schemas = new HashMap<String, DDLMetaData>();
+
+        if (schemas != null) {
+            this.schemas.putAll (schemas);
+        }
+    }
+
+    /**
+     * Encode the change set records in domain records to a batch
+     *
+     * @param records domain records, in the order they were read
+     *
+     * @return the encoded batch of change set records
+     * @throws Exception if a column value cannot be encoded
+     */
+    public byte[] encode (final List<DomainRecord> records)
+    throws Exception {
+        Batch batch = new Batch();
+
+        for (DomainRecord rec : records) {
+            if (rec == null) {
+                continue;
+            }
+
+            if (rec.isMetaDataRecord()) {
+                updateSchema (((MetaDataRecord) rec).getMetaData());
+            }
+            else if (rec instanceof ChangeSetRecord) {
+                batch.add ((ChangeSetRecord) rec);
+            }
+        }
+
+        return batch.write();
+    }
+
+    /**
+     * Update the data definition of a schema, if newer than the one known
+     *
+     * @param ddl data definition of schema, from meta data record
+     */
+    private void updateSchema (final DDLMetaData ddl) {
+        if (ddl == null || !ddl.isValid()) {
+            return;
+        }
+
+        String schema = ddl.getSchemataName();
+        DDLMetaData current = schemas.get (schema);
+
+        if (current == null ||
+            current.getValidSinceSCN() == null ||
+            (ddl.getValidSinceSCN() != null &&
+             ddl.getValidSinceSCN() > current.getValidSinceSCN()))
+        {
+            schemas.put (schema, ddl);
+        }
+    }
+
+    /**
+     * Return the schema version of a change set record, the SCN since which
+     * the data definition of its table is valid
+     *
+     * @param rec the change set record
+     *
+     * @return schema version, or -1 when unknown
+     */
+    private long getSchemaVersion (final ChangeSetRecord rec) {
+        String schema = rec.getSchemaIdentifier();
+        DDLMetaData ddl = schema != null ? schemas.get (schema) : null;
+
+        if (ddl != null && ddl.getValidSinceSCN() != null) {
+            return ddl.getValidSinceSCN();
+        }
+
+        return -1L;
+    }
+
+    /** The state of one batch being encoded */
+    private class Batch {
+        /** Dictionary of strings, by string */
+        private final Map<String, Integer> dictionary =
+            new LinkedHashMap<String, Integer>();
+        /** Schemas of records, in order of their first record */
+        private final Map<SchemaKey, Schema> schemaIndex =
+            new LinkedHashMap<SchemaKey, Schema>();
+        /** Change set records, in batch order */
+        private final List<ChangeSetRecord> records =
+            new ArrayList<ChangeSetRecord>();
+        /** Schema of each change set record, in batch order */
+        private final List<Schema> recordSchemas = new ArrayList<Schema>();
+
+        /**
+         * Add change set record to batch, its column values to the column
+         * slots of its schema
+         *
+         * @param rec change set record
+         *
+         * @throws Exception if a column value cannot be encoded
+         */
+        void add (final ChangeSetRecord rec) throws Exception {
+            SchemaKey key = new SchemaKey (
+                rec.getTableId(),
+                getSchemaVersion (rec),
+                rec.getTableOwner(),
+                rec.getTableName()
+            );
+
+            Schema schema = schemaIndex.get (key);
+
+            if (schema == null) {
+                schema = new Schema (key, schemaIndex.size());
+                schemaIndex.put (key, schema);
+            }
+
+            schema.images[KEY_IMAGE].add (rec.getKeyValues());
+            schema.images[OLD_IMAGE].add (rec.getOldValues());
+            schema.images[NEW_IMAGE].add (rec.getNewValues());
+            schema.images[LOB_IMAGE].add (rec.getLobValues());
+
+            records.add (rec);
+            recordSchemas.add (schema);
+        }
+
+        /**
+         * Return the dictionary reference of a string, adding it to the
+         * dictionary if new
+         *
+         * @param value string, may be null
+         *
+         * @return zero for null, else index in dictionary plus one
+         */
+        int ref (final String value) {
+            if (value == null) {
+                return 0;
+            }
+
+            Integer idx = dictionary.get (value);
+
+            if (idx == null) {
+                idx = dictionary.size();
+                dictionary.put (value, idx);
+            }
+
+            return idx + 1;
+        }
+
+        /**
+         * Write the batch, its dictionary is complete only once its
+         * records and images have been written
+         *
+         * @return encoded batch
+         * @throws Exception if a column value cannot be encoded
+         */
+        byte[] write () throws Exception {
+            Output body = new Output (records.size() * 64);
+
+            writeSchemas (body);
+            writeRecords (body);
+
+            for (Schema schema : schemaIndex.values()) {
+                for (Image image : schema.images) {
+                    image.write (body);
+                }
+            }
+
+            Output out = new Output (body.size() + dictionary.size() * 16);
+
+            out.putInt (MAGIC);
+            out.put (VERSION);
+            out.putVarLong (records.size());
+            out.putVarLong (dictionary.size());
+
+            for (String value : dictionary.keySet()) {
+                out.putString (value);
+            }
+
+            out.put (body);
+
+            return out.toByteArray();
+        }
+
+        /**
+         * Write the schemas of batch
+         *
+         * @param out output to write to
+         */
+        private void writeSchemas (final Output out) {
+            out.putVarLong (schemaIndex.size());
+
+            for (SchemaKey key : schemaIndex.keySet()) {
+                out.putVarLong (zigZag (key.tableId));
+                out.putVarLong (zigZag (key.version));
+                out.putVarLong (ref (key.owner));
+                out.putVarLong (ref (key.name));
+            }
+        }
+
+        /**
+         * Write the vectors of record fields, in batch order
+         *
+         * @param out output to write to
+         */
+        private void writeRecords (final Output out) {
+            int num = records.size();
+
+            for (Schema schema : recordSchemas) {
+                out.putVarLong (schema.index);
+            }
+
+            for (ChangeSetRecord rec : records) {
+                out.putVarLong (
+                    ref (rec.getAction() != null
+                         ? rec.getAction().name()
+                         : null)
+                );
+            }
+
+            long prev = 0L;
+            for (ChangeSetRecord rec : records) {
+                out.putVarLong (zigZag (rec.getId() - prev));
+                prev = rec.getId();
+            }
+
+            prev = 0L;
+            for (ChangeSetRecord rec : records) {
+                out.putVarLong (zigZag (rec.getPlogId() - prev));
+                prev = rec.getPlogId();
+            }
+
+            for (ChangeSetRecord rec : records) {
+                out.putVarLong (ref (rec.getTransactionId()));
+            }
+
+            prev = 0L;
+            for (ChangeSetRecord rec : records) {
+                out.putVarLong (zigZag (rec.getSystemChangeNumber() - prev));
+                prev = rec.getSystemChangeNumber();
+            }
+
+            byte[] bitmap = new byte[bitmapSize (num)];
+            for (int r = 0; r < num; r++) {
+                if (records.get (r).getTimestamp() == null) {
+                    setBit (bitmap, r);
+                }
+            }
+            out.put (bitmap);
+
+            prev = 0L;
+            for (ChangeSetRecord rec : records) {
+                Timestamp timestamp = rec.getTimestamp();
+
+                if (timestamp != null) {
+                    out.putVarLong (zigZag (timestamp.getTime() - prev));
+                    out.putVarLong (timestamp.getNanos() % NANOS_PER_MILLI);
+                    prev = timestamp.getTime();
+                }
+            }
+
+            bitmap = new byte[bitmapSize (num)];
+            for (int r = 0; r < num; r++) {
+                if (records.get (r).isMultiPart()) {
+                    setBit (bitmap, r);
+                }
+            }
+            out.put (bitmap);
+
+            bitmap = new byte[bitmapSize (num)];
+            for (int r = 0; r < num; r++) {
+                if (records.get (r).getReplicateOffset() == null) {
+                    setBit (bitmap, r);
+                }
+            }
+            out.put (bitmap);
+
+            long prevUID = 0L;
+            prev = 0L;
+            for (ChangeSetRecord rec : records) {
+                ReplicateOffset offset = rec.getReplicateOffset();
+
+                if (offset != null) {
+                    out.putVarLong (zigZag (offset.getPlogUID() - prevUID));
+                    out.putVarLong (zigZag (offset.getPlogOffset() - prev));
+                    prevUID = offset.getPlogUID();
+                    prev = offset.getPlogOffset();
+                }
+            }
+        }
+
+        /** A schema, table and its version, of records in batch */
+        private class Schema {
+            /** Identifies the schema */
+            final SchemaKey key;
+            /** Index of schema in batch */
+            final int index;
+            /** Key, old, new and LOB images of its records */
+            final Image[] images = new Image[NUM_IMAGES];
+
+            /**
+             * Create schema of records in batch
+             *
+             * @param key   identifies the schema
+             * @param index index of schema in batch
+             */
+            Schema (final SchemaKey key, final int index) {
+                this.key   = key;
+                this.index = index;
+
+                for (int i = 0; i < NUM_IMAGES; i++) {
+                    images[i] = new Image();
+                }
+            }
+        }
+
+        /** One image, eg. the new values, of the records of a schema */
+        private class Image {
+            /** Column slots of image, in order of first appearance */
+            private final List<Slot> slots = new ArrayList<Slot>();
+            /** Column slots by column, value kind */
+            private final Map<SlotKey, Slot> slotIndex =
+                new HashMap<SlotKey, Slot>();
+            /** The slots of column values of each record, in order */
+            private final Output layout = new Output (64);
+
+            /**
+             * Add the column values of a record to image
+             *
+             * @param values column values of record in this image
+             *
+             * @throws Exception if a column value cannot be encoded
+             */
+            void add (final List<ColumnValue> values) throws Exception {
+                if (values == null) {
+                    layout.putVarLong (0);
+                    return;
+                }
+
+                layout.putVarLong (values.size());
+
+                for (ColumnValue value : values) {
+                    if (value == null) {
+                        throw new Exception (
+                            "Unable to encode change set, reason: it has " +
+                            "an empty column value"
+                        );
+                    }
+
+                    Slot slot = findSlot (value);
+
+                    slot.values.add (value);
+                    layout.putVarLong (slot.index);
+                }
+            }
+
+            /**
+             * Find the column slot for a column value, a slot only holds
+             * values of one kind, null values go to the first slot of
+             * their column
+             *
+             * @param value column value
+             *
+             * @return column slot
+             * @throws Exception if the value cannot be encoded
+             */
+            private Slot findSlot (final ColumnValue value)
+            throws Exception {
+                Object v = value.getValue();
+                byte kind = kindOf (v);
+
+                SlotKey key = new SlotKey (
+                    value.getId(),
+                    value.getName(),
+                    value.getType(),
+                    KIND_NULL
+                );
+
+                /* the first slot of column */
+                Slot slot = slotIndex.get (key);
+
+                if (slot != null && kind != KIND_NULL && slot.kind != kind) {
+                    if (slot.kind == KIND_NULL) {
+                        /* only had null values so far */
+                        slot.kind = kind;
+                    }
+                    else {
+                        key.kind = kind;
+                        slot = slotIndex.get (key);
+                    }
+                }
+
+                if (slot == null) {
+                    slot = new Slot (
+                        slots.size(),
+                        value.getId(),
+                        value.getName(),
+                        value.getType(),
+                        kind
+                    );
+                    slots.add (slot);
+                    slotIndex.put (key, slot);
+                }
+
+                return slot;
+            }
+
+            /**
+             * Write the column slots, layout and value vectors of image
+             *
+             * @param out output to write to
+             *
+             * @throws Exception if a column value cannot be encoded
+             */
+            void write (final Output out) throws Exception {
+                out.putVarLong (slots.size());
+
+                for (Slot slot : slots) {
+                    out.putVarLong (slot.id);
+                    out.putVarLong (ref (slot.name));
+                    out.putVarLong (
+                        ref (slot.type != null ? slot.type.name() : null)
+                    );
+                    out.put (slot.kind);
+                }
+
+                out.put (layout);
+
+                for (Slot slot : slots) {
+                    slot.write (out);
+                }
+            }
+        }
+
+        /** The column slot of the values of a column in an image */
+        private class Slot {
+            /** Index of slot in image */
+            final int index;
+            /** Column ID */
+            final int id;
+            /** Column name */
+            final String name;
+            /** Column data type */
+            final ColumnDataType type;
+            /** Kind of values */
+            byte kind;
+            /** Column values, in record order */
+            final List<ColumnValue> values = new ArrayList<ColumnValue>();
+
+            /**
+             * Create column slot
+             *
+             * @param index index of slot in image
+             * @param id    column ID
+             * @param name  column name
+             * @param type  column data type
+             * @param kind  kind of values
+             */
+            Slot (
+                final int index,
+                final int id,
+                final String name,
+                final ColumnDataType type,
+                final byte kind
+            ) {
+                this.index = index;
+                this.id    = id;
+                this.name  = name;
+                this.type  = type;
+                this.kind  = kind;
+            }
+
+            /**
+             * Write the null, supplemental key and key bitmaps of slot
+             * and the vector of its non-null values
+             *
+             * @param out output to write to
+             *
+             * @throws Exception if a column value cannot be encoded
+             */
+            void write (final Output out) throws Exception {
+                int num = values.size();
+                byte[] nulls   = new byte[bitmapSize (num)];
+                byte[] supLogs = new byte[bitmapSize (num)];
+                byte[] keys    = new byte[bitmapSize (num)];
+
+                for (int v = 0; v < num; v++) {
+                    ColumnValue value = values.get (v);
+
+                    if (value.getValue() == null) {
+                        setBit (nulls, v);
+                    }
+                    if (value.isSupLogKey()) {
+                        setBit (supLogs, v);
+                    }
+                    if (value.isKeyValue()) {
+                        setBit (keys, v);
+                    }
+                }
+
+                out.put (nulls);
+                out.put (supLogs);
+                out.put (keys);
+
+                long prev = 0L;
+
+                for (ColumnValue value : values) {
+                    Object v = value.getValue();
+
+                    if (v == null) {
+                        continue;
+                    }
+
+                    switch (kind) {
+                        case KIND_INT:
+                            out.putVarLong (zigZag ((Integer) v));
+                            break;
+                        case KIND_LONG:
+                            out.putVarLong (zigZag ((Long) v));
+                            break;
+                        case KIND_DECIMAL:
+                            putDecimal (out, (BigDecimal) v);
+                            break;
+                        case KIND_STRING:
+                            out.putString ((String) v);
+                            break;
+                        case KIND_BINARY:
+                        {
+                            SerialBlob blob = (SerialBlob) v;
+                            out.putBytes (
+                                blob.getBytes (1, (int) blob.length())
+                            );
+                            break;
+                        }
+                        case KIND_TIMESTAMP:
+                        {
+                            Timestamp timestamp = (Timestamp) v;
+                            out.putVarLong (
+                                zigZag (timestamp.getTime() - prev)
+                            );
+                            out.putVarLong (
+                                timestamp.getNanos() % NANOS_PER_MILLI
+                            );
+                            prev = timestamp.getTime();
+                            break;
+                        }
+                        default:
+                            throw new Exception (
+                                "Invalid kind of column values: " + kind
+                            );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the kind of a column value, by its decoded type
+     *
+     * @param value decoded column value
+     *
+     * @return kind of value
+     * @throws Exception if the type of value cannot be encoded
+     */
+    private static byte kindOf (final Object value) throws Exception {
+        if (value == null) {
+            return KIND_NULL;
+        }
+        else if (value instanceof Integer) {
+            return KIND_INT;
+        }
+        else if (value instanceof Long) {
+            return KIND_LONG;
+        }
+        else if (value instanceof BigDecimal) {
+            return KIND_DECIMAL;
+        }
+        else if (value instanceof String) {
+            return KIND_STRING;
+        }
+        else if (value instanceof SerialBlob) {
+            return KIND_BINARY;
+        }
+        else if (value instanceof Timestamp) {
+            return KIND_TIMESTAMP;
+        }
+
+        throw new Exception (
+            "Unable to encode column value of type: " +
+            value.getClass().getName() + ", reason: it is not supported"
+        );
+    }
+
+    /**
+     * Write decimal as scale and its unscaled value, as long if it fits
+     *
+     * @param out   output to write to
+     * @param value decimal value
+     */
+    private static void putDecimal (final Output out, final BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+
+        out.putVarLong (zigZag (value.scale()));
+
+        if (unscaled.bitLength() < 64) {
+            out.put (DECIMAL_LONG);
+            out.putVarLong (zigZag (unscaled.longValue()));
+        }
+        else {
+            out.put (DECIMAL_BYTES);
+            out.putBytes (unscaled.toByteArray());
+        }
+    }
+
+    /**
+     * Set bit in bitmap
+     *
+     * @param bitmap the bitmap
+     * @param bit    the bit to set
+     */
+    private static void setBit (final byte[] bitmap, final int bit) {
+        bitmap[bit >>> 3] |= 1 << (bit & 7);
+    }
+
+    /** Identifies a schema, table and its version, of records in batch */
+    private static class SchemaKey {
+        final int tableId;
+        final long version;
+        final String owner;
+        final String name;
+
+        SchemaKey (
+            final int tableId,
+            final long version,
+            final String owner,
+            final String name
+        ) {
+            this.tableId = tableId;
+            this.version = version;
+            this.owner   = owner;
+            this.name    = name;
+        }
+
+        @Override
+        public int hashCode () {
+            int hash = tableId;
+            hash = 31 * hash + (int) (version ^ (version >>> 32));
+            hash = 31 * hash + (owner != null ? owner.hashCode() : 0);
+            hash = 31 * hash + (name != null ? name.hashCode() : 0);
+
+            return hash;
+        }
+
+        @Override
+        public boolean equals (final Object obj) {
+            if (!(obj instanceof SchemaKey)) {
+                return false;
+            }
+
+            SchemaKey key = (SchemaKey) obj;
+
+            return tableId == key.tableId && version == key.version &&
+                   equal (owner, key.owner) && equal (name, key.name);
+        }
+    }
+
+    /** Identifies the column slot of column values of one kind */
+    private static class SlotKey {
+        final int id;
+        final String name;
+        final ColumnDataType type;
+        byte kind;
+
+        SlotKey (
+            final int id,
+            final String name,
+            final ColumnDataType type,
+            final byte kind
+        ) {
+            this.id   = id;
+            this.name = name;
+            this.type = type;
+            this.kind = kind;
+        }
+
+        @Override
+        public int hashCode () {
+            int hash = id;
+            hash = 31 * hash + (name != null ? name.hashCode() : 0);
+            hash = 31 * hash + (type != null ? type.hashCode() : 0);
+            hash = 31 * hash + kind;
+
+            return hash;
+        }
+
+        @Override
+        public boolean equals (final Object obj) {
+            if (!(obj instanceof SlotKey)) {
+                return false;
+            }
+
+            SlotKey key = (SlotKey) obj;
+
+            return id == key.id && type == key.type && kind == key.kind &&
+                   equal (name, key.name);
+        }
+    }
+
+    /**
+     * Compare strings that may be null
+     *
+     * @param a first string
+     * @param b second string
+     *
+     * @return true if both null or equal, else false
+     */
+    private static boolean equal (final String a, final String b) {
+        return a == null ? b == null : a.equals (b);
+    }
+
+    /** Growable output buffer of a batch */
+    private static class Output {
+        private byte[] buf;
+        private int count;
+
+        Output (final int size) {
+            buf = new byte[Math.max (size, 16)];
+        }
+
+        int size () {
+            return count;
+        }
+
+        private void ensure (final int extra) {
+            if (count + extra > buf.length) {
+                buf = Arrays.copyOf (
+                    buf,
+                    Math.max (count + extra, buf.length * 2)
+                );
+            }
+        }
+
+        void put (final byte b) {
+            ensure (1);
+            buf[count++] = b;
+        }
+
+        void put (final byte[] bytes) {
+            ensure (bytes.length);
+            System.arraycopy (bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void put (final Output other) {
+            ensure (other.count);
+            System.arraycopy (other.buf, 0, buf, count, other.count);
+            count += other.count;
+        }
+
+        void putInt (final int value) {
+            ensure (4);
+            buf[count++] = (byte) (value >>> 24);
+            buf[count++] = (byte) (value >>> 16);
+            buf[count++] = (byte) (value >>> 8);
+            buf[count++] = (byte) value;
+        }
+
+        void putVarLong (final long value) {
+            long v = value;
+
+            ensure (10);
+            while ((v & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        void putBytes (final byte[] bytes) {
+            putVarLong (bytes.length);
+            put (bytes);
+        }
+
+        void putString (final String value) {
+            putBytes (value.getBytes (StandardCharsets.UTF_8));
+        }
+
+        byte[] toByteArray () {
+            return Arrays.copyOf (buf, count);
+        }
+    }
+}
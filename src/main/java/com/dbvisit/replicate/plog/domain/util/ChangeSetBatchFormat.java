@@ -0,0 +1,117 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+/**
+ * Layout of the binary columnar format of a batch of change set records,
+ * shared by its encoder and decoder. All integers are unsigned variable
+ * length, 7 bits per byte, signed ones and deltas are zig-zag encoded
+ * first. Strings are written once, in the dictionary of the batch, and
+ * referred to by their index plus one, zero for null.
+ *
+ * <pre>
+ * header      : MAGIC, VERSION (4 byte int, byte), number of records
+ * dictionary  : number of strings, each as length and UTF-8 bytes
+ * schemas     : number of schemas, each as schema ID, the object ID of
+ *               its table, schema version, the SCN its DDL is valid
+ *               since or -1 if unknown, and owner and table name
+ *               references
+ * records     : vectors of schema index, action reference, delta of LCR
+ *               ID, delta of PLOG ID, transaction ID reference, delta of
+ *               SCN, timestamp null bitmap and deltas, multi-part bitmap,
+ *               replicate offset null bitmap and deltas
+ * images      : per schema, the key, old, new and LOB images of its
+ *               records, each as its column slots, the slots of each
+ *               record, and per slot its null, supplemental key and key
+ *               bitmaps and its typed vector of non-null values
+ * </pre>
+ *
+ * @see ChangeSetBatchEncoder
+ * @see ChangeSetBatchDecoder
+ */
+final class ChangeSetBatchFormat {
+    /** Identifies a change set batch, PLCB */
+    static final int MAGIC = 0x504c4342;
+    /** Version of format */
+    static final byte VERSION = 1;
+
+    /** Number of images in a change set record, key, old, new and LOB */
+    static final int NUM_IMAGES = 4;
+    static final int KEY_IMAGE = 0;
+    static final int OLD_IMAGE = 1;
+    static final int NEW_IMAGE = 2;
+    static final int LOB_IMAGE = 3;
+
+    /** Column slot has only null values */
+    static final byte KIND_NULL = 0;
+    /** Integer values, zig-zag encoded */
+    static final byte KIND_INT = 1;
+    /** Long values, zig-zag encoded */
+    static final byte KIND_LONG = 2;
+    /** Decimal values, as scale and unscaled value */
+    static final byte KIND_DECIMAL = 3;
+    /** String values, as length and UTF-8 bytes */
+    static final byte KIND_STRING = 4;
+    /** Binary LOB values, as length and bytes */
+    static final byte KIND_BINARY = 5;
+    /** Time stamp values, as delta of epoch milliseconds and nanos */
+    static final byte KIND_TIMESTAMP = 6;
+
+    /** Unscaled value of decimal fits in a long */
+    static final byte DECIMAL_LONG = 0;
+    /** Unscaled value of decimal as two's complement bytes */
+    static final byte DECIMAL_BYTES = 1;
+
+    /** Number of nanos in a milli second */
+    static final int NANOS_PER_MILLI = 1000000;
+
+    private ChangeSetBatchFormat () {}
+
+    /**
+     * Return size of bitmap for a number of values
+     *
+     * @param num number of values
+     *
+     * @return size of bitmap in bytes
+     */
+    static int bitmapSize (final int num) {
+        return (num + 7) >>> 3;
+    }
+
+    /**
+     * Zig-zag encode a signed long so that small negative values have a
+     * small variable length encoding
+     *
+     * @param value signed value
+     *
+     * @return zig-zag encoded value
+     */
+    static long zigZag (final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Decode zig-zag encoded long
+     *
+     * @param value zig-zag encoded value
+     *
+     * @return signed value
+     */
+    static long unZigZag (final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -72,5 +72,15 @@ public class DomainJSONConverter {
     {
         return mapper.readValue(content, valueType);
     }
+    
+    /**
+     * Return the object mapper configured for domain records, for use by
+     * streaming writers of domain records that fall back to it
+     * 
+     * @return the shared object mapper
+     */
+    static ObjectMapper getMapper () {
+        return mapper;
+    }
 
 }
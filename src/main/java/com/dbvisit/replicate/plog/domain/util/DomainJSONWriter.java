@@ -0,0 +1,483 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
+import com.dbvisit.replicate.plog.domain.ChangeSetRecord;
+import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streaming JSON writer for domain records, for serializing every change
+ * record that is published. Change row and change set records are written
+ * field by field, with their field names encoded once, to one reusable
+ * JSON generator on a reusable buffer, instead of reflecting over their
+ * properties and building an intermediate string for each record.
+ *
+ * <p>
+ * The JSON written has the same properties and values as that of
+ * {@link DomainJSONConverter}, null and empty properties are excluded,
+ * but in a fixed order, and other domain records are written using its
+ * object mapper.
+ * </p>
+ *
+ * <p>
+ * A writer is not thread safe, use one writer per thread.
+ * </p>
+ */
+public class DomainJSONWriter {
+    /* field names of change records */
+    private static final SerializedString RECORD_TYPE =
+        new SerializedString ("recordType");
+    private static final SerializedString REPLICATE_OFFSET =
+        new SerializedString ("replicateOffset");
+    private static final SerializedString ACTION =
+        new SerializedString ("action");
+    private static final SerializedString ID =
+        new SerializedString ("id");
+    private static final SerializedString PLOG_ID =
+        new SerializedString ("plogId");
+    private static final SerializedString TRANSACTION_ID =
+        new SerializedString ("transactionId");
+    private static final SerializedString SYSTEM_CHANGE_NUMBER =
+        new SerializedString ("systemChangeNumber");
+    private static final SerializedString TIMESTAMP =
+        new SerializedString ("timestamp");
+    private static final SerializedString TABLE_ID =
+        new SerializedString ("tableId");
+    private static final SerializedString TABLE_OWNER =
+        new SerializedString ("tableOwner");
+    private static final SerializedString TABLE_NAME =
+        new SerializedString ("tableName");
+    private static final SerializedString COLUMN_VALUES =
+        new SerializedString ("columnValues");
+    private static final SerializedString MULTI_PART =
+        new SerializedString ("multiPart");
+    private static final SerializedString RECORD_OFFSET =
+        new SerializedString ("recordOffset");
+    private static final SerializedString KEY_VALUES =
+        new SerializedString ("key");
+    private static final SerializedString OLD_VALUES =
+        new SerializedString ("old");
+    private static final SerializedString NEW_VALUES =
+        new SerializedString ("new");
+    private static final SerializedString LOB_VALUES =
+        new SerializedString ("lob");
+
+    /* field names of replicate offsets */
+    private static final SerializedString PLOG_UID =
+        new SerializedString ("plogUID");
+    private static final SerializedString PLOG_OFFSET =
+        new SerializedString ("plogOffset");
+
+    /* field names of column values */
+    private static final SerializedString COLUMN_ID =
+        new SerializedString ("id");
+    private static final SerializedString COLUMN_TYPE =
+        new SerializedString ("type");
+    private static final SerializedString COLUMN_NAME =
+        new SerializedString ("name");
+    private static final SerializedString COLUMN_VALUE =
+        new SerializedString ("value");
+    private static final SerializedString IS_SUP_LOG_KEY =
+        new SerializedString ("isSupLogKey");
+    private static final SerializedString IS_KEY_VALUE =
+        new SerializedString ("isKeyValue");
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /** Initial size of buffer for JSON of one record */
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /** The object mapper for all other domain records */
+    private final ObjectMapper mapper;
+    /** Reusable buffer for JSON of one record */
+    private final RecordBuffer buffer;
+    /** Reusable JSON generator writing to buffer */
+    private JsonGenerator generator;
+    /** Reusable characters for hex encoded binary values */
+    private char[] hex = new char[256];
+
+    /**
+     * Create a streaming JSON writer for domain records
+     */
+    public DomainJSONWriter () {
+        mapper = DomainJSONConverter.getMapper();
+        buffer = new RecordBuffer (INITIAL_BUFFER_SIZE);
+    }
+
+    /**
+     * Serialize a domain record to JSON and write it to output stream
+     *
+     * @param rec the domain record to serialize
+     * @param out output stream to write JSON to, as UTF-8
+     *
+     * @return number of bytes written
+     * @throws Exception if any serialization or write errors occur
+     */
+    public int write (final DomainRecord rec, final OutputStream out)
+    throws Exception {
+        serialize (rec);
+        buffer.writeTo (out);
+
+        return buffer.size();
+    }
+
+    /**
+     * Serialize a domain record to JSON and write it to byte buffer, at
+     * its current position
+     *
+     * @param rec the domain record to serialize
+     * @param out byte buffer to write JSON to, as UTF-8
+     *
+     * @return number of bytes written
+     * @throws Exception if any serialization errors occur or the byte
+     *                   buffer does not have enough space remaining
+     */
+    public int write (final DomainRecord rec, final ByteBuffer out)
+    throws Exception {
+        serialize (rec);
+
+        if (buffer.size() > out.remaining()) {
+            throw new Exception (
+                "Unable to write JSON of domain record: " + rec + ", " +
+                "reason: it needs " + buffer.size() + " bytes, buffer has " +
+                out.remaining() + " bytes remaining"
+            );
+        }
+        buffer.writeTo (out);
+
+        return buffer.size();
+    }
+
+    /**
+     * Serialize a domain record to JSON
+     *
+     * @param rec the domain record to serialize
+     *
+     * @return domain record serialized as UTF-8 encoded JSON
+     * @throws Exception if any serialization errors occur
+     */
+    public byte[] toJSONBytes (final DomainRecord rec) throws Exception {
+        serialize (rec);
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Serialize a domain record to JSON string
+     *
+     * @param rec the domain record to serialize
+     *
+     * @return domain record serialized as JSON string
+     * @throws Exception if any serialization errors occur
+     */
+    public String toJSONString (final DomainRecord rec) throws Exception {
+        serialize (rec);
+
+        return buffer.toString (StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Serialize a domain record to JSON in reusable buffer, a generator
+     * that failed part way through a record is discarded
+     *
+     * @param rec the domain record to serialize
+     *
+     * @throws Exception if any serialization errors occur
+     */
+    private void serialize (final DomainRecord rec) throws Exception {
+        buffer.reset();
+
+        if (generator == null) {
+            generator = mapper.getFactory().createGenerator (
+                buffer,
+                JsonEncoding.UTF8
+            );
+            /* records are not separated when written one after the other */
+            generator.setRootValueSeparator (null);
+        }
+
+        try {
+            if (rec instanceof ChangeRowRecord) {
+                writeChangeRecord ((ChangeRowRecord) rec);
+            }
+            else {
+                mapper.writeValue (generator, rec);
+            }
+            generator.flush();
+        }
+        catch (Exception e) {
+            generator = null;
+            throw new Exception (
+                "Unable to serialize domain record: " + rec + " to JSON, " +
+                "reason: " + e.getMessage(),
+                e
+            );
+        }
+    }
+
+    /**
+     * Write a change row or change set record, in the declaration order
+     * of its properties
+     *
+     * @param rec the change record
+     *
+     * @throws IOException if any write errors occur
+     */
+    private void writeChangeRecord (final ChangeRowRecord rec)
+    throws IOException {
+        JsonGenerator gen = generator;
+
+        gen.writeStartObject();
+
+        if (rec.getRecordType() != null) {
+            gen.writeFieldName (RECORD_TYPE);
+            gen.writeString (rec.getRecordType().name());
+        }
+
+        writeOffset (REPLICATE_OFFSET, rec.getReplicateOffset());
+
+        if (rec.getAction() != null) {
+            gen.writeFieldName (ACTION);
+            gen.writeString (rec.getAction().name());
+        }
+
+        gen.writeFieldName (ID);
+        gen.writeNumber (rec.getId());
+        gen.writeFieldName (PLOG_ID);
+        gen.writeNumber (rec.getPlogId());
+        writeString (TRANSACTION_ID, rec.getTransactionId());
+        gen.writeFieldName (SYSTEM_CHANGE_NUMBER);
+        gen.writeNumber (rec.getSystemChangeNumber());
+
+        if (rec.getTimestamp() != null) {
+            gen.writeFieldName (TIMESTAMP);
+            gen.writeNumber (rec.getTimestamp().getTime());
+        }
+
+        gen.writeFieldName (TABLE_ID);
+        gen.writeNumber (rec.getTableId());
+        writeString (TABLE_OWNER, rec.getTableOwner());
+        writeString (TABLE_NAME, rec.getTableName());
+        writeColumnValues (COLUMN_VALUES, rec.getColumnValues());
+        gen.writeFieldName (MULTI_PART);
+        gen.writeBoolean (rec.isMultiPart());
+        writeOffset (RECORD_OFFSET, rec.getRecordOffset());
+
+        if (rec instanceof ChangeSetRecord) {
+            ChangeSetRecord set = (ChangeSetRecord) rec;
+
+            writeColumnValues (KEY_VALUES, set.getKeyValues());
+            writeColumnValues (OLD_VALUES, set.getOldValues());
+            writeColumnValues (NEW_VALUES, set.getNewValues());
+            writeColumnValues (LOB_VALUES, set.getLobValues());
+        }
+
+        gen.writeEndObject();
+    }
+
+    /**
+     * Write a replicate offset field, if any
+     *
+     * @param field  name of field
+     * @param offset the replicate offset, may be null
+     *
+     * @throws IOException if any write errors occur
+     */
+    private void writeOffset (
+        final SerializedString field,
+        final ReplicateOffset offset
+    ) throws IOException {
+        if (offset == null) {
+            return;
+        }
+
+        generator.writeFieldName (field);
+        generator.writeStartObject();
+        generator.writeFieldName (PLOG_UID);
+        generator.writeNumber (offset.getPlogUID());
+        generator.writeFieldName (PLOG_OFFSET);
+        generator.writeNumber (offset.getPlogOffset());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write a string field, if not null or empty
+     *
+     * @param field name of field
+     * @param value the string value
+     *
+     * @throws IOException if any write errors occur
+     */
+    private void writeString (
+        final SerializedString field,
+        final String value
+    ) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            generator.writeFieldName (field);
+            generator.writeString (value);
+        }
+    }
+
+    /**
+     * Write a field of column values, if not null or empty
+     *
+     * @param field        name of field
+     * @param columnValues the column values
+     *
+     * @throws IOException if any write errors occur
+     */
+    private void writeColumnValues (
+        final SerializedString field,
+        final List<ColumnValue> columnValues
+    ) throws IOException {
+        if (columnValues == null || columnValues.isEmpty()) {
+            return;
+        }
+
+        generator.writeFieldName (field);
+        generator.writeStartArray();
+
+        for (ColumnValue columnValue : columnValues) {
+            if (columnValue == null) {
+                generator.writeNull();
+            }
+            else {
+                writeColumnValue (columnValue);
+            }
+        }
+
+        generator.writeEndArray();
+    }
+
+    /**
+     * Write a column value, its value as string the same as
+     * {@link ColumnValue#getValueAsString()} without creating a string
+     * for the hex encoding of binary values
+     *
+     * @param columnValue the column value
+     *
+     * @throws IOException if any write errors occur
+     */
+    private void writeColumnValue (final ColumnValue columnValue)
+    throws IOException {
+        JsonGenerator gen = generator;
+
+        gen.writeStartObject();
+        gen.writeFieldName (COLUMN_ID);
+        gen.writeNumber (columnValue.getId());
+
+        if (columnValue.getType() != null) {
+            gen.writeFieldName (COLUMN_TYPE);
+            gen.writeString (columnValue.getType().name());
+        }
+
+        writeString (COLUMN_NAME, columnValue.getName());
+
+        Object value = columnValue.getValue();
+
+        if (value instanceof SerialBlob) {
+            writeBlob ((SerialBlob) value);
+        }
+        else if (value != null) {
+            writeString (COLUMN_VALUE, value.toString());
+        }
+
+        gen.writeFieldName (IS_SUP_LOG_KEY);
+        gen.writeBoolean (columnValue.isSupLogKey());
+        gen.writeFieldName (IS_KEY_VALUE);
+        gen.writeBoolean (columnValue.isKeyValue());
+        gen.writeEndObject();
+    }
+
+    /**
+     * Write the value of a binary LOB as upper case hex string
+     *
+     * @param blob the binary LOB value
+     *
+     * @throws IOException if any write errors occur
+     */
+    private void writeBlob (final SerialBlob blob) throws IOException {
+        byte[] bytes;
+
+        try {
+            bytes = blob.getBytes (1, (int) blob.length());
+        } catch (Exception e) {
+            /* just use the normal string representation */
+            writeString (COLUMN_VALUE, blob.toString());
+            return;
+        }
+
+        if (bytes.length == 0) {
+            return;
+        }
+
+        int length = bytes.length * 2;
+
+        if (hex.length < length) {
+            hex = new char[Math.max (length, hex.length * 2)];
+        }
+
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            hex[i * 2]     = HEX[v >>> 4];
+            hex[i * 2 + 1] = HEX[v & 0x0F];
+        }
+
+        generator.writeFieldName (COLUMN_VALUE);
+        generator.writeString (hex, 0, length);
+    }
+
+    /**
+     * Reusable buffer for the JSON of one record, that can be copied
+     * to output stream or byte buffer without an intermediate copy
+     */
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        /**
+         * Create buffer of initial size
+         *
+         * @param size initial size of buffer
+         */
+        RecordBuffer (final int size) {
+            super (size);
+        }
+
+        /**
+         * Copy contents of buffer to byte buffer
+         *
+         * @param out byte buffer to copy to
+         */
+        void writeTo (final ByteBuffer out) {
+            out.put (buf, 0, count);
+        }
+    }
+}
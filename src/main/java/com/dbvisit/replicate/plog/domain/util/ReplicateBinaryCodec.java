@@ -0,0 +1,553 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.dbvisit.replicate.plog.domain.ReplicateInfo;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Binary codec for checkpointing replicate offsets and replicate info
+ * records, as an alternative to their JSON form. Each encoding starts
+ * with a format byte, followed by either fixed width big-endian values
+ * or unsigned variable length values, 7 bits per byte, which is more
+ * compact for the small offsets and PLOG UIDs used in practice.
+ *
+ * <p>
+ * The decoders also accept the existing JSON form, which always starts
+ * with an opening brace, so that checkpoints written before can still
+ * be read whilst migrating to the binary form.
+ * </p>
+ */
+public class ReplicateBinaryCodec {
+    /** Format of fixed width replicate offset */
+    private static final byte OFFSET_FIXED = 0x01;
+    /** Format of variable length replicate offset */
+    private static final byte OFFSET_VARINT = 0x02;
+    /** Format of fixed width replicate info */
+    private static final byte INFO_FIXED = 0x03;
+    /** Format of variable length replicate info */
+    private static final byte INFO_VARINT = 0x04;
+    /** Format of fixed width batch of replicate offsets */
+    private static final byte BATCH_FIXED = 0x05;
+    /** Format of variable length batch of replicate offsets */
+    private static final byte BATCH_VARINT = 0x06;
+
+    /** Size of fixed width replicate offset */
+    public static final int OFFSET_FIXED_SIZE = 1 + 8 + 8;
+    /** Maximum size of a variable length long */
+    private static final int MAX_VARINT_SIZE = 10;
+
+    /** Replicate info has PLOG UID */
+    private static final int HAS_PLOG_UID = 0x01;
+    /** Replicate info has data offset */
+    private static final int HAS_DATA_OFFSET = 0x02;
+    /** Replicate info has identifier */
+    private static final int HAS_IDENTIFIER = 0x04;
+    /** Replicate info has been sent */
+    private static final int IS_SENT = 0x08;
+    /** Replicate info is for aggregate */
+    private static final int IS_AGGREGATE = 0x10;
+
+    /** Reads batches of replicate offsets in JSON form */
+    private static final ObjectMapper mapper =
+        new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .configure(
+                DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                false
+            );
+
+    /** Type of a batch of replicate offsets in JSON form */
+    private static final TypeReference<LinkedHashMap<String, ReplicateOffset>>
+        BATCH_TYPE =
+            new TypeReference<LinkedHashMap<String, ReplicateOffset>>() {};
+
+    /**
+     * Encode a replicate offset
+     *
+     * @param offset  the replicate offset to encode
+     * @param compact true for variable length values, else fixed width
+     *
+     * @return encoded replicate offset
+     */
+    public static byte[] encode (
+        final ReplicateOffset offset,
+        final boolean compact
+    ) {
+        ByteBuffer buffer = ByteBuffer.allocate (
+            compact ? 1 + 2 * MAX_VARINT_SIZE : OFFSET_FIXED_SIZE
+        );
+
+        buffer.put (compact ? OFFSET_VARINT : OFFSET_FIXED);
+        putOffset (buffer, offset, compact);
+
+        return toArray (buffer);
+    }
+
+    /**
+     * Decode a replicate offset, from its binary or JSON form
+     *
+     * @param data the encoded replicate offset
+     *
+     * @return the decoded replicate offset
+     * @throws Exception if the data is not an encoded replicate offset
+     */
+    public static ReplicateOffset decodeOffset (final byte[] data)
+    throws Exception {
+        if (isJSON (data)) {
+            return ReplicateOffset.fromJSONString (
+                new String (data, StandardCharsets.UTF_8)
+            );
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap (data);
+            byte format = buffer.get();
+
+            if (format != OFFSET_FIXED && format != OFFSET_VARINT) {
+                throw new Exception ("unknown format: " + format);
+            }
+
+            return getOffset (buffer, format == OFFSET_VARINT);
+        }
+        catch (BufferUnderflowException e) {
+            throw new Exception (
+                "Unable to decode replicate offset, reason: truncated data"
+            );
+        }
+        catch (Exception e) {
+            throw new Exception (
+                "Unable to decode replicate offset, reason: " +
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Encode a replicate info record
+     *
+     * @param info    the replicate info to encode
+     * @param compact true for variable length values, else fixed width
+     *
+     * @return encoded replicate info
+     */
+    public static byte[] encode (
+        final ReplicateInfo info,
+        final boolean compact
+    ) {
+        byte[] identifier = info.getIdentifier() != null
+                            ? info.getIdentifier().getBytes (
+                                  StandardCharsets.UTF_8
+                              )
+                            : null;
+
+        int flags = (info.getPlogUID() != null ? HAS_PLOG_UID : 0)       |
+                    (info.getDataOffset() != null ? HAS_DATA_OFFSET : 0) |
+                    (identifier != null ? HAS_IDENTIFIER : 0)            |
+                    (info.sent() ? IS_SENT : 0)                          |
+                    (info.isAggregate() ? IS_AGGREGATE : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate (
+            2 + 3 * MAX_VARINT_SIZE +
+            (identifier != null ? identifier.length : 0)
+        );
+
+        buffer.put (compact ? INFO_VARINT : INFO_FIXED);
+        buffer.put ((byte) flags);
+
+        if (info.getPlogUID() != null) {
+            putLong (buffer, info.getPlogUID(), compact);
+        }
+
+        if (info.getDataOffset() != null) {
+            putLong (buffer, info.getDataOffset(), compact);
+        }
+
+        if (identifier != null) {
+            putBytes (buffer, identifier, compact);
+        }
+
+        return toArray (buffer);
+    }
+
+    /**
+     * Decode a replicate info record, from its binary or JSON form
+     *
+     * @param data the encoded replicate info
+     *
+     * @return the decoded replicate info
+     * @throws Exception if the data is not an encoded replicate info
+     */
+    public static ReplicateInfo decodeInfo (final byte[] data)
+    throws Exception {
+        if (isJSON (data)) {
+            return ReplicateInfo.fromJSONString (
+                new String (data, StandardCharsets.UTF_8)
+            );
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap (data);
+            byte format = buffer.get();
+
+            if (format != INFO_FIXED && format != INFO_VARINT) {
+                throw new Exception ("unknown format: " + format);
+            }
+
+            boolean compact = format == INFO_VARINT;
+            int flags = buffer.get();
+            ReplicateInfo info = new ReplicateInfo();
+
+            if ((flags & HAS_PLOG_UID) != 0) {
+                info.setPlogUID (getLong (buffer, compact));
+            }
+
+            if ((flags & HAS_DATA_OFFSET) != 0) {
+                info.setDataOffset (getLong (buffer, compact));
+            }
+
+            if ((flags & HAS_IDENTIFIER) != 0) {
+                info.setIdentifier (getString (buffer, compact));
+            }
+
+            info.setSent ((flags & IS_SENT) != 0);
+            info.setAggregate ((flags & IS_AGGREGATE) != 0);
+
+            return info;
+        }
+        catch (BufferUnderflowException e) {
+            throw new Exception (
+                "Unable to decode replicate info, reason: truncated data"
+            );
+        }
+        catch (Exception e) {
+            throw new Exception (
+                "Unable to decode replicate info, reason: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Encode a batch of replicate offsets, eg. the offset of each
+     * replicated schema at a checkpoint, in one buffer
+     *
+     * @param offsets the replicate offsets by name
+     * @param compact true for variable length values, else fixed width
+     *
+     * @return encoded batch of replicate offsets
+     */
+    public static byte[] encode (
+        final Map<String, ReplicateOffset> offsets,
+        final boolean compact
+    ) {
+        byte[][] names = new byte[offsets.size()][];
+        int size = 1 + MAX_VARINT_SIZE;
+        int i = 0;
+
+        for (String name : offsets.keySet()) {
+            names[i] = name.getBytes (StandardCharsets.UTF_8);
+            size += MAX_VARINT_SIZE + names[i].length + 2 * MAX_VARINT_SIZE;
+            i++;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate (size);
+
+        buffer.put (compact ? BATCH_VARINT : BATCH_FIXED);
+        putLength (buffer, offsets.size(), compact);
+
+        i = 0;
+        for (ReplicateOffset offset : offsets.values()) {
+            putBytes (buffer, names[i++], compact);
+            putOffset (buffer, offset, compact);
+        }
+
+        return toArray (buffer);
+    }
+
+    /**
+     * Decode a batch of replicate offsets, from its binary or JSON form,
+     * a JSON object of replicate offsets by name
+     *
+     * @param data the encoded batch of replicate offsets
+     *
+     * @return the replicate offsets by name, in encoded order
+     * @throws Exception if the data is not an encoded batch of offsets
+     */
+    public static Map<String, ReplicateOffset> decodeOffsets (
+        final byte[] data
+    ) throws Exception {
+        if (isJSON (data)) {
+            return mapper.readValue (data, BATCH_TYPE);
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap (data);
+            byte format = buffer.get();
+
+            if (format != BATCH_FIXED && format != BATCH_VARINT) {
+                throw new Exception ("unknown format: " + format);
+            }
+
+            boolean compact = format == BATCH_VARINT;
+            int count = getLength (buffer, compact);
+
+            Map<String, ReplicateOffset> offsets =
+                new LinkedHashMap<String, ReplicateOffset>(
+                    Math.max (16, count * 2)
+                );
+
+            for (int i = 0; i < count; i++) {
+                String name = getString (buffer, compact);
+                offsets.put (name, getOffset (buffer, compact));
+            }
+
+            return offsets;
+        }
+        catch (BufferUnderflowException e) {
+            throw new Exception (
+                "Unable to decode replicate offsets, reason: truncated data"
+            );
+        }
+        catch (Exception e) {
+            throw new Exception (
+                "Unable to decode replicate offsets, reason: " +
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Check whether or not encoded data is in JSON form, a JSON object
+     *
+     * @param data the encoded data
+     *
+     * @return true if JSON, else false
+     */
+    private static boolean isJSON (final byte[] data) {
+        for (byte b : data) {
+            if (b == '{') {
+                return true;
+            }
+
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Write a replicate offset, without format
+     *
+     * @param buffer  buffer to write to
+     * @param offset  the replicate offset
+     * @param compact true for variable length values, else fixed width
+     */
+    private static void putOffset (
+        final ByteBuffer buffer,
+        final ReplicateOffset offset,
+        final boolean compact
+    ) {
+        putLong (buffer, offset.getPlogUID(), compact);
+        putLong (buffer, offset.getPlogOffset(), compact);
+    }
+
+    /**
+     * Read a replicate offset, without format
+     *
+     * @param buffer  buffer to read from
+     * @param compact true for variable length values, else fixed width
+     *
+     * @return the replicate offset
+     * @throws Exception if a variable length value is invalid
+     */
+    private static ReplicateOffset getOffset (
+        final ByteBuffer buffer,
+        final boolean compact
+    ) throws Exception {
+        long uid = getLong (buffer, compact);
+
+        return new ReplicateOffset (uid, getLong (buffer, compact));
+    }
+
+    /**
+     * Write a long value
+     *
+     * @param buffer  buffer to write to
+     * @param value   the value
+     * @param compact true for variable length, else fixed width
+     */
+    private static void putLong (
+        final ByteBuffer buffer,
+        final long value,
+        final boolean compact
+    ) {
+        if (!compact) {
+            buffer.putLong (value);
+            return;
+        }
+
+        long v = value;
+
+        /* 7 bits at a time, least significant first, as unsigned */
+        while ((v & ~0x7FL) != 0) {
+            buffer.put ((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put ((byte) v);
+    }
+
+    /**
+     * Read a long value
+     *
+     * @param buffer  buffer to read from
+     * @param compact true for variable length, else fixed width
+     *
+     * @return the value
+     * @throws Exception if a variable length value is too long
+     */
+    private static long getLong (
+        final ByteBuffer buffer,
+        final boolean compact
+    ) throws Exception {
+        if (!compact) {
+            return buffer.getLong();
+        }
+
+        long value = 0L;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new Exception ("variable length value is too long");
+    }
+
+    /**
+     * Write a length
+     *
+     * @param buffer  buffer to write to
+     * @param length  the length
+     * @param compact true for variable length, else fixed width
+     */
+    private static void putLength (
+        final ByteBuffer buffer,
+        final int length,
+        final boolean compact
+    ) {
+        if (compact) {
+            putLong (buffer, length, true);
+        }
+        else {
+            buffer.putInt (length);
+        }
+    }
+
+    /**
+     * Read a length
+     *
+     * @param buffer  buffer to read from
+     * @param compact true for variable length, else fixed width
+     *
+     * @return the length
+     * @throws Exception if the length is invalid
+     */
+    private static int getLength (
+        final ByteBuffer buffer,
+        final boolean compact
+    ) throws Exception {
+        long length = compact ? getLong (buffer, true) : buffer.getInt();
+
+        if (length < 0 || length > buffer.remaining()) {
+            throw new Exception ("invalid length: " + length);
+        }
+
+        return (int) length;
+    }
+
+    /**
+     * Write bytes prefixed by their length
+     *
+     * @param buffer  buffer to write to
+     * @param bytes   the bytes
+     * @param compact true for variable length, else fixed width length
+     */
+    private static void putBytes (
+        final ByteBuffer buffer,
+        final byte[] bytes,
+        final boolean compact
+    ) {
+        putLength (buffer, bytes.length, compact);
+        buffer.put (bytes);
+    }
+
+    /**
+     * Read an UTF-8 string prefixed by its length
+     *
+     * @param buffer  buffer to read from
+     * @param compact true for variable length, else fixed width length
+     *
+     * @return the string
+     * @throws Exception if the length is invalid
+     */
+    private static String getString (
+        final ByteBuffer buffer,
+        final boolean compact
+    ) throws Exception {
+        int length = getLength (buffer, compact);
+        String value = new String (
+            buffer.array(),
+            buffer.arrayOffset() + buffer.position(),
+            length,
+            StandardCharsets.UTF_8
+        );
+        buffer.position (buffer.position() + length);
+
+        return value;
+    }
+
+    /**
+     * Return the bytes written to buffer
+     *
+     * @param buffer buffer written to
+     *
+     * @return copy of bytes written
+     */
+    private static byte[] toArray (final ByteBuffer buffer) {
+        byte[] data = new byte[buffer.position()];
+        System.arraycopy (buffer.array(), 0, data, 0, data.length);
+
+        return data;
+    }
+}
@@ -0,0 +1,802 @@
+package com.dbvisit.replicate.plog.file;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dbvisit.replicate.plog.metadata.Column;
+import com.dbvisit.replicate.plog.metadata.ColumnState;
+import com.dbvisit.replicate.plog.metadata.DDLMetaData;
+import com.dbvisit.replicate.plog.metadata.Table;
+
+/**
+ * Snapshot of the schema and dictionary caches of a PLOG at an offset in
+ * the PLOG, persisted to a compact binary file named by the PLOG UID and
+ * offset. The caches at an offset are those built from all PLOGs and
+ * records before it, restoring them allows a restart to open the PLOG at
+ * that offset, instead of rebuilding them by reading from the start of
+ * the PLOG.
+ *
+ * <p>
+ * Columns shared between the meta data of schemas and the dictionary
+ * are written once and remain shared when read. The transaction and
+ * partial record caches are not part of a snapshot.
+ * </p>
+ */
+public class PlogCacheSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(
+        PlogCacheSnapshot.class
+    );
+
+    /** File extension of PLOG cache snapshot */
+    public static final String SNAPSHOT_EXT = "snap";
+    /** Magic number that starts a snapshot file, PLCS */
+    private static final int MAGIC = 0x504c4353;
+    /** Version of snapshot file format */
+    private static final int VERSION = 1;
+    /** File name of a snapshot, PLOG UID and offset */
+    private static final String SNAPSHOT_FILE_NAME =
+        "^[0-9]+\\.[0-9]+\\." + SNAPSHOT_EXT + "$";
+    /** Length of null list or map in snapshot */
+    private static final int NONE = -1;
+
+    /** Unique ID of PLOG */
+    private final long plogUID;
+    /** Byte offset in PLOG of the snapshot */
+    private final long offset;
+    /** The schema meta data by schema identifier */
+    private final Map<String, DDLMetaData> schemas;
+    /** The table dictionary by table object ID */
+    private final Map<Integer, Table> dictionary;
+
+    /**
+     * Create a snapshot of PLOG caches
+     *
+     * @param plogUID    unique ID of PLOG
+     * @param offset     byte offset in PLOG of snapshot
+     * @param schemas    schema meta data cache
+     * @param dictionary table dictionary cache
+     */
+    private PlogCacheSnapshot (
+        final long plogUID,
+        final long offset,
+        final Map<String, DDLMetaData> schemas,
+        final Map<Integer, Table> dictionary
+    ) {
+        this.plogUID    = plogUID;
+        this.offset     = offset;
+        this.schemas    = schemas;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Return the unique ID of the PLOG of snapshot
+     *
+     * @return PLOG UID
+     */
+    public long getPlogUID () {
+        return plogUID;
+    }
+
+    /**
+     * Return the byte offset in PLOG at which the snapshot was taken
+     *
+     * @return byte offset in PLOG
+     */
+    public long getOffset () {
+        return offset;
+    }
+
+    /**
+     * Return the schema meta data in snapshot
+     *
+     * @return lookup of schema meta data by schema identifier
+     */
+    public Map<String, DDLMetaData> getSchemas () {
+        return schemas;
+    }
+
+    /**
+     * Return the table dictionary in snapshot
+     *
+     * @return lookup of table meta data by table object ID
+     */
+    public Map<Integer, Table> getDictionary () {
+        return dictionary;
+    }
+
+    /**
+     * Restore the caches of a PLOG from snapshot, the PLOG must then be
+     * read from the offset of snapshot
+     *
+     * @param plog the PLOG to restore caches for
+     *
+     * @throws Exception if the snapshot is not of this PLOG
+     */
+    public void applyTo (final PlogFile plog) throws Exception {
+        if (plog.getUID() != plogUID) {
+            throw new Exception (
+                "Unable to restore caches of PLOG: " + plog.getFileName() +
+                ", reason: snapshot is of PLOG with UID: " + plogUID
+            );
+        }
+
+        plog.getSchemas().putAll (schemas);
+        plog.getDictionary().putAll (dictionary);
+    }
+
+    /**
+     * Return the snapshot file for a PLOG offset
+     *
+     * @param dir     location of snapshots
+     * @param plogUID unique ID of PLOG
+     * @param offset  byte offset in PLOG
+     *
+     * @return snapshot file
+     */
+    public static File getSnapshotFile (
+        final File dir,
+        final long plogUID,
+        final long offset
+    ) {
+        return new File (dir, plogUID + "." + offset + "." + SNAPSHOT_EXT);
+    }
+
+    /**
+     * Write a snapshot of the caches of a PLOG at an offset, the offset
+     * up to which the PLOG has been read. The file is replaced in one
+     * move, a snapshot is never read partially written.
+     *
+     * @param dir    location of snapshots
+     * @param plog   the PLOG to snapshot caches of
+     * @param offset byte offset in PLOG that all records before it have
+     *               been read into its caches
+     *
+     * @return the snapshot file written
+     * @throws Exception when unable to write the snapshot
+     */
+    public static File write (
+        final File dir,
+        final PlogFile plog,
+        final long offset
+    ) throws Exception {
+        File file = getSnapshotFile (dir, plog.getUID(), offset);
+        File tmp  = new File (dir, file.getName() + ".tmp");
+
+        DataOutputStream out = new DataOutputStream (
+            new BufferedOutputStream (new FileOutputStream (tmp))
+        );
+
+        try {
+            out.writeInt (MAGIC);
+            out.writeInt (VERSION);
+            out.writeLong (plog.getUID());
+            out.writeLong (offset);
+
+            writeCaches (out, plog.getSchemas(), plog.getDictionary());
+        }
+        finally {
+            out.close();
+        }
+
+        try {
+            Files.move (
+                tmp.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move (
+                tmp.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        }
+
+        return file;
+    }
+
+    /**
+     * Read a snapshot from file
+     *
+     * @param file the snapshot file
+     *
+     * @return the PLOG cache snapshot
+     * @throws Exception when the file is not a valid snapshot
+     */
+    public static PlogCacheSnapshot read (final File file) throws Exception {
+        DataInputStream in = new DataInputStream (
+            new BufferedInputStream (new FileInputStream (file))
+        );
+
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new Exception (
+                    "Invalid PLOG cache snapshot: " + file + ", reason: " +
+                    "unsupported format"
+                );
+            }
+
+            long uid    = in.readLong();
+            long offset = in.readLong();
+
+            Map<String, DDLMetaData> schemas =
+                new HashMap<String, DDLMetaData>();
+            Map<Integer, Table> dictionary = new HashMap<Integer, Table>();
+
+            readCaches (in, schemas, dictionary);
+
+            return new PlogCacheSnapshot (uid, offset, schemas, dictionary);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Find the latest snapshot of a PLOG taken at or before an offset
+     *
+     * @param dir     location of snapshots
+     * @param plogUID unique ID of PLOG
+     * @param offset  byte offset in PLOG to restart at
+     *
+     * @return the latest snapshot to restart from, null if there is none
+     */
+    public static PlogCacheSnapshot findLatest (
+        final File dir,
+        final long plogUID,
+        final long offset
+    ) {
+        final String prefix = plogUID + ".";
+
+        File[] files = dir.listFiles (new FilenameFilter() {
+            public boolean accept (File dir, String name) {
+                return name.startsWith (prefix) &&
+                       name.matches (SNAPSHOT_FILE_NAME);
+            }
+        });
+
+        if (files == null) {
+            return null;
+        }
+
+        /* try the latest first, skip any that are unreadable */
+        TreeSet<Long> offsets = new TreeSet<Long>();
+
+        for (File f : files) {
+            long at = parseOffset (f.getName());
+
+            if (at <= offset) {
+                offsets.add (at);
+            }
+        }
+
+        for (Long at : offsets.descendingSet()) {
+            File file = getSnapshotFile (dir, plogUID, at);
+
+            try {
+                return read (file);
+            }
+            catch (Exception e) {
+                logger.warn (
+                    "Ignoring PLOG cache snapshot: " + file + ", reason: " +
+                    e.getMessage()
+                );
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Remove the snapshots of PLOGs before the previous PLOG to one, only
+     * the snapshots of the latest two PLOGs are kept for restarting
+     *
+     * @param dir     location of snapshots
+     * @param plogUID unique ID of the latest PLOG
+     */
+    public static void prune (final File dir, final long plogUID) {
+        File[] files = dir.listFiles (new FilenameFilter() {
+            public boolean accept (File dir, String name) {
+                return name.matches (SNAPSHOT_FILE_NAME);
+            }
+        });
+
+        if (files == null) {
+            return;
+        }
+
+        TreeSet<Long> older = new TreeSet<Long>();
+
+        for (File f : files) {
+            long uid = parseUID (f.getName());
+
+            if (uid < plogUID) {
+                older.add (uid);
+            }
+        }
+
+        if (older.isEmpty()) {
+            return;
+        }
+
+        /* keep the one before it */
+        long keep = older.last();
+
+        for (File f : files) {
+            if (parseUID (f.getName()) < keep && !f.delete()) {
+                logger.debug ("Unable to remove PLOG cache snapshot: " + f);
+            }
+        }
+    }
+
+    /**
+     * Parse the PLOG UID from a snapshot file name
+     *
+     * @param name file name of snapshot
+     *
+     * @return PLOG UID
+     */
+    private static long parseUID (final String name) {
+        return Long.parseLong (name.substring (0, name.indexOf ('.')));
+    }
+
+    /**
+     * Parse the offset from a snapshot file name
+     *
+     * @param name file name of snapshot
+     *
+     * @return byte offset in PLOG
+     */
+    private static long parseOffset (final String name) {
+        int start = name.indexOf ('.') + 1;
+
+        return Long.parseLong (name.substring (start, name.indexOf ('.', start)));
+    }
+
+    /**
+     * Write the schema and dictionary caches, each distinct column first
+     * and then the meta data referring to them by position
+     *
+     * @param out        output stream of snapshot
+     * @param schemas    schema meta data cache
+     * @param dictionary table dictionary cache
+     *
+     * @throws Exception when unable to write caches
+     */
+    private static void writeCaches (
+        final DataOutputStream out,
+        final Map<String, DDLMetaData> schemas,
+        final Map<Integer, Table> dictionary
+    ) throws Exception {
+        Map<Column, Integer> refs = new IdentityHashMap<Column, Integer>();
+        List<Column> columns = new ArrayList<Column>();
+
+        for (DDLMetaData md : schemas.values()) {
+            collectColumns (md.getTableColumns(), refs, columns);
+
+            if (md.getColumns() != null) {
+                collectColumns (md.getColumns().values(), refs, columns);
+            }
+        }
+
+        for (Table table : dictionary.values()) {
+            collectColumns (table.getColumns(), refs, columns);
+        }
+
+        out.writeInt (columns.size());
+
+        for (Column column : columns) {
+            writeColumn (out, column);
+        }
+
+        out.writeInt (schemas.size());
+
+        for (Map.Entry<String, DDLMetaData> entry : schemas.entrySet()) {
+            DDLMetaData md = entry.getValue();
+
+            out.writeUTF (entry.getKey());
+            writeLong (out, md.getValidSinceSCN());
+            writeInteger (out, md.getObjectId());
+            writeString (out, md.getSchemaName());
+            writeString (out, md.getTableName());
+            out.writeBoolean (md.hasKey());
+            writeColumnRefs (out, md.getTableColumns(), refs);
+
+            if (md.getColumns() == null) {
+                out.writeInt (NONE);
+            }
+            else {
+                out.writeInt (md.getColumns().size());
+
+                for (Map.Entry<Integer, Column> ce :
+                     md.getColumns().entrySet())
+                {
+                    out.writeInt (ce.getKey());
+                    writeColumnRef (out, ce.getValue(), refs);
+                }
+            }
+        }
+
+        out.writeInt (dictionary.size());
+
+        for (Map.Entry<Integer, Table> entry : dictionary.entrySet()) {
+            Table table = entry.getValue();
+
+            out.writeInt (entry.getKey());
+            writeInteger (out, table.getId());
+            writeString (out, table.getOwner());
+            writeString (out, table.getName());
+            out.writeBoolean (table.hasKey());
+            writeColumnRefs (out, table.getColumns(), refs);
+        }
+    }
+
+    /**
+     * Read the schema and dictionary caches
+     *
+     * @param in         input stream of snapshot
+     * @param schemas    schema meta data cache to read into
+     * @param dictionary table dictionary cache to read into
+     *
+     * @throws Exception when unable to read caches
+     */
+    private static void readCaches (
+        final DataInputStream in,
+        final Map<String, DDLMetaData> schemas,
+        final Map<Integer, Table> dictionary
+    ) throws Exception {
+        int numColumns = in.readInt();
+        List<Column> columns = new ArrayList<Column>(numColumns);
+
+        for (int i = 0; i < numColumns; i++) {
+            columns.add (readColumn (in));
+        }
+
+        int numSchemas = in.readInt();
+
+        for (int i = 0; i < numSchemas; i++) {
+            String key = in.readUTF();
+            DDLMetaData md = new DDLMetaData();
+
+            md.setValidSinceSCN (readLong (in));
+            md.setObjectId (readInteger (in));
+            md.setSchemaName (readString (in));
+            md.setTableName (readString (in));
+            md.setHasKey (in.readBoolean());
+
+            List<Column> tableColumns = readColumnRefs (in, columns);
+
+            if (tableColumns != null) {
+                md.setTableColumns (tableColumns);
+            }
+
+            int numIndexed = in.readInt();
+
+            if (numIndexed != NONE) {
+                Map<Integer, Column> indexed = new HashMap<Integer, Column>();
+
+                for (int c = 0; c < numIndexed; c++) {
+                    indexed.put (in.readInt(), readColumnRef (in, columns));
+                }
+                md.setColumns (indexed);
+            }
+
+            schemas.put (key, md);
+        }
+
+        int numTables = in.readInt();
+
+        for (int i = 0; i < numTables; i++) {
+            int key = in.readInt();
+            Table table = new Table();
+
+            table.setId (readInteger (in));
+            table.setOwner (readString (in));
+            table.setName (readString (in));
+            table.setHasKey (in.readBoolean());
+            table.setColumns (readColumnRefs (in, columns));
+
+            dictionary.put (key, table);
+        }
+    }
+
+    /**
+     * Number each distinct column not seen before
+     *
+     * @param source  columns to number, may be null or have null entries
+     * @param refs    position of each distinct column
+     * @param columns the distinct columns, in order of position
+     */
+    private static void collectColumns (
+        final Iterable<Column> source,
+        final Map<Column, Integer> refs,
+        final List<Column> columns
+    ) {
+        if (source == null) {
+            return;
+        }
+
+        for (Column column : source) {
+            if (column != null && !refs.containsKey (column)) {
+                refs.put (column, columns.size());
+                columns.add (column);
+            }
+        }
+    }
+
+    /**
+     * Write the meta data of a column
+     *
+     * @param out    output stream of snapshot
+     * @param column the column to write
+     *
+     * @throws Exception when unable to write column
+     */
+    private static void writeColumn (
+        final DataOutputStream out,
+        final Column column
+    ) throws Exception {
+        writeInteger (out, column.getId());
+        writeString (out, column.getName());
+        writeString (out, column.getType());
+        writeInteger (out, column.getPrecision());
+        writeInteger (out, column.getScale());
+        out.writeByte (
+            column.isNullable() == null ? NONE : (column.isNullable() ? 1 : 0)
+        );
+        out.writeBoolean (column.isKey());
+        writeString (
+            out,
+            column.getState() != null ? column.getState().name() : null
+        );
+    }
+
+    /**
+     * Read the meta data of a column
+     *
+     * @param in input stream of snapshot
+     *
+     * @return the column read
+     * @throws Exception when unable to read column
+     */
+    private static Column readColumn (final DataInputStream in)
+    throws Exception {
+        Column column = new Column();
+
+        column.setId (readInteger (in));
+        column.setName (readString (in));
+        column.setType (readString (in));
+        column.setPrecision (readInteger (in));
+        column.setScale (readInteger (in));
+
+        byte nullable = in.readByte();
+        column.setIsNullable (nullable == NONE ? null : nullable == 1);
+        column.setIsKey (in.readBoolean());
+
+        String state = readString (in);
+        column.setState (state != null ? ColumnState.valueOf (state) : null);
+
+        return column;
+    }
+
+    /**
+     * Write a list of columns as their positions in snapshot
+     *
+     * @param out    output stream of snapshot
+     * @param source list of columns, may be null or have null entries
+     * @param refs   position of each distinct column
+     *
+     * @throws Exception when unable to write list
+     */
+    private static void writeColumnRefs (
+        final DataOutputStream out,
+        final List<Column> source,
+        final Map<Column, Integer> refs
+    ) throws Exception {
+        if (source == null) {
+            out.writeInt (NONE);
+            return;
+        }
+
+        out.writeInt (source.size());
+
+        for (Column column : source) {
+            writeColumnRef (out, column, refs);
+        }
+    }
+
+    /**
+     * Read a list of columns from their positions in snapshot
+     *
+     * @param in      input stream of snapshot
+     * @param columns the distinct columns read, in order of position
+     *
+     * @return list of columns, null if none was written
+     * @throws Exception when unable to read list
+     */
+    private static List<Column> readColumnRefs (
+        final DataInputStream in,
+        final List<Column> columns
+    ) throws Exception {
+        int size = in.readInt();
+
+        if (size == NONE) {
+            return null;
+        }
+
+        List<Column> list = new ArrayList<Column>(size);
+
+        for (int i = 0; i < size; i++) {
+            list.add (readColumnRef (in, columns));
+        }
+
+        return list;
+    }
+
+    /**
+     * Write the position of a column in snapshot, -1 for null
+     *
+     * @param out    output stream of snapshot
+     * @param column the column, may be null
+     * @param refs   position of each distinct column
+     *
+     * @throws Exception when unable to write position
+     */
+    private static void writeColumnRef (
+        final DataOutputStream out,
+        final Column column,
+        final Map<Column, Integer> refs
+    ) throws Exception {
+        out.writeInt (column == null ? NONE : refs.get (column));
+    }
+
+    /**
+     * Read a column by its position in snapshot
+     *
+     * @param in      input stream of snapshot
+     * @param columns the distinct columns read, in order of position
+     *
+     * @return the column, null if none was written
+     * @throws Exception when unable to read position
+     */
+    private static Column readColumnRef (
+        final DataInputStream in,
+        final List<Column> columns
+    ) throws Exception {
+        int ref = in.readInt();
+
+        return ref == NONE ? null : columns.get (ref);
+    }
+
+    /**
+     * Write a nullable string
+     *
+     * @param out   output stream of snapshot
+     * @param value string to write, may be null
+     *
+     * @throws Exception when unable to write value
+     */
+    private static void writeString (
+        final DataOutputStream out,
+        final String value
+    ) throws Exception {
+        out.writeBoolean (value != null);
+
+        if (value != null) {
+            out.writeUTF (value);
+        }
+    }
+
+    /**
+     * Read a nullable string
+     *
+     * @param in input stream of snapshot
+     *
+     * @return string read, may be null
+     * @throws Exception when unable to read value
+     */
+    private static String readString (final DataInputStream in)
+    throws Exception {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Write a nullable integer
+     *
+     * @param out   output stream of snapshot
+     * @param value integer to write, may be null
+     *
+     * @throws Exception when unable to write value
+     */
+    private static void writeInteger (
+        final DataOutputStream out,
+        final Integer value
+    ) throws Exception {
+        out.writeBoolean (value != null);
+
+        if (value != null) {
+            out.writeInt (value);
+        }
+    }
+
+    /**
+     * Read a nullable integer
+     *
+     * @param in input stream of snapshot
+     *
+     * @return integer read, may be null
+     * @throws Exception when unable to read value
+     */
+    private static Integer readInteger (final DataInputStream in)
+    throws Exception {
+        return in.readBoolean() ? Integer.valueOf (in.readInt()) : null;
+    }
+
+    /**
+     * Write a nullable long
+     *
+     * @param out   output stream of snapshot
+     * @param value long to write, may be null
+     *
+     * @throws Exception when unable to write value
+     */
+    private static void writeLong (
+        final DataOutputStream out,
+        final Long value
+    ) throws Exception {
+        out.writeBoolean (value != null);
+
+        if (value != null) {
+            out.writeLong (value);
+        }
+    }
+
+    /**
+     * Read a nullable long
+     *
+     * @param in input stream of snapshot
+     *
+     * @return long read, may be null
+     * @throws Exception when unable to read value
+     */
+    private static Long readLong (final DataInputStream in)
+    throws Exception {
+        return in.readBoolean() ? Long.valueOf (in.readLong()) : null;
+    }
+}
@@ -21,6 +21,7 @@ import java.io.DataInputStream;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,10 +29,12 @@ import org.slf4j.LoggerFactory;
 import com.dbvisit.replicate.plog.domain.HeaderRecord;
 import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
 import com.dbvisit.replicate.plog.domain.TransactionInfoRecord;
+import com.dbvisit.replicate.plog.domain.parser.ColumnDecodePlan;
 import com.dbvisit.replicate.plog.metadata.DDLMetaData;
 import com.dbvisit.replicate.plog.metadata.Table;
 import com.dbvisit.replicate.plog.reader.DomainReader;
 import com.dbvisit.replicate.plog.reader.PlogStreamReader;
+import com.dbvisit.replicate.plog.util.IntObjectHashMap;
 
 /** 
  * Manages a single Processed Log (PLOG) file, knows how to identify a 
@@ -71,9 +74,11 @@ public class PlogFile {
     /** Each PLOG has it's own PLOG stream reader */
     private final PlogStreamReader reader;
     /** Cache table dictionary information for compactly encoded PLOGs */
-    private Map<Integer, Table> dictionary;
+    private IntObjectHashMap<Table> dictionary;
     /** Cache schema definitions for replicated data sets */
     private Map<String, DDLMetaData> schemas;
+    /** Cache column decode plans built from schema definitions */
+    private Map<String, ColumnDecodePlan> decodePlans;
     /** Flag to indicate whether or not schema definitions was updated to
      *  a newer version */
     private boolean updatedSchema = false;
@@ -232,8 +237,9 @@ public class PlogFile {
     
     /** Initialize PLOG cache */
     private void init () {
-        dictionary = new HashMap<Integer, Table>();
+        dictionary = new IntObjectHashMap<Table>();
         schemas = new HashMap<String, DDLMetaData>();
+        decodePlans = new ConcurrentHashMap<String, ColumnDecodePlan>();
         partialRecords = new HashMap <String, ChangeRowRecord>();
         transactionRecords = 
             new LinkedHashMap <String, TransactionInfoRecord>();
@@ -398,12 +404,18 @@ public class PlogFile {
     
     /**
      * Allow adding a pre-build dictionary cache, as when a previous PLOG
-     * in replicated stream passes it's cache on
+     * in replicated stream passes it's cache on, any other lookup than an
+     * <em>IntObjectHashMap</em> is copied to one
      * 
      * @param dictionary lookup of Table meta data by table object ID
      */
     public void setDictionary (Map<Integer, Table> dictionary) {
-        this.dictionary = dictionary;
+        if (dictionary == null || dictionary instanceof IntObjectHashMap) {
+            this.dictionary = (IntObjectHashMap<Table>)dictionary;
+        }
+        else {
+            this.dictionary = new IntObjectHashMap<Table>(dictionary);
+        }
     }
     
     /**
@@ -414,6 +426,29 @@ public class PlogFile {
     public Map<Integer, Table> getDictionary () {
         return this.dictionary;
     }
+
+    /**
+     * Return the table meta data for a table object ID from dictionary,
+     * without boxing the object ID when the dictionary is keyed by
+     * primitive object ID
+     * 
+     * @param objectId the table object ID
+     * 
+     * @return table meta data, or null if not present in dictionary
+     */
+    public Table getDictionaryTable (int objectId) {
+        Map<Integer, Table> tables = getDictionary();
+
+        if (tables == null) {
+            return null;
+        }
+
+        if (tables instanceof IntObjectHashMap) {
+            return ((IntObjectHashMap<Table>) tables).get (objectId);
+        }
+
+        return tables.get (objectId);
+    }
     
     /**
      * Allow adding a pre-build schema cache containing lookup of schema
@@ -424,6 +459,7 @@ public class PlogFile {
      */
     public void setSchemas (Map<String, DDLMetaData> schemas) {
         this.schemas = schemas;
+        decodePlans.clear();
     }
     
     /**
@@ -436,6 +472,29 @@ public class PlogFile {
         return this.schemas;
     }
     
+    /**
+     * Return the column decode plans built for the schemas in cache, safe
+     * for concurrent use by parsers
+     * 
+     * @return column decode plans, lookup by schema identifier
+     */
+    public Map<String, ColumnDecodePlan> getDecodePlans () {
+        return this.decodePlans;
+    }
+    
+    /**
+     * Invalidate the column decode plan of a schema when its meta data
+     * has been replaced, it is rebuilt when next used
+     * 
+     * @param schema the schema identifier, as the key of its meta data
+     *               in schema cache
+     */
+    public void invalidateDecodePlan (String schema) {
+        if (schema != null) {
+            decodePlans.remove (schema);
+        }
+    }
+    
     /**
      * Set the partial change records present in previous PLOG, need to
      * maintain these if LOB writes span PLOG boundaries
@@ -694,6 +753,7 @@ public class PlogFile {
      */
     private void clear () {
         schemas.clear();
+        decodePlans.clear();
         dictionary.clear();
         partialRecords.clear();
         transactionRecords.clear();
@@ -0,0 +1,338 @@
+package com.dbvisit.replicate.plog.file;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dbvisit.replicate.plog.file.PlogFileManager.PlogFileDetails;
+
+/**
+ * In-memory index of the PLOG files in MINE's output location, sorted by
+ * PLOG sequence and time stamp, as in replicate order. LOAD PLOGs are not
+ * indexed.
+ *
+ * <p>
+ * The index is kept up to date from file system events of a watch
+ * service on the PLOG location, so that a new PLOG is found as soon as
+ * it is created, without listing the directory. The directory is only
+ * listed again when events were lost, when no event has been seen for
+ * the rescan interval, in case the file system does not report them,
+ * or on every refresh when the location cannot be watched at all.
+ * Not thread safe, it is owned by one file manager.
+ * </p>
+ */
+final class PlogFileIndex {
+    private static final Logger logger = LoggerFactory.getLogger(
+        PlogFileIndex.class
+    );
+
+    /** File name of a PLOG in replicate sequence, not a LOAD PLOG */
+    private static final String PLOG_FILE_NAME =
+        "^[0-9]+\\." + PlogFile.PLOG_EXT + "\\.[0-9]{10}$";
+
+    /** The PLOG location */
+    private final File dir;
+    /** Time in ms without events after which directory is listed again */
+    private final long rescanInterval;
+    /** The PLOG files in location, in replicate order */
+    private final TreeSet<PlogFileDetails> plogs;
+    /** Watch service on PLOG location, null when polling */
+    private WatchService watcher;
+    /** Time in ms of last listing of, or event in, PLOG location */
+    private long lastSeen;
+
+    /**
+     * Create an index of the PLOGs in location, watching it for new PLOGs
+     * if supported by its file system, else polling it
+     *
+     * @param dir            the PLOG location to index
+     * @param rescanInterval time in ms without file system events after
+     *                       which the location is listed again
+     *
+     * @throws Exception when unable to list the PLOG location
+     */
+    PlogFileIndex (final File dir, final long rescanInterval)
+    throws Exception {
+        this.dir            = dir;
+        this.rescanInterval = rescanInterval;
+        this.plogs          = new TreeSet<PlogFileDetails>();
+
+        try {
+            /* watch before listing, to not miss PLOGs created in between */
+            Path path = dir.toPath();
+            watcher = path.getFileSystem().newWatchService();
+            path.register (watcher, ENTRY_CREATE, ENTRY_DELETE);
+        }
+        catch (Exception e) {
+            logger.warn (
+                "Unable to watch PLOG location: " + dir + ", will poll " +
+                "it instead, reason: " + e.getMessage()
+            );
+            close();
+        }
+
+        rescan();
+    }
+
+    /**
+     * Return whether or not the PLOG location is being watched for new
+     * PLOGs, else it is polled
+     *
+     * @return true if watched, else false if polling
+     */
+    boolean isWatching () {
+        return watcher != null;
+    }
+
+    /**
+     * Replace the index with a listing of the PLOG location
+     *
+     * @throws Exception when unable to list the PLOG location
+     */
+    void rescan () throws Exception {
+        File[] matchingFiles = dir.listFiles (new FilenameFilter() {
+            public boolean accept (File dir, String name) {
+                return name.matches (PLOG_FILE_NAME);
+            }
+        });
+
+        if (matchingFiles == null) {
+            throw new Exception (
+                "Invalid location for PLOGs: " + dir.toString()
+            );
+        }
+
+        plogs.clear();
+        for (File mf : matchingFiles) {
+            plogs.add (new PlogFileDetails (mf));
+        }
+
+        lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * Apply the file system events that are pending, without waiting
+     *
+     * @throws Exception when unable to list the PLOG location
+     */
+    void refresh () throws Exception {
+        if (watcher == null) {
+            rescan();
+            return;
+        }
+
+        WatchKey key = null;
+
+        try {
+            while ((key = watcher.poll()) != null) {
+                apply (key);
+            }
+        }
+        catch (ClosedWatchServiceException e) {
+            watcher = null;
+        }
+
+        if (watcher == null ||
+            System.currentTimeMillis() - lastSeen >= rescanInterval)
+        {
+            rescan();
+        }
+    }
+
+    /**
+     * Wait for a file system event in PLOG location and apply it, with
+     * any others pending. When polling it sleeps and lists the location.
+     *
+     * @param waitTime maximum time in ms to wait
+     *
+     * @return true if an event was applied, else false
+     *
+     * @throws InterruptedException when interrupted whilst waiting
+     * @throws Exception            when unable to list the PLOG location
+     */
+    boolean await (final long waitTime)
+    throws InterruptedException, Exception {
+        if (watcher == null) {
+            Thread.sleep (waitTime);
+            rescan();
+
+            return false;
+        }
+
+        boolean changed = false;
+
+        try {
+            WatchKey key = watcher.poll (waitTime, TimeUnit.MILLISECONDS);
+
+            if (key != null) {
+                apply (key);
+                changed = true;
+            }
+        }
+        catch (ClosedWatchServiceException e) {
+            watcher = null;
+        }
+
+        /* catch up with others pending, fall back to listing if needed */
+        refresh();
+
+        return changed;
+    }
+
+    /**
+     * Apply the events of a watch key to the index
+     *
+     * @param key signalled watch key of PLOG location
+     *
+     * @throws Exception when unable to list the PLOG location
+     */
+    private void apply (final WatchKey key) throws Exception {
+        boolean lost = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                lost = true;
+                continue;
+            }
+
+            String name = event.context().toString();
+
+            if (!name.matches (PLOG_FILE_NAME)) {
+                continue;
+            }
+
+            PlogFileDetails pfd = new PlogFileDetails (new File (dir, name));
+
+            if (event.kind() == ENTRY_CREATE) {
+                logger.trace ("PLOG created: " + name);
+                plogs.add (pfd);
+            }
+            else {
+                logger.trace ("PLOG removed: " + name);
+                plogs.remove (pfd);
+            }
+        }
+
+        if (!key.reset()) {
+            /* location is no longer accessible, poll it from now on */
+            logger.warn (
+                "PLOG location: " + dir + " is no longer watched, will " +
+                "poll it instead"
+            );
+            close();
+            lost = true;
+        }
+
+        if (lost) {
+            rescan();
+        }
+        else {
+            lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Return the lowest PLOG sequence in index
+     *
+     * @return oldest PLOG sequence, Integer.MAX_VALUE if there are none
+     */
+    int getOldestSequence () {
+        return plogs.isEmpty()
+               ? Integer.MAX_VALUE
+               : plogs.first().plogSequence;
+    }
+
+    /**
+     * Return the PLOGs for a PLOG sequence, more than one for a restart
+     * boundary
+     *
+     * @param plogSequence the PLOG sequence
+     *
+     * @return details of the PLOGs for sequence, in time stamp order
+     */
+    List<PlogFileDetails> find (final int plogSequence) {
+        List<PlogFileDetails> found = new ArrayList<PlogFileDetails>();
+
+        for (PlogFileDetails pfd : plogs.tailSet (
+                 new PlogFileDetails (plogSequence, Integer.MIN_VALUE)
+             ))
+        {
+            if (pfd.plogSequence != plogSequence) {
+                break;
+            }
+            found.add (pfd);
+        }
+
+        return found;
+    }
+
+    /**
+     * Return the PLOGs that follow a PLOG in replicate order
+     *
+     * @param plogSequence sequence of the PLOG
+     * @param timestamp    time stamp of the PLOG
+     *
+     * @return details of the PLOGs after it, in replicate order
+     */
+    List<PlogFileDetails> findAfter (
+        final int plogSequence,
+        final int timestamp
+    ) {
+        return new ArrayList<PlogFileDetails>(
+            plogs.tailSet (
+                new PlogFileDetails (plogSequence, timestamp),
+                false
+            )
+        );
+    }
+
+    /**
+     * Stop watching the PLOG location, the index is then kept up to date
+     * by polling
+     */
+    void close () {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            }
+            catch (Exception e) {
+                logger.debug (
+                    "Unable to close watch service on PLOG location: " +
+                    dir + ", reason: " + e.getMessage()
+                );
+            }
+            watcher = null;
+        }
+    }
+}
@@ -20,9 +20,11 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -30,7 +32,10 @@ import org.slf4j.LoggerFactory;
 
 import com.dbvisit.replicate.plog.config.PlogConfig;
 import com.dbvisit.replicate.plog.config.PlogConfigType;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
 import com.dbvisit.replicate.plog.reader.DomainReader.DomainReaderBuilder;
+import com.dbvisit.replicate.plog.reader.PlogIndex;
+import com.dbvisit.replicate.plog.reader.PlogStreamReader;
 
 /** 
  * PlogFileManager is responsible for finding PLOG files on disk and
@@ -54,6 +59,8 @@ public class PlogFileManager {
     private int scanWaitTime;
     /** The interval to allow for no PLOGs prior to intercepting interrupts */
     private int scanQuitInterval;
+    /** Number of complete PLOGs to open ahead of the one being read */
+    private int readAheadCount;
     /** Whether or not the manager is active, eg. managing PLOGs */
     private boolean active = false;
     /** Number of scans done waiting for PLOGs */
@@ -75,6 +82,16 @@ public class PlogFileManager {
     /** All PLOGs produced by this file manager will use the same domain reader
      *  to read a sub-stream of data, as configured by read criteria */
     private final DomainReaderBuilder builder;
+    /** Opens the next PLOGs in background, null if disabled */
+    private PlogReadAhead readAhead;
+    /** Whether or not to watch PLOG location for new PLOGs */
+    private boolean watchLocation;
+    /** Index of PLOGs in location when watching it, else null */
+    private PlogFileIndex fileIndex;
+    /** Location of PLOG cache snapshots, null if disabled */
+    private File snapshotLocation;
+    /** Offset in PLOG to restart at, null when not restarting */
+    private ReplicateOffset restartOffset;
     
     /**
      * Create and configure PLOG file manager.
@@ -239,6 +256,117 @@ public class PlogFileManager {
         return this.scanQuitInterval;
     }
 
+    /**
+     * Set the number of complete PLOGs to open and warm ahead of the PLOG
+     * being read
+     * 
+     * @param readAheadCount number of PLOGs to read ahead, 0 to disable
+     * 
+     * @throws Exception if the read-ahead count is negative
+     */
+    private void setReadAheadCount (int readAheadCount) throws Exception {
+        if (readAheadCount < 0) {
+            throw new Exception (
+                "Invalid PLOG read-ahead count: " + readAheadCount + ", " +
+                "reason: it must not be negative"
+            );
+        }
+        this.readAheadCount = readAheadCount;
+    }
+    
+    /**
+     * Return the number of complete PLOGs to open and warm ahead of the
+     * PLOG being read
+     * 
+     * @return number of PLOGs to read ahead, 0 if disabled
+     */
+    public int getReadAheadCount () {
+        return this.readAheadCount;
+    }
+
+    /**
+     * Set the location to write snapshots of the PLOG caches to, created
+     * if it does not exist
+     * 
+     * @param snapshotLocation directory for PLOG cache snapshots
+     * 
+     * @throws Exception if the location is not a writable directory
+     */
+    private void setSnapshotLocation (File snapshotLocation) 
+    throws Exception {
+        if (!snapshotLocation.isDirectory() && !snapshotLocation.mkdirs()) {
+            throw new Exception (
+                "Invalid PLOG cache snapshot location: " + snapshotLocation +
+                ", reason: it is not a directory"
+            );
+        }
+        
+        if (!snapshotLocation.canWrite()) {
+            throw new Exception (
+                "Invalid PLOG cache snapshot location: " + snapshotLocation +
+                ", reason: it is not writable"
+            );
+        }
+        this.snapshotLocation = snapshotLocation;
+    }
+    
+    /**
+     * Return the location of the snapshots of the PLOG caches
+     * 
+     * @return directory of PLOG cache snapshots, null if disabled
+     */
+    public File getSnapshotLocation () {
+        return this.snapshotLocation;
+    }
+
+    /**
+     * Return whether or not the PLOG location is watched for the arrival
+     * of new PLOGs, instead of listing it at every scan
+     * 
+     * @return true if PLOG location is watched, else false if polled
+     */
+    public boolean isWatchingLocation () {
+        return fileIndex != null && fileIndex.isWatching();
+    }
+
+    /**
+     * Return the index of PLOGs in location when configured to watch it,
+     * it is created when first used, it falls back to polling if the
+     * location cannot be watched
+     * 
+     * @return index of PLOGs, or null if not watching PLOG location
+     * 
+     * @throws Exception when unable to list the PLOG location
+     */
+    private PlogFileIndex getFileIndex () throws Exception {
+        if (watchLocation && fileIndex == null) {
+            fileIndex = new PlogFileIndex (
+                new File (plogLocation),
+                (long)scanWaitTime * healthCheckInterval
+            );
+        }
+        
+        return fileIndex;
+    }
+    
+    /**
+     * Wait for next scan, when watching the PLOG location this returns as
+     * soon as a new PLOG arrives, else it sleeps for the scan wait time
+     * 
+     * @throws InterruptedException when interrupted whilst waiting
+     * @throws Exception            when unable to list the PLOG location
+     */
+    private void waitForPlogs () throws InterruptedException, Exception {
+        PlogFileIndex index = getFileIndex();
+        
+        if (index != null) {
+            index.await (scanWaitTime);
+        }
+        else {
+            Thread.sleep (scanWaitTime);
+        }
+    }
+
     /**
      * Set whether or not this PLOG file manager is already active, meaning
      * it has already started scanning a replication sequence or has
@@ -353,6 +481,26 @@ public class PlogFileManager {
                 )
             )     
         );
+        setReadAheadCount (
+            Integer.parseInt(
+                config.getConfigValue(PlogConfigType.READ_AHEAD_COUNT)
+            )
+        );
+        
+        if (readAheadCount > 0) {
+            readAhead = new PlogReadAhead (readAheadCount);
+        }
+        
+        watchLocation = Boolean.parseBoolean (
+            config.getConfigValue(PlogConfigType.WATCH_LOCATION)
+        );
+        
+        String snapshots = 
+            config.getConfigValue(PlogConfigType.SNAPSHOT_LOCATION);
+        
+        if (snapshots != null && !snapshots.isEmpty()) {
+            setSnapshotLocation (new File (snapshots));
+        }
     }
 
     /** 
@@ -382,6 +530,13 @@ public class PlogFileManager {
      * @throws Exception Failed to read PLOG location
      */
     public int findOldestPlogSequence () throws Exception {
+        PlogFileIndex index = getFileIndex();
+        
+        if (index != null) {
+            index.refresh();
+            return index.getOldestSequence();
+        }
+        
         int rtval = Integer.MAX_VALUE;
         File dir = new File(plogLocation);
         if (!dir.canRead()) {
@@ -484,28 +639,12 @@ public class PlogFileManager {
             else {
                 processedSeq.put (plogSequence, false);
                 
-                final String prefix = plogSequence + "." + PLOG_SUFFIX;
-                File dir = new File(plogLocation);
                 boolean atRestart = false;
                 
-                /* find matching major PLOGs for sequence, ignoring 
-                 * LOAD PLOGs */
-                File[] matchingFiles = dir.listFiles(new FilenameFilter() {
-                    public boolean accept(File dir, String name) {
-                        return name.toLowerCase().startsWith(prefix) &&
-                               !name.matches(
-                                   "^[0-9]+\\." + PLOG_SUFFIX + 
-                                   "\\.[0-9]{10}+.*-[0-9]{6}-LOAD_.*"
-                               );
-                    }
-                });
+                List<PlogFileDetails> matchingFiles = 
+                    findPlogFiles (plogSequence);
                 
-                if (matchingFiles == null) {
-                    throw new Exception (
-                        "Invalid location for PLOGs: " + dir.toString()
-                    );
-                }
-                if (matchingFiles.length == 0) {
+                if (matchingFiles.isEmpty()) {
                     throw new FileNotFoundException(
                         "No file(s) found for sequence: " + plogSequence + 
                         " in PLOG location: " + plogLocation
@@ -513,12 +652,13 @@ public class PlogFileManager {
                 }
                 
                 /* we have matching file(s) */
-                for (File mf : matchingFiles) {
+                for (PlogFileDetails mf : matchingFiles) {
                     if (logger.isDebugEnabled()) {
                         logger.trace (
-                            "Found candidate PLOG: " + mf.getName() + " " +
+                            "Found candidate PLOG: " + mf.fileName + " " +
                             "size: " + 
-                            (new File (mf.getAbsolutePath())).length()
+                            (new File (plogLocation.getPath(), mf.fileName))
+                            .length()
                         );
                     }
                     
@@ -528,9 +668,7 @@ public class PlogFileManager {
                             new LinkedList<PlogFileDetails>()
                         );
                     }
-                    fileDetails.get (plogSequence).add (
-                        new PlogFileDetails(mf)
-                    );
+                    fileDetails.get (plogSequence).add (mf);
                 }
             
                 LinkedList<PlogFileDetails> matchedFileDetails = 
@@ -568,6 +706,57 @@ public class PlogFileManager {
         }
     }
     
+    /**
+     * Find the major PLOG files for a PLOG sequence, ignoring LOAD PLOGs,
+     * from the index when watching PLOG location, else by listing it
+     * 
+     * @param plogSequence PLOG sequence to find the PLOG files for
+     * 
+     * @return details of PLOG files found for sequence, none if empty
+     * 
+     * @throws Exception when unable to list the PLOG location
+     */
+    private List<PlogFileDetails> findPlogFiles (int plogSequence)
+    throws Exception
+    {
+        PlogFileIndex index = getFileIndex();
+        
+        if (index != null) {
+            index.refresh();
+            return index.find (plogSequence);
+        }
+        
+        final String prefix = plogSequence + "." + PLOG_SUFFIX;
+        File dir = new File(plogLocation);
+        
+        /* find matching major PLOGs for sequence, ignoring 
+         * LOAD PLOGs and PLOG index files */
+        File[] matchingFiles = dir.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.toLowerCase().startsWith(prefix) &&
+                       !name.endsWith ("." + PlogIndex.INDEX_EXT) &&
+                       !name.matches(
+                           "^[0-9]+\\." + PLOG_SUFFIX + 
+                           "\\.[0-9]{10}+.*-[0-9]{6}-LOAD_.*"
+                       );
+            }
+        });
+        
+        if (matchingFiles == null) {
+            throw new Exception (
+                "Invalid location for PLOGs: " + dir.toString()
+            );
+        }
+        
+        List<PlogFileDetails> found = new ArrayList<PlogFileDetails>();
+        
+        for (File mf : matchingFiles) {
+            found.add (new PlogFileDetails(mf));
+        }
+        
+        return found;
+    }
+    
     /** Restarts the PLOG file manager at a specific PLOG file, it does so
      *  by cleaning out all existing scanning state
      * 
@@ -581,6 +770,37 @@ public class PlogFileManager {
         startAt (plogUID);
     }
     
+    /** 
+     * Restarts the PLOG file manager at an offset in a PLOG, the PLOG is
+     * opened at the latest snapshot of its caches before the offset, if
+     * any, and positioned at the offset using its index, if it has one,
+     * else the records up to the offset are read again
+     * 
+     * @param offset the replicate offset to restart at, the end of the
+     *               last record processed
+     * @throws Exception for any restart error
+     */
+    public void restartAt (ReplicateOffset offset) throws Exception {
+        if (isActive()) {
+            reset();
+        }
+        startAt (offset);
+    }
+    
+    /**
+     * Prepare the PLOG file manager to start scanning at an offset in
+     * a PLOG. NOTE: this does not open the PLOG file, only prepares for
+     * the mandatory call to <em>scan()</em>.
+     * 
+     * @param offset the replicate offset to start at
+     * 
+     * @throws Exception Failed to start scanning at PLOG of offset
+     */
+    public void startAt (ReplicateOffset offset) throws Exception {
+        startAt (offset.getPlogUID());
+        restartOffset = offset;
+    }
+    
     /**
      * Prepare the PLOG file manager to start scanning at a certain 
      * PLOG in replication. NOTE: this does not open the PLOG file,
@@ -793,7 +1013,7 @@ public class PlogFileManager {
             
             /* sleep and retry */
             retries++;
-            Thread.sleep(scanWaitTime);
+            waitForPlogs();
 
             /* Check for a dead redo reader at each health check interval */
             if ((retries % healthCheckInterval) == 0) {
@@ -906,8 +1126,8 @@ public class PlogFileManager {
                 incrementScanCount ();
             }
             if (nextPlog == null) {
-                /* wait for a while */
-                Thread.sleep(scanWaitTime);
+                /* wait for a while, or until next PLOG arrives */
+                waitForPlogs();
             }
         }
     }
@@ -925,6 +1145,20 @@ public class PlogFileManager {
             throw new Exception ("Unable to open null PLOG file");
         }
         
+        if (readAhead != null) {
+            PlogFile opened = readAhead.take (nextPlog.getFileName());
+            
+            if (opened != null) {
+                /* use the one that was opened ahead, discard unopened one */
+                nextPlog.close();
+                nextPlog = opened;
+                
+                logger.trace (
+                    "Using PLOG opened ahead: " + nextPlog.getFileName()
+                );
+            }
+        }
+        
         if (restartBoundaryPlogs.containsKey (nextPlog.getFileName())) {
             logger.debug (
                 "Restart boundary PLOG found: " + nextPlog.getFileName()
@@ -956,6 +1190,228 @@ public class PlogFileManager {
         
         logger.trace ("Opening next PLOG to read: " + nextPlog.getFileName());
         nextPlog.open();
+        
+        if (restartOffset != null && 
+            restartOffset.getPlogUID() == nextPlog.getUID()) 
+        {
+            ReplicateOffset offset = restartOffset;
+            restartOffset = null;
+            
+            positionAtRestart (offset);
+        }
+        else {
+            /* caches at start of PLOG, as inherited from previous PLOG */
+            writeCacheSnapshot (nextPlog.getReader().getOffset());
+        }
+        
+        readAheadOfNextPlog();
+    }
+    
+    /**
+     * Position the next PLOG, that has just been opened, at the offset to
+     * restart at, by restoring its caches from the latest snapshot before
+     * offset and forwarding to it, then seeking to the offset using the
+     * index of PLOG, if any. Records from the snapshot to the offset are
+     * read again when it cannot seek. A domain reader that aggregates
+     * transactions or merges multi-part records needs the records of all
+     * transactions still open at the offset, which neither the snapshot
+     * nor the index records, for it the PLOG is read from its start.
+     * 
+     * @param offset the replicate offset in next PLOG to restart at
+     * 
+     * @throws Exception when unable to restore caches or position PLOG
+     */
+    private void positionAtRestart (ReplicateOffset offset) throws Exception {
+        PlogStreamReader reader = nextPlog.getReader();
+        
+        if (reader.getDomainReader() != null &&
+            !reader.getDomainReader().canSeek()) 
+        {
+            logger.debug (
+                "Reading PLOG: " + nextPlog.getFileName() + " from start " +
+                "to restart offset: " + offset.getPlogOffset() + ", its " +
+                "domain reader needs the transactions open at offset"
+            );
+            return;
+        }
+        
+        if (snapshotLocation != null) {
+            PlogCacheSnapshot snapshot = PlogCacheSnapshot.findLatest (
+                snapshotLocation,
+                nextPlog.getUID(),
+                offset.getPlogOffset()
+            );
+            
+            if (snapshot != null && 
+                snapshot.getOffset() >= reader.getOffset()) 
+            {
+                logger.debug (
+                    "Restoring caches of PLOG: " + nextPlog.getFileName() +
+                    " from snapshot at offset: " + snapshot.getOffset()
+                );
+                snapshot.applyTo (nextPlog);
+                reader.forward (snapshot.getOffset());
+            }
+        }
+        
+        if (reader.seek (offset)) {
+            logger.debug (
+                "Seeked PLOG: " + nextPlog.getFileName() + " to restart " +
+                "offset: " + offset.getPlogOffset()
+            );
+        }
+    }
+    
+    /**
+     * Write a snapshot of the caches of the PLOG being read at the offset
+     * it has been read up to, when a snapshot location is configured. This
+     * allows a restart at a later offset in PLOG to not read the PLOG from
+     * the start. Snapshots of PLOGs before the previous one are removed.
+     * Must be called by the thread reading the PLOG.
+     * 
+     * @throws Exception when unable to write snapshot
+     */
+    public void checkpointCaches () throws Exception {
+        if (snapshotLocation == null || 
+            nextPlog == null || 
+            nextPlog.getReader() == null ||
+            nextPlog.getReader().isPaused()) 
+        {
+            /* disabled, or not at a record boundary of this PLOG */
+            return;
+        }
+        
+        PlogCacheSnapshot.write (
+            snapshotLocation, 
+            nextPlog, 
+            nextPlog.getReader().getOffset()
+        );
+        PlogCacheSnapshot.prune (snapshotLocation, nextPlog.getUID());
+    }
+    
+    /**
+     * Write a snapshot of the caches of next PLOG at a PLOG boundary, a
+     * failure to write it is reported, it is not fatal
+     * 
+     * @param offset offset of first record in next PLOG
+     */
+    private void writeCacheSnapshot (long offset) {
+        if (snapshotLocation == null) {
+            return;
+        }
+        
+        try {
+            PlogCacheSnapshot.write (snapshotLocation, nextPlog, offset);
+            PlogCacheSnapshot.prune (snapshotLocation, nextPlog.getUID());
+        }
+        catch (Exception e) {
+            logger.warn (
+                "Unable to write snapshot of caches for PLOG: " + 
+                nextPlog.getFileName() + ", reason: " + e.getMessage()
+            );
+        }
+    }
+    
+    /**
+     * Start reading ahead the complete PLOGs that follow the next PLOG in
+     * replicate sequence, up to the configured read-ahead count. These are
+     * opened, validated and warmed in background whilst the next PLOG is
+     * being read, the cache is still copied to them in sequence when they
+     * are opened as next PLOG.
+     * 
+     * @throws Exception when unable to list the PLOGs to read ahead
+     */
+    private void readAheadOfNextPlog () throws Exception {
+        if (readAhead == null || readAhead.isFull()) {
+            return;
+        }
+        
+        for (PlogFileDetails pfd : findCompletePlogsAfter (nextPlog)) {
+            if (readAhead.isFull()) {
+                break;
+            }
+            
+            if (!readAhead.contains (pfd.fileName)) {
+                readAhead.submit (
+                    new PlogFile (
+                        pfd.plogSequence, 
+                        pfd.timestamp,
+                        plogLocation.getPath().toString(),
+                        pfd.fileName,
+                        builder.build()
+                    )
+                );
+            }
+        }
+    }
+    
+    /**
+     * Find the PLOG files that follow a PLOG in replicate sequence which
+     * are complete, as in MINE has moved on to a later PLOG, ignoring
+     * LOAD PLOGs
+     * 
+     * @param plog the PLOG to find the complete PLOGs after
+     * 
+     * @return details of complete PLOGs in replicate sequence
+     * 
+     * @throws Exception when unable to list PLOG location
+     */
+    private List<PlogFileDetails> findCompletePlogsAfter (PlogFile plog)
+    throws Exception
+    {
+        PlogFileIndex index = getFileIndex();
+        
+        if (index != null) {
+            index.refresh();
+            
+            List<PlogFileDetails> after = 
+                index.findAfter (plog.getId(), plog.getTimestamp());
+            
+            if (!after.isEmpty()) {
+                /* the last one may still be written to by MINE */
+                after.remove (after.size() - 1);
+            }
+            
+            return after;
+        }
+        
+        File dir = new File(plogLocation);
+        
+        File[] matchingFiles = dir.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.matches (
+                           "^[0-9]+\\." + PLOG_SUFFIX + "\\.[0-9]{10}+$"
+                       );
+            }
+        });
+        
+        if (matchingFiles == null) {
+            throw new Exception (
+                "Invalid location for PLOGs: " + dir.toString()
+            );
+        }
+        
+        List<PlogFileDetails> after = new ArrayList<PlogFileDetails>();
+        
+        for (File mf : matchingFiles) {
+            PlogFileDetails pfd = new PlogFileDetails (mf);
+            
+            if (pfd.plogSequence > plog.getId() ||
+                (pfd.plogSequence == plog.getId() && 
+                 pfd.timestamp > plog.getTimestamp()))
+            {
+                after.add (pfd);
+            }
+        }
+        
+        Collections.sort (after);
+        
+        if (!after.isEmpty()) {
+            /* the last one may still be written to by MINE */
+            after.remove (after.size() - 1);
+        }
+        
+        return after;
     }
     
     /**
@@ -988,9 +1444,20 @@ public class PlogFileManager {
     }
     
     /**
-     * Close current and previous PLOGs, their data streams and readers.
+     * Close current and previous PLOGs, their data streams and readers,
+     * and any PLOGs opened ahead.
      */
     public void close () {
+        if (readAhead != null) {
+            readAhead.clear();
+        }
+        
+        if (fileIndex != null) {
+            /* stop watching, it is recreated if scanning is resumed */
+            fileIndex.close();
+            fileIndex = null;
+        }
+        
         /* cleanly close PLOGs if open when interrupted or forced to close */
         if (nextPlog != null) {
             nextPlog.close();
@@ -1029,16 +1496,20 @@ public class PlogFileManager {
      */
     private void reset () {
         resetScanCount();
+        if (readAhead != null) {
+            readAhead.clear();
+        }
         fileDetails.clear();
         processedSeq.clear();
         restartBoundaryPlogs.clear();
+        restartOffset = null;
     }
     
     /** 
      * Simple class that implements Comparable to assist in sorting
      * PLOGs on disk
      */
-    private class PlogFileDetails implements Comparable<PlogFileDetails> {
+    static class PlogFileDetails implements Comparable<PlogFileDetails> {
         /** Name of PLOG file on disk */
         public final String fileName;
         /** Sequence of PLOG file within replication */
@@ -1079,6 +1550,19 @@ public class PlogFileManager {
             );
         }
         
+        /**
+         * Create PLOG file details without a file, for use as search key
+         * in sorted PLOG file details
+         * 
+         * @param plogSequence Sequence of PLOG file within replication
+         * @param timestamp    The time stamp of PLOG file
+         */
+        PlogFileDetails (int plogSequence, int timestamp) {
+            this.fileName     = null;
+            this.plogSequence = plogSequence;
+            this.timestamp    = timestamp;
+        }
+        
         /**
          * Compare this PLOG file to another by using file details, the
          * sequences and time stamps of the PLOGs within replication
@@ -0,0 +1,349 @@
+package com.dbvisit.replicate.plog.file;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-ahead stage for PLOGs that follow the one being read. Each PLOG
+ * handed to it is opened on a background thread, which validates its file
+ * header and reads its control header, after which its content is read
+ * once to warm the file system cache, all whilst the previous PLOG is
+ * still being consumed.
+ *
+ * <p>
+ * Only the opening of the PLOG stream is done ahead, the PLOG caches are
+ * still handed over from the previous PLOG by the file manager when it
+ * takes the PLOG, in replicate order. The read-ahead stage is owned by
+ * one file manager and is not thread safe, its background thread times
+ * out when idle.
+ * </p>
+ */
+final class PlogReadAhead {
+    private static final Logger logger = LoggerFactory.getLogger(
+        PlogReadAhead.class
+    );
+
+    /** Size of buffer used to warm the file system cache */
+    private static final int WARM_BUFFER_SIZE = 64 * 1024;
+    /** Time in seconds to keep an idle read-ahead thread alive */
+    private static final long KEEP_ALIVE_SECS = 60L;
+    /** Counter for naming read-ahead threads */
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    /** Maximum number of PLOGs to read ahead */
+    private final int depth;
+    /** Single background thread, PLOGs are read ahead in order */
+    private final ThreadPoolExecutor executor;
+    /** The PLOGs being read ahead, by file name, in replicate order */
+    private final Map<String, ReadAhead> pending;
+
+    /** Open, validate and warm a PLOG on background thread */
+    private static class ReadAhead implements Callable<PlogFile> {
+        /** The PLOG to read ahead */
+        private final PlogFile plog;
+        /** Result of reading ahead, the opened PLOG */
+        private Future<PlogFile> result;
+        /** Stop warming the PLOG when it's no longer needed */
+        private volatile boolean discarded = false;
+
+        /**
+         * Create read-ahead task for a PLOG
+         *
+         * @param plog the unopened PLOG to read ahead
+         */
+        private ReadAhead (final PlogFile plog) {
+            this.plog = plog;
+        }
+
+        /**
+         * Open the PLOG, this validates it and reads its control header,
+         * then warm its content
+         *
+         * @return the opened PLOG
+         *
+         * @throws Exception if the PLOG failed to open
+         */
+        @Override
+        public PlogFile call() throws Exception {
+            plog.open();
+            warm();
+
+            return plog;
+        }
+
+        /**
+         * Read the PLOG file once, discarding its content, to have it in
+         * file system cache when it is read by its own stream
+         */
+        private void warm () {
+            InputStream in = null;
+            byte[] buffer = new byte[WARM_BUFFER_SIZE];
+
+            try {
+                in = new FileInputStream (plog.getFullPath());
+
+                while (!discarded && in.read (buffer) != -1) {
+                    /* only reading to warm the cache */
+                }
+            }
+            catch (Exception e) {
+                /* not fatal, it will only be read cold */
+                logger.debug (
+                    "Unable to warm PLOG: " + plog.getFileName() + ", " +
+                    "reason: " + e.getMessage()
+                );
+            }
+            finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (Exception e) {
+                        logger.debug (
+                            "Unable to close PLOG: " + plog.getFileName() +
+                            " after warming, reason: " + e.getMessage()
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a read-ahead stage for a number of PLOGs
+     *
+     * @param depth the maximum number of PLOGs to read ahead, must be
+     *              positive
+     */
+    PlogReadAhead (final int depth) {
+        this.depth = depth;
+        this.pending = new LinkedHashMap<String, ReadAhead>();
+
+        executor = new ThreadPoolExecutor (
+            1,
+            1,
+            KEEP_ALIVE_SECS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread (Runnable r) {
+                    Thread reader = new Thread (
+                        r,
+                        "plog-read-ahead-" + threadCounter.incrementAndGet()
+                    );
+                    /* never keep the JVM alive */
+                    reader.setDaemon (true);
+
+                    return reader;
+                }
+            }
+        );
+        executor.allowCoreThreadTimeOut (true);
+    }
+
+    /**
+     * Return the maximum number of PLOGs to read ahead
+     *
+     * @return read-ahead depth
+     */
+    int getDepth () {
+        return depth;
+    }
+
+    /**
+     * Return the number of PLOGs being, or that have been, read ahead
+     * and not yet taken
+     *
+     * @return number of PLOGs pending
+     */
+    int getNumPending () {
+        return pending.size();
+    }
+
+    /**
+     * Return whether or not no more PLOGs can be read ahead until the
+     * pending ones are taken
+     *
+     * @return true if at read-ahead depth, else false
+     */
+    boolean isFull () {
+        return pending.size() >= depth;
+    }
+
+    /**
+     * Check whether or not a PLOG is being, or has been, read ahead
+     *
+     * @param fileName file name of PLOG
+     *
+     * @return true if PLOG is pending, else false
+     */
+    boolean contains (final String fileName) {
+        return pending.containsKey (fileName);
+    }
+
+    /**
+     * Start reading ahead an unopened PLOG on the background thread, it
+     * will be closed if it is never taken
+     *
+     * @param plog the PLOG to read ahead
+     *
+     * @throws Exception if the PLOG is already pending or read-ahead is
+     *                   at its maximum depth
+     */
+    void submit (final PlogFile plog) throws Exception {
+        if (contains (plog.getFileName())) {
+            throw new Exception (
+                "Unable to read ahead PLOG: " + plog.getFileName() + ", " +
+                "reason: it is already being read ahead"
+            );
+        }
+
+        if (isFull()) {
+            throw new Exception (
+                "Unable to read ahead PLOG: " + plog.getFileName() + ", " +
+                "reason: already reading ahead " + depth + " PLOGs"
+            );
+        }
+
+        ReadAhead task = new ReadAhead (plog);
+        task.result = executor.submit (task);
+
+        pending.put (plog.getFileName(), task);
+
+        logger.trace ("Reading ahead PLOG: " + plog.getFileName());
+    }
+
+    /**
+     * Take a PLOG that was read ahead, waiting for it to be opened if
+     * needed. PLOGs submitted before it that are still pending have been
+     * skipped and are discarded.
+     *
+     * @param fileName file name of PLOG to take
+     *
+     * @return the opened PLOG, or null if it was not read ahead or failed
+     *         to open, in which case the caller should open it itself
+     *
+     * @throws InterruptedException if interrupted whilst waiting
+     */
+    PlogFile take (final String fileName) throws InterruptedException {
+        if (!contains (fileName)) {
+            return null;
+        }
+
+        Iterator<Map.Entry<String, ReadAhead>> it =
+            pending.entrySet().iterator();
+
+        while (it.hasNext()) {
+            Map.Entry<String, ReadAhead> entry = it.next();
+            it.remove();
+
+            if (entry.getKey().equals (fileName)) {
+                return result (entry.getValue());
+            }
+
+            discard (entry.getValue());
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the opened PLOG of a read-ahead task, waiting for it
+     *
+     * @param task the read-ahead task
+     *
+     * @return the opened PLOG, or null if it failed to open
+     *
+     * @throws InterruptedException if interrupted whilst waiting
+     */
+    private PlogFile result (final ReadAhead task)
+    throws InterruptedException {
+        PlogFile plog = null;
+
+        try {
+            plog = task.result.get();
+        }
+        catch (ExecutionException e) {
+            /* the caller opens it again and reports the failure, if any */
+            logger.debug (
+                "Failed to read ahead PLOG: " + task.plog.getFileName() +
+                ", reason: " + e.getCause().getMessage()
+            );
+            task.plog.close();
+        }
+        catch (InterruptedException e) {
+            discard (task);
+            throw e;
+        }
+
+        return plog;
+    }
+
+    /**
+     * Discard a PLOG that is no longer needed, stop it from being read
+     * ahead and close it
+     *
+     * @param task the read-ahead task of PLOG
+     */
+    private void discard (final ReadAhead task) {
+        task.discarded = true;
+
+        if (!task.result.cancel (false)) {
+            /* already opened or opening, wait for it to stop warming */
+            try {
+                task.result.get();
+            }
+            catch (ExecutionException e) {
+                /* failed to open, nothing to report */
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        task.plog.close();
+
+        logger.trace ("Discarded read ahead PLOG: " + task.plog.getFileName());
+    }
+
+    /**
+     * Discard all PLOGs pending, when restarting or closing the file
+     * manager
+     */
+    void clear () {
+        for (ReadAhead task : pending.values()) {
+            discard (task);
+        }
+        pending.clear();
+    }
+}
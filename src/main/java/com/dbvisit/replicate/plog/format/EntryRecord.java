@@ -16,19 +16,23 @@ package com.dbvisit.replicate.plog.format;
  * limitations under the License.
  **/
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.dbvisit.replicate.plog.domain.ReplicateOffset;
 import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.reader.criteria.FilterableRecord;
+import com.dbvisit.replicate.plog.reader.criteria.ObjectFilterableRecord;
 
 /**
  * PLOG entry record consisting of raw tag data. This record is filterable 
  * by all parse criteria. Each PLOG entry record consist of a fixed section
  * of 3 chunks, then variable section of chunks containing its tag data.
  */
-public class EntryRecord implements FilterableRecord<EntrySubType> {
+public class EntryRecord implements ObjectFilterableRecord<EntrySubType> {
     /** Entry tag data starts at the 3rd chunk in entry record */
     public static final int DATA_CHUNK_OFFSET = 3;
 
@@ -44,17 +48,25 @@ public class EntryRecord implements FilterableRecord<EntrySubType> {
     /** The ID of the sub type of PLOG entry record pay load, encoded
      *  in the third chunk in PLOG entry record */
     private int subTypeId;
-    /** The parsed raw tag data grouped by entry tag type, as encoded in
-     *  variable section of PLOG entry record */
-    private Map<EntryTagType, List<EntryTagRecord>> entryTags;
+    /** The parsed raw tag data indexed by entry tag type, as encoded in
+     *  variable section of PLOG entry record, reused for each record */
+    private final EntryTags entryTags = new EntryTags();
     /** Unique offset of this record in a replicate PLOG set */
     private ReplicateOffset offset;
     /** The fully qualified name of the owner of this record within
      *  the replicated stream 
      */
     private String owner;
+    /** The ID of the replicated object of this record, -1 for none */
+    private int objectId = -1;
     /** The Oracle SCN for the change associated with this record */
     private long scn;
+    /** Whether or not the tag data is in a pay load buffer that is
+     *  recycled for the next record read */
+    private boolean recycledPayload;
+    /** Whether or not this record was filtered while it was read and
+     *  only has the tags needed to filter it, or none */
+    private boolean filtered;
 
     /**
      * Set the length, in number of PLOG chunks, as decoded from the first
@@ -118,25 +130,97 @@ public class EntryRecord implements FilterableRecord<EntrySubType> {
     /** 
      * Set the raw data tags decoded for this record as its data pay load.
      * This is grouped by type of encoded change data to allow quick lookup 
-     * of list of data tags per type
+     * of list of data tags per type, the tags are copied to the tag store
+     * of this record in their encoded sequence
      * 
      * @param tags list of raw tag records decoded from variable section in
      *             this PLOG entry record, group by its type
      */
     public void setEntryTags (Map<EntryTagType, List<EntryTagRecord>> tags) {
-        this.entryTags = tags;
+        if (tags == entryTags) {
+            return;
+        }
+
+        entryTags.clear();
+
+        if (tags != null) {
+            List<EntryTagRecord> sequence = new ArrayList<EntryTagRecord>();
+            Map<EntryTagRecord, EntryTagType> types =
+                new IdentityHashMap<EntryTagRecord, EntryTagType>();
+
+            for (Map.Entry<EntryTagType, List<EntryTagRecord>> entry :
+                 tags.entrySet())
+            {
+                for (EntryTagRecord tag : entry.getValue()) {
+                    sequence.add (tag);
+                    types.put (tag, entry.getKey());
+                }
+            }
+            Collections.sort (sequence);
+
+            for (EntryTagRecord tag : sequence) {
+                addEntryTag (types.get (tag), tag);
+            }
+        }
     }
 
     /**
-     * Return the decoded list of data tags grouped by type of encoded data.
+     * Add the next raw data tag decoded for this record, tags are added
+     * in their encoded sequence
      * 
-     * @return map of lists of raw tag records decoded from variable pay load
+     * @param type the type of data tag
+     * @param tag  raw tag record decoded from variable section in this
+     *             PLOG entry record
+     */
+    public void addEntryTag (EntryTagType type, EntryTagRecord tag) {
+        entryTags.add (type, tag);
+    }
+
+    /**
+     * Return the decoded data tags, indexed by type of encoded data. This
+     * is also the map of lists of tags grouped by type.
+     * 
+     * @return store of raw tag records decoded from variable pay load
      *         section in PLOG entry record
      */
-    public Map<EntryTagType, List<EntryTagRecord>> getEntryTags () {
+    public EntryTags getEntryTags () {
         return this.entryTags;
     }
 
+    /**
+     * Check whether or not this record has data tags of a type
+     * 
+     * @param type the type of data tag
+     * 
+     * @return true if at least one tag of type is present, else false
+     */
+    public boolean hasEntryTag (EntryTagType type) {
+        return entryTags.contains (type);
+    }
+
+    /**
+     * Return the data tag of a type, for single valued tags, or the first
+     * one encoded for tags with multiple values
+     * 
+     * @param type the type of data tag
+     * 
+     * @return raw tag record, or null if record has no tag of type
+     */
+    public EntryTagRecord getEntryTag (EntryTagType type) {
+        return entryTags.first (type);
+    }
+
+    /**
+     * Return the number of data tags of a type in this record
+     * 
+     * @param type the type of data tag
+     * 
+     * @return number of tags of type
+     */
+    public int getEntryTagCount (EntryTagType type) {
+        return entryTags.count (type);
+    }
+
     /**
      * Set the composite type used to identify the type of record and parsing
      * behavior.
@@ -184,6 +268,17 @@ public class EntryRecord implements FilterableRecord<EntrySubType> {
         this.owner = owner;
     }
 
+    /**
+     * Set the ID of the replicated object that owns this record, as
+     * decoded from its object ID tag. This allows criteria to memoise
+     * their decisions per object.
+     * 
+     * @param objectId object ID, or -1 if record has none
+     */
+    public void setObjectId (int objectId) {
+        this.objectId = objectId;
+    }
+
     /**
      * Set the Oracle change number for this PLOG entry record. This is
      * required for SCN based criteria used as parse filter.
@@ -199,19 +294,60 @@ public class EntryRecord implements FilterableRecord<EntrySubType> {
      * to raw data tags.
      */
     public void clear () {
-        if (entryTags != null) {
-            for (List<EntryTagRecord> tags : entryTags.values()) {
-                for (EntryTagRecord tag : tags) {
-                    tag.clear();
-                }
-                tags.clear();
-            }
-            entryTags.clear();
-        }
+        entryTags.clear();
         length = 0;
         subType = EntrySubType.ESTYPE_UNKNOWN;
         typeId = -1;
         subTypeId = -1;
+        offset = null;
+        owner = null;
+        objectId = -1;
+        scn = 0L;
+        recycledPayload = false;
+        filtered = false;
+    }
+
+    /**
+     * Set whether or not the raw data of the tags of this record is held
+     * in a pay load buffer that is recycled by its reader, and overwritten
+     * when the next record is read
+     * 
+     * @param recycledPayload true if tag data is in a recycled buffer,
+     *                        else false
+     */
+    public void setRecycledPayload (boolean recycledPayload) {
+        this.recycledPayload = recycledPayload;
+    }
+
+    /**
+     * Return whether or not the raw data of tags in this record is held in
+     * a recycled pay load buffer, any tag data that needs to be retained
+     * after the record has been processed must be copied
+     * 
+     * @return true if tag data must be copied to retain it, else false
+     */
+    public boolean hasRecycledPayload () {
+        return this.recycledPayload;
+    }
+
+    /**
+     * Set whether or not this record was filtered when it was read, its
+     * tags were not decoded because no domain parser needs it
+     * 
+     * @param filtered true if record was filtered, else false
+     */
+    public void setFiltered (boolean filtered) {
+        this.filtered = filtered;
+    }
+
+    /**
+     * Return whether or not this record was filtered when it was read,
+     * it has none or only some of its tags and must not be parsed
+     * 
+     * @return true if record was filtered, else false
+     */
+    public boolean isFiltered () {
+        return this.filtered;
     }
 
     /** 
@@ -338,9 +474,9 @@ public class EntryRecord implements FilterableRecord<EntrySubType> {
      */
     public boolean hasColumnMetaData () {
         return subType.equals (EntrySubType.ESTYPE_LCR_NOOP) &&
-               entryTags.containsKey(EntryTagType.TAG_COL_ID) &&
-               entryTags.containsKey(EntryTagType.TAG_COL_NAME) &&
-               entryTags.containsKey(EntryTagType.TAG_COL_TYPE);
+               entryTags.contains(EntryTagType.TAG_COL_ID) &&
+               entryTags.contains(EntryTagType.TAG_COL_NAME) &&
+               entryTags.contains(EntryTagType.TAG_COL_TYPE);
     }
 
     /**
@@ -411,6 +547,19 @@ public class EntryRecord implements FilterableRecord<EntrySubType> {
         return this.owner;
     }
 
+    /**
+     * Return the ID of the replicated object that owns this record, as
+     * decoded when its owner was parsed
+     * 
+     * @return object ID, or -1 if record has none
+     * 
+     * @see ObjectFilterableRecord
+     */
+    @Override
+    public int getRecordObjectId() {
+        return this.objectId;
+    }
+
     /**
      * Check if this entry record has column data, which indicates that it
      * is a data record, this is required during filtering of stream entries
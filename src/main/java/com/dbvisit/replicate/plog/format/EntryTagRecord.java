@@ -16,6 +16,9 @@ package com.dbvisit.replicate.plog.format;
  * limitations under the License.
  **/
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /** 
  * Raw record for entry tag consisting of fixed 2 chunk section followed by
  * variable section of data chunks
@@ -23,12 +26,19 @@ package com.dbvisit.replicate.plog.format;
 public class EntryTagRecord implements Comparable<EntryTagRecord> {
     /** The number of chunks before variable data chunks start */
     public static final int DATA_CHUNK_OFFSET = 2;
+    /** Size in bytes of a PLOG chunk */
+    private static final int PLOG_CHUNK_BYTES = 4;
     /** Chunk length of tag record */
     private int length;
     /** Tag ID, corresponds to EntryTagType */
     private int id;
-    /** Raw data chunks */
+    /** Raw data chunks, materialised from data view when needed */
     private int[] rawData;
+    /** 
+     * View of the raw data pay load in the underlying read buffer, starts
+     * at position zero and its limit is the length of pay load in bytes
+     */
+    private ByteBuffer data;
     /** 
      * Sequence of tag as encoded in parent record, not part of format 
      * but used for sorting 
@@ -80,18 +90,110 @@ public class EntryTagRecord implements Comparable<EntryTagRecord> {
      */
     public void setRawData (int [] rawData) {
         this.rawData = rawData;
+        this.data    = null;
     }
 
     /**
-     * Return the raw chunk data for this tag record
+     * Return the raw chunk data for this tag record, when this tag record
+     * is a view into a read buffer the chunk data is materialised from it
+     * on first access. Prefer <em>getData</em> for decoding.
      * 
      * @return chunk data, as integer array, containing data encoded in 
      *         raw PLOG or Oracle format
      */
     public int[] getRawData () {
+        if (rawData == null && data != null) {
+            rawData = new int[data.limit() / PLOG_CHUNK_BYTES];
+            
+            ByteBuffer b = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            b.asIntBuffer().get(rawData);
+        }
         return this.rawData;
     }
 
+    /**
+     * Set the raw data pay load as an offset and length view into the
+     * underlying buffer that the tag record was read from, no data is
+     * copied
+     * 
+     * @param buffer the read buffer that holds the raw pay load
+     * @param offset the byte offset of pay load in read buffer
+     * @param length the length in bytes of pay load
+     */
+    public void setData (ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit (offset + length);
+        view.position (offset);
+        
+        this.data    = view.slice();
+        this.rawData = null;
+    }
+
+    /**
+     * Return the raw data pay load as a little endian byte buffer that
+     * starts at position zero, for decoders to read from directly. Each
+     * call returns an independent view of the same bytes.
+     * 
+     * @return the raw data pay load of this tag record
+     */
+    public ByteBuffer getData () {
+        ByteBuffer view = null;
+        
+        if (data != null) {
+            view = data.duplicate();
+        }
+        else if (rawData != null) {
+            /* compatibility, tag was created from chunk data */
+            view = ByteBuffer.allocate (rawData.length * PLOG_CHUNK_BYTES);
+            view.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(rawData);
+        }
+        
+        if (view != null) {
+            view.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        
+        return view;
+    }
+
+    /**
+     * Return a copy of the raw data pay load as a little endian byte buffer
+     * at position zero, for retaining it when the buffer the tag record
+     * was read from is reused
+     * 
+     * @return copy of the raw data pay load of this tag record
+     */
+    public ByteBuffer copyData () {
+        ByteBuffer view = getData();
+        ByteBuffer copy = null;
+        
+        if (view != null) {
+            copy = ByteBuffer.allocate (view.remaining());
+            copy.put (view);
+            copy.flip();
+            copy.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        
+        return copy;
+    }
+
+    /**
+     * Return the size in bytes of the raw data pay load
+     * 
+     * @return number of bytes of pay load
+     */
+    public int getDataSize () {
+        int size = 0;
+        
+        if (data != null) {
+            size = data.limit();
+        }
+        else if (rawData != null) {
+            size = rawData.length * PLOG_CHUNK_BYTES;
+        }
+        
+        return size;
+    }
+
     /**
      * Set the sequence of this tag in the parent entry record, this is the
      * implicit order as encoded in parent record in PLOG
@@ -124,8 +226,9 @@ public class EntryTagRecord implements Comparable<EntryTagRecord> {
         return this.sequence - o.sequence;
     }
 
-    /** Clear out chunk data */
+    /** Clear out chunk data and release view of read buffer */
     public void clear () {
         rawData = null;
+        data    = null;
     }
 }
@@ -0,0 +1,365 @@
+package com.dbvisit.replicate.plog.format;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Flat store of the raw tag records of a PLOG entry record, indexed by
+ * the ordinal of their entry tag type. The tags are kept in their encoded
+ * sequence and grouped by type on first lookup, the tags of a type keep
+ * their sequence order.
+ *
+ * <p>
+ * The store is owned by its entry record and reused for every record read
+ * into it, its arrays only grow to the largest record seen. It is also a
+ * read only <em>Map</em> of lists of tags by type, for compatibility with
+ * lookups done before, the lists are views of the store and are only
+ * valid until the store is cleared. Not thread safe.
+ * </p>
+ */
+public class EntryTags extends AbstractMap<EntryTagType, List<EntryTagRecord>>
+{
+    /** Initial number of tags to allocate room for */
+    private static final int INITIAL_TAGS = 32;
+    /** All types of entry tags, indexed by ordinal */
+    private static final EntryTagType[] TYPES = EntryTagType.values();
+
+    /** Tags in encoded order */
+    private EntryTagRecord[] tags = new EntryTagRecord[INITIAL_TAGS];
+    /** Ordinal of tag type, per tag in encoded order */
+    private int[] ordinals = new int[INITIAL_TAGS];
+    /** Number of tags stored */
+    private int size;
+    /** Tags grouped by type ordinal, in encoded order per type */
+    private EntryTagRecord[] grouped = new EntryTagRecord[INITIAL_TAGS];
+    /** Number of tags per type ordinal */
+    private final int[] counts = new int[TYPES.length];
+    /** Index in grouped tags of first tag per type ordinal */
+    private final int[] starts = new int[TYPES.length];
+    /** Index in encoded order of first tag per type ordinal */
+    private final int[] firsts = new int[TYPES.length];
+    /** Number of types that have tags */
+    private int numTypes;
+    /** Whether or not the grouped tags are up to date */
+    private boolean indexed = true;
+    /** Reusable list views of tags per type ordinal, created on use */
+    private final TagList[] views = new TagList[TYPES.length];
+
+    /**
+     * Add a tag record of a type to the store, tags must be added in their
+     * encoded order
+     *
+     * @param type the type of tag
+     * @param tag  the raw tag record
+     */
+    public void add (EntryTagType type, EntryTagRecord tag) {
+        if (size == tags.length) {
+            tags     = Arrays.copyOf (tags, size << 1);
+            ordinals = Arrays.copyOf (ordinals, size << 1);
+            grouped  = new EntryTagRecord[size << 1];
+        }
+
+        int ordinal = type.ordinal();
+
+        tags[size]     = tag;
+        ordinals[size] = ordinal;
+        size++;
+
+        if (counts[ordinal]++ == 0) {
+            firsts[ordinal] = size - 1;
+            numTypes++;
+        }
+
+        indexed = false;
+    }
+
+    /**
+     * Return the number of tags stored, of all types
+     *
+     * @return number of tags
+     */
+    public int getNumTags () {
+        return size;
+    }
+
+    /**
+     * Return a tag by its index in encoded order
+     *
+     * @param index index of tag in encoded order, not its type
+     *
+     * @return the raw tag record
+     */
+    public EntryTagRecord getTag (int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException (
+                "Invalid tag index: " + index + ", number of tags: " + size
+            );
+        }
+
+        return tags[index];
+    }
+
+    /**
+     * Return the type of a tag by its index in encoded order
+     *
+     * @param index index of tag in encoded order
+     *
+     * @return the type of tag
+     */
+    public EntryTagType getTagType (int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException (
+                "Invalid tag index: " + index + ", number of tags: " + size
+            );
+        }
+
+        return TYPES[ordinals[index]];
+    }
+
+    /**
+     * Check whether or not there are tags of a type
+     *
+     * @param type the type of tag
+     *
+     * @return true if at least one tag of type is present, else false
+     */
+    public boolean contains (EntryTagType type) {
+        return counts[type.ordinal()] > 0;
+    }
+
+    /**
+     * Return the number of tags of a type
+     *
+     * @param type the type of tag
+     *
+     * @return number of tags of type
+     */
+    public int count (EntryTagType type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * Return the first tag of a type, for single valued tags this is
+     * the only tag of its type
+     *
+     * @param type the type of tag
+     *
+     * @return first tag of type in encoded order, or null if none
+     */
+    public EntryTagRecord first (EntryTagType type) {
+        int ordinal = type.ordinal();
+
+        /* no need to group tags by type for the first one */
+        return counts[ordinal] > 0 ? tags[firsts[ordinal]] : null;
+    }
+
+    /**
+     * Return a tag of a type by its position amongst the tags of type
+     *
+     * @param type  the type of tag
+     * @param index index of tag amongst tags of type, in encoded order
+     *
+     * @return the raw tag record
+     */
+    public EntryTagRecord get (EntryTagType type, int index) {
+        int ordinal = type.ordinal();
+
+        if (index < 0 || index >= counts[ordinal]) {
+            throw new IndexOutOfBoundsException (
+                "Invalid index: " + index + " for tag type: " + type +
+                ", number of tags: " + counts[ordinal]
+            );
+        }
+
+        index();
+
+        return grouped[starts[ordinal] + index];
+    }
+
+    /**
+     * Return the tags of a type as a list view, in encoded order
+     *
+     * @param type the type of tag
+     *
+     * @return list of tags of type, or null if none
+     */
+    public List<EntryTagRecord> list (EntryTagType type) {
+        int ordinal = type.ordinal();
+
+        if (counts[ordinal] == 0) {
+            return null;
+        }
+
+        index();
+
+        if (views[ordinal] == null) {
+            views[ordinal] = new TagList (ordinal);
+        }
+
+        return views[ordinal];
+    }
+
+    /**
+     * Group the tags by type ordinal, a stable counting sort of the tags
+     * in encoded order
+     */
+    private void index () {
+        if (indexed) {
+            return;
+        }
+
+        int start = 0;
+        for (int o = 0; o < counts.length; o++) {
+            starts[o] = start;
+            start += counts[o];
+        }
+
+        /* fill using starts as next free index, then restore them */
+        for (int i = 0; i < size; i++) {
+            grouped[starts[ordinals[i]]++] = tags[i];
+        }
+
+        for (int o = 0; o < counts.length; o++) {
+            starts[o] -= counts[o];
+        }
+
+        indexed = true;
+    }
+
+    /**
+     * Clear the raw data of all tags and reset the store for reuse
+     */
+    @Override
+    public void clear () {
+        for (int i = 0; i < size; i++) {
+            tags[i].clear();
+            tags[i] = null;
+            grouped[i] = null;
+            counts[ordinals[i]] = 0;
+        }
+
+        size     = 0;
+        numTypes = 0;
+        indexed  = true;
+    }
+
+    @Override
+    public boolean containsKey (Object key) {
+        return key instanceof EntryTagType && contains ((EntryTagType) key);
+    }
+
+    @Override
+    public List<EntryTagRecord> get (Object key) {
+        return key instanceof EntryTagType ? list ((EntryTagType) key) : null;
+    }
+
+    @Override
+    public int size () {
+        return numTypes;
+    }
+
+    @Override
+    public Set<Map.Entry<EntryTagType, List<EntryTagRecord>>> entrySet () {
+        return new AbstractSet<Map.Entry<EntryTagType, List<EntryTagRecord>>>()
+        {
+            @Override
+            public Iterator<Map.Entry<EntryTagType, List<EntryTagRecord>>>
+            iterator () {
+                return new TypeIterator();
+            }
+
+            @Override
+            public int size () {
+                return numTypes;
+            }
+        };
+    }
+
+    /**
+     * Read only list view of the tags of a type
+     */
+    private class TagList extends AbstractList<EntryTagRecord>
+    implements RandomAccess {
+        /** Ordinal of the type of tags in view */
+        private final int ordinal;
+
+        /**
+         * Create list view of tags of type
+         *
+         * @param ordinal ordinal of type of tag
+         */
+        private TagList (int ordinal) {
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public EntryTagRecord get (int index) {
+            return EntryTags.this.get (TYPES[ordinal], index);
+        }
+
+        @Override
+        public int size () {
+            return counts[ordinal];
+        }
+    }
+
+    /**
+     * Iterator over the types that have tags, in ordinal order
+     */
+    private class TypeIterator
+    implements Iterator<Map.Entry<EntryTagType, List<EntryTagRecord>>> {
+        /** Next type ordinal to check for tags */
+        private int next = 0;
+
+        @Override
+        public boolean hasNext () {
+            while (next < counts.length && counts[next] == 0) {
+                next++;
+            }
+
+            return next < counts.length;
+        }
+
+        @Override
+        public Map.Entry<EntryTagType, List<EntryTagRecord>> next () {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            EntryTagType type = TYPES[next++];
+
+            return new AbstractMap.SimpleImmutableEntry<
+                EntryTagType, List<EntryTagRecord>
+            >(type, list (type));
+        }
+
+        @Override
+        public void remove () {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
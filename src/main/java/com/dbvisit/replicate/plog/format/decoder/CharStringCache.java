@@ -0,0 +1,186 @@
+package com.dbvisit.replicate.plog.format.decoder;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bounded cache of decoded strings keyed by their raw PLOG encoded bytes.
+ * <p>
+ * The schema, table, column and data type names in PLOG tags repeat for
+ * every change record, the cache resolves identical raw names to one
+ * canonical string instance without decoding them again.
+ * </p>
+ * <p>
+ * The cache is direct mapped on the hash of the raw bytes, a new string
+ * replaces the cached string it collides with, so its size is bounded by
+ * its capacity. Cache entries are immutable, the cache may be shared by
+ * threads without locking, at worst a string is decoded more than once.
+ * </p>
+ */
+public class CharStringCache {
+    /** Default number of cached strings, must be a power of two */
+    public static final int DEFAULT_CAPACITY = 4096;
+    /** Maximum length of raw string to cache, longest Oracle identifier */
+    public static final int MAX_CACHED_LENGTH = 128;
+    /** Initial value for hash of raw string, FNV-1a offset basis */
+    public static final int HASH_SEED = 0x811c9dc5;
+    /** Multiplier for hash of raw string, FNV-1a prime */
+    private static final int HASH_PRIME = 0x01000193;
+
+    /** The cached strings, indexed by hash of their raw bytes */
+    private final Entry[] entries;
+    /** Mask of hash for indexing cached strings */
+    private final int mask;
+
+    /**
+     * Cached string with its raw encoded bytes
+     */
+    private static class Entry {
+        /** Raw encoded bytes of string */
+        private final byte[] raw;
+        /** Hash of raw bytes */
+        private final int hash;
+        /** Canonical decoded string */
+        private final String value;
+
+        /**
+         * Create cached string entry
+         *
+         * @param raw   raw encoded bytes
+         * @param hash  hash of raw bytes
+         * @param value decoded string
+         */
+        private Entry (byte[] raw, int hash, String value) {
+            this.raw   = raw;
+            this.hash  = hash;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Create string cache with default capacity
+     */
+    public CharStringCache () {
+        this (DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create string cache to hold up to a number of strings
+     *
+     * @param capacity maximum number of strings to cache, rounded up to a
+     *                 power of two
+     */
+    public CharStringCache (int capacity) {
+        int size = Integer.highestOneBit (Math.max (capacity, 1));
+
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        entries = new Entry[size];
+        mask    = size - 1;
+    }
+
+    /**
+     * Add a byte of raw string to its hash
+     *
+     * @param hash current hash of raw string, start with 
+     *             <em>HASH_SEED</em>
+     * @param b    next raw byte of string
+     *
+     * @return the updated hash
+     */
+    public static int hash (int hash, byte b) {
+        return (hash ^ (b & 0xFF)) * HASH_PRIME;
+    }
+
+    /**
+     * Return the canonical string for the raw string in pay load, decoding
+     * and caching it when it is not cached
+     *
+     * @param data    raw data pay load, starting at position zero
+     * @param length  number of bytes of raw string, from start of pay load
+     * @param hash    hash of the raw bytes of string
+     * @param charset the character set encoding of string
+     *
+     * @return the decoded string
+     * @throws Exception for a buffer overrun or invalid character set
+     */
+    public String decode (
+        ByteBuffer data,
+        int length,
+        int hash,
+        String charset
+    ) throws Exception {
+        if (length > MAX_CACHED_LENGTH) {
+            return DataDecoder.decodeString (data, 0, length, charset);
+        }
+
+        int slot    = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = entries[slot];
+
+        if (entry != null && entry.hash == hash && matches (entry, data, length))
+        {
+            return entry.value;
+        }
+
+        String value = DataDecoder.decodeString (data, 0, length, charset);
+
+        entries[slot] = new Entry (
+            DataDecoder.copyBytes (data, 0, length),
+            hash,
+            value
+        );
+
+        return value;
+    }
+
+    /**
+     * Check that the raw bytes of cached string match the raw string
+     *
+     * @param entry  cached string
+     * @param data   raw data pay load, starting at position zero
+     * @param length number of bytes of raw string
+     *
+     * @return true if identical raw bytes, else false
+     */
+    private boolean matches (Entry entry, ByteBuffer data, int length) {
+        byte[] raw = entry.raw;
+
+        if (raw.length != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (raw[i] != data.get(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove all cached strings
+     */
+    public void clear () {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+    }
+}
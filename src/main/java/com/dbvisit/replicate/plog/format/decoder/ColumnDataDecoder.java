@@ -18,13 +18,13 @@ package com.dbvisit.replicate.plog.format.decoder;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
-import java.util.GregorianCalendar;
 import java.util.TimeZone;
 
 import javax.sql.rowset.serial.SerialBlob;
@@ -50,6 +50,23 @@ public class ColumnDataDecoder extends DataDecoder {
     private static final int DATE_SECOND_BYTE    = PLOG_CHUNK_BYTES + 6;
     /** Minimum allowed size of date in chunks */
     private static final int DATE_MIN_SIZE_BYTES = PLOG_CHUNK_BYTES + 7;
+    /** Maximum number of base 100 digit pairs that always fit in a long */
+    private static final int NUMBER_LONG_MAX_DIGIT_PAIRS = 9;
+    /** Number of nano seconds in a second */
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    /** Value returned by epoch decoders for a NULL date or time stamp */
+    public static final long NULL_EPOCH = Long.MIN_VALUE;
+    /** Marker for a decoded number that does not fit in a long */
+    private static final long NUMBER_EXCEEDS_LONG = Long.MIN_VALUE;
+    /** Powers of ten that fit in a long, for scaling decoded numbers */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int p = 1; p < POWERS_OF_TEN.length; p++) {
+            POWERS_OF_TEN[p] = POWERS_OF_TEN[p - 1] * 10;
+        }
+    }
 
     /**
      * Decode UTF-8 string field from PLOG tag data chunks
@@ -60,28 +77,27 @@ public class ColumnDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static String decodeString (int[] rawData) throws Exception {
-        String str = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
-
-        /* first chunk is string length; data start at second chunk,,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        int rawLength = b.getInt();
-
-        byte[] strBytes = new byte[rawLength];
-
-        b.get(strBytes, 0, rawLength);
-
-        try {
-            str = new String(strBytes, PLOG_CHUNK_STRING_ENC);
-        }
-        catch (UnsupportedEncodingException e) {
-            throw new Exception (
-                "Invalid data chunk array, reason: " + e.getMessage()
-            );
-        }
+        return decodeString (decodeByteBuffer (rawData));
+    }
 
-        return str;
+    /**
+     * Decode UTF-8 string field from PLOG tag data pay load
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Decoded UTF-8 string value.
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static String decodeString (ByteBuffer data) throws Exception {
+        /* first chunk is string length; data start at second chunk */
+        int rawLength = data.getInt(0);
+
+        return decodeString (
+            data, 
+            PLOG_CHUNK_BYTES,
+            rawLength,
+            PLOG_CHUNK_STRING_ENC
+        );
     }
 
     /**
@@ -99,9 +115,22 @@ public class ColumnDataDecoder extends DataDecoder {
      *         else false
      */
     public static boolean couldBeUTF16 (byte[] bytes) {
+        return couldBeUTF16 (ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * A very simple, and not fail proof, check to determine if the national
+     * character set in the source could have been UTF-16, see
+     * <em>couldBeUTF16(byte[])</em>
+     * 
+     * @param buffer raw bytes, from position to limit
+     * 
+     * @return true if the national character set could have been UTF16,
+     *         else false
+     */
+    public static boolean couldBeUTF16 (ByteBuffer buffer) {
         boolean check;
         
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
         CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
         decoder.onMalformedInput(CodingErrorAction.REPORT);
         decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
@@ -134,24 +163,40 @@ public class ColumnDataDecoder extends DataDecoder {
      * @throws Exception when failed to decode national string to UTF-8
      */
     public static String decodeNationalString (int[] rawData)
+    throws Exception {
+        return decodeNationalString (decodeByteBuffer (rawData));
+    }
+    
+    /**
+     * Attempt to decode national string as UTF-16 if we guess it could be
+     * the national character set, else default to using UTF-8.
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return National string decoded as UTF-8
+     * 
+     * @throws Exception when failed to decode national string to UTF-8
+     */
+    public static String decodeNationalString (ByteBuffer data)
     throws Exception {
         String str   = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
         
-        /* first chunk is string length; data start at second chunk,,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        int rawLength = b.getInt();
+        /* first chunk is string length; data start at second chunk */
+        int rawLength = data.getInt(0);
         
-        byte[] strBytes = new byte[rawLength];
+        checkBounds (data, PLOG_CHUNK_BYTES, rawLength);
         
-        b.get(strBytes, 0, rawLength);
+        ByteBuffer strBytes = data.duplicate();
+        strBytes.limit (PLOG_CHUNK_BYTES + rawLength);
+        strBytes.position (PLOG_CHUNK_BYTES);
         
         if (couldBeUTF16 (strBytes)) {
             try {
                 /* interpret as UTF-16 */
-                String nstr = new String(
-                    strBytes,
+                String nstr = decodeString (
+                    data,
+                    PLOG_CHUNK_BYTES,
+                    rawLength,
                     PLOG_CHUNK_NAT_STRING_ENC
                 );
                 
@@ -166,14 +211,12 @@ public class ColumnDataDecoder extends DataDecoder {
             }
         }
         else {
-            try {
-                str = new String(strBytes, PLOG_CHUNK_STRING_ENC);
-            }
-            catch (UnsupportedEncodingException e) {
-                throw new Exception (
-                    "Invalid data chunk array, reason: " + e.getMessage()
-                );
-            }
+            str = decodeString (
+                data,
+                PLOG_CHUNK_BYTES,
+                rawLength,
+                PLOG_CHUNK_STRING_ENC
+            );
         }
         
         return str;
@@ -191,80 +234,231 @@ public class ColumnDataDecoder extends DataDecoder {
      */
     public static BigDecimal decodeNumber (int[] rawData, int scale) 
     throws Exception {
-        BigDecimal value = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
+        return decodeNumber (decodeByteBuffer (rawData), scale);
+    }
 
-        /* use raw byte array copy for direct offset decoding below */
-        byte[] barr = b.array();
+    /**
+     * Decode number field in PLOG as big decimal with the scale provided
+     * 
+     * @param data  PLOG tag data pay load, little endian from position zero
+     * @param scale Scale to apply for output big decimal value, provided
+     *              from field metadata
+     *
+     * @return      Decoded big decimal value
+     * @throws      Exception Failed to decode the raw PLOG value
+     */
+    public static BigDecimal decodeNumber (ByteBuffer data, int scale) 
+    throws Exception {
+        BigDecimal value = null;
 
-        /* first int is value length; data start at barr[4] */
-        int rawLength = b.getInt();
+        /* first int is value length; data start at byte 4 */
+        int rawLength = data.getInt(0);
 
         if (rawLength == 0) {
             value = null;
         }
-        else if (rawLength == 1 && ((int)barr[PLOG_CHUNK_BYTES] & 0xFF) == 0x80) 
+        else {
+            long unscaled = decodeUnscaledNumber (data, rawLength, scale);
+
+            if (unscaled != NUMBER_EXCEEDS_LONG) {
+                value = BigDecimal.valueOf (unscaled, scale);
+            }
+            else {
+                value = decodeBigNumber (data, rawLength, scale);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Decode the base 100 mantissa of a raw PLOG number into a long as
+     * the unscaled value of the number at the scale provided, rounding
+     * half down when the number has more decimal digits than the scale.
+     * This is the same as the value of the decoded big decimal after
+     * setting its scale, but without building it
+     *
+     * @param data      PLOG tag data pay load, little endian from position
+     *                  zero
+     * @param rawLength length of raw number in bytes, non-zero
+     * @param scale     scale of the unscaled value to return
+     *
+     * @return the unscaled value at scale, or
+     *         <em>NUMBER_EXCEEDS_LONG</em> when it does not fit in a long
+     * @throws Exception when the raw number is not validly encoded
+     */
+    private static long decodeUnscaledNumber (
+        ByteBuffer data,
+        int rawLength,
+        int scale
+    ) throws Exception {
+        if (rawLength == 1 &&
+            ((int)data.get(PLOG_CHUNK_BYTES) & 0xFF) == 0x80)
         {
             /* "80" is 0 */
-            value = (new BigDecimal(0)).setScale(scale);
+            return 0L;
+        }
+
+        boolean negative =
+            data.get(PLOG_CHUNK_BYTES + rawLength - 1) == PLOG_NEGATIVE_NUMBER;
+        /* last byte 0x66 = negative number, it's not a digit */
+        int length = negative ? rawLength - 1 : rawLength;
+        int digits = length - 1;
+
+        if (digits < 1 || digits > NUMBER_LONG_MAX_DIGIT_PAIRS) {
+            /* validate in big number decoder, or not a long */
+            return NUMBER_EXCEEDS_LONG;
+        }
+
+        long mantissa = 0L;
+        for (int o = 1; o < length; o++) {
+            mantissa = mantissa * 100 + 
+                       decodeNumberDigitPair (data, o, negative);
+        }
+
+        /* scale of mantissa as integral value, for a base 100 exponent
+         * with the reference decimal point after the first digit pair
+         */
+        int exponent = decodeNumberExponent (data, negative);
+        int shift    = scale - (2 * digits - 2 * exponent - 2);
+        long unscaled;
+
+        if (mantissa == 0L) {
+            unscaled = 0L;
+        }
+        else if (shift >= 0) {
+            if (shift >= POWERS_OF_TEN.length ||
+                mantissa > Long.MAX_VALUE / POWERS_OF_TEN[shift])
+            {
+                return NUMBER_EXCEEDS_LONG;
+            }
+            unscaled = mantissa * POWERS_OF_TEN[shift];
+        }
+        else if (-shift >= POWERS_OF_TEN.length) {
+            /* mantissa is always less than half of divisor, round down */
+            unscaled = 0L;
         }
         else {
-            int length;
-            int shift;
-            StringBuilder rtval = new StringBuilder();
-            if (barr[PLOG_CHUNK_BYTES + rawLength - 1] == PLOG_NEGATIVE_NUMBER) 
-            { 
-                /* last byte 0x66 = negative number */
-                length = rawLength - 1;
-
-                /* 1 = /100, -1=*100 (reference decimal point: after first 
-                 * digit pair)
-                 */
-                shift = -(((int) barr[PLOG_CHUNK_BYTES] & 0xFF) - 0x3e);
-                rtval.append("-.");
-                for (int o = 1; o < length; o++) {
-                    rtval.append(
-                        String.format(
-                            "%02d",
-                            101 - ((int) barr[PLOG_CHUNK_BYTES + o] & 0xFF)
-                        )
-                    );
-                }
+            long divisor   = POWERS_OF_TEN[-shift];
+            long remainder = mantissa % divisor;
+
+            unscaled = mantissa / divisor;
+
+            /* round half down, exactly half is rounded towards zero */
+            if (remainder > divisor / 2) {
+                unscaled++;
             }
-            else {
-                length = rawLength;
-                rtval.append(".");
-
-                /* the (int)&0xFF is to force unsigned treatment */
-                shift = ((int) barr[PLOG_CHUNK_BYTES] & 0xFF) - 0xc1; 
-
-                for (int o = 1; o < length; o++) {
-                    rtval.append(
-                        String.format(
-                            "%02d",
-                            ((int) barr[PLOG_CHUNK_BYTES + o] & 0xFF) - 1
-                        )
-                    );
-                }
+        }
+
+        return negative ? -unscaled : unscaled;
+    }
+
+    /**
+     * Decode a raw PLOG number that does not fit in a long as big decimal
+     * at the scale provided, using a big integer for its mantissa
+     *
+     * @param data      PLOG tag data pay load, little endian from position
+     *                  zero
+     * @param rawLength length of raw number in bytes, non-zero
+     * @param scale     scale for output big decimal value
+     *
+     * @return decoded big decimal value
+     * @throws Exception when the raw number is not validly encoded
+     */
+    private static BigDecimal decodeBigNumber (
+        ByteBuffer data,
+        int rawLength,
+        int scale
+    ) throws Exception {
+        boolean negative =
+            data.get(PLOG_CHUNK_BYTES + rawLength - 1) == PLOG_NEGATIVE_NUMBER;
+        int length = negative ? rawLength - 1 : rawLength;
+        int digits = length - 1;
+
+        if (digits < 1) {
+            throw new Exception (
+                "Invalid raw number of length: " + rawLength + ", reason: " +
+                "it has no digits"
+            );
+        }
+
+        BigInteger mantissa = BigInteger.ZERO;
+        long pairs = 0L;
+        int count  = 0;
+
+        /* accumulate digit pairs in long before adding them to mantissa */
+        for (int o = 1; o < length; o++) {
+            pairs = pairs * 100 + decodeNumberDigitPair (data, o, negative);
+            count++;
+
+            if (count == NUMBER_LONG_MAX_DIGIT_PAIRS || o == length - 1) {
+                mantissa = mantissa.multiply (
+                    BigInteger.valueOf (POWERS_OF_TEN[2 * count])
+                ).add (
+                    BigInteger.valueOf (pairs)
+                );
+                pairs = 0L;
+                count = 0;
             }
+        }
 
-            BigDecimal bd = new BigDecimal(rtval.toString());
+        if (negative) {
+            mantissa = mantissa.negate();
+        }
 
-            /* The decoded scale value is offset by +2 because the 
-             * decimal is encoded differently than in Oracle's 
-             * format
-             */
-            bd = bd.scaleByPowerOfTen(shift * 2 + 2);
+        int exponent = decodeNumberExponent (data, negative);
+
+        return new BigDecimal (
+            mantissa,
+            2 * digits - 2 * exponent - 2
+        ).setScale (scale, BigDecimal.ROUND_HALF_DOWN);
+    }
+
+    /**
+     * Decode the base 100 exponent of raw PLOG number, the number of digit
+     * pairs to shift the decimal point relative to the first digit pair
+     *
+     * @param data     PLOG tag data pay load, little endian from position
+     *                 zero
+     * @param negative whether or not the number is negative
+     *
+     * @return base 100 exponent
+     */
+    private static int decodeNumberExponent (ByteBuffer data, boolean negative)
+    {
+        /* the (int)&0xFF is to force unsigned treatment */
+        int exp = (int) data.get(PLOG_CHUNK_BYTES) & 0xFF;
 
-            BigDecimal v = 
-                new BigDecimal (
-                    bd.toPlainString()
-                ).setScale (scale, BigDecimal.ROUND_HALF_DOWN);
+        return negative ? -(exp - 0x3e) : exp - 0xc1;
+    }
 
-            value = v;
+    /**
+     * Decode one base 100 digit pair of raw PLOG number
+     *
+     * @param data     PLOG tag data pay load, little endian from position
+     *                 zero
+     * @param offset   byte offset of digit pair in raw number
+     * @param negative whether or not the number is negative
+     *
+     * @return value of digit pair, 0 to 99
+     * @throws Exception when the digit pair is not validly encoded
+     */
+    private static int decodeNumberDigitPair (
+        ByteBuffer data,
+        int offset,
+        boolean negative
+    ) throws Exception {
+        int b = (int) data.get(PLOG_CHUNK_BYTES + offset) & 0xFF;
+        int pair = negative ? 101 - b : b - 1;
+
+        if (pair < 0 || pair > 99) {
+            throw new Exception (
+                "Invalid raw number digit pair: " + b + " at offset: " +
+                offset + ", reason: it is out of range"
+            );
         }
 
-        return value;
+        return pair;
     }
 
     /**
@@ -277,6 +471,21 @@ public class ColumnDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static Integer decodeNumberAsInt (int[] rawData, int scale) 
+    throws Exception {
+        return decodeNumberAsInt (decodeByteBuffer (rawData), scale);
+    }
+
+    /**
+     * Decode a raw PLOG number field with no scale as 32 bit integer data type
+     * 
+     * @param data    PLOG tag data pay load, little endian from position
+     *                zero
+     * @param scale   Scale for integral, either &le; 0
+     * 
+     * @return        Decoded integer value
+     * @throws        Exception Failed to decode the raw PLOG value
+     */
+    public static Integer decodeNumberAsInt (ByteBuffer data, int scale) 
     throws Exception {
         if (scale > 0) {
             throw new Exception (
@@ -284,11 +493,24 @@ public class ColumnDataDecoder extends DataDecoder {
             );
         }
 
+        if (data.getInt(0) == 0) {
+            return null;
+        }
+
+        long l = decodeIntegralNumber (data, scale);
+
+        if (l != NUMBER_EXCEEDS_LONG &&
+            l >= Integer.MIN_VALUE && 
+            l <= Integer.MAX_VALUE)
+        {
+            return Integer.valueOf ((int)l);
+        }
+
         BigDecimal bi = null;
         Integer i = null;
 
         try {
-            bi = decodeNumber (rawData, scale);
+            bi = decodeNumber (data, scale);
 
             if (bi != null) {
                 i = bi.intValueExact();
@@ -314,6 +536,21 @@ public class ColumnDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static Long decodeNumberAsLong (int[] rawData, int scale) 
+    throws Exception {
+        return decodeNumberAsLong (decodeByteBuffer (rawData), scale);
+    }
+
+    /**
+     * Decode a raw PLOG number field with no scale as 64 bit integer data type
+     * 
+     * @param data    PLOG tag data pay load, little endian from position
+     *                zero
+     * @param scale   Scale for integral, either &le; 0
+     * 
+     * @return        Decoded long value
+     * @throws        Exception Failed to decode the raw PLOG value
+     */
+    public static Long decodeNumberAsLong (ByteBuffer data, int scale) 
     throws Exception {
         if (scale > 0) {
             throw new Exception (
@@ -321,11 +558,21 @@ public class ColumnDataDecoder extends DataDecoder {
             );
         }
 
+        if (data.getInt(0) == 0) {
+            return null;
+        }
+
+        long fast = decodeIntegralNumber (data, scale);
+
+        if (fast != NUMBER_EXCEEDS_LONG) {
+            return Long.valueOf (fast);
+        }
+
         BigDecimal bl = null;
         Long l = null;
 
         try {
-            bl = decodeNumber (rawData, scale);
+            bl = decodeNumber (data, scale);
 
             if (bl != null) {
                 l = bl.longValueExact();
@@ -341,6 +588,45 @@ public class ColumnDataDecoder extends DataDecoder {
         return l;
     }
 
+    /**
+     * Decode a non-null raw PLOG number as integral value rounded to the
+     * scale provided, without building a big decimal
+     *
+     * @param data  PLOG tag data pay load, little endian from position zero
+     * @param scale scale for integral, &le; 0
+     *
+     * @return integral value, or <em>NUMBER_EXCEEDS_LONG</em> when it does
+     *         not fit in a long or is not valid, for the caller to decode
+     *         it as big decimal instead
+     */
+    private static long decodeIntegralNumber (ByteBuffer data, int scale) {
+        long unscaled;
+
+        try {
+            unscaled = decodeUnscaledNumber (data, data.getInt(0), scale);
+        } catch (Exception e) {
+            /* report it from big decimal decoding */
+            return NUMBER_EXCEEDS_LONG;
+        }
+
+        if (unscaled == NUMBER_EXCEEDS_LONG || scale == 0) {
+            return unscaled;
+        }
+
+        /* scale is negative, value is a multiple of a power of ten */
+        if (-scale >= POWERS_OF_TEN.length) {
+            return unscaled == 0L ? 0L : NUMBER_EXCEEDS_LONG;
+        }
+
+        long power = POWERS_OF_TEN[-scale];
+
+        if (Math.abs (unscaled) > Long.MAX_VALUE / power) {
+            return NUMBER_EXCEEDS_LONG;
+        }
+
+        return unscaled * power;
+    }
+
     /**
      * Decode a raw binary column from PLOG tag data chunks, do not use
      * for CLOBs or BLOBs
@@ -351,18 +637,25 @@ public class ColumnDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static SerialBlob decodeBinary (int[] rawData) throws Exception {
-        SerialBlob blob = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
+        return decodeBinary (decodeByteBuffer (rawData));
+    }
 
-        /* first chunk is raw length; data start at second chunk,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        int rawLength = b.getInt();
+    /**
+     * Decode a raw binary column from PLOG tag data pay load, do not use
+     * for CLOBs or BLOBs
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Decoded binary object as SerialBlob
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static SerialBlob decodeBinary (ByteBuffer data) throws Exception {
+        SerialBlob blob = null;
 
-        byte[] raw = new byte[rawLength];
+        /* first chunk is raw length; data start at second chunk */
+        int rawLength = data.getInt(0);
 
-        /* read from current byte to end */
-        b.get(raw, 0, rawLength);
+        byte[] raw = copyBytes (data, PLOG_CHUNK_BYTES, rawLength);
 
         try {
             blob = new SerialBlob(raw);
@@ -385,55 +678,136 @@ public class ColumnDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static Timestamp decodeDate (int[] rawData) throws Exception {
-        ByteBuffer b = decodeByteBuffer (rawData);
-        Timestamp t  = null;
-
-        /* first chunk is raw length; data start at second chunk,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        b.getInt();
+        return decodeDate (decodeByteBuffer (rawData));
+    }
 
-        /* use raw byte array copy for direct offset decoding below */
-        byte[] barr = b.array();
+    /**
+     * Decode date column from PLOG tag data pay load
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Date as time stamp
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static Timestamp decodeDate (ByteBuffer data) throws Exception {
+        Timestamp t  = null;
 
-        if (barr.length < DATE_MIN_SIZE_BYTES) {
+        /* first chunk is raw length; data start at second chunk */
+        if (data.limit() < DATE_MIN_SIZE_BYTES) {
             /* NULL date object */
             t = null;
         }
         else {
-            /* 0: 100-offset century
-             * 1: 100-offset year
-             * 2: 0-offset month, but -1 for calendar
-             * 3: 0-offset day
-             * 4: 1-offset hour
-             * 5: 1-offset minute
-             * 6: 1-offset second
-             */
-            int year = 
-                (
-                    ((int) barr[DATE_CENTURY_BYTE] & 0xFF) - 100
-                ) * 100
-                + 
-                (
-                  ((int) barr[DATE_YEAR_BYTE] & 0xFF) - 100
-                );
-            int month  = barr[DATE_MONTH_BYTE] - 1;
-            int day    = barr[DATE_DAY_BYTE];
-            int hour   = barr[DATE_HOUR_BYTE] - 1;
-            int minute = barr[DATE_MINUTE_BYTE] - 1;
-            int second = barr[DATE_SECOND_BYTE] - 1;
-            
-            GregorianCalendar gcal = 
-                new GregorianCalendar(year, month, day, hour, minute, second);
-            
-            gcal.setTimeZone(TimeZone.getTimeZone("UTC"));
-            
-            t = new Timestamp(gcal.getTimeInMillis());
+            t = new Timestamp(decodeDateMillis (data, UTC_TIME_ZONE));
         }
 
         return t;
     }
 
+    /**
+     * Decode date column from PLOG tag data pay load as milliseconds since
+     * epoch, without creating a time stamp for it
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     milliseconds since epoch, or <em>NULL_EPOCH</em> for a
+     *             NULL date
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static long decodeDateAsEpochMillis (ByteBuffer data) 
+    throws Exception {
+        if (data.limit() < DATE_MIN_SIZE_BYTES) {
+            return NULL_EPOCH;
+        }
+
+        return decodeDateMillis (data, UTC_TIME_ZONE);
+    }
+
+    /**
+     * Decode the 7 byte Oracle date at start of date and time stamp values
+     * as milliseconds since epoch
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * @param zone time zone of date, null for default time zone
+     * 
+     * @return milliseconds since epoch
+     */
+    private static long decodeDateMillis (ByteBuffer data, TimeZone zone) {
+        /* 0: 100-offset century
+         * 1: 100-offset year
+         * 2: 0-offset month, but -1 for calendar
+         * 3: 0-offset day
+         * 4: 1-offset hour
+         * 5: 1-offset minute
+         * 6: 1-offset second
+         */
+        int year = 
+            (
+                ((int) data.get(DATE_CENTURY_BYTE) & 0xFF) - 100
+            ) * 100
+            + 
+            (
+                ((int) data.get(DATE_YEAR_BYTE) & 0xFF) - 100
+            );
+        int month  = data.get(DATE_MONTH_BYTE) - 1;
+        int day    = data.get(DATE_DAY_BYTE);
+        int hour   = data.get(DATE_HOUR_BYTE) - 1;
+        int minute = data.get(DATE_MINUTE_BYTE) - 1;
+        int second = data.get(DATE_SECOND_BYTE) - 1;
+
+        if (logger.isTraceEnabled()) {
+            logger.trace (
+                "Raw date decoded: " + 
+                year + "-" + (month + 1) + "-" + day + " " + 
+                hour + ":" + minute + ":" + second
+            );
+        }
+
+        return toEpochMillis (year, month, day, hour, minute, second, zone);
+    }
+
+    /**
+     * Decode the big endian fractional seconds following the 7 byte Oracle
+     * date in time stamp values
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * @param end  end of fractional seconds in raw value, exclusive
+     * 
+     * @return fractional seconds, as nano seconds
+     */
+    private static int decodeNanos (ByteBuffer data, int end) {
+        int nanos = 0;
+        for (int j = 7; j < end; j++) {
+            nanos = (nanos << 8) + ((int) data.get(PLOG_CHUNK_BYTES + j) & 0xFF);
+        }
+
+        return nanos;
+    }
+
+    /**
+     * Decode the fractional seconds of time stamp truncated to the supported
+     * precision of nano seconds
+     * 
+     * @param data      PLOG tag data pay load, little endian from position 
+     *                  zero
+     * @param rawLength length of raw time stamp value
+     * 
+     * @return fractional seconds, as nano seconds
+     */
+    private static int decodeTimestampNanos (ByteBuffer data, int rawLength) {
+        int umilli = decodeNanos (data, rawLength);
+
+        if (umilli > 999999999) {
+            /* truncate nano seconds to supported precision */
+            umilli = 999999999;
+        }
+        if (umilli < 0) {
+            umilli = 0;
+        }
+
+        return umilli;
+    }
+
     /**
      * Decode timestamp column value from PLOG tag data chunks
      * 
@@ -443,72 +817,31 @@ public class ColumnDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static Timestamp decodeTimestamp (int[] rawData) throws Exception {
-        Timestamp ts = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
+        return decodeTimestamp (decodeByteBuffer (rawData));
+    }
 
-        /* first chunk is raw length; data start at second chunk,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        int rawLength = b.getInt();
+    /**
+     * Decode timestamp column value from PLOG tag data pay load
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Time stamp
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static Timestamp decodeTimestamp (ByteBuffer data) 
+    throws Exception {
+        Timestamp ts = null;
 
-        /* use raw byte array copy for direct offset decoding below */
-        byte[] barr = b.array();
+        /* first chunk is raw length; data start at second chunk */
+        int rawLength = data.getInt(0);
 
-        if (barr.length < DATE_MIN_SIZE_BYTES) {
+        if (data.limit() < DATE_MIN_SIZE_BYTES) {
             /* NULL */
             ts = null;
         }
         else {
-            /* 0: 100-offset century
-             * 1: 100-offset year
-             * 2: 0-offset month, but -1 for calendar
-             * 3: 0-offset day
-             * 4: 1-offset hour
-             * 5: 1-offset minute
-             * 6: 1-offset second
-             */
-            int year = 
-                (
-                    ((int) barr[DATE_CENTURY_BYTE] & 0xFF) - 100
-                ) * 100
-                + 
-                (
-                    ((int) barr[DATE_YEAR_BYTE] & 0xFF) - 100
-                );
-            int month  = barr[DATE_MONTH_BYTE] - 1;
-            int day    = barr[DATE_DAY_BYTE];
-            int hour   = barr[DATE_HOUR_BYTE] - 1;
-            int minute = barr[DATE_MINUTE_BYTE] - 1;
-            int second = barr[DATE_SECOND_BYTE] - 1;
-                
-            GregorianCalendar gcal = 
-                new GregorianCalendar(year, month, day, hour, minute, second);
-            
-            gcal.setTimeZone(TimeZone.getTimeZone("UTC"));
-            
-            int umilli = 0;
-            for (int j = 7; j < rawLength; j++) {
-                umilli =
-                    (umilli << 8) + ((int) barr[PLOG_CHUNK_BYTES + j] & 0xFF);
-            }
-
-            if (umilli > 999999999) {
-                /* truncate nano seconds to supported precision */
-                umilli = 999999999;
-            }
-            if (umilli < 0) {
-                umilli = 0;
-            }
-
-            logger.trace (
-                "Raw value decoded: " + 
-                year + "-" + (month + 1) + "-" + day + " " + 
-                hour + ":" + minute + ":" + second + "."   +
-                umilli
-            );
-            
-            ts = new Timestamp(gcal.getTimeInMillis());
-            ts.setNanos(umilli);
+            ts = new Timestamp(decodeDateMillis (data, UTC_TIME_ZONE));
+            ts.setNanos(decodeTimestampNanos (data, rawLength));
 
             /*
              * WARNING: Calendar does not support enough precision!!!;
@@ -521,6 +854,40 @@ public class ColumnDataDecoder extends DataDecoder {
         return ts;
     }
 
+    /**
+     * Decode timestamp column value from PLOG tag data pay load as nano
+     * seconds since epoch, without creating a time stamp for it
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     nano seconds since epoch, or <em>NULL_EPOCH</em> for a 
+     *             NULL time stamp
+     * @throws     Exception Failed to decode the raw PLOG value or when it
+     *             is outside the range of nano seconds since epoch, years
+     *             1677 to 2262
+     */
+    public static long decodeTimestampAsEpochNanos (ByteBuffer data) 
+    throws Exception {
+        if (data.limit() < DATE_MIN_SIZE_BYTES) {
+            return NULL_EPOCH;
+        }
+
+        long seconds = decodeDateMillis (data, UTC_TIME_ZONE) / 1000L;
+        int  nanos   = decodeTimestampNanos (data, data.getInt(0));
+
+        if (seconds > (Long.MAX_VALUE - nanos) / NANOS_PER_SECOND ||
+            seconds < Long.MIN_VALUE / NANOS_PER_SECOND + 1)
+        {
+            throw new Exception (
+                "Unable to decode time stamp of: " + seconds + " seconds " +
+                "since epoch as nano seconds, reason: it exceeds the range " +
+                "of a long"
+            );
+        }
+
+        return seconds * NANOS_PER_SECOND + nanos;
+    }
+
     /**
      * Decode timestamp with time zone data
      * 
@@ -532,76 +899,47 @@ public class ColumnDataDecoder extends DataDecoder {
     public static Timestamp decodeTimestampWithTz (int[] rawData) 
     throws Exception 
     {
-        Timestamp ts = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
+        return decodeTimestampWithTz (decodeByteBuffer (rawData));
+    }
 
-        /* first chunk is raw length; data start at second chunk,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        int rawLength = b.getInt();
+    /**
+     * Decode timestamp with time zone data
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Time stamp with time zone.
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static Timestamp decodeTimestampWithTz (ByteBuffer data) 
+    throws Exception 
+    {
+        Timestamp ts = null;
 
-        /* use raw byte array copy for direct offset decoding below */
-        byte[] barr = b.array();
+        /* first chunk is raw length; data start at second chunk */
+        int rawLength = data.getInt(0);
 
-        if (barr.length < DATE_MIN_SIZE_BYTES) {
+        if (data.limit() < DATE_MIN_SIZE_BYTES) {
             /* NULL */
             ts = null;
         }
         else {
-            /* 0: 100-offset century
-             * 1: 100-offset year
-             * 2: 0-offset month, but -1 for calendar
-             * 3: 0-offset day
-             * 4: 1-offset hour
-             * 5: 1-offset minute
-             * 6: 1-offset second
-             */
-            int year = 
-                (
-                    ((int) barr[DATE_CENTURY_BYTE] & 0xFF) - 100
-                ) * 100
-                + 
-                (
-                    ((int) barr[DATE_YEAR_BYTE] & 0xFF) - 100
-                );
-            int month  = barr[DATE_MONTH_BYTE] - 1;
-            int day    = barr[DATE_DAY_BYTE];
-            int hour   = barr[DATE_HOUR_BYTE] - 1;
-            int minute = barr[DATE_MINUTE_BYTE] - 1;
-            int second = barr[DATE_SECOND_BYTE] - 1;
-                    
-            GregorianCalendar gcal = 
-                new GregorianCalendar(year, month, day, hour, minute, second);
-            
-            int umilli = 0;
-            for (int j = 7; j < rawLength - 2; j++) {
-                umilli = 
-                    (umilli << 8) + ((int) barr[PLOG_CHUNK_BYTES + j] & 0xFF);
-            }
+            TimeZone zone = UTC_TIME_ZONE;
             
-            int tzh = ((int) barr[PLOG_CHUNK_BYTES + rawLength - 2] & 0xFF);
-            int tzm = ((int) barr[PLOG_CHUNK_BYTES + rawLength - 1] & 0xFF);
+            int tzh = ((int) data.get(PLOG_CHUNK_BYTES + rawLength - 2) & 0xFF);
+            int tzm = ((int) data.get(PLOG_CHUNK_BYTES + rawLength - 1) & 0xFF);
 
             if (tzh != 0xd0 || tzm != 0x4) {
                 logger.error(
                     "Timezone was not UTC in TIMESTAMP WITH TIME ZONE, got " +
                     "tzh: " + tzh + ", tzm: " + tzm
                 );
-            }
-            else {
-                gcal.setTimeZone(TimeZone.getTimeZone("UTC"));
+                /* fall back to default time zone */
+                zone = null;
             }
             
-            logger.trace (
-                "Raw value decoded: " + 
-                year + "-" + (month + 1) + "-" + day + " " + 
-                hour + ":" + minute + ":" + second + "."   +
-                umilli
-            );
+            ts = new Timestamp(decodeDateMillis (data, zone));
             
-            ts = new Timestamp(gcal.getTimeInMillis());
-            
-            ts.setNanos(umilli);
+            ts.setNanos(decodeNanos (data, rawLength - 2));
         }
 
         return ts;
@@ -621,6 +959,20 @@ public class ColumnDataDecoder extends DataDecoder {
         return decodeTimestamp (rawData);
     }
 
+    /**
+     * Decode time stamp with local time zone
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Decoded time stamp
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static Timestamp decodeTimestampWithLocalTz (ByteBuffer data) 
+    throws Exception 
+    {
+        return decodeTimestamp (data);
+    }
+
     /**
      * Decode interval day to second column as string value
      * 
@@ -631,32 +983,40 @@ public class ColumnDataDecoder extends DataDecoder {
      */
     public static String decodeIntervalDayToSec (int[] rawData) 
     throws Exception 
+    {
+        return decodeIntervalDayToSec (decodeByteBuffer (rawData));
+    }
+
+    /**
+     * Decode interval day to second column as string value
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Formatted interval string
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static String decodeIntervalDayToSec (ByteBuffer data) 
+    throws Exception 
     {
         String interval = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
 
-        /* first chunk is raw length; data start at second chunk,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        int len = b.getInt();
+        /* first chunk is raw length; data start at second chunk */
+        int len = data.getInt(0);
         
         if (len != 0) {
-            /* use raw byte array copy for direct offset decoding below */
-            byte[] barr = b.array();
-
             long d = 0;
             for (int j = 0; j < 4; j++) {
-                d = (d << 8) + ((int) barr[PLOG_CHUNK_BYTES + j] & 0xFF);
+                d = (d << 8) + ((int) data.get(PLOG_CHUNK_BYTES + j) & 0xFF);
             }
             d -= 0x80000000L;
 
-            int h = ((int) barr[PLOG_CHUNK_BYTES + 4] & 0xFF) - 60;
-            int mi = ((int) barr[PLOG_CHUNK_BYTES + 5] & 0xFF) - 60;
-            int s = ((int) barr[PLOG_CHUNK_BYTES + 6] & 0xFF) - 60;
+            int h = ((int) data.get(PLOG_CHUNK_BYTES + 4) & 0xFF) - 60;
+            int mi = ((int) data.get(PLOG_CHUNK_BYTES + 5) & 0xFF) - 60;
+            int s = ((int) data.get(PLOG_CHUNK_BYTES + 6) & 0xFF) - 60;
 
             long umilli = 0;
             for (int j = 7; j < 11; j++) {
-                umilli = (umilli << 8) + ((int) barr[PLOG_CHUNK_BYTES + j] & 0xFF);
+                umilli = (umilli << 8) + ((int) data.get(PLOG_CHUNK_BYTES + j) & 0xFF);
             }
             umilli -= 0x80000000L;
 
@@ -682,26 +1042,34 @@ public class ColumnDataDecoder extends DataDecoder {
      */
     public static String decodeIntervalYearToMonth (int[] rawData) 
     throws Exception 
+    {
+        return decodeIntervalYearToMonth (decodeByteBuffer (rawData));
+    }
+
+    /**
+     * Decode interval year to month column as string value
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Formatted interval string
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static String decodeIntervalYearToMonth (ByteBuffer data) 
+    throws Exception 
     {
         String interval = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
 
-        /* first chunk is raw length; data start at second chunk,
-         * buffer is advanced by PLOG_CHUNK_BYTES 
-         */
-        int len = b.getInt();
+        /* first chunk is raw length; data start at second chunk */
+        int len = data.getInt(0);
         
         if (len != 0) {
-            /* use raw byte array copy for direct offset decoding below */
-            byte[] barr = b.array();
-
             long y = 0;
             for (int j = 0; j < 4; j++) {
-                y = (y << 8) + ((int) barr[PLOG_CHUNK_BYTES + j] & 0xFF);
+                y = (y << 8) + ((int) data.get(PLOG_CHUNK_BYTES + j) & 0xFF);
             }
             y -= 0x80000000L;
 
-            int m = ((int) barr[PLOG_CHUNK_BYTES + 4] & 0xFF) - 60;
+            int m = ((int) data.get(PLOG_CHUNK_BYTES + 4) & 0xFF) - 60;
 
             interval = String.format("%+d-%d", y, Math.abs(m));
         }
@@ -16,8 +16,11 @@ package com.dbvisit.replicate.plog.format.decoder;
  * limitations under the License.
  **/
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +54,17 @@ public class DataDecoder {
     final public static int NUMBER_INTEGER_MAX_PRECISION = 10;
     /** Precision used to decode Oracle long numbers as long integral value */
     final public static int NUMBER_LONG_MAX_PRECISION = 20;
+    /** The UTC time zone, cached for decoding dates as UTC */
+    final protected static TimeZone UTC_TIME_ZONE = 
+        TimeZone.getTimeZone("UTC");
+    /** Years after this year are in the Gregorian calendar for date decoding,
+     *  the same as the cutover year of GregorianCalendar */
+    final private static int GREGORIAN_CUTOVER_YEAR = 1582;
+    /** Days since epoch of the first date in the Gregorian calendar,
+     *  1582-10-15 */
+    final private static long GREGORIAN_CUTOVER_EPOCH_DAY = -141427L;
+    /** Number of milliseconds in a day */
+    final private static long MILLIS_PER_DAY = 86400000L;
 
     /**
      * Helper function to decode number of PLOG chunks as byte buffer from 
@@ -94,6 +108,200 @@ public class DataDecoder {
         return decodeByteBuffer (rawData, rawData.length);
     }
 
+    /**
+     * Helper function to copy bytes from raw data pay load to a new byte
+     * array, use only when the decoded value requires its own copy
+     *
+     * @param data   raw data pay load, starting at position zero
+     * @param index  byte offset in pay load of first byte to copy
+     * @param length number of bytes to copy
+     *
+     * @return copy of the bytes
+     * @throws Exception for a buffer overrun
+     */
+    protected static byte[] copyBytes (ByteBuffer data, int index, int length)
+    throws Exception
+    {
+        checkBounds (data, index, length);
+
+        byte[] bytes = new byte[length];
+        ByteBuffer view = data.duplicate();
+        view.position (index);
+        view.get (bytes, 0, length);
+
+        return bytes;
+    }
+
+    /**
+     * Helper function to decode bytes in raw data pay load as string of
+     * given character set, directly from backing array when available
+     *
+     * @param data    raw data pay load, starting at position zero
+     * @param index   byte offset in pay load of first byte of string
+     * @param length  number of bytes of string
+     * @param charset the character set encoding of string
+     *
+     * @return decoded string
+     * @throws Exception for a buffer overrun or invalid character set
+     */
+    protected static String decodeString (
+        ByteBuffer data,
+        int index,
+        int length,
+        String charset
+    ) throws Exception
+    {
+        String str = null;
+
+        checkBounds (data, index, length);
+
+        try {
+            if (data.hasArray()) {
+                str = new String (
+                    data.array(),
+                    data.arrayOffset() + index,
+                    length,
+                    charset
+                );
+            }
+            else {
+                str = new String (copyBytes (data, index, length), charset);
+            }
+        }
+        catch (java.io.UnsupportedEncodingException e) {
+            throw new Exception (
+                "Invalid data chunk array, reason: " + e.getMessage()
+            );
+        }
+
+        return str;
+    }
+
+    /**
+     * Helper function to check that a range of bytes is available in raw 
+     * data pay load
+     *
+     * @param data   raw data pay load, starting at position zero
+     * @param index  byte offset in pay load of first byte
+     * @param length number of bytes
+     *
+     * @throws BufferUnderflowException when not all bytes are available
+     */
+    protected static void checkBounds (ByteBuffer data, int index, int length)
+    {
+        if (index < 0 || length < 0 || index + length > data.limit()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    /**
+     * Helper function to convert the date and time fields of a decoded date
+     * to milliseconds since epoch, the same as a lenient GregorianCalendar
+     * would. Dates after the Gregorian cutover are calculated directly from
+     * the fields, dates before it are left to the calendar, as are dates in
+     * a time zone other than UTC
+     *
+     * @param year   year, may be before common era
+     * @param month  zero based month, may be out of range
+     * @param day    day of month, may be out of range
+     * @param hour   hour of day, may be out of range
+     * @param minute minute of hour, may be out of range
+     * @param second second of minute, may be out of range
+     * @param zone   time zone of date and time fields, or null to use the
+     *               default time zone
+     *
+     * @return milliseconds since epoch
+     */
+    protected static long toEpochMillis (
+        int year,
+        int month,
+        int day,
+        int hour,
+        int minute,
+        int second,
+        TimeZone zone
+    ) {
+        boolean utc = zone != null
+            ? zone == UTC_TIME_ZONE || UTC_TIME_ZONE.hasSameRules (zone)
+            : UTC_TIME_ZONE.hasSameRules (TimeZone.getDefault());
+
+        if (utc && year > GREGORIAN_CUTOVER_YEAR) {
+            /* normalise month as lenient calendar does */
+            int y = year + floorDiv (month, 12);
+            int m = month - floorDiv (month, 12) * 12;
+
+            long millis = 
+                (epochDay (y, m + 1, 1) + day - 1) * MILLIS_PER_DAY +
+                ((hour * 60L + minute) * 60L + second) * 1000L;
+
+            if (floorDiv (millis, MILLIS_PER_DAY) >= 
+                GREGORIAN_CUTOVER_EPOCH_DAY) 
+            {
+                return millis;
+            }
+        }
+
+        GregorianCalendar gcal = 
+            new GregorianCalendar(year, month, day, hour, minute, second);
+
+        if (zone != null) {
+            gcal.setTimeZone(zone);
+        }
+
+        return gcal.getTimeInMillis();
+    }
+
+    /**
+     * Return the number of days since epoch of a date in the proleptic
+     * Gregorian calendar
+     *
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @param day   the day of month, 1 based
+     *
+     * @return days since 1970-01-01
+     */
+    private static long epochDay (int year, int month, int day) {
+        /* shift start of year to March, leap day is last day of year */
+        long y   = month <= 2 ? year - 1 : year;
+        long era = floorDiv (y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + 
+                   day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+
+        /* 719468 is the number of days from 0000-03-01 to epoch */
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Integer division rounded towards negative infinity
+     *
+     * @param x dividend
+     * @param y positive divisor
+     *
+     * @return largest integer less than or equal to quotient
+     */
+    private static int floorDiv (int x, int y) {
+        int q = x / y;
+
+        return (x % y < 0) ? q - 1 : q;
+    }
+
+    /**
+     * Long division rounded towards negative infinity
+     *
+     * @param x dividend
+     * @param y positive divisor
+     *
+     * @return largest long less than or equal to quotient
+     */
+    private static long floorDiv (long x, long y) {
+        long q = x / y;
+
+        return (x % y < 0) ? q - 1 : q;
+    }
+
     /**
      * Convert byte array to hexadecimal string for human-readable logging
      * 
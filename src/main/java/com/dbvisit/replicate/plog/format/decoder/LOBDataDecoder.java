@@ -16,7 +16,6 @@ package com.dbvisit.replicate.plog.format.decoder;
  * limitations under the License.
  **/
 
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 
 import javax.sql.rowset.serial.SerialBlob;
@@ -26,6 +25,9 @@ import javax.sql.rowset.serial.SerialBlob;
  * CLOB and BLOB data types from 4 byte aligned PLOG tag data chunks</p>
  */
 public class LOBDataDecoder extends DataDecoder {
+    /** Byte offset of LOB data, after 64-bit raw length */
+    private static final int LOB_DATA_BYTE_OFFSET = 2 * PLOG_CHUNK_BYTES;
+
     /**
      * Decode Character Large Object column from PLOG tag data chunk, empty
      * and NULL CLOBs are supported
@@ -43,31 +45,46 @@ public class LOBDataDecoder extends DataDecoder {
         long  lobLength
     )
     throws Exception
+    {
+        return decodeCLOB (decodeByteBuffer (rawData), lobLength);
+    }
+
+    /**
+     * Decode Character Large Object column from PLOG tag data pay load, 
+     * empty and NULL CLOBs are supported
+     * 
+     * @param data      PLOG tag data pay load, little endian from position
+     *                  zero
+     * @param lobLength The actual length of LOB as parsed in TAG_LOBLEN tag
+     * 
+     * @return          Decoded CLOB as String value, an empty String is 
+     *                  returned for zero length CLOBs and a NULL when
+     *                  source CLOB was NULL
+     * @throws          Exception Failed to decode the raw PLOG value
+     */
+    public static String decodeCLOB (
+        ByteBuffer data,
+        long       lobLength
+    )
+    throws Exception
     {
         String clob = null;
         
-        if (rawData.length == 0) {
+        if (data.limit() == 0) {
             /* no bytes to decode for CLOB, it is NULL */
             clob = null;
         }
         else {
-            /* have bytes to decode as byte buffer */
-            ByteBuffer b = decodeByteBuffer (rawData);
-    
-            /* first chunk is raw length; data start at second chunk,
-             * buffer is advanced by PLOG_CHUNK_BYTES 
-             */
-            int rawLength = b.getInt();
+            /* first chunk is raw length; data start at third chunk */
+            int rawLength = data.getInt(0);
             
             if (rawLength == 0) {
                 /* length of encoded CLOB is zero, nothing to decode */
                 clob = "";
             }
             else if (rawLength > 0) {
-                /* upper 32-bit of length, ignore for now, we handle chunks <4GB
-                 * only */
-                b.getInt();
-        
+                /* upper 32-bit of length in second chunk, ignore for now, 
+                 * we handle chunks <4GB only */
                 int actualLength;
         
                 if (lobLength > 0      && 
@@ -88,7 +105,9 @@ public class LOBDataDecoder extends DataDecoder {
                 }
         
                 if (logger.isTraceEnabled()) {
-                    logger.trace(bytesToHex(b.array()));
+                    logger.trace(
+                        bytesToHex(copyBytes (data, 0, data.limit()))
+                    );
                     logger.trace(
                         "Actual length:" + actualLength + " " + 
                         "CLOB length:"   + lobLength    + " " + 
@@ -96,20 +115,12 @@ public class LOBDataDecoder extends DataDecoder {
                     );
                 }
         
-                byte[] raw = new byte[rawLength];
-                b.get(raw, 0, rawLength);
-        
-                try {
-                    clob = new String(
-                        raw, 
-                        PLOG_CHUNK_STRING_ENC
-                    ).substring(0, actualLength);
-                }
-                catch (UnsupportedEncodingException e) {
-                    throw new Exception (
-                        "Invalid CLOB data chunk, reason: " + e.getMessage()
-                    );
-                }
+                clob = decodeString (
+                    data,
+                    LOB_DATA_BYTE_OFFSET,
+                    rawLength,
+                    PLOG_CHUNK_STRING_ENC
+                ).substring(0, actualLength);
             }
             else {
                 /* not a valid length */
@@ -136,30 +147,42 @@ public class LOBDataDecoder extends DataDecoder {
      */
     public static SerialBlob decodeBLOB (int[] rawData, long lobLength) 
     throws Exception 
+    {
+        return decodeBLOB (decodeByteBuffer (rawData), lobLength);
+    }
+
+    /**
+     * Decode Binary Large Object column value in PLOG tag data pay load,
+     * empty and NULL BLOBs are supported
+     * 
+     * @param data      PLOG tag data pay load, little endian from position
+     *                  zero
+     * @param lobLength The actual length of LOB as parsed in TAG_LOBLEN tag
+     * 
+     * @return          decoded as SerialBlob, an empty object is returned for
+     *                  zero length BLOBs and a NULL objects for NULL BLOBs
+     * @throws          Exception Failed to decode the raw PLOG value
+     */
+    public static SerialBlob decodeBLOB (ByteBuffer data, long lobLength) 
+    throws Exception 
     {
         SerialBlob blob = null;
         
-        if (rawData.length == 0) {
+        if (data.limit() == 0) {
             /* no bytes to decode for BLOB, it is NULL */
             blob = null;
         }
         else {
-            /* have bytes to decode as byte buffer */
-            ByteBuffer b = decodeByteBuffer (rawData);
-            
-            /* first chunk is raw length; data start at second chunk,
-             * buffer is advanced by PLOG_CHUNK_BYTES 
-             */
-            int rawLength = b.getInt();
+            /* first chunk is raw length; data start at third chunk */
+            int rawLength = data.getInt(0);
     
             if (rawLength == 0) {
                 /* length of encoded BLOB is zero, nothing to decode */
                 blob = new SerialBlob (new byte[] {});
             }
             else if (rawLength > 0) {
-                /* upper 32-bit of length, ignore for now, we handle chunks 
-                 * <4GB only */
-                b.getInt();
+                /* upper 32-bit of length in second chunk, ignore for now,
+                 * we handle chunks <4GB only */
                 
                 /* actual length of BLOB */
                 int actualLength = lobLength > 0 
@@ -167,7 +190,9 @@ public class LOBDataDecoder extends DataDecoder {
                     : rawLength;
         
                 if (logger.isTraceEnabled()) {
-                    logger.trace(bytesToHex(b.array()));
+                    logger.trace(
+                        bytesToHex(copyBytes (data, 0, data.limit()))
+                    );
                     logger.trace(
                         "Actual length:" + actualLength + " " + 
                         "BLOB length:"   + lobLength    + " " + 
@@ -175,8 +200,11 @@ public class LOBDataDecoder extends DataDecoder {
                     );
                 }
         
-                byte[] raw = new byte[actualLength];
-                b.get(raw, 0, actualLength);
+                byte[] raw = copyBytes (
+                    data, 
+                    LOB_DATA_BYTE_OFFSET,
+                    actualLength
+                );
         
                 try {
                     blob = new SerialBlob(raw);
@@ -17,15 +17,17 @@ package com.dbvisit.replicate.plog.format.decoder;
  **/
 
 import java.nio.ByteBuffer;
-import java.nio.LongBuffer;
 import java.sql.Timestamp;
-import java.util.GregorianCalendar;
 
 /**
  * Simple data value decoder utility class. <p>Provide ability for decoding simple
  * data fields, eg. fixed size and null-terminated char fields</p>
  */
 public class SimpleDataDecoder extends DataDecoder {
+    /** Cache of decoded null-terminated strings, these are mostly names */
+    private static final CharStringCache charStringCache = 
+        new CharStringCache();
+
     /** 
      * Decode integer from PLOG tag data chunks, use to convert tag value to an 
      * 32 bit integer.
@@ -48,6 +50,25 @@ public class SimpleDataDecoder extends DataDecoder {
         return rawData[0];
     }
 
+    /** 
+     * Decode integer from PLOG tag data pay load, use to convert tag value 
+     * to an 32 bit integer.
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Decoded integer value
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static Integer decodeInteger (ByteBuffer data) throws Exception {
+        if (data.limit() < PLOG_CHUNK_INT_LEN * PLOG_CHUNK_BYTES) {
+            throw new Exception (
+                "Invalid data chunk array, expect at least " +
+                PLOG_CHUNK_INT_LEN + " chunks"
+            );
+        }
+        return data.getInt(0);
+    }
+
     /**
      * Decode long value from PLOG tag data chunks, use to convert tag value to a 
      * 64-bit long. 
@@ -64,10 +85,26 @@ public class SimpleDataDecoder extends DataDecoder {
                 PLOG_CHUNK_LONG_LEN + " chunks"
             );
         }
-        LongBuffer l =
-            decodeByteBuffer (rawData, PLOG_CHUNK_LONG_LEN).asLongBuffer();
+        return decodeLong (decodeByteBuffer (rawData, PLOG_CHUNK_LONG_LEN));
+    }
 
-        return l.get();
+    /**
+     * Decode long value from PLOG tag data pay load, use to convert tag 
+     * value to a 64-bit long. 
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Decoded Long value
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static Long decodeLong (ByteBuffer data) throws Exception {
+        if (data.limit() < PLOG_CHUNK_LONG_LEN * PLOG_CHUNK_BYTES) {
+            throw new Exception (
+                "Invalid data chunk array, expect at least " +
+                PLOG_CHUNK_LONG_LEN + " chunks"
+            );
+        }
+        return data.getLong(0);
     }
 
     /**
@@ -83,20 +120,50 @@ public class SimpleDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static String decodeCharString (int[] rawData) throws Exception {
-        String str = null;
-        ByteBuffer b = decodeByteBuffer (rawData);
+        return decodeCharString (decodeByteBuffer (rawData));
+    }
 
-        try {
-            str = new String(b.array(), PLOG_CHUNK_CHAR_STRING_ENC); 
+    /**
+     * Decode null-terminated string from PLOG tag data pay load, use to 
+     * convert tag value to a string. Only the bytes up to the NULL 
+     * terminator are decoded, identical strings are returned as the same
+     * cached string instance.
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Decoded string value
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static String decodeCharString (ByteBuffer data) throws Exception {
+        int end  = -1;
+        int hash = CharStringCache.HASH_SEED;
+
+        /* string without trailing NULL and anything further */
+        for (int i = 0; i < data.limit() && end < 0; i++) {
+            byte b = data.get(i);
+
+            if (b == 0) {
+                end = i;
+            }
+            else {
+                hash = CharStringCache.hash (hash, b);
+            }
         }
-        catch (java.io.UnsupportedEncodingException e) {
+
+        if (end < 0) {
             throw new Exception (
-                "Invalid data chunk array, reason: " + e.getMessage()
+                "Invalid data chunk array, reason: string is not NULL " +
+                "terminated"
             );
         }
 
-        /* return string without trailing NULL and anything further */
-        return str.substring(0, str.indexOf("\0")); 
+        /* names repeat for every record, resolve to canonical string */
+        return charStringCache.decode (
+            data,
+            end,
+            hash,
+            PLOG_CHUNK_CHAR_STRING_ENC
+        );
     }
 
     /**
@@ -110,9 +177,34 @@ public class SimpleDataDecoder extends DataDecoder {
      * @throws        Exception Failed to decode the raw PLOG value
      */
     public static Timestamp decodeDate (int[] rawData) throws Exception {
-        int t, seconds, minutes, hours, day, month, year;
+        return decodeDate (rawData[0]);
+    }
+
+    /**
+     * Decode date from PLOG tag data pay load, use to convert tag value to 
+     * a time stamp. Source is Oracle internal time representation as used
+     * in redo headers etc.
+     * 
+     * @param data PLOG tag data pay load, little endian from position zero
+     * 
+     * @return     Decoded date as time stamp value
+     * @throws     Exception Failed to decode the raw PLOG value
+     */
+    public static Timestamp decodeDate (ByteBuffer data) throws Exception {
+        return decodeDate (data.getInt(0));
+    }
+
+    /**
+     * Decode date from Oracle internal time representation, packed as
+     * seconds since 1988 with 31 day months
+     * 
+     * @param t the packed time value of first chunk
+     * 
+     * @return  Decoded date as time stamp value
+     */
+    private static Timestamp decodeDate (int t) {
+        int seconds, minutes, hours, day, month, year;
 
-        t = rawData[0];
         seconds = t % 60;
         t /= 60;
         minutes = t % 60;
@@ -125,16 +217,18 @@ public class SimpleDataDecoder extends DataDecoder {
         t /= 12;
         year = t + 1988;
 
-        GregorianCalendar gc = new GregorianCalendar(
-            year, 
-            month - 1 ,
-            day,
-            hours,
-            minutes,
-            seconds
+        /* in default time zone */
+        return new Timestamp(
+            toEpochMillis (
+                year, 
+                month - 1,
+                day,
+                hours,
+                minutes,
+                seconds,
+                null
+            )
         );
-
-        return new Timestamp(gc.getTimeInMillis());
     }
 
 }
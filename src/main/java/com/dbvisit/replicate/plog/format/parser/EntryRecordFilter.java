@@ -0,0 +1,61 @@
+package com.dbvisit.replicate.plog.format.parser;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.format.EntryTagType;
+
+/**
+ * Filter applied by the entry record parser while reading an entry record,
+ * to skip the records that no domain parser is interested in without
+ * decoding all of their tags. A record is either skipped by its type alone,
+ * before any of its tags are read, or by the few tags that identify its
+ * change, its SCN and object.
+ */
+public interface EntryRecordFilter {
+    /** The only tags decoded for a record before it is filtered */
+    public static final EntryTagType[] FILTER_TAGS = {
+        EntryTagType.TAG_SCN,
+        EntryTagType.TAG_OBJ_ID,
+        EntryTagType.TAG_OBJ_OWNER,
+        EntryTagType.TAG_OBJ_NAME
+    };
+
+    /**
+     * Check whether or not an entry record can be skipped by its type,
+     * without reading any of its tags
+     * 
+     * @param rec the entry record, with only its length and type parsed
+     * 
+     * @return true if the record can be skipped, else false
+     * @throws Exception when the type could not be checked
+     */
+    public boolean skipType (EntryRecord rec) throws Exception;
+
+    /**
+     * Check whether or not an entry record can be skipped, it only has
+     * the first of each of its {@link #FILTER_TAGS}, if present, and its
+     * length and type
+     * 
+     * @param rec the partially parsed entry record
+     * 
+     * @return true if the record can be skipped, else false to parse all
+     *         of its tags
+     * @throws Exception when the record could not be checked
+     */
+    public boolean skip (EntryRecord rec) throws Exception;
+}
@@ -17,10 +17,7 @@ package com.dbvisit.replicate.plog.format.parser;
  **/
 
 import java.io.DataInputStream;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.nio.ByteBuffer;
 
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntrySubType;
@@ -32,6 +29,10 @@ import com.dbvisit.replicate.plog.format.EntryTagType;
  */
 public class EntryRecordParser extends FormatParser implements IFormatParser 
 {
+    /** Size in bytes of a PLOG chunk */
+    private static final int CHUNK_BYTES = 4;
+    /** Size in bytes of the fixed length and ID chunks of a tag record */
+    private static final int TAG_HEADER_BYTES = 2 * CHUNK_BYTES;
     /** Use as singleton, it has no state */
     private EntryRecordParser () {}
     /** Use a single instance of the entry record parser */
@@ -65,46 +66,235 @@ public class EntryRecordParser extends FormatParser implements IFormatParser
     public EntryRecord parse(final DataInputStream input) 
     throws Exception 
     {
-        EntryRecord entry = new EntryRecord();
+        return parse (input, new EntryRecord());
+    }
+
+    /**
+     * Parses a PLOG entry record from data input stream into an existing
+     * entry record, which is cleared first. This allows the caller to
+     * reuse the same entry record, and its tag store, for every record
+     * read from the PLOG.
+     * 
+     * @param input byte data input stream opened on PLOG
+     * @param entry the entry record to parse into
+     * 
+     * @return the entry record, complete with tag data pay load
+     * @throws Exception when any parse error occur
+     */
+    public EntryRecord parse(final DataInputStream input, EntryRecord entry)
+    throws Exception 
+    {
+        entry.clear();
+
+        return parse (input, entry, null, null);
+    }
+
+    /**
+     * Parses a PLOG entry record from data input stream into the entry
+     * record of a recycling pool, using the pool's tag records and pay
+     * load buffer. The previous record parsed into the pool is recycled
+     * first, the caller recycles the record when it's done with it.
+     * 
+     * @param input byte data input stream opened on PLOG
+     * @param pool  the recycling pool of the reader
+     * 
+     * @return the pooled entry record, complete with tag data pay load
+     * @throws Exception when any parse error occur
+     */
+    public EntryRecord parse(final DataInputStream input, EntryRecordPool pool)
+    throws Exception 
+    {
+        return parse (input, pool, null);
+    }
+
+    /**
+     * Parses a PLOG entry record from data input stream, as above, and 
+     * apply a filter to it before decoding all of its tags. A record that
+     * is skipped by the filter is marked as filtered, its pay load is
+     * skipped after reading only the tags the filter needs, or none at
+     * all when it is skipped by its type.
+     * 
+     * @param input  byte data input stream opened on PLOG
+     * @param pool   the recycling pool of the reader, or null to parse
+     *               into a new entry record
+     * @param filter the filter to apply, or null to parse all records
+     * 
+     * @return the entry record, with all of its tags when not filtered
+     * @throws Exception when any parse error occur
+     */
+    public EntryRecord parse(
+        final DataInputStream input,
+        final EntryRecordPool pool,
+        final EntryRecordFilter filter
+    ) throws Exception 
+    {
+        EntryRecord entry = null;
+
+        if (pool != null) {
+            entry = pool.getRecord();
+
+            /* in case the previous record was incomplete and not recycled */
+            pool.recycle (entry);
+        }
+        else {
+            entry = new EntryRecord();
+        }
+
+        return parse (input, entry, pool, filter);
+    }
+
+    /**
+     * Parses a PLOG entry record from data input stream into a cleared
+     * entry record
+     * 
+     * @param input  byte data input stream opened on PLOG
+     * @param entry  the cleared entry record to parse into
+     * @param pool   the recycling pool to use, or null to allocate the tag
+     *               records and pay load buffer
+     * @param filter the filter to apply before decoding all tags, or null
+     * 
+     * @return the entry record, complete with tag data pay load
+     * @throws Exception when any parse error occur
+     */
+    private EntryRecord parse(
+        final DataInputStream input,
+        final EntryRecord entry,
+        final EntryRecordPool pool,
+        final EntryRecordFilter filter
+    ) throws Exception 
+    {
 
         /* decode fixed section of 3 chunks */
         int length  = parseSwappedInteger(input);
         int type    = parseSwappedInteger(input);
         int subtype = parseSwappedInteger(input);
+        int size    = 
+            Math.max (length - EntryRecord.DATA_CHUNK_OFFSET, 0) * CHUNK_BYTES;
 
-        Map<EntryTagType, List<EntryTagRecord>> entryTags = 
-            new HashMap<EntryTagType, List<EntryTagRecord>>();
+        entry.setLength (length);
+        entry.setTypeId (type);
+        entry.setSubTypeId (subtype);
+        entry.setSubType(EntrySubType.ESTYPE_UNKNOWN.find (type, subtype));
+
+        if (filter != null && filter.skipType (entry)) {
+            /* not needed, skip its tags without reading them */
+            skipSlice (input, size);
+            entry.setFiltered (true);
+
+            return entry;
+        }
+
+        /* read the variable section of raw tags in one, the tag records
+         * are views of it
+         */
+        ByteBuffer payload = parseSlice (input, size, pool);
+        
+        entry.setRecycledPayload (pool != null && pool.isRetained (payload));
+
+        if (filter != null) {
+            int start = payload.position();
+
+            parseFilterTags (payload, entry, pool);
+
+            if (filter.skip (entry)) {
+                entry.setFiltered (true);
+
+                return entry;
+            }
+
+            /* needed, discard the filter tags and decode all tags */
+            if (pool != null) {
+                pool.recycleTags (entry.getEntryTags());
+            }
+            else {
+                entry.getEntryTags().clear();
+            }
+            payload.position (start);
+        }
 
         /* use tag record parser instance */
-        IFormatParser parser = EntryTagRecordParser.getParser();
+        EntryTagRecordParser parser = EntryTagRecordParser.getParser();
 
         /* next parse the variable section of raw tags */
-        int chunksRead = EntryRecord.DATA_CHUNK_OFFSET;
         int sequence = 0;
-        while (chunksRead < length) {
+        while (payload.hasRemaining()) {
             /* parse the tag record containing the raw data to decode */
-            EntryTagRecord tag = (EntryTagRecord)parser.parse(input);
+            EntryTagRecord tag = pool != null
+                                 ? parser.parse(payload, pool.getTag())
+                                 : parser.parse(payload);
             tag.setSequence(sequence++);
 
-            EntryTagType tagType = EntryTagType.TAG_UNKNOWN.find (tag.getId());
-            if (entryTags.containsKey(tagType)) {
-                entryTags.get(tagType).add(tag);
+            entry.addEntryTag (
+                EntryTagType.TAG_UNKNOWN.find (tag.getId()),
+                tag
+            );
+        }
+
+        return entry;
+    }
+
+    /**
+     * Parse only the first tag of each type of filter tags from the pay
+     * load of an entry record, all other tags are stepped over using their
+     * length, without decoding them. Stops once all filter tags are found.
+     * 
+     * @param payload the raw tags of entry record
+     * @param entry   the entry record to add the filter tags to
+     * @param pool    the recycling pool to use, or null
+     * 
+     * @throws Exception when a tag record is not valid
+     */
+    private void parseFilterTags (
+        final ByteBuffer payload,
+        final EntryRecord entry,
+        final EntryRecordPool pool
+    ) throws Exception {
+        EntryTagRecordParser parser = EntryTagRecordParser.getParser();
+        EntryTagType[] filterTags = EntryRecordFilter.FILTER_TAGS;
+
+        int found    = 0;
+        int sequence = 0;
+        while (found < filterTags.length &&
+               payload.remaining() >= TAG_HEADER_BYTES)
+        {
+            int position = payload.position();
+            int length   = payload.getInt (position);
+            int id       = payload.getInt (position + CHUNK_BYTES);
+
+            EntryTagType tagType = null;
+            for (EntryTagType filterTag : filterTags) {
+                if (filterTag.getId() == id) {
+                    tagType = filterTag;
+                    break;
+                }
             }
-            else {
-                List<EntryTagRecord> tags = new LinkedList<EntryTagRecord>();
-                tags.add (tag);
-                entryTags.put (tagType, tags);
+
+            if (tagType != null && !entry.hasEntryTag (tagType)) {
+                EntryTagRecord tag = pool != null
+                                     ? parser.parse(payload, pool.getTag())
+                                     : parser.parse(payload);
+                tag.setSequence (sequence);
+
+                entry.addEntryTag (tagType, tag);
+                found++;
             }
+            else {
+                int size = 
+                    (length - EntryTagRecord.DATA_CHUNK_OFFSET) * CHUNK_BYTES;
 
-            chunksRead += tag.getLength();
+                if (size < 0 || 
+                    size > payload.remaining() - TAG_HEADER_BYTES) 
+                {
+                    throw new Exception (
+                        "Invalid tag record with ID: " + id + ", reason: " +
+                        "chunk length: " + length + " exceeds its parent " +
+                        "record"
+                    );
+                }
+                payload.position (position + TAG_HEADER_BYTES + size);
+            }
+            sequence++;
         }
-        entry.setLength (length);
-        entry.setTypeId (type);
-        entry.setSubTypeId (subtype);
-        entry.setEntryTags(entryTags);
-        entry.setSubType(EntrySubType.ESTYPE_UNKNOWN.find (type, subtype));
-
-        return entry;
     }
 
 }
@@ -0,0 +1,199 @@
+package com.dbvisit.replicate.plog.format.parser;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.format.EntryTagRecord;
+import com.dbvisit.replicate.plog.format.EntryTags;
+
+/**
+ * Recycling pool for the entry record, its tag records and the buffer
+ * that its raw pay load is read into, owned by a single reader. Each
+ * entry record read by the owner is parsed into the pooled objects, which
+ * are recycled when the owner is done with the record.
+ *
+ * <p>
+ * Pay load buffers larger than the configured maximum retained size are
+ * allocated for the record only, so that a huge LOB record does not pin
+ * its memory for the life time of the reader. Pay loads read as views of
+ * a memory mapped PLOG are never copied into the pooled buffer. Not
+ * thread safe.
+ * </p>
+ */
+public class EntryRecordPool {
+    /** Default maximum size of pay load buffer to retain, 1 MB */
+    public static final int DEFAULT_MAX_RETAINED_PAYLOAD_SIZE = 1024 * 1024;
+    /** Initial number of tag records to allocate room for in pool */
+    private static final int INITIAL_TAGS = 64;
+    /** Initial size of the retained pay load buffer */
+    private static final int INITIAL_PAYLOAD_SIZE = 4096;
+
+    /** Maximum size in bytes of pay load buffer to retain */
+    private final int maxRetainedPayloadSize;
+    /** The pooled entry record */
+    private final EntryRecord record = new EntryRecord();
+    /** Free tag records */
+    private EntryTagRecord[] tags = new EntryTagRecord[INITIAL_TAGS];
+    /** Number of free tag records */
+    private int numTags;
+    /** The retained pay load buffer, allocated on first use */
+    private ByteBuffer payload;
+
+    /**
+     * Create a recycling pool that retains pay load buffers up to the
+     * default maximum size
+     */
+    public EntryRecordPool () {
+        this (DEFAULT_MAX_RETAINED_PAYLOAD_SIZE);
+    }
+
+    /**
+     * Create a recycling pool that retains pay load buffers up to a
+     * maximum size
+     *
+     * @param maxRetainedPayloadSize maximum size in bytes of pay load
+     *                               buffer to retain, 0 to never retain
+     *                               any pay load buffer
+     */
+    public EntryRecordPool (int maxRetainedPayloadSize) {
+        this.maxRetainedPayloadSize = Math.max (maxRetainedPayloadSize, 0);
+    }
+
+    /**
+     * Return the maximum size of the pay load buffer retained by pool
+     *
+     * @return maximum size in bytes of retained pay load buffer
+     */
+    public int getMaxRetainedPayloadSize () {
+        return this.maxRetainedPayloadSize;
+    }
+
+    /**
+     * Return the pooled entry record, there is only one per pool
+     *
+     * @return the entry record to parse into
+     */
+    public EntryRecord getRecord () {
+        return this.record;
+    }
+
+    /**
+     * Return a free tag record from pool, or a new one if there are none
+     *
+     * @return an empty tag record
+     */
+    public EntryTagRecord getTag () {
+        if (numTags == 0) {
+            return new EntryTagRecord();
+        }
+
+        EntryTagRecord tag = tags[--numTags];
+        tags[numTags] = null;
+
+        return tag;
+    }
+
+    /**
+     * Return a little endian buffer with room for a pay load, limited to
+     * its size. The retained buffer is returned for pay loads up to the
+     * maximum retained size, its previous content is overwritten.
+     *
+     * @param size size in bytes of pay load
+     *
+     * @return buffer positioned at zero and limited to size
+     */
+    public ByteBuffer getPayload (int size) {
+        if (size > maxRetainedPayloadSize) {
+            /* too large to retain, only for this record */
+            return ByteBuffer.allocate (size).order (ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (payload == null || payload.capacity() < size) {
+            int capacity = payload == null
+                           ? INITIAL_PAYLOAD_SIZE
+                           : payload.capacity();
+
+            while (capacity < size) {
+                capacity <<= 1;
+            }
+
+            payload = ByteBuffer.allocate (
+                Math.min (capacity, maxRetainedPayloadSize)
+            );
+            payload.order (ByteOrder.LITTLE_ENDIAN);
+        }
+
+        payload.clear();
+        payload.limit (size);
+
+        return payload;
+    }
+
+    /**
+     * Check whether or not a buffer is backed by the retained pay load
+     * buffer of this pool, its content is overwritten by the next record
+     *
+     * @param buffer buffer, or view of buffer, to check
+     *
+     * @return true if buffer is backed by retained pay load, else false
+     */
+    public boolean isRetained (ByteBuffer buffer) {
+        return buffer != null &&
+               payload != null &&
+               buffer.hasArray() &&
+               buffer.array() == payload.array();
+    }
+
+    /**
+     * Return the tag records of an entry record to the pool and clear it
+     *
+     * @param rec the entry record the reader is done with
+     */
+    public void recycle (EntryRecord rec) {
+        recycleTags (rec.getEntryTags());
+
+        rec.clear();
+    }
+
+    /**
+     * Return tag records to the pool and clear them from their store
+     *
+     * @param entryTags the tag store of an entry record
+     */
+    void recycleTags (EntryTags entryTags) {
+        int count = entryTags.getNumTags();
+
+        if (numTags + count > tags.length) {
+            tags = Arrays.copyOf (
+                tags,
+                Math.max (tags.length << 1, numTags + count)
+            );
+        }
+
+        for (int i = 0; i < count; i++) {
+            EntryTagRecord tag = entryTags.getTag (i);
+            tag.clear();
+            tags[numTags++] = tag;
+        }
+
+        entryTags.clear();
+    }
+}
@@ -17,6 +17,7 @@ package com.dbvisit.replicate.plog.format.parser;
  **/
 
 import java.io.DataInputStream;
+import java.nio.ByteBuffer;
 
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 
@@ -27,6 +28,8 @@ public class EntryTagRecordParser extends FormatParser implements IFormatParser
 {
     /** Use as singleton, it has no state */
     private EntryTagRecordParser () {}
+    /** Size in bytes of a PLOG chunk */
+    private static final int CHUNK_BYTES = 4;
     /** Use a single instance of the entry tag record parser */
     private static EntryTagRecordParser INSTANCE = new EntryTagRecordParser();
 
@@ -67,11 +70,11 @@ public class EntryTagRecordParser extends FormatParser implements IFormatParser
         /* next variable section of chunks containing raw data in Oracle or
          * PLOG encoding format, to be decoded later
          */
-        int[] rawData = new int[length - EntryTagRecord.DATA_CHUNK_OFFSET];
+        int size = length - EntryTagRecord.DATA_CHUNK_OFFSET;
+        int[] rawData = new int[size];
 
-        for (int i = 0; i < length - EntryTagRecord.DATA_CHUNK_OFFSET; i++) {
-            rawData[i] = parseSwappedInteger(input);
-        }
+        /* decode all chunks of pay load in bulk */
+        parseSwappedIntegers (input, rawData, size);
 
         tag.setLength (length);
         tag.setId (id);
@@ -80,4 +83,58 @@ public class EntryTagRecordParser extends FormatParser implements IFormatParser
         return tag;
     }
 
+    /**
+     * Parse a PLOG entry tag record from the raw pay load of its parent
+     * entry record, read into a byte buffer. The tag record does not copy
+     * its raw data pay load, it is a view of the parent's pay load.
+     * 
+     * @param payload little endian byte buffer positioned at the start of
+     *                tag record, it is advanced to the start of next tag
+     * 
+     * @return entry tag record that references its data pay load in the
+     *         parent's buffer
+     * @throws Exception when the tag record is not valid
+     */
+    public EntryTagRecord parse (final ByteBuffer payload) throws Exception {
+        return parse (payload, new EntryTagRecord());
+    }
+
+    /**
+     * Parse a PLOG entry tag record from the raw pay load of its parent
+     * entry record into an existing, recycled, tag record
+     * 
+     * @param payload little endian byte buffer positioned at the start of
+     *                tag record, it is advanced to the start of next tag
+     * @param tag     the empty tag record to parse into
+     * 
+     * @return the tag record that references its data pay load in the
+     *         parent's buffer
+     * @throws Exception when the tag record is not valid
+     */
+    public EntryTagRecord parse (
+        final ByteBuffer payload,
+        final EntryTagRecord tag
+    ) throws Exception {
+        /* 2 chunks of fixed data */
+        int length = payload.getInt();
+        int id = payload.getInt();
+
+        int size = (length - EntryTagRecord.DATA_CHUNK_OFFSET) * CHUNK_BYTES;
+
+        if (size < 0 || size > payload.remaining()) {
+            throw new Exception (
+                "Invalid tag record with ID: " + id + ", reason: chunk " +
+                "length: " + length + " exceeds its parent record"
+            );
+        }
+
+        tag.setLength (length);
+        tag.setId (id);
+        tag.setData (payload, payload.position(), size);
+
+        payload.position (payload.position() + size);
+
+        return tag;
+    }
+
 }
@@ -17,7 +17,10 @@ package com.dbvisit.replicate.plog.format.parser;
  **/
 
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /** 
  * Abstract parser that implements behavior for all raw format parsers to use
@@ -26,9 +29,28 @@ public abstract class FormatParser {
     @SuppressWarnings("serial")
     public class StreamClosedException extends Exception {}
 
+    /** Size in bytes of a PLOG chunk */
+    private static final int PLOG_CHUNK_BYTES = 4;
+    /** Largest bulk read buffer to retain per thread for re-use */
+    private static final int MAX_RETAINED_BUFFER_BYTES = 1024 * 1024;
+    /** Initial size of bulk read buffer */
+    private static final int INITIAL_BUFFER_BYTES = 4096;
+    /** 
+     * Re-usable buffer for bulk reading chunks, parsers are singletons
+     * that may be shared between readers in different threads
+     */
+    private static final ThreadLocal<byte[]> chunkBuffer = 
+        new ThreadLocal<byte[]>() {
+            @Override
+            protected byte[] initialValue() {
+                return new byte[INITIAL_BUFFER_BYTES];
+            }
+        };
+
     /**
      * Reads an PLOG integer value from a PLOG InputStream. The value is 
-     * converted to the opposed endian system while reading.
+     * converted to the opposed endian system while reading, unless the
+     * input stream is able to decode PLOG chunks itself.
      * 
      * @param  input Source InputStream
      * 
@@ -42,45 +64,223 @@ public abstract class FormatParser {
             throw new StreamClosedException ();
         }
 
-        byte[] bytes = new byte[4];
+        int value = 0;
         
         try {
-            for (int i = 0; i < 4; i++) {
-                bytes[i] = input.readByte();
+            if (input instanceof IChunkInput) {
+                /* decode chunk directly from backing storage of stream */
+                value = ((IChunkInput)input).readChunk();
+            }
+            else {
+                /* big endian read, swap it */
+                value = Integer.reverseBytes (input.readInt());
             }
         }
         catch (IOException e) {
-            String err = e.getMessage();
-            if (err != null && err.equals ("Stream closed")) {
-                /* stream closed by parent stream reader */
-                throw new StreamClosedException ();
+            handleIOException (e);
+        }
+
+        return value;
+    }
+
+    /**
+     * Reads a number of PLOG integer values from a PLOG InputStream in bulk,
+     * the raw bytes for all chunks are read into a re-usable buffer with 
+     * one read and converted to the opposed endian system in one pass.
+     * 
+     * @param input  Source InputStream
+     * @param chunks Destination for the parsed 4 byte integer values
+     * @param count  The number of chunks to read
+     * 
+     * @throws Exception in case of an I/O problem
+     */
+    public void parseSwappedIntegers (
+        final DataInputStream input,
+        final int[] chunks,
+        final int count
+    ) throws Exception {
+        if (input == null) {
+            throw new StreamClosedException ();
+        }
+
+        if (count == 0) {
+            return;
+        }
+
+        try {
+            if (input instanceof IChunkInput) {
+                /* decode chunks directly from backing storage of stream */
+                ((IChunkInput)input).readChunks (chunks, 0, count);
+            }
+            else {
+                int size = count * PLOG_CHUNK_BYTES;
+                byte[] bytes = chunkBuffer.get();
+
+                if (bytes.length < size) {
+                    bytes = new byte[size];
+
+                    if (size <= MAX_RETAINED_BUFFER_BYTES) {
+                        chunkBuffer.set (bytes);
+                    }
+                }
+
+                input.readFully (bytes, 0, size);
+
+                for (int i = 0, b = 0; i < count; i++, b += PLOG_CHUNK_BYTES) {
+                    chunks[i] = convertEndian (bytes, b);
+                }
+            }
+        }
+        catch (IOException e) {
+            handleIOException (e);
+        }
+    }
+
+    /**
+     * Reads a number of raw bytes from a PLOG InputStream as a little endian
+     * byte buffer, for decoding chunks from a view of it without further
+     * copying. Streams that are able to decode PLOG chunks return a view
+     * of their backing storage, for all other streams the bytes are read
+     * into a new buffer.
+     * 
+     * @param input Source InputStream
+     * @param size  The number of bytes to read
+     * 
+     * @return little endian byte buffer at position zero, limited to the
+     *         number of bytes read
+     * @throws Exception in case of an I/O problem
+     */
+    public ByteBuffer parseSlice (final DataInputStream input, final int size)
+    throws Exception {
+        return parseSlice (input, size, null);
+    }
+
+    /**
+     * Reads a number of raw bytes from a PLOG InputStream as a little endian
+     * byte buffer, as above, for streams that are not able to return a
+     * view of their backing storage the bytes are read into a pay load
+     * buffer from the recycling pool of the reader
+     * 
+     * @param input Source InputStream
+     * @param size  The number of bytes to read
+     * @param pool  The recycling pool of the reader, or null to read into
+     *              a new buffer
+     * 
+     * @return little endian byte buffer at position zero, limited to the
+     *         number of bytes read
+     * @throws Exception in case of an I/O problem
+     */
+    public ByteBuffer parseSlice (
+        final DataInputStream input,
+        final int size,
+        final EntryRecordPool pool
+    ) throws Exception {
+        if (input == null) {
+            throw new StreamClosedException ();
+        }
+
+        ByteBuffer slice = null;
+
+        try {
+            if (input instanceof IChunkInput) {
+                slice = ((IChunkInput)input).readSlice (size);
+            }
+            else if (pool != null) {
+                slice = pool.getPayload (size);
+                input.readFully (slice.array(), slice.arrayOffset(), size);
             }
             else {
-                throw e;
+                byte[] bytes = new byte[size];
+                input.readFully (bytes, 0, size);
+
+                slice = ByteBuffer.wrap (bytes);
+                slice.order (ByteOrder.LITTLE_ENDIAN);
             }
         }
+        catch (IOException e) {
+            handleIOException (e);
+        }
 
-        return convertEndian (bytes);
+        return slice;
     }
 
     /**
-     * Converts a 4 bytes to integer of opposed endianness
+     * Skips a number of raw bytes of a PLOG InputStream without decoding
+     * them. Streams that are able to decode PLOG chunks only advance past
+     * them, for all other streams the bytes are skipped by the stream.
      * 
-     * @param bytes Input integer as 4 bytes
+     * @param input Source InputStream
+     * @param size  The number of bytes to skip
      * 
-     * @return      Integer value in opposed endianness   
+     * @throws Exception in case of an I/O problem, or EOFException when
+     *                   end of input was reached before all bytes were
+     *                   skipped
      */
-    private int convertEndian (byte[] bytes) {
-        assert (bytes.length == 4);
+    public void skipSlice (final DataInputStream input, final int size)
+    throws Exception {
+        if (input == null) {
+            throw new StreamClosedException ();
+        }
+
+        try {
+            if (input instanceof IChunkInput) {
+                ((IChunkInput)input).readSlice (size);
+            }
+            else {
+                int remaining = size;
+                while (remaining > 0) {
+                    int skipped = input.skipBytes (remaining);
 
+                    if (skipped <= 0) {
+                        throw new EOFException (
+                            "Unable to skip " + remaining + " bytes"
+                        );
+                    }
+                    remaining -= skipped;
+                }
+            }
+        }
+        catch (IOException e) {
+            handleIOException (e);
+        }
+    }
+
+    /**
+     * Convert I/O error to stream closed exception when the stream was
+     * closed by parent stream reader, else pass it on
+     * 
+     * @param e the I/O exception to handle
+     * 
+     * @throws Exception the stream closed or original exception
+     */
+    private void handleIOException (IOException e) throws Exception {
+        String err = e.getMessage();
+        if (err != null && err.equals ("Stream closed")) {
+            /* stream closed by parent stream reader */
+            throw new StreamClosedException ();
+        }
+        else {
+            throw e;
+        }
+    }
+
+    /**
+     * Converts a 4 bytes at offset to integer of opposed endianness
+     * 
+     * @param bytes  Input integers as bytes
+     * @param offset Offset of the 4 bytes of integer to convert
+     * 
+     * @return       Integer value in opposed endianness   
+     */
+    private int convertEndian (byte[] bytes, int offset) {
         return
-            ((bytes[0] & 0xFF) << 0) 
-                + 
-            ((bytes[1] & 0xFF) << 8)
-                + 
-            ((bytes[2] & 0xFF) << 16) 
-                + 
-            ((bytes[3] & 0xFF) << 24
+            ((bytes[offset]     & 0xFF) << 0) 
+                | 
+            ((bytes[offset + 1] & 0xFF) << 8)
+                | 
+            ((bytes[offset + 2] & 0xFF) << 16) 
+                | 
+            ((bytes[offset + 3] & 0xFF) << 24
         );
     } 
 
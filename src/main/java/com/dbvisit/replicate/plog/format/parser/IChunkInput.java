@@ -0,0 +1,63 @@
+package com.dbvisit.replicate.plog.format.parser;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Chunk input interface, implemented by PLOG data input streams that are
+ * able to decode the 4 byte little endian PLOG chunks directly from their
+ * backing storage, instead of the format parsers reading them byte by byte
+ */
+public interface IChunkInput {
+    /**
+     * Read the next PLOG chunk from input as a little endian integer value
+     *
+     * @return decoded 4 byte integer value of chunk
+     * @throws IOException when end of input was reached before a complete
+     *                     chunk could be read or any I/O error occurred
+     */
+    public int readChunk () throws IOException;
+
+    /**
+     * Read a number of PLOG chunks from input as little endian integer 
+     * values in bulk
+     *
+     * @param chunks destination for the decoded chunk values
+     * @param offset offset in destination of first chunk
+     * @param count  number of chunks to read
+     *
+     * @throws IOException when end of input was reached before all chunks
+     *                     could be read or any I/O error occurred
+     */
+    public void readChunks (int[] chunks, int offset, int count)
+    throws IOException;
+
+    /**
+     * Read a number of bytes from input as a view of the backing storage
+     * of the input, without copying them
+     *
+     * @param size number of bytes to read
+     *
+     * @return little endian byte buffer positioned at the first byte read
+     *         and limited to the number of bytes read
+     * @throws IOException when end of input was reached before all bytes
+     *                     could be read or any I/O error occurred
+     */
+    public ByteBuffer readSlice (int size) throws IOException;
+}
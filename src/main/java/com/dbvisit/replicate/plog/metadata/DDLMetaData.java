@@ -16,10 +16,10 @@ package com.dbvisit.replicate.plog.metadata;
  * limitations under the License.
  **/
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.dbvisit.replicate.plog.util.IntObjectHashMap;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -44,7 +44,11 @@ public class DDLMetaData {
     private List<Column> tableColumns;
     /** Index for finding column meta data by ordinal number or ID */
     @JsonIgnore
-    private Map<Integer, Column> columns;
+    private IntObjectHashMap<Column> columns;
+    /** Dense lookup of column meta data by ID, built from index when set,
+     *  published as a whole for the parser worker threads to read */
+    @JsonIgnore
+    private transient volatile ColumnLookup columnLookup;
     /** Whether or not the table has key constraints */
     @JsonProperty("hasKey")
     private Boolean hasKey = false;
@@ -137,7 +141,7 @@ public class DDLMetaData {
         this.tableColumns = tableColumns;
 
         if (columns == null) {
-            columns = new HashMap<Integer, Column>();
+            columns = new IntObjectHashMap<Column>();
         }
 
         if (columns.size() != tableColumns.size()) {
@@ -145,6 +149,8 @@ public class DDLMetaData {
                 columns.put (column.getId(), column);
             }
         }
+
+        columnLookup = indexColumnsById();
     }
 
     /**
@@ -168,7 +174,33 @@ public class DDLMetaData {
      */
     @JsonIgnore
     public void setColumns (Map<Integer, Column> columns) {
-        this.columns = columns;
+        if (columns == null || columns instanceof IntObjectHashMap) {
+            this.columns = (IntObjectHashMap<Column>) columns;
+        }
+        else {
+            this.columns = new IntObjectHashMap<Column> (columns);
+        }
+
+        columnLookup = indexColumnsById();
+    }
+
+    /**
+     * Remove the column meta data for a column ID from the column index,
+     * eg. for internal virtual columns, and rebuild the dense lookup
+     * 
+     * @param id the column ID or encoded ordinal number
+     * 
+     * @return the removed column meta data, or null if not defined
+     */
+    public Column removeColumn (int id) {
+        if (columns == null) {
+            return null;
+        }
+
+        Column removed = columns.remove (id);
+        columnLookup = indexColumnsById();
+
+        return removed;
     }
 
     /**
@@ -181,6 +213,133 @@ public class DDLMetaData {
         return this.columns;
     }
 
+    /**
+     * Return the column meta data for a column ID, using the dense array
+     * lookup by ID built when the columns were set. The lookup is never
+     * built here, it is immutable and published as a whole, so it is safe
+     * to read from parser worker threads. When the column index has been
+     * modified since, the index is used instead.
+     * 
+     * @param id the column ID or encoded ordinal number
+     * 
+     * @return column meta data, or null if not defined
+     */
+    public Column getColumn (int id) {
+        if (columns == null) {
+            return null;
+        }
+
+        ColumnLookup lookup = columnLookup;
+
+        if (lookup == null ||
+            lookup.source != columns ||
+            lookup.modCount != columns.getModCount())
+        {
+            /* index modified directly, do not rebuild shared lookup */
+            return columns.get (id);
+        }
+
+        if (id >= 0 && id < lookup.byId.length) {
+            return lookup.byId[id];
+        }
+
+        /* not densely indexed, eg. internal virtual column IDs */
+        return columns.get (id);
+    }
+
+    /**
+     * Return the largest column ID in the dense lookup of column meta data
+     * by ID, column IDs above it, if any, are not densely indexed
+     * 
+     * @return the largest densely indexed column ID, or -1 if none
+     */
+    @JsonIgnore
+    public int getMaxIndexedColumnId () {
+        ColumnLookup lookup = columnLookup;
+
+        if (lookup == null ||
+            lookup.source != columns ||
+            lookup.modCount != columns.getModCount())
+        {
+            /* index modified directly, size it as the lookup would be */
+            return columns != null ? maxIndexedColumnId (columns) : -1;
+        }
+
+        return lookup.byId.length - 1;
+    }
+
+    /**
+     * Immutable dense lookup of column meta data by column ID
+     */
+    private static class ColumnLookup {
+        /** Column meta data by ID */
+        private final Column[] byId;
+        /** Index the dense lookup was built from */
+        private final IntObjectHashMap<Column> source;
+        /** Modification count of index when the dense lookup was built */
+        private final int modCount;
+
+        /**
+         * Create dense lookup built from column index
+         *
+         * @param byId     column meta data by ID
+         * @param source   column index it was built from
+         * @param modCount modification count of index when built
+         */
+        private ColumnLookup (
+            Column[] byId,
+            IntObjectHashMap<Column> source,
+            int modCount
+        ) {
+            this.byId     = byId;
+            this.source   = source;
+            this.modCount = modCount;
+        }
+    }
+
+    /**
+     * Build the dense lookup of column meta data by column ID from the
+     * current column index, column IDs are ordinal numbers and their
+     * range is bound by number of columns
+     *
+     * @return the dense lookup, or null if there is no column index
+     */
+    private ColumnLookup indexColumnsById () {
+        if (columns == null) {
+            return null;
+        }
+
+        int maxId = maxIndexedColumnId (columns);
+        Column[] byId = new Column[maxId + 1];
+
+        for (int id = 0; id <= maxId; id++) {
+            byId[id] = columns.get (id);
+        }
+
+        return new ColumnLookup (byId, columns, columns.getModCount());
+    }
+
+    /**
+     * Return the largest column ID of a column index to look up densely,
+     * column IDs are ordinal numbers and their range is bound by number
+     * of columns, larger IDs, eg. of internal virtual columns, are not
+     * 
+     * @param columns the column index
+     * 
+     * @return the largest column ID to index densely, or -1 if none
+     */
+    private static int maxIndexedColumnId (IntObjectHashMap<Column> columns) {
+        int maxId = -1;
+
+        for (Integer id : columns.keySet()) {
+            if (id >= 0 && id <= 2 * columns.size()) {
+                maxId = Math.max (maxId, id);
+            }
+        }
+
+        return maxId;
+    }
+
     /**
      * Check whether the meta data for this data definition change is
      * valid, as in all the required ones are present and contain
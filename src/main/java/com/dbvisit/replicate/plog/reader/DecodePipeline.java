@@ -0,0 +1,399 @@
+package com.dbvisit.replicate.plog.reader;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.domain.parser.ParallelDomainParser;
+
+/**
+ * Pipeline for parsing PLOG entry records to domain records on worker
+ * threads, while the domain reader keeps reading raw entry records from
+ * the PLOG stream. The domain records are handed back to the domain
+ * reader in the order that their entry records were read, as in PLOG
+ * offset order, regardless of the order the workers finish them in.
+ * 
+ * <p>
+ * The pipeline is owned by one domain reader, only its thread submits
+ * records and takes the results. Records that update the PLOG caches are
+ * not submitted, the domain reader drains the pipeline and parses them
+ * itself, as ordering barriers. Idle worker threads time out.
+ * </p>
+ * <p>
+ * When sharded by table each worker thread has its own queue and the
+ * records of a table are always parsed by the same worker, so that they
+ * are handed back in order per table, but not in order across tables.
+ * The start offset of the oldest record in flight is then the watermark
+ * below which all records have been handed back.
+ * </p>
+ */
+final class DecodePipeline {
+    /** Number of records that may be in flight per worker thread */
+    private static final int RECORDS_IN_FLIGHT_PER_WORKER = 16;
+    /** Time in seconds to keep an idle worker thread alive */
+    private static final long WORKER_KEEP_ALIVE_SECS = 60L;
+    /** Counter for naming worker threads of all pipelines */
+    private static final AtomicInteger workerCounter = new AtomicInteger();
+
+    /** Failure to parse an entry record on a worker thread */
+    @SuppressWarnings("serial")
+    public static class DecodeException extends Exception {
+        /**
+         * Create decode failure for the error that occurred in worker
+         * 
+         * @param cause error that occurred parsing on worker thread
+         */
+        public DecodeException (Throwable cause) {
+            super (cause.getMessage(), cause);
+        }
+    }
+
+    /** Result of a record in flight and the offset that it starts at */
+    private static class InFlight {
+        /** The domain records parsed by worker */
+        private final Future<List<DomainRecord>> result;
+        /** The offset of the start of the entry record in PLOG */
+        private final ReplicateOffset start;
+
+        /**
+         * Create record in flight
+         * 
+         * @param result the domain records parsed by worker
+         * @param start  the offset of the start of the entry record
+         */
+        private InFlight (
+            final Future<List<DomainRecord>> result,
+            final ReplicateOffset start
+        ) {
+            this.result = result;
+            this.start  = start;
+        }
+    }
+
+    /** Worker threads, one per table shard when sharded, else shared */
+    private final ThreadPoolExecutor[] workers;
+    /** Number of worker threads */
+    private final int numWorkers;
+    /** Whether or not records are sharded by table */
+    private final boolean sharded;
+    /** Maximum number of records in flight */
+    private final int maxInFlight;
+    /** Records in flight, in the order they were read */
+    private final ArrayDeque<InFlight> inFlight;
+    /** Copies of the domain parsers for use by each worker thread */
+    private final ThreadLocal<Map<ParallelDomainParser, ParallelDomainParser>>
+        workerParsers;
+
+    /**
+     * Create a decode pipeline with a fixed number of worker threads
+     * 
+     * @param numWorkers the number of worker threads, must be positive
+     * @param sharded    true to shard records by table, each worker
+     *                   thread parsing the records of its tables in
+     *                   order, else false for PLOG order
+     */
+    DecodePipeline (final int numWorkers, final boolean sharded) {
+        this.numWorkers = numWorkers;
+        this.sharded    = sharded;
+
+        workers = sharded
+                  ? new ThreadPoolExecutor[numWorkers]
+                  : new ThreadPoolExecutor[1];
+
+        for (int w = 0; w < workers.length; w++) {
+            workers[w] = createWorkers (sharded ? 1 : numWorkers);
+        }
+
+        maxInFlight = numWorkers * RECORDS_IN_FLIGHT_PER_WORKER;
+        inFlight    = new ArrayDeque<InFlight>(maxInFlight);
+
+        workerParsers =
+            new ThreadLocal<Map<ParallelDomainParser, ParallelDomainParser>>()
+            {
+                @Override
+                protected Map<ParallelDomainParser, ParallelDomainParser>
+                initialValue() {
+                    return new IdentityHashMap<
+                        ParallelDomainParser, ParallelDomainParser
+                    >();
+                }
+            };
+    }
+
+    /**
+     * Create a pool of daemon worker threads that time out when idle
+     * 
+     * @param numThreads number of worker threads in pool
+     * 
+     * @return the worker thread pool
+     */
+    private static ThreadPoolExecutor createWorkers (final int numThreads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor (
+            numThreads,
+            numThreads,
+            WORKER_KEEP_ALIVE_SECS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread (Runnable r) {
+                    Thread worker = new Thread (
+                        r,
+                        "plog-decode-" + workerCounter.incrementAndGet()
+                    );
+                    /* never keep the JVM alive */
+                    worker.setDaemon (true);
+
+                    return worker;
+                }
+            }
+        );
+        pool.allowCoreThreadTimeOut (true);
+
+        return pool;
+    }
+
+    /**
+     * Return the number of worker threads of pipeline
+     * 
+     * @return number of worker threads
+     */
+    int getNumWorkers () {
+        return numWorkers;
+    }
+
+    /**
+     * Return whether or not records are sharded by table
+     * 
+     * @return true if in order per table only, else false for PLOG order
+     */
+    boolean isSharded () {
+        return sharded;
+    }
+
+    /**
+     * Return the offset of the start of the oldest record in flight, all
+     * records before it have been handed back
+     * 
+     * @return the start offset of oldest record, null if none in flight
+     */
+    ReplicateOffset getOldestInFlight () {
+        InFlight oldest = inFlight.peek();
+
+        return oldest != null ? oldest.start : null;
+    }
+
+    /**
+     * Check whether or not there are records in flight
+     * 
+     * @return true if no records are in flight, else false
+     */
+    boolean isEmpty () {
+        return inFlight.isEmpty();
+    }
+
+    /**
+     * Check whether or not the maximum number of records are in flight,
+     * the oldest must be taken before submitting another one
+     * 
+     * @return true if no more records may be submitted, else false
+     */
+    boolean isFull () {
+        return inFlight.size() >= maxInFlight;
+    }
+
+    /**
+     * Submit the parsing of an entry record to the worker threads
+     * 
+     * @param task   the task that parses an entry record to domain records
+     * @param start  the offset of the start of the entry record in PLOG
+     * @param schema the table of the entry record, only used for picking
+     *               its worker when sharded, may be null
+     */
+    void submit (
+        final Callable<List<DomainRecord>> task,
+        final ReplicateOffset start,
+        final String schema
+    ) {
+        ThreadPoolExecutor worker = workers[0];
+
+        if (sharded && schema != null) {
+            worker = workers[(schema.hashCode() & 0x7fffffff) % workers.length];
+        }
+
+        inFlight.add (new InFlight (worker.submit (task), start));
+    }
+
+    /**
+     * Return the copy of a domain parser to use by the calling worker
+     * thread, created on first use
+     * 
+     * @param parser the domain parser of the domain reader
+     * 
+     * @return the domain parser for calling worker thread only
+     */
+    ParallelDomainParser getWorkerParser (final ParallelDomainParser parser) {
+        Map<ParallelDomainParser, ParallelDomainParser> parsers =
+            workerParsers.get();
+
+        ParallelDomainParser workerParser = parsers.get (parser);
+
+        if (workerParser == null) {
+            workerParser = parser.newWorkerParser();
+            parsers.put (parser, workerParser);
+        }
+
+        return workerParser;
+    }
+
+    /**
+     * Add the domain records of the records in flight that are done,
+     * without waiting. Up to the first one that is not done, or, when
+     * sharded, all that are done, which keeps them in order per table.
+     * 
+     * @param domainRecords the domain records to add to, may be null
+     * 
+     * @return the domain records, null if none
+     * @throws DecodeException if a worker failed to parse a record
+     */
+    List<DomainRecord> poll (List<DomainRecord> domainRecords)
+    throws DecodeException {
+        if (!sharded) {
+            while (!inFlight.isEmpty() && inFlight.peek().result.isDone()) {
+                domainRecords = take (domainRecords);
+            }
+
+            return domainRecords;
+        }
+
+        Iterator<InFlight> it = inFlight.iterator();
+
+        while (it.hasNext()) {
+            InFlight done = it.next();
+
+            if (done.result.isDone()) {
+                it.remove();
+                domainRecords = collect (done.result, domainRecords);
+            }
+        }
+
+        return domainRecords;
+    }
+
+    /**
+     * Add the domain records of the oldest record in flight, waiting for
+     * its worker to finish parsing it
+     * 
+     * @param domainRecords the domain records to add to, may be null
+     * 
+     * @return the domain records, null if none
+     * @throws DecodeException if a worker failed to parse the record
+     */
+    List<DomainRecord> take (List<DomainRecord> domainRecords)
+    throws DecodeException {
+        InFlight oldest = inFlight.poll();
+
+        if (oldest == null) {
+            return domainRecords;
+        }
+
+        return collect (oldest.result, domainRecords);
+    }
+
+    /**
+     * Add the domain records parsed by a worker, waiting for it to finish
+     * 
+     * @param result        the domain records parsed by worker
+     * @param domainRecords the domain records to add to, may be null
+     * 
+     * @return the domain records, null if none
+     * @throws DecodeException if the worker failed to parse the record
+     */
+    private List<DomainRecord> collect (
+        final Future<List<DomainRecord>> result,
+        List<DomainRecord> domainRecords
+    ) throws DecodeException {
+        List<DomainRecord> parsed = null;
+
+        try {
+            parsed = result.get();
+        }
+        catch (ExecutionException e) {
+            discard();
+            throw new DecodeException (e.getCause());
+        }
+        catch (InterruptedException e) {
+            discard();
+            Thread.currentThread().interrupt();
+            throw new DecodeException (e);
+        }
+
+        if (parsed != null) {
+            if (domainRecords == null) {
+                domainRecords = new LinkedList<DomainRecord>();
+            }
+            domainRecords.addAll (parsed);
+        }
+
+        return domainRecords;
+    }
+
+    /**
+     * Add the domain records of all records in flight, waiting for the
+     * workers to finish them, this is done before parsing an entry record
+     * that acts as an ordering barrier
+     * 
+     * @param domainRecords the domain records to add to, may be null
+     * 
+     * @return the domain records, null if none
+     * @throws DecodeException if a worker failed to parse a record
+     */
+    List<DomainRecord> drain (List<DomainRecord> domainRecords)
+    throws DecodeException {
+        while (!inFlight.isEmpty()) {
+            domainRecords = take (domainRecords);
+        }
+
+        return domainRecords;
+    }
+
+    /**
+     * Discard all records in flight and their results, this is done when
+     * the PLOG stream they were read from is closed
+     */
+    void discard () {
+        for (InFlight pending : inFlight) {
+            pending.result.cancel (false);
+        }
+        inFlight.clear();
+    }
+}
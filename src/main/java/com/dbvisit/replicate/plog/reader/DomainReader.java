@@ -17,19 +17,28 @@ package com.dbvisit.replicate.plog.reader;
  **/
 
 import java.io.EOFException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.DomainRecordType;
 import com.dbvisit.replicate.plog.domain.ReplicateOffset;
 import com.dbvisit.replicate.plog.domain.TransactionInfoRecord;
+import com.dbvisit.replicate.plog.domain.parser.ChangeRowParser;
+import com.dbvisit.replicate.plog.domain.parser.ChangeSetParser;
+import com.dbvisit.replicate.plog.domain.parser.ColumnProjection;
 import com.dbvisit.replicate.plog.domain.parser.DomainParser;
+import com.dbvisit.replicate.plog.domain.parser.ParallelDomainParser;
 import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntrySubType;
@@ -37,11 +46,16 @@ import com.dbvisit.replicate.plog.format.EntryType;
 import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
 import com.dbvisit.replicate.plog.format.EntryTagRecord;
 import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.EntryTags;
+import com.dbvisit.replicate.plog.format.parser.EntryRecordFilter;
 import com.dbvisit.replicate.plog.format.parser.EntryRecordParser;
-import com.dbvisit.replicate.plog.format.parser.IFormatParser;
+import com.dbvisit.replicate.plog.format.parser.EntryRecordPool;
 import com.dbvisit.replicate.plog.format.parser.FormatParser.StreamClosedException;
+import com.dbvisit.replicate.plog.reader.DecodePipeline.DecodeException;
+import com.dbvisit.replicate.plog.reader.criteria.CompiledCriteria;
 import com.dbvisit.replicate.plog.reader.criteria.Criteria;
 import com.dbvisit.replicate.plog.reader.criteria.InternalDDLFilterCriteria;
+import com.dbvisit.replicate.plog.util.IntObjectHashMap;
 
 /**
  * Read raw data in PLOG and convert to domain objects
@@ -53,6 +67,8 @@ public final class DomainReader {
     private static final int LOG_WAIT_INTERVAL = 1000;
     /** Define the time out waiting for data when replication was restarted */
     private static final int RESTART_WAIT_INTERVAL_TIME_OUT = 60;
+    /** First wait for new data when tailing, it doubles up to wait time */
+    private static final long MIN_TAIL_WAIT_NANOS = 50000L;
 
     private static final Logger logger = LoggerFactory.getLogger(
         DomainReader.class
@@ -70,7 +86,9 @@ public final class DomainReader {
     /** Domain record parsers lookup per PLOG entry record type */
     private final Map <EntryType, DomainParser[]> domainParsers;
     /** Raw entry data parser */
-    private final IFormatParser parser;
+    private final EntryRecordParser parser;
+    /** Recycling pool for the entry and tag records read */
+    private final EntryRecordPool pool;
     /** Default filter, always used */
     @SuppressWarnings("rawtypes")
     private final Criteria defaultCriteria;
@@ -79,10 +97,33 @@ public final class DomainReader {
     /** Emit any PLOG transaction data at end of file */
     private final boolean flushLastTransactions;
     /** Local cache of cached schema names */
-    private final Map<Integer, String> schemaCache;
+    private final IntObjectHashMap<String> schemaCache;
+    /** Backend to use for opening data stream on PLOG files */
+    private final PlogReaderBackend readerBackend;
+    /** Pipeline for parsing records on worker threads, null if disabled */
+    private final DecodePipeline pipeline;
+    /** Only read entry records that have been written in full */
+    private final boolean tailing;
+    /** Interval of entry records indexed in PLOG index, 0 for none */
+    private final int indexInterval;
+    /** Filter to skip entry records that no domain parser needs, before
+     *  decoding all of their tags */
+    private final EntryFilter entryFilter;
+    /** Columns parsed per table by change record parsers, null for all */
+    private final ColumnProjection columnProjection;
+    /** Criteria on column values of change records, tested when parsed */
+    @SuppressWarnings("rawtypes")
+    private final Criteria columnCriteria;
+
+    /** Offset of the end of the last entry record read */
+    private ReplicateOffset lastOffset;
 
     /** Counter for recording how many times we've been waiting for new data */
     private int waiting;
+    /** Current wait for new data when tailing, backing off adaptively */
+    private long tailWaitNanos;
+    /** Time in ms when started waiting for new data when tailing */
+    private long waitingSince;
 
     /**
      * Build a correctly configured immutable <em>DomainReader</em>
@@ -97,6 +138,15 @@ public final class DomainReader {
         private boolean aggregateReader;
         private boolean flushLastTransactions;
         private boolean mergeMultiPartRecords;
+        private PlogReaderBackend readerBackend = PlogReaderBackend.STREAM;
+        private int maxRetainedPayloadSize = 
+            EntryRecordPool.DEFAULT_MAX_RETAINED_PAYLOAD_SIZE;
+        private int pipelineWorkers;
+        private boolean shardByTable;
+        private boolean tailing;
+        private int indexInterval;
+        private ColumnProjection columnProjection;
+        private Criteria columnCriteria;
         
         public DomainReaderBuilder() {}
         
@@ -213,6 +263,149 @@ public final class DomainReader {
             return this;
         }
         
+        /**
+         * Set the backend used by PLOG stream readers for opening the data
+         * stream on the PLOG files read by the domain reader being built,
+         * defaults to a buffered file stream
+         * 
+         * @param readerBackend the PLOG reader backend to use
+         * @return this builder
+         */
+        public DomainReaderBuilder readerBackend (
+            final PlogReaderBackend readerBackend
+        ) {
+            this.readerBackend = readerBackend;
+            return this;
+        }
+        
+        /**
+         * Set the maximum size of the buffer that the raw pay load of PLOG
+         * entry records are read into that is retained for reuse by the
+         * domain reader being built, larger pay loads, like huge LOBs, are
+         * read into a buffer for that record only. Defaults to 1 MB.
+         * 
+         * @param maxRetainedPayloadSize maximum size in bytes of pay load
+         *                               buffer to retain, 0 to disable
+         *                               reuse of pay load buffer
+         * @return this builder
+         */
+        public DomainReaderBuilder maxRetainedPayloadSize (
+            final int maxRetainedPayloadSize
+        ) {
+            this.maxRetainedPayloadSize = maxRetainedPayloadSize;
+            return this;
+        }
+        
+        /**
+         * Set the number of worker threads that the domain reader being
+         * built uses to parse PLOG entry records in a pipeline, while it
+         * reads the next raw entry records from stream. Domain records are
+         * still emitted in PLOG order. Only records that all their domain
+         * parsers are able to parse on worker threads are pipelined, eg.
+         * data change records, all others are ordering barriers that are
+         * parsed in order when the records before them are done. The
+         * criteria used must be safe to apply from multiple threads.
+         * Defaults to 0, no pipeline, all parsing done by reader thread.
+         * 
+         * @param pipelineWorkers number of worker threads, 0 to disable
+         *                        pipeline mode
+         * @return this builder
+         */
+        public DomainReaderBuilder pipelineWorkers (
+            final int pipelineWorkers
+        ) {
+            this.pipelineWorkers = pipelineWorkers;
+            return this;
+        }
+        
+        /**
+         * Set whether or not the pipeline of the domain reader being built
+         * shards the records it parses by table, each table is parsed by
+         * the same worker thread. Domain records are then emitted in order
+         * per table only, not in PLOG order, and the watermark of domain
+         * reader must be used as the offset up to which all records have
+         * been emitted. Requires pipeline workers.
+         * 
+         * @param shardByTable true to shard by table, else false
+         * @return this builder
+         */
+        public DomainReaderBuilder shardByTable (
+            final boolean shardByTable
+        ) {
+            this.shardByTable = shardByTable;
+            return this;
+        }
+        
+        /**
+         * Set whether or not the domain reader being built tails PLOGs
+         * that are still being written by checking the length of the next
+         * PLOG entry record against the size of the PLOG file, and only
+         * reading it once written in full. When waiting for it, it backs
+         * off from micro seconds up to a second. Defaults to false, read
+         * the entry record and when the end of the PLOG is reached, rewind
+         * and wait a second before reading it again.
+         * 
+         * @param tailing true to tail PLOGs, else false
+         * @return this builder
+         */
+        public DomainReaderBuilder tailing (final boolean tailing) {
+            this.tailing = tailing;
+            return this;
+        }
+        
+        /**
+         * Set the interval at which the domain reader being built indexes
+         * the entry records of a PLOG in an index file alongside it, when
+         * it reads the PLOG from its start. Every Nth entry record with an
+         * SCN is indexed, with all records that update the PLOG caches,
+         * which allows a PLOG stream reader to seek to an SCN or offset
+         * when restarting in that PLOG. Defaults to 0, PLOGs are not
+         * indexed and their index files are not used.
+         * 
+         * @param indexInterval index every Nth entry record, 0 to disable
+         *                      PLOG indexes
+         * @return this builder
+         */
+        public DomainReaderBuilder indexInterval (final int indexInterval) {
+            this.indexInterval = indexInterval;
+            return this;
+        }
+        
+        /**
+         * Set the columns of tables that the change record parsers of the
+         * domain reader being built parse, all other column values are
+         * skipped without decoding them and are not emitted in the change
+         * records. Key columns are always parsed, they are needed to merge
+         * multi-part records. Defaults to null, all columns are parsed.
+         * 
+         * @param columnProjection the columns to parse per table, null to
+         *                         parse all columns
+         * @return this builder
+         */
+        public DomainReaderBuilder columnProjection (
+            final ColumnProjection columnProjection
+        ) {
+            this.columnProjection = columnProjection;
+            return this;
+        }
+        
+        /**
+         * Set the criteria that the column values of change records must
+         * meet, tested by the change record parsers of the domain reader
+         * being built when they parse the column data. Only the column
+         * values tested are decoded first, change records that do not meet
+         * it are abandoned without decoding the rest. Compose it from
+         * column value criteria with AND and OR criteria, for domain record
+         * types. Defaults to null, no change records are abandoned.
+         * 
+         * @param criteria the criteria on column values, null for none
+         * @return this builder
+         */
+        public DomainReaderBuilder columnCriteria (final Criteria criteria) {
+            this.columnCriteria = criteria;
+            return this;
+        }
+        
         private void validate() throws Exception {
             /* validate requirements for valid domain reader */
             if (domainParsers == null ||domainParsers.size() == 0) {
@@ -227,6 +420,42 @@ public final class DomainReader {
                 defaultCriteria = 
                     new InternalDDLFilterCriteria<EntrySubType>();
             }
+            
+            if (readerBackend == null) {
+                throw new Exception (
+                    "Unable to build a domain reader without a PLOG " +
+                    "reader backend"
+                );
+            }
+            
+            if (maxRetainedPayloadSize < 0) {
+                throw new Exception (
+                    "Invalid maximum retained pay load size: " + 
+                    maxRetainedPayloadSize + ", reason: it cannot be " +
+                    "negative"
+                );
+            }
+            
+            if (pipelineWorkers < 0) {
+                throw new Exception (
+                    "Invalid number of pipeline workers: " + 
+                    pipelineWorkers + ", reason: it cannot be negative"
+                );
+            }
+            
+            if (shardByTable && pipelineWorkers == 0) {
+                throw new Exception (
+                    "Unable to shard by table, reason: no pipeline " +
+                    "workers have been configured"
+                );
+            }
+            
+            if (indexInterval < 0) {
+                throw new Exception (
+                    "Invalid PLOG index interval: " + indexInterval + 
+                    ", reason: it cannot be negative"
+                );
+            }
         }
         
         /**
@@ -249,6 +478,35 @@ public final class DomainReader {
             }
         }
         
+        /**
+         * Iterates through the registered domain parsers and set the column
+         * projection and column criteria of those that parse change records
+         */
+        @SuppressWarnings("unchecked")
+        private void configureChangeRowParsers () {
+            if (domainParsers != null) {
+                for (DomainParser[] dps : domainParsers.values()) {
+                    for (DomainParser dp : dps) {
+                        if (!(dp instanceof ChangeRowParser)) {
+                            continue;
+                        }
+                        
+                        ChangeRowParser crp = (ChangeRowParser)dp;
+                        
+                        if (columnProjection != null) {
+                            crp.setColumnProjection (columnProjection);
+                        }
+                        
+                        if (columnCriteria != null) {
+                            crp.setColumnCriteria (
+                                (Criteria<DomainRecordType>)columnCriteria
+                            );
+                        }
+                    }
+                }
+            }
+        }
+        
         public DomainReader build() throws Exception {
             validate();
             
@@ -256,6 +514,10 @@ public final class DomainReader {
                 enableMultiPartMerging();
             }
             
+            if (columnProjection != null || columnCriteria != null) {
+                configureChangeRowParsers();
+            }
+            
             return new DomainReader(
                 filterCriteria,
                 parseCriteria,
@@ -263,7 +525,15 @@ public final class DomainReader {
                 defaultCriteria,
                 domainParsers,
                 aggregateReader,
-                flushLastTransactions
+                flushLastTransactions,
+                readerBackend,
+                maxRetainedPayloadSize,
+                pipelineWorkers,
+                shardByTable,
+                tailing,
+                indexInterval,
+                columnProjection,
+                columnCriteria
             );
         }
     }
@@ -275,7 +545,7 @@ public final class DomainReader {
     /**
      * Create and initialize a clean domain reader
      */
-    @SuppressWarnings("rawtypes")
+    @SuppressWarnings({ "rawtypes", "unchecked" })
     private DomainReader (
         final Criteria filterCriteria,
         final Criteria parseCriteria,
@@ -283,19 +553,38 @@ public final class DomainReader {
         final Criteria defaultCriteria,
         final Map <EntryType, DomainParser[]> domainParsers,
         final boolean aggregateReader,
-        final boolean flushLastTransactions
+        final boolean flushLastTransactions,
+        final PlogReaderBackend readerBackend,
+        final int maxRetainedPayloadSize,
+        final int pipelineWorkers,
+        final boolean shardByTable,
+        final boolean tailing,
+        final int indexInterval,
+        final ColumnProjection columnProjection,
+        final Criteria columnCriteria
     ) {
-        this.filterCriteria        = filterCriteria;
-        this.parseCriteria         = parseCriteria;
-        this.persistCriteria       = persistCriteria;
-        this.defaultCriteria       = defaultCriteria;
+        /* criteria are compiled once, they are applied per record */
+        this.filterCriteria        = CompiledCriteria.compile (filterCriteria);
+        this.parseCriteria         = CompiledCriteria.compile (parseCriteria);
+        this.persistCriteria       = CompiledCriteria.compile (persistCriteria);
+        this.defaultCriteria       = CompiledCriteria.compile (defaultCriteria);
         this.domainParsers         = domainParsers;
         this.aggregateReader       = aggregateReader;
         this.flushLastTransactions = flushLastTransactions;
+        this.readerBackend         = readerBackend;
+        this.tailing               = tailing;
+        this.indexInterval         = indexInterval;
+        this.columnProjection      = columnProjection;
+        this.columnCriteria        = columnCriteria;
         
         /* internal state, not done by builder */
         parser      = EntryRecordParser.getParser();
-        schemaCache = new HashMap<Integer, String>();
+        pool        = new EntryRecordPool (maxRetainedPayloadSize);
+        schemaCache = new IntObjectHashMap<String>();
+        entryFilter = new EntryFilter();
+        pipeline    = pipelineWorkers > 0
+                      ? new DecodePipeline (pipelineWorkers, shardByTable)
+                      : null;
         waiting     = 0;
 
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
@@ -307,9 +596,9 @@ public final class DomainReader {
      * 
      * @return persist criteria, usually by type or offset of record
      */
-    @SuppressWarnings("rawtypes")
+    @SuppressWarnings({ "rawtypes", "unchecked" })
     public Criteria getPersistCriteria () {
-        return this.persistCriteria;
+        return CompiledCriteria.source (this.persistCriteria);
     }
 
     /**
@@ -319,9 +608,9 @@ public final class DomainReader {
      * 
      * @return the criteria to filter records after parsing as domain
      */
-    @SuppressWarnings("rawtypes")
+    @SuppressWarnings({ "rawtypes", "unchecked" })
     public Criteria getFilterCriteria () {
-        return this.filterCriteria;
+        return CompiledCriteria.source (this.filterCriteria);
     }
 
     /**
@@ -330,9 +619,9 @@ public final class DomainReader {
      * 
      * @return the parse criteria
      */
-    @SuppressWarnings("rawtypes")
+    @SuppressWarnings({ "rawtypes", "unchecked" })
     public Criteria getParseCriteria () {
-        return this.parseCriteria;
+        return CompiledCriteria.source (this.parseCriteria);
     }
     
     /**
@@ -351,7 +640,9 @@ public final class DomainReader {
      * Reads one PLOG entry record from input PLOG byte stream and parse
      * it with the registered domain records, returning a collection
      * of all domain records parsed by parsers from PLOG entry record
-     * read
+     * read. In pipeline mode the domain records returned are those of
+     * the entry records read before that the workers are done with, in
+     * the order they were read.
      * 
      * @param reader the PLOG stream handle for reading bytes
      * 
@@ -359,7 +650,6 @@ public final class DomainReader {
      * @throws Exception when any stream read, parse or domain conversion
      *                   issue occur
      */
-    @SuppressWarnings("unchecked")
     public List<DomainRecord> read (final PlogStreamReader reader)
     throws Exception {
         List<DomainRecord> domainRecords = null;
@@ -371,180 +661,518 @@ public final class DomainReader {
             );
         }
 
+        if (pipeline != null) {
+            return readPipelined (reader);
+        }
+
         reader.mark();
 
         PlogFile plog = reader.getPlog();
 
+        if (tailing && !reader.isNextRecordWritten()) {
+            waitForData (reader, plog);
+            return domainRecords;
+        }
+
         EntryRecord rec = null;
         try {
-            /* parse raw entry record */
-            rec = (EntryRecord)parser.parse(reader.getPlogStream());
+            /* parse raw entry record, skipping it when not needed */
+            rec = parser.parse (
+                reader.getPlogStream(),
+                pool,
+                entryFilter.forReader (reader)
+            );
             
             /* successfully parsed a record, reset waiting */
-            waiting = 0;
+            resetWaiting();
 
-            /* parse SCN from tags before record owner */
-            parseEntryRecordSCN(plog, rec);
+            ReplicateOffset rs = prepareEntryRecord (reader, plog, rec);
 
-            /* parse record owner from tags or PLOG dictionary */
-            parseEntryRecordOwner(plog, rec);
+            boolean hasNext = rec.isFooter() ? false : true;
+                   
+            /* check if we're done before applying filter */
+            if (hasNext) {
+                if (!rec.isFiltered()) {
+                    domainRecords = 
+                        parseEntryRecord (plog, rec, rs, domainRecords);
+                }
+            }
+            else {
+                domainRecords = flushTransactions (plog, rs, domainRecords);
 
-            /* maintain offsets before parsing LCR */
-            reader.advanceOffset(rec.getSize());
+                /* no more entry records, reader is done and can 
+                 * be released */
+                reader.setDone (true);
+            }
+        } catch (EOFException eof) {
+            waitForData (reader, plog);
+        } catch (StreamClosedException se) {
+            throw se;
+        } catch (Exception e) {
+            throw readFailure (rec, e);
+        }
+        finally {
+            if (rec != null) {
+                /* reuse its tag records and pay load for next record */
+                pool.recycle (rec);
+            }
+        }
+
+        return domainRecords;
+    }
+
+    /**
+     * Reads one PLOG entry record from input PLOG byte stream and either
+     * submit it to the decode pipeline, when all of its domain parsers
+     * can parse it on a worker thread, or parse it after all records in
+     * flight are done, when it is an ordering barrier, eg. a dictionary
+     * or JSON meta data record that updates the PLOG caches
+     * 
+     * @param reader the PLOG stream handle for reading bytes
+     * 
+     * @return list of domain records, of this and earlier entry records
+     * @throws Exception when any stream read, parse or domain conversion
+     *                   issue occur
+     */
+    private List<DomainRecord> readPipelined (final PlogStreamReader reader)
+    throws Exception {
+        List<DomainRecord> domainRecords = null;
+
+        reader.mark();
+
+        PlogFile plog = reader.getPlog();
+
+        if (tailing && !reader.isNextRecordWritten()) {
+            if (pipeline.isEmpty()) {
+                waitForData (reader, plog);
+            }
+            else {
+                /* emit records in flight before waiting for new data */
+                domainRecords = pipeline.drain (domainRecords);
+            }
+            return domainRecords;
+        }
 
-            /* store offset of the end of this record in its parent PLOG.
-             * Once committed to output this is where the next record will
-             * start and where the output reader should continue reading.  
+        EntryRecord rec = null;
+        try {
+            /* parse raw entry record into a record of its own, not the
+             * pooled one, it may be handed over to a worker thread
              */
-            ReplicateOffset rs = new ReplicateOffset (
+            rec = parser.parse (
+                reader.getPlogStream(),
+                null,
+                entryFilter.forReader (reader)
+            );
+
+            /* successfully parsed a record, reset waiting */
+            resetWaiting();
+
+            ReplicateOffset start = new ReplicateOffset (
                 plog.getUID(), 
                 reader.getOffset()
             );
 
-            rec.setUniqueOffset(rs);
-
-            if (logger.isTraceEnabled() && rec.isDataRecord()) {
-                logger.trace (
-                    "Schema: "   + rec.getRecordSchema() + " " +
-                    "Type: "     + rec.getSubType()      + " " + 
-                    "Offset: "   + rec.getRecordOffset() + " " +
-                    "Size: "     + rec.getSize() +
-                    (
-                        parseCriteria != null 
-                        ? " Parse: " + parseCriteria.meetCriteria(rec) 
-                        : ""
-                    )
-                );
-            }
-
-            boolean hasNext = rec.isFooter() ? false : true;
-                   
-            /* check if we're done before applying filter */
-            if (hasNext) {
-                EntryType entryType = rec.getSubType().getParent();
-                
-                /* if there are no domain parsers configured for this record 
-                 * type it is skipped
-                 */
-                if (domainParsers != null && 
-                    domainParsers.containsKey (entryType)) {
+            ReplicateOffset rs = prepareEntryRecord (reader, plog, rec);
 
-                    for (DomainParser domainParser : 
-                         domainParsers.get(entryType)) 
-                    {
-                        boolean parse = true;
-
-                        if (defaultCriteria != null) {
-                            /* apply default criteria to filter internal
-                             * meta data and system tables only, parse all 
-                             * other schema records
-                             */
-                            parse = defaultCriteria.meetCriteria(rec);
-                        }
-                        
-                        if (parse &&
-                            !domainParser.isAggregateParser() && 
-                            parseCriteria != null)
-                        {
-                            /* apply parse criteria */
-                            parse = parseCriteria.meetCriteria(rec);
-                        }
-                        
-                        if (parse) {
-                            DomainRecord domainRecord = null;
-
-                            domainParser.parse (plog, rec);
-
-                            if (domainParser.canEmit()) {
-                                if (domainRecords == null) {
-                                    domainRecords = 
-                                        new LinkedList<DomainRecord>();
-                                }
-                                domainRecord = domainParser.emit();
-
-                                /* the end of the transaction/record */
-                                domainRecord.setReplicateOffset(rs);
-
-                                /* for domain records that are aggregates we may
-                                 * have to parse it's constituent parts first,
-                                 * but filter it when we're done
-                                 */
-                                if (filterCriteria == null ||
-                                    filterCriteria.meetCriteria(domainRecord))
-                                {
-                                    domainRecords.add (domainRecord);
-                                }
-                            }
-
-                            if (domainRecord != null) {
-                                if (domainRecord.isTransactionInfoRecord()) {
-                                    TransactionInfoRecord txr =
-                                        (TransactionInfoRecord) domainRecord;
-
-                                    domainRecord.setPersist(txr.isValid());
-                                }
-                                else {
-                                    domainRecord.setRawRecordSize(rec.getSize());
-                                    if (persistCriteria != null) {
-                                        domainRecord.setPersist(
-                                            persistCriteria.meetCriteria(rec)
-                                        );
-                                    }
-                                    else {
-                                        /* default to persisting all domain 
-                                         * records parsed */
-                                        domainRecord.setPersist(true);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
+            if (rec.isFiltered()) {
+                /* not needed by any domain parser */
+                domainRecords = pipeline.poll (domainRecords);
             }
-            else {
-                if (flushLastTransactions) {
-                    if (domainRecords == null) {
-                        domainRecords = new LinkedList <DomainRecord>();
-                    }
+            else if (!rec.isFooter()) {
+                List<ParallelDomainParser> parallelParsers =
+                    selectParallelParsers (plog, rec);
 
-                    /* if forced it means caller is happy to flush possible
-                     * partial transaction info records
+                if (parallelParsers == null) {
+                    /* ordering barrier, the records before it must be
+                     * done before it is parsed in order
                      */
-                    for (TransactionInfoRecord txr : 
-                        plog.getTransactionRecords().values())
-                    {
-                        txr.setReplicateOffset(rs);
-
-                        if (txr.isValid()) {
-                            txr.setPersist(true);
-                            txr.setComplete(true);
-
-                            domainRecords.add (txr);
-                        }
+                    domainRecords = pipeline.drain (domainRecords);
+                    domainRecords = 
+                        parseEntryRecord (plog, rec, rs, domainRecords);
+                }
+                else if (!parallelParsers.isEmpty()) {
+                    if (pipeline.isFull()) {
+                        domainRecords = pipeline.take (domainRecords);
                     }
-                    plog.clearTransactionRecords();
+
+                    pipeline.submit (
+                        new ParseTask (plog, rec, rs, parallelParsers),
+                        start,
+                        rec.getRecordSchema()
+                    );
                 }
 
+                /* emit the records that workers are done with, in order
+                 * or in order per table when sharded
+                 */
+                domainRecords = pipeline.poll (domainRecords);
+            }
+            else {
+                domainRecords = pipeline.drain (domainRecords);
+                domainRecords = flushTransactions (plog, rs, domainRecords);
+
                 /* no more entry records, reader is done and can 
                  * be released */
                 reader.setDone (true);
             }
         } catch (EOFException eof) {
-            if (logger.isDebugEnabled() && 
-                waiting % LOG_WAIT_INTERVAL == 0) 
+            if (pipeline.isEmpty()) {
+                waitForData (reader, plog);
+            }
+            else {
+                /* emit records in flight before waiting for new data */
+                reader.rewind();
+                domainRecords = pipeline.drain (domainRecords);
+            }
+        } catch (DecodeException de) {
+            /* error of worker has the context of its record */
+            throw de;
+        } catch (StreamClosedException se) {
+            throw se;
+        } catch (Exception e) {
+            throw readFailure (rec, e);
+        }
+
+        return domainRecords;
+    }
+
+    /**
+     * Populate the SCN, owner and unique offset of an entry record that
+     * was read from stream and maintain the offset of the stream reader
+     * 
+     * @param reader the PLOG stream handle for reading bytes
+     * @param plog   PLOG file meta data
+     * @param rec    the raw PLOG entry record read
+     * 
+     * @return the offset of the end of the entry record in PLOG
+     * @throws Exception if the SCN or owner of record could not be parsed
+     */
+    @SuppressWarnings("unchecked")
+    private ReplicateOffset prepareEntryRecord (
+        final PlogStreamReader reader,
+        final PlogFile plog,
+        final EntryRecord rec
+    ) throws Exception {
+        /* a filtered record has its SCN and owner from its filter tags */
+        if (!rec.isFiltered()) {
+            /* parse SCN from tags before record owner */
+            parseEntryRecordSCN(plog, rec);
+
+            /* parse record owner from tags or PLOG dictionary */
+            parseEntryRecordOwner(plog, rec);
+        }
+
+        /* index it at its start in PLOG, if PLOG is being indexed */
+        reader.indexEntryRecord (reader.getOffset(), rec);
+
+        /* maintain offsets before parsing LCR */
+        reader.advanceOffset(rec.getSize());
+
+        /* store offset of the end of this record in its parent PLOG.
+         * Once committed to output this is where the next record will
+         * start and where the output reader should continue reading.  
+         */
+        ReplicateOffset rs = new ReplicateOffset (
+            plog.getUID(), 
+            reader.getOffset()
+        );
+
+        rec.setUniqueOffset(rs);
+        lastOffset = rs;
+
+        if (logger.isTraceEnabled() && rec.isDataRecord()) {
+            logger.trace (
+                "Schema: "   + rec.getRecordSchema() + " " +
+                "Type: "     + rec.getSubType()      + " " + 
+                "Offset: "   + rec.getRecordOffset() + " " +
+                "Size: "     + rec.getSize() +
+                (
+                    parseCriteria != null 
+                    ? " Parse: " + parseCriteria.meetCriteria(rec) 
+                    : ""
+                )
+            );
+        }
+
+        return rs;
+    }
+
+    /**
+     * Check whether or not an entry record should be parsed by a domain
+     * parser, by applying the default and parse criteria
+     * 
+     * @param domainParser the domain parser registered for the record type
+     * @param rec          the raw PLOG entry record read
+     * 
+     * @return true if the domain parser should parse record, else false
+     * @throws Exception if any criteria could not be applied
+     */
+    @SuppressWarnings("unchecked")
+    private boolean shouldParse (
+        final DomainParser domainParser,
+        final EntryRecord rec
+    ) throws Exception {
+        boolean parse = true;
+
+        if (defaultCriteria != null) {
+            /* apply default criteria to filter internal
+             * meta data and system tables only, parse all 
+             * other schema records
+             */
+            parse = defaultCriteria.meetCriteria(rec);
+        }
+        
+        if (parse &&
+            !domainParser.isAggregateParser() && 
+            parseCriteria != null)
+        {
+            /* apply parse criteria */
+            parse = parseCriteria.meetCriteria(rec);
+        }
+
+        return parse;
+    }
+
+    /**
+     * Parse an entry record with all domain parsers registered for its
+     * type that it meets the criteria of, in order of registration
+     * 
+     * @param plog          PLOG file meta data
+     * @param rec           the raw PLOG entry record read
+     * @param rs            the offset of the end of the entry record
+     * @param domainRecords the domain records to add to, may be null
+     * 
+     * @return the domain records, null if none
+     * @throws Exception when any parse or domain conversion issue occur
+     */
+    private List<DomainRecord> parseEntryRecord (
+        final PlogFile plog,
+        final EntryRecord rec,
+        final ReplicateOffset rs,
+        List<DomainRecord> domainRecords
+    ) throws Exception {
+        EntryType entryType = rec.getSubType().getParent();
+        
+        /* if there are no domain parsers configured for this record 
+         * type it is skipped
+         */
+        if (domainParsers != null && 
+            domainParsers.containsKey (entryType)) {
+
+            for (DomainParser domainParser : 
+                 domainParsers.get(entryType)) 
             {
-                logger.debug (
-                    "Waiting for new data or end of data in PLOG: " + 
-                    plog.getFileName() + " at offset: " + 
-                    reader.getOffset()
-                );
+                if (shouldParse (domainParser, rec)) {
+                    domainRecords = parseWith (
+                        domainParser,
+                        plog,
+                        rec,
+                        rs,
+                        domainRecords
+                    );
+                }
             }
+        }
 
-            /* PLOG entry is not complete yet, still streaming, so wait */
-            reader.rewind();
-            /* count number of times waiting for new data to arrive */
-            waiting++;
-            
+        return domainRecords;
+    }
+
+    /**
+     * Select the domain parsers for an entry record to parse it on
+     * worker threads, only if all domain parsers that it meets the
+     * criteria of are able to parse it out of order
+     * 
+     * @param plog PLOG file meta data
+     * @param rec  the raw PLOG entry record read
+     * 
+     * @return the domain parsers to use by workers, an empty list if there
+     *         are none to parse it with, or null if it must be parsed in
+     *         order by the domain reader
+     * @throws Exception if any criteria could not be applied
+     */
+    private List<ParallelDomainParser> selectParallelParsers (
+        final PlogFile plog,
+        final EntryRecord rec
+    ) throws Exception {
+        List<ParallelDomainParser> parallelParsers = 
+            Collections.emptyList();
+
+        EntryType entryType = rec.getSubType().getParent();
+
+        if (domainParsers != null && 
+            domainParsers.containsKey (entryType)) {
+
+            for (DomainParser domainParser : 
+                 domainParsers.get(entryType)) 
+            {
+                if (!shouldParse (domainParser, rec)) {
+                    continue;
+                }
+
+                if (!(domainParser instanceof ParallelDomainParser) ||
+                    !((ParallelDomainParser) domainParser)
+                        .canParseInParallel (plog, rec))
+                {
+                    return null;
+                }
+
+                if (parallelParsers.isEmpty()) {
+                    parallelParsers = new ArrayList<ParallelDomainParser>(1);
+                }
+                parallelParsers.add ((ParallelDomainParser) domainParser);
+            }
+        }
+
+        return parallelParsers;
+    }
+
+    /**
+     * Parse an entry record with a domain parser and emit its domain record,
+     * if complete and it meets the filter criteria. Used by worker threads,
+     * with their own domain parser, and the criteria are only read.
+     * 
+     * @param domainParser  the domain parser to use
+     * @param plog          PLOG file meta data
+     * @param rec           the raw PLOG entry record read
+     * @param rs            the offset of the end of the entry record
+     * @param domainRecords the domain records to add to, may be null
+     * 
+     * @return the domain records, null if none
+     * @throws Exception when any parse or domain conversion issue occur
+     */
+    @SuppressWarnings("unchecked")
+    private List<DomainRecord> parseWith (
+        final DomainParser domainParser,
+        final PlogFile plog,
+        final EntryRecord rec,
+        final ReplicateOffset rs,
+        List<DomainRecord> domainRecords
+    ) throws Exception {
+        DomainRecord domainRecord = null;
+
+        domainParser.parse (plog, rec);
+
+        if (domainParser.canEmit()) {
+            if (domainRecords == null) {
+                domainRecords = 
+                    new LinkedList<DomainRecord>();
+            }
+            domainRecord = domainParser.emit();
+
+            /* the end of the transaction/record */
+            domainRecord.setReplicateOffset(rs);
+
+            /* for domain records that are aggregates we may
+             * have to parse it's constituent parts first,
+             * but filter it when we're done
+             */
+            if (filterCriteria == null ||
+                filterCriteria.meetCriteria(domainRecord))
+            {
+                domainRecords.add (domainRecord);
+            }
+        }
+
+        if (domainRecord != null) {
+            if (domainRecord.isTransactionInfoRecord()) {
+                TransactionInfoRecord txr =
+                    (TransactionInfoRecord) domainRecord;
+
+                domainRecord.setPersist(txr.isValid());
+            }
+            else {
+                domainRecord.setRawRecordSize(rec.getSize());
+                if (persistCriteria != null) {
+                    domainRecord.setPersist(
+                        persistCriteria.meetCriteria(rec)
+                    );
+                }
+                else {
+                    /* default to persisting all domain 
+                     * records parsed */
+                    domainRecord.setPersist(true);
+                }
+            }
+        }
+
+        return domainRecords;
+    }
+
+    /**
+     * Add the transaction records of PLOG at its end, if configured to
+     * flush the last transactions
+     * 
+     * @param plog          PLOG file meta data
+     * @param rs            the offset of the end of PLOG
+     * @param domainRecords the domain records to add to, may be null
+     * 
+     * @return the domain records, null if none
+     */
+    private List<DomainRecord> flushTransactions (
+        final PlogFile plog,
+        final ReplicateOffset rs,
+        List<DomainRecord> domainRecords
+    ) {
+        if (flushLastTransactions) {
+            if (domainRecords == null) {
+                domainRecords = new LinkedList <DomainRecord>();
+            }
+
+            /* if forced it means caller is happy to flush possible
+             * partial transaction info records
+             */
+            for (TransactionInfoRecord txr : 
+                plog.getTransactionRecords().values())
+            {
+                txr.setReplicateOffset(rs);
+
+                if (txr.isValid()) {
+                    txr.setPersist(true);
+                    txr.setComplete(true);
+
+                    domainRecords.add (txr);
+                }
+            }
+            plog.clearTransactionRecords();
+        }
+
+        return domainRecords;
+    }
+
+    /**
+     * Wait for new data to arrive when the end of an open PLOG stream has
+     * been reached, before the PLOG is complete
+     * 
+     * @param reader the PLOG stream handle for reading bytes
+     * @param plog   PLOG file meta data
+     * 
+     * @throws Exception if the stream could not be rewound
+     */
+    private void waitForData (
+        final PlogStreamReader reader,
+        final PlogFile plog
+    ) throws Exception {
+        if (logger.isDebugEnabled() && 
+            waiting % LOG_WAIT_INTERVAL == 0) 
+        {
+            logger.debug (
+                "Waiting for new data or end of data in PLOG: " + 
+                plog.getFileName() + " at offset: " + 
+                reader.getOffset()
+            );
+        }
+
+        /* PLOG entry is not complete yet, still streaming, so wait */
+        reader.rewind();
+        /* count number of times waiting for new data to arrive */
+        waiting++;
+        
+        boolean timedOut = false;
+        
+        if (tailing) {
+            timedOut = tailWait (reader);
+        }
+        else {
             try {
                 Thread.sleep (WAIT_TIME_MS);
             }
@@ -553,58 +1181,245 @@ public final class DomainReader {
                 reader.setDone (true);
             }
             
-            /* workaround for when a replication restart failed to finalize
-             * the PLOG, as in write the ending PLOG footer, wait until
-             * time out which is defined in wait intervals
-             */
-            if (plog.forceCloseAtEnd() && 
-                waiting == RESTART_WAIT_INTERVAL_TIME_OUT) 
-            {
-                logger.warn (
-                    "Incomplete PLOG: " + plog.getFileName() + " " +
-                    "found when replication was restarted, closing"
-                );
-                
-                reader.setDone (true);
-            }
-        } catch (StreamClosedException se) {
-            throw se;
-        } catch (Exception e) {
-            /* catch errors and add some context, handle null error message */
-            if (e.getMessage() == null) {
-                /* no error message, add error for cause with stack trace,
-                 * this is most likely due to internal and unexpected
-                 * error
-                 */
-                logger.error ("An internal processing error has occurred", e);
-            }
-            
-            String errMsg = (
-                e.getMessage() != null
-                ? e.getMessage() 
-                :"an internal processing error has occurred"
+            timedOut = waiting == RESTART_WAIT_INTERVAL_TIME_OUT;
+        }
+        
+        /* workaround for when a replication restart failed to finalize
+         * the PLOG, as in write the ending PLOG footer, wait until
+         * time out which is defined in wait intervals
+         */
+        if (plog.forceCloseAtEnd() && timedOut) 
+        {
+            logger.warn (
+                "Incomplete PLOG: " + plog.getFileName() + " " +
+                "found when replication was restarted, closing"
             );
             
-            throw new Exception (
-                "Domain reader failed to read record " + 
-                (
-                    rec.getRecordSchema() != null 
-                    ? "for: " + rec.getRecordSchema() + " "
-                    : ""
-                ) +
-                "with type: " + rec.getRecordType() + " "  +
-                "at SCN: "    + rec.getRecordSCN()  + ", " +
-                "reason: " + errMsg,
+            reader.setDone (true);
+        }
+    }
+
+    /**
+     * Wait for new data when tailing a PLOG, backing off adaptively from
+     * micro seconds, for data written shortly after, up to the default
+     * wait time, for an idle PLOG
+     * 
+     * @param reader the PLOG stream handle for reading bytes
+     * 
+     * @return true if waited for as long as the restart wait intervals
+     *         without data arriving, else false
+     */
+    private boolean tailWait (final PlogStreamReader reader) {
+        if (tailWaitNanos == 0L) {
+            tailWaitNanos = MIN_TAIL_WAIT_NANOS;
+            waitingSince  = System.currentTimeMillis();
+        }
+        
+        LockSupport.parkNanos (tailWaitNanos);
+        
+        if (Thread.interrupted()) {
+            /* reader is done, it has been interrupted waiting for data */
+            reader.setDone (true);
+        }
+        
+        tailWaitNanos = Math.min (
+            tailWaitNanos << 1,
+            TimeUnit.MILLISECONDS.toNanos (WAIT_TIME_MS)
+        );
+        
+        return System.currentTimeMillis() - waitingSince >= 
+               (long)RESTART_WAIT_INTERVAL_TIME_OUT * WAIT_TIME_MS;
+    }
+    
+    /**
+     * Reset waiting for new data, an entry record has been read
+     */
+    private void resetWaiting () {
+        waiting       = 0;
+        tailWaitNanos = 0L;
+    }
+
+    /**
+     * Add the context of the entry record that failed to be read or
+     * parsed to its error
+     * 
+     * @param rec the raw PLOG entry record, null if it was not read
+     * @param e   the error that occurred
+     * 
+     * @return the error to throw
+     */
+    private Exception readFailure (final EntryRecord rec, final Exception e) {
+        /* catch errors and add some context, handle null error message */
+        if (e.getMessage() == null) {
+            /* no error message, add error for cause with stack trace,
+             * this is most likely due to internal and unexpected
+             * error
+             */
+            logger.error ("An internal processing error has occurred", e);
+        }
+        
+        String errMsg = (
+            e.getMessage() != null
+            ? e.getMessage() 
+            :"an internal processing error has occurred"
+        );
+
+        if (rec == null) {
+            return new Exception (
+                "Domain reader failed to read record, reason: " + errMsg,
                 e
             );
         }
-        finally {
-            if (rec != null) {
-              rec.clear();
+        
+        return new Exception (
+            "Domain reader failed to read record " + 
+            (
+                rec.getRecordSchema() != null 
+                ? "for: " + rec.getRecordSchema() + " "
+                : ""
+            ) +
+            "with type: " + rec.getRecordType() + " "  +
+            "at SCN: "    + rec.getRecordSCN()  + ", " +
+            "reason: " + errMsg,
+            e
+        );
+    }
+
+    /**
+     * Filters the entry records read by this domain reader that none of
+     * its domain parsers would parse, using the same criteria, so that
+     * their tags need not be decoded. Records are still read and their
+     * offsets maintained by the domain reader.
+     */
+    private class EntryFilter implements EntryRecordFilter {
+        /** The PLOG stream handle that the record is read from */
+        private PlogStreamReader reader;
+
+        /**
+         * Prepare filter for reading the next entry record of a PLOG
+         * stream reader
+         * 
+         * @param reader the PLOG stream handle for reading bytes
+         * 
+         * @return the filter to apply, or null when all records must be
+         *         parsed in full because the PLOG is being indexed
+         */
+        private EntryRecordFilter forReader (final PlogStreamReader reader) {
+            if (reader.isIndexing()) {
+                return null;
             }
+            this.reader = reader;
+
+            return this;
         }
 
-        return domainRecords;
+        /**
+         * Skip records with no domain parsers for their type, unless
+         * their tags may be needed to cache their owner
+         */
+        @Override
+        public boolean skipType (final EntryRecord rec) {
+            return !rec.isFooter() &&
+                   !rec.hasOwnerMetaData() &&
+                   (domainParsers == null ||
+                    !domainParsers.containsKey (rec.getSubType().getParent()));
+        }
+
+        /**
+         * Skip records that do not meet the criteria of any domain parser
+         * registered for their type, by their SCN, owner and offset
+         */
+        @Override
+        public boolean skip (final EntryRecord rec) throws Exception {
+            if (rec.isFooter()) {
+                return false;
+            }
+
+            PlogFile plog = reader.getPlog();
+
+            parseEntryRecordSCN (plog, rec);
+            parseEntryRecordOwner (plog, rec);
+
+            /* criteria may apply to the offset of the end of record */
+            rec.setUniqueOffset (
+                new ReplicateOffset (
+                    plog.getUID(), 
+                    reader.getOffset() + rec.getSize()
+                )
+            );
+
+            EntryType entryType = rec.getSubType().getParent();
+
+            if (domainParsers != null &&
+                domainParsers.containsKey (entryType)) 
+            {
+                for (DomainParser domainParser : 
+                     domainParsers.get (entryType))
+                {
+                    if (shouldParse (domainParser, rec)) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Parses an entry record on a worker thread of the decode pipeline,
+     * with the worker's own copy of the domain parsers
+     */
+    private class ParseTask implements Callable<List<DomainRecord>> {
+        /** PLOG file meta data */
+        private final PlogFile plog;
+        /** The raw PLOG entry record to parse */
+        private final EntryRecord rec;
+        /** The offset of the end of the entry record */
+        private final ReplicateOffset rs;
+        /** The domain parsers of domain reader to parse record with */
+        private final List<ParallelDomainParser> parsers;
+
+        /**
+         * Create task to parse an entry record on a worker thread
+         * 
+         * @param plog    PLOG file meta data
+         * @param rec     the raw PLOG entry record to parse
+         * @param rs      the offset of the end of the entry record
+         * @param parsers the domain parsers to parse record with
+         */
+        private ParseTask (
+            final PlogFile plog,
+            final EntryRecord rec,
+            final ReplicateOffset rs,
+            final List<ParallelDomainParser> parsers
+        ) {
+            this.plog    = plog;
+            this.rec     = rec;
+            this.rs      = rs;
+            this.parsers = parsers;
+        }
+
+        @Override
+        public List<DomainRecord> call () throws Exception {
+            List<DomainRecord> domainRecords = null;
+
+            try {
+                for (ParallelDomainParser domainParser : parsers) {
+                    domainRecords = parseWith (
+                        pipeline.getWorkerParser (domainParser),
+                        plog,
+                        rec,
+                        rs,
+                        domainRecords
+                    );
+                }
+            } catch (Exception e) {
+                throw readFailure (rec, e);
+            }
+
+            return domainRecords;
+        }
     }
 
     /**
@@ -617,6 +1432,152 @@ public final class DomainReader {
     public boolean isAggregateReader () {
         return this.aggregateReader;
     }
+
+    /**
+     * Return whether or not a PLOG read by this domain reader can be
+     * positioned at an offset without reading the records before it. This
+     * is only possible when none of its domain parsers carry state from
+     * one record to the next, ie. it does not aggregate transactions, does
+     * not merge multi-part records and does not build change sets, which
+     * merge multi-part records of tables without key definition. Else the
+     * transactions and multi-part records still open at the offset would
+     * be lost or emitted incomplete.
+     *
+     * @return true if records before an offset can be skipped, else false
+     */
+    public boolean canSeek () {
+        if (aggregateReader) {
+            return false;
+        }
+
+        if (domainParsers != null) {
+            for (DomainParser[] dps : domainParsers.values()) {
+                for (DomainParser dp : dps) {
+                    if (dp.isAggregateParser() ||
+                        dp instanceof ChangeSetParser ||
+                        (dp instanceof ChangeRowParser &&
+                         ((ChangeRowParser)dp).mergeMultiPartLCRs()))
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Return the backend used for opening the data stream on PLOG files
+     * read by this domain reader, inherited by proxy readers
+     * 
+     * @return the PLOG reader backend
+     */
+    public PlogReaderBackend getReaderBackend () {
+        return this.readerBackend;
+    }
+
+    /**
+     * Return the maximum size of pay load buffer that is retained for
+     * reuse by this domain reader, inherited by proxy readers
+     * 
+     * @return maximum size in bytes of retained pay load buffer
+     */
+    public int getMaxRetainedPayloadSize () {
+        return pool.getMaxRetainedPayloadSize();
+    }
+
+    /**
+     * Return the number of worker threads that parse PLOG entry records in
+     * pipeline mode, inherited by proxy readers
+     * 
+     * @return number of pipeline workers, 0 if not in pipeline mode
+     */
+    public int getPipelineWorkers () {
+        return pipeline != null ? pipeline.getNumWorkers() : 0;
+    }
+
+    /**
+     * Return whether or not the pipeline shards the records by table,
+     * inherited by proxy readers
+     * 
+     * @return true if emitted in order per table only, else false
+     */
+    public boolean isShardByTable () {
+        return pipeline != null && pipeline.isSharded();
+    }
+
+    /**
+     * Return whether or not only PLOG entry records that have been written
+     * in full are read, inherited by proxy readers
+     * 
+     * @return true if tailing PLOGs, else false
+     */
+    public boolean isTailing () {
+        return this.tailing;
+    }
+    
+    /**
+     * Return the interval at which entry records are indexed in the
+     * index files of PLOGs read by this domain reader
+     * 
+     * @return every Nth entry record is indexed, 0 if PLOGs are not
+     *         indexed
+     */
+    public int getIndexInterval () {
+        return this.indexInterval;
+    }
+    
+    /**
+     * Return the columns of tables parsed by the change record parsers
+     * of this domain reader
+     * 
+     * @return the columns to parse per table, or null if all columns
+     *         are parsed
+     */
+    public ColumnProjection getColumnProjection () {
+        return this.columnProjection;
+    }
+    
+    /**
+     * Return the criteria that the column values of change records parsed
+     * by this domain reader must meet
+     * 
+     * @return the criteria on column values, or null if none
+     */
+    @SuppressWarnings("rawtypes")
+    public Criteria getColumnCriteria () {
+        return this.columnCriteria;
+    }
+
+    /**
+     * Return the watermark of the domain reader, the offset up to which
+     * the domain records of all entry records read have been emitted.
+     * This is the offset to checkpoint when records are not emitted in
+     * PLOG order, as in sharded by table.
+     * 
+     * @return offset in PLOG below which all records have been emitted,
+     *         null if no records have been read
+     */
+    public ReplicateOffset getWatermark () {
+        if (pipeline != null && !pipeline.isEmpty()) {
+            return pipeline.getOldestInFlight();
+        }
+
+        return lastOffset;
+    }
+
+    /**
+     * Discard the entry records in flight in the decode pipeline, that
+     * have not been emitted yet. Done when the PLOG stream that they were
+     * read from is closed, they are read again when it is re-opened.
+     */
+    public void discardInFlight () {
+        if (pipeline != null) {
+            pipeline.discard();
+        }
+        lastOffset = null;
+    }
     
     /**
      * Return whether or not this reader will flush records for transactions
@@ -641,7 +1602,7 @@ public final class DomainReader {
         String objectOwner = null;
         String objectName  = null;
 
-        Map<EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
         EntryTagRecord tag = null;
         int objectId = -1;
 
@@ -649,10 +1610,10 @@ public final class DomainReader {
         EntryTagType type = EntryTagType.TAG_OBJ_ID;
 
         if (rec.hasOwnerMetaData()) {
-            if (tags.containsKey(type)) {
-                tag = tags.get (type).get(0);
+            tag = tags.first (type);
+            if (tag != null) {
                 objectId = 
-                    SimpleDataDecoder.decodeInteger(tag.getRawData());
+                    SimpleDataDecoder.decodeInteger(tag.getData());
             }
             else {
                 throw new Exception (
@@ -661,16 +1622,15 @@ public final class DomainReader {
                 );
             }
 
-            if (schemaCache.containsKey(objectId)) {
-                /* have cache */
-                schema = schemaCache.get(objectId);
-            }
-            else {
+            /* have cache */
+            schema = schemaCache.get(objectId);
+            
+            if (schema == null) {
                 type = EntryTagType.TAG_OBJ_OWNER;
-                if (tags.containsKey(type)) {
-                    tag = tags.get (type).get(0);
+                tag = tags.first (type);
+                if (tag != null) {
                     objectOwner = 
-                        SimpleDataDecoder.decodeCharString(tag.getRawData());
+                        SimpleDataDecoder.decodeCharString(tag.getData());
                 }
                 else if (logger.isTraceEnabled()) {
                     /* only for debugging, this is fine if the filtered
@@ -685,10 +1645,10 @@ public final class DomainReader {
                 }
 
                 type = EntryTagType.TAG_OBJ_NAME;
-                if (tags.containsKey(type)) {
-                    tag = tags.get (type).get(0);
+                tag = tags.first (type);
+                if (tag != null) {
                     objectName =
-                        SimpleDataDecoder.decodeCharString(tag.getRawData());
+                        SimpleDataDecoder.decodeCharString(tag.getData());
                 }
                 else if (logger.isTraceEnabled()) {
                     logger.trace (
@@ -711,6 +1671,7 @@ public final class DomainReader {
         }
 
         rec.setOwner(schema);
+        rec.setObjectId(objectId);
     }
 
     /** 
@@ -721,15 +1682,15 @@ public final class DomainReader {
      */
     private void parseEntryRecordSCN (PlogFile plog, EntryRecord rec) 
     throws Exception {
-        Map<EntryTagType, List<EntryTagRecord>> tags = rec.getEntryTags();
+        EntryTags tags = rec.getEntryTags();
         EntryTagType type  = EntryTagType.TAG_OBJ_OWNER;
         EntryTagRecord tag = null;
 
         type = EntryTagType.TAG_SCN;
-        if (tags.containsKey(type)) {
-            tag = tags.get (type).get(0);
+        tag = tags.first (type);
+        if (tag != null) {
             rec.setSCN(
-                SimpleDataDecoder.decodeLong (tag.getRawData())
+                SimpleDataDecoder.decodeLong (tag.getData())
             );
         }
     }
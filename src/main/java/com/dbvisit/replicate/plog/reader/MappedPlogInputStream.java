@@ -0,0 +1,407 @@
+package com.dbvisit.replicate.plog.reader;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.dbvisit.replicate.plog.format.parser.IChunkInput;
+
+/**
+ * Data input stream over a memory mapped PLOG file. The PLOG chunks are
+ * decoded as little endian integers straight from the mapped buffer,
+ * instead of being read and swapped one byte at a time.
+ *
+ * <p>
+ * The PLOG file is mapped in bounded windows that slide with the position
+ * of the stream, so PLOG files of any size can be read. When the reader
+ * reaches the end of the current window the next window is mapped from
+ * the current position, when it reaches the end of a PLOG that is still
+ * being written only the growing tail from the current position is
+ * mapped before reporting the end of the stream. Marking and resetting
+ * the stream is supported without a read limit, the marker is simply a
+ * position in the PLOG file.
+ * </p>
+ *
+ * <p>
+ * Mapped windows cannot be released explicitly, views of them are handed
+ * out to entry records, they are released when no longer referenced and
+ * collected. Bounding the size of windows bounds the memory mapped for
+ * windows that are no longer read.
+ * </p>
+ */
+public class MappedPlogInputStream extends DataInputStream
+implements IChunkInput {
+    /** Default size in bytes of the mapped windows of PLOG file */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Create and open a data input stream on a memory mapped PLOG file
+     *
+     * @param file the PLOG file to map
+     *
+     * @throws IOException when PLOG file cannot be opened or mapped
+     */
+    public MappedPlogInputStream (File file) throws IOException {
+        this (file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create and open a data input stream on a PLOG file that is memory
+     * mapped in windows of a maximum size
+     *
+     * @param file       the PLOG file to map
+     * @param windowSize the size in bytes of the mapped windows, a read
+     *                   larger than it is mapped as a whole
+     *
+     * @throws IOException when PLOG file cannot be opened or mapped
+     */
+    public MappedPlogInputStream (File file, int windowSize)
+    throws IOException {
+        super (new MappedFileInputStream (file, windowSize));
+    }
+
+    /**
+     * Read the next PLOG chunk directly from the mapped PLOG file
+     *
+     * @return little endian decoded integer value of chunk
+     * @throws IOException when there is not a complete chunk available
+     *                     in the PLOG file or it has been closed
+     */
+    @Override
+    public int readChunk () throws IOException {
+        return ((MappedFileInputStream) in).readChunk();
+    }
+
+    /**
+     * Read a number of PLOG chunks directly from the mapped PLOG file
+     *
+     * @param chunks destination for the decoded chunk values
+     * @param offset offset in destination of first chunk
+     * @param count  number of chunks to read
+     *
+     * @throws IOException when not all chunks are available in the PLOG
+     *                     file or it has been closed
+     */
+    @Override
+    public void readChunks (int[] chunks, int offset, int count)
+    throws IOException {
+        ((MappedFileInputStream) in).readChunks (chunks, offset, count);
+    }
+
+    /**
+     * Read a number of bytes as a view of the mapped PLOG file
+     *
+     * @param size number of bytes to read
+     *
+     * @return little endian view of mapped bytes read
+     * @throws IOException when not all bytes are available in the PLOG 
+     *                     file or it has been closed
+     */
+    @Override
+    public ByteBuffer readSlice (int size) throws IOException {
+        return ((MappedFileInputStream) in).readSlice (size);
+    }
+
+    /**
+     * Input stream on memory mapped file, the position of the stream is
+     * the file offset of the mapped window plus the position in it
+     */
+    private static class MappedFileInputStream extends InputStream {
+        /** The PLOG file opened for mapping */
+        private final RandomAccessFile file;
+        /** The channel used for mapping the PLOG file */
+        private final FileChannel channel;
+        /** The maximum size of a mapped window */
+        private final int windowSize;
+        /** The mapped window of PLOG file */
+        private MappedByteBuffer buffer;
+        /** The file offset of the start of mapped window */
+        private long windowStart;
+        /** File offset of the stream marker */
+        private long marker = -1;
+        /** Whether or not this stream has been closed */
+        private boolean closed = false;
+
+        /**
+         * Open PLOG file and map its first window
+         *
+         * @param plogFile   the PLOG file to open
+         * @param windowSize the maximum size of a mapped window
+         *
+         * @throws IOException when file cannot be opened or mapped
+         */
+        public MappedFileInputStream (File plogFile, int windowSize)
+        throws IOException {
+            if (windowSize <= 0) {
+                throw new IOException (
+                    "Invalid mapped window size: " + windowSize
+                );
+            }
+
+            this.windowSize = windowSize;
+
+            file    = new RandomAccessFile (plogFile, "r");
+            channel = file.getChannel();
+
+            try {
+                remap (0, 0);
+            } catch (IOException e) {
+                file.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Return the file offset of the stream
+         *
+         * @return the stream position in PLOG file
+         */
+        private long position () {
+            return windowStart + buffer.position();
+        }
+
+        /**
+         * Map the window of PLOG file starting at a file offset, the
+         * window is limited to the current size of the PLOG file
+         *
+         * @param position the file offset to map from
+         * @param bytes    the number of bytes needed, the window is
+         *                 larger when the maximum window size is
+         *
+         * @throws IOException when unable to map the PLOG file
+         */
+        private void remap (long position, long bytes) throws IOException {
+            long size = Math.min (
+                Math.max (windowSize, bytes),
+                channel.size() - position
+            );
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException (
+                    "Unable to map " + bytes + " bytes of PLOG file, " +
+                    "reason: it exceeds maximum size of a mapped region"
+                );
+            }
+
+            buffer = channel.map (
+                FileChannel.MapMode.READ_ONLY,
+                position,
+                Math.max (size, 0)
+            );
+            buffer.order (ByteOrder.LITTLE_ENDIAN);
+            windowStart = position;
+        }
+
+        /**
+         * Ensure that the number of bytes requested are available in the
+         * mapped window, mapping the next window when the end of this
+         * window is reached or the PLOG file has grown
+         *
+         * @param bytes number of bytes required
+         *
+         * @return true if all bytes are available, else false
+         * @throws IOException when closed or failed to remap
+         */
+        private boolean ensure (long bytes) throws IOException {
+            if (closed) {
+                /* same as closed stream on file, parsers rely on it */
+                throw new IOException ("Stream closed");
+            }
+
+            if (buffer.remaining() < bytes &&
+                channel.size() > windowStart + buffer.capacity())
+            {
+                /* map next window, or the new tail of a PLOG that is
+                 * still being written, from current position */
+                remap (position(), bytes);
+            }
+
+            return buffer.remaining() >= bytes;
+        }
+
+        /**
+         * Read one little endian chunk from mapped PLOG
+         *
+         * @return the decoded integer value
+         * @throws IOException when there is no complete chunk available
+         */
+        public int readChunk () throws IOException {
+            if (!ensure (4)) {
+                throw new EOFException ();
+            }
+
+            return buffer.getInt();
+        }
+
+        /**
+         * Read little endian chunks in bulk from mapped PLOG
+         *
+         * @param chunks destination for the decoded chunk values
+         * @param offset offset in destination of first chunk
+         * @param count  number of chunks to read
+         *
+         * @throws IOException when not all chunks are available
+         */
+        public void readChunks (int[] chunks, int offset, int count)
+        throws IOException {
+            int size = count * 4;
+
+            if (!ensure (size)) {
+                throw new EOFException ();
+            }
+
+            buffer.asIntBuffer().get (chunks, offset, count);
+            buffer.position (buffer.position() + size);
+        }
+
+        /**
+         * Read bytes as view of mapped region, the view remains valid
+         * after the PLOG file has been remapped or closed
+         *
+         * @param size number of bytes to read
+         *
+         * @return little endian view of bytes read
+         * @throws IOException when not all bytes are available
+         */
+        public ByteBuffer readSlice (int size) throws IOException {
+            if (!ensure (size)) {
+                throw new EOFException ();
+            }
+
+            ByteBuffer slice = buffer.slice();
+            slice.limit (size);
+            slice.order (ByteOrder.LITTLE_ENDIAN);
+            buffer.position (buffer.position() + size);
+
+            return slice;
+        }
+
+        @Override
+        public int read () throws IOException {
+            if (!ensure (1)) {
+                return -1;
+            }
+
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read (byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            ensure (len);
+
+            int n = Math.min (len, buffer.remaining());
+            if (n == 0) {
+                return -1;
+            }
+            buffer.get (b, off, n);
+
+            return n;
+        }
+
+        @Override
+        public long skip (long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+
+            if (closed) {
+                throw new IOException ("Stream closed");
+            }
+
+            if (n <= buffer.remaining()) {
+                buffer.position (buffer.position() + (int) n);
+
+                return n;
+            }
+
+            /* map the window at the new position, without mapping the
+             * bytes skipped */
+            long position = position();
+            long target   = Math.min (position + n, channel.size());
+
+            remap (target, 0);
+
+            return target - position;
+        }
+
+        @Override
+        public int available () throws IOException {
+            if (closed) {
+                throw new IOException ("Stream closed");
+            }
+
+            return (int) Math.min (
+                Integer.MAX_VALUE,
+                channel.size() - position()
+            );
+        }
+
+        @Override
+        public boolean markSupported () {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark (int readlimit) {
+            /* no need for read limit, any position can be mapped */
+            marker = position();
+        }
+
+        @Override
+        public synchronized void reset () throws IOException {
+            if (closed) {
+                throw new IOException ("Stream closed");
+            }
+
+            if (marker < 0) {
+                throw new IOException ("Resetting to invalid mark");
+            }
+
+            if (marker >= windowStart &&
+                marker <= windowStart + buffer.limit())
+            {
+                buffer.position ((int) (marker - windowStart));
+            }
+            else {
+                /* marker is before current window */
+                remap (marker, 0);
+            }
+        }
+
+        @Override
+        public void close () throws IOException {
+            if (!closed) {
+                closed = true;
+                /* mapped region is released when buffer is collected */
+                file.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package com.dbvisit.replicate.plog.reader;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dbvisit.replicate.plog.file.PlogFile;
+
+/**
+ * Sparse index of a PLOG, loaded from the index file that is written
+ * alongside the PLOG when it is read with an index interval. It maps
+ * every Nth entry record with an SCN to its byte offset, SCN, LCR ID and
+ * transaction ID, and keeps the offsets of all entry records that update
+ * the PLOG dictionary or schema cache, so that a restart at an SCN or
+ * replicate offset can forward the PLOG stream to the nearest indexed
+ * record after replaying only those cache records.
+ *
+ * <p>
+ * The index file is written as the PLOG is consumed and may be
+ * incomplete, only what it has indexed is used. Indexing ends at the
+ * first include file record of a LOAD PLOG, records after it are never
+ * seeked to.
+ * </p>
+ *
+ * <p>
+ * The index file format, all values big-endian:
+ * </p>
+ * <pre>
+ * header: int magic, int version, long PLOG UID, int interval
+ * 'C'   : long offset                             - cache record
+ * 'E'   : long offset, long SCN, long max SCN before, long LCR ID,
+ *         UTF transaction ID, int cache records before - indexed record
+ * 'T'   : long indexed offset, boolean complete   - trailer, on close
+ * </pre>
+ */
+public class PlogIndex {
+    private static final Logger logger = LoggerFactory.getLogger(
+        PlogIndex.class
+    );
+
+    /** File extension of PLOG index, appended to the PLOG file name */
+    public static final String INDEX_EXT = "idx";
+    /** Magic number that starts a PLOG index file, PLIX */
+    static final int MAGIC = 0x504c4958;
+    /** Version of PLOG index file format */
+    static final int VERSION = 1;
+    /** Tag of a cache record in index file */
+    static final byte CACHE_TAG = 'C';
+    /** Tag of an indexed entry record in index file */
+    static final byte ENTRY_TAG = 'E';
+    /** Tag of trailer of index file */
+    static final byte TRAILER_TAG = 'T';
+
+    /** Unique ID of the indexed PLOG */
+    private final long plogUID;
+    /** Every Nth entry record with an SCN is indexed */
+    private final int interval;
+    /** Offsets of the records that update the PLOG caches, in order */
+    private final long[] cacheOffsets;
+    /** The indexed entry records, in PLOG order */
+    private final List<Entry> entries;
+    /** Offset up to which all entry records have been indexed */
+    private final long indexedOffset;
+    /** Whether or not the whole PLOG has been indexed */
+    private final boolean complete;
+
+    /** An indexed entry record in PLOG */
+    public static class Entry {
+        /** Byte offset of the start of entry record in PLOG */
+        private final long offset;
+        /** SCN of entry record */
+        private final long scn;
+        /** Highest SCN of the entry records before it in PLOG */
+        private final long maxSCNBefore;
+        /** LCR ID of entry record, -1 if it has none */
+        private final long lcrId;
+        /** Transaction ID of entry record, empty if it has none */
+        private final String transactionId;
+        /** Number of cache records before it, as snapshot of caches */
+        private final int cacheCount;
+
+        /**
+         * Create an indexed entry record
+         *
+         * @param offset        byte offset of start of record in PLOG
+         * @param scn           SCN of record
+         * @param maxSCNBefore  highest SCN of records before it
+         * @param lcrId         LCR ID of record, -1 if none
+         * @param transactionId transaction ID of record, empty if none
+         * @param cacheCount    number of cache records before it
+         */
+        Entry (
+            final long offset,
+            final long scn,
+            final long maxSCNBefore,
+            final long lcrId,
+            final String transactionId,
+            final int cacheCount
+        ) {
+            this.offset        = offset;
+            this.scn           = scn;
+            this.maxSCNBefore  = maxSCNBefore;
+            this.lcrId         = lcrId;
+            this.transactionId = transactionId;
+            this.cacheCount    = cacheCount;
+        }
+
+        /**
+         * Return the byte offset of the start of the indexed entry record
+         * in PLOG, the stream offset to forward to
+         *
+         * @return byte offset in PLOG
+         */
+        public long getOffset () {
+            return offset;
+        }
+
+        /**
+         * Return the SCN of the indexed entry record
+         *
+         * @return SCN of record
+         */
+        public long getSCN () {
+            return scn;
+        }
+
+        /**
+         * Return the highest SCN of all entry records before the indexed
+         * record in PLOG, none of them are needed for a restart after it
+         *
+         * @return highest SCN before record, -1 if there are none
+         */
+        public long getMaxSCNBefore () {
+            return maxSCNBefore;
+        }
+
+        /**
+         * Return the LCR ID of the indexed entry record
+         *
+         * @return LCR ID, -1 if it has none
+         */
+        public long getLCRId () {
+            return lcrId;
+        }
+
+        /**
+         * Return the transaction ID of the indexed entry record
+         *
+         * @return transaction ID, empty if it has none
+         */
+        public String getTransactionId () {
+            return transactionId;
+        }
+
+        /**
+         * Return the number of PLOG cache records before the indexed entry
+         * record, these are replayed to restore the PLOG dictionary and
+         * schema cache as it was at this record
+         *
+         * @return number of cache records before it
+         */
+        public int getCacheCount () {
+            return cacheCount;
+        }
+    }
+
+    /**
+     * Create a PLOG index
+     *
+     * @param plogUID       unique ID of the indexed PLOG
+     * @param interval      interval of indexed entry records
+     * @param cacheOffsets  offsets of the cache records in PLOG
+     * @param entries       the indexed entry records, in PLOG order
+     * @param indexedOffset offset up to which all records are indexed
+     * @param complete      whether or not the whole PLOG was indexed
+     */
+    private PlogIndex (
+        final long plogUID,
+        final int interval,
+        final long[] cacheOffsets,
+        final List<Entry> entries,
+        final long indexedOffset,
+        final boolean complete
+    ) {
+        this.plogUID       = plogUID;
+        this.interval      = interval;
+        this.cacheOffsets  = cacheOffsets;
+        this.entries       = entries;
+        this.indexedOffset = indexedOffset;
+        this.complete      = complete;
+    }
+
+    /**
+     * Return the index file of a PLOG
+     *
+     * @param plog the PLOG
+     *
+     * @return index file, alongside the PLOG
+     */
+    public static File getIndexFile (final PlogFile plog) {
+        return new File (plog.getFullPath() + "." + INDEX_EXT);
+    }
+
+    /**
+     * Load the index of a PLOG from its index file, an incomplete last
+     * record in the index file is ignored
+     *
+     * @param plog the PLOG to load index for
+     *
+     * @return the PLOG index, or null if it has none or it is not valid
+     *         for this PLOG
+     */
+    public static PlogIndex load (final PlogFile plog) {
+        File file = getIndexFile (plog);
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+
+        try {
+            in = new DataInputStream (
+                new BufferedInputStream (new FileInputStream (file))
+            );
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new Exception ("not a PLOG index file");
+            }
+
+            long uid = in.readLong();
+
+            if (uid != plog.getUID()) {
+                throw new Exception (
+                    "it indexes PLOG with UID: " + uid + ", not: " +
+                    plog.getUID()
+                );
+            }
+
+            int interval = in.readInt();
+            long[] caches = new long[16];
+            int numCaches = 0;
+            List<Entry> entries = new ArrayList<Entry>();
+            long indexedOffset = 0L;
+            boolean complete = false;
+
+            try {
+                int tag;
+
+                while ((tag = in.read()) != -1) {
+                    if (tag == CACHE_TAG) {
+                        if (numCaches == caches.length) {
+                            caches = Arrays.copyOf (caches, numCaches << 1);
+                        }
+                        caches[numCaches++] = in.readLong();
+                    }
+                    else if (tag == ENTRY_TAG) {
+                        Entry entry = new Entry (
+                            in.readLong(),
+                            in.readLong(),
+                            in.readLong(),
+                            in.readLong(),
+                            in.readUTF(),
+                            in.readInt()
+                        );
+                        entries.add (entry);
+                        /* all records before it have been indexed */
+                        indexedOffset = entry.offset;
+                    }
+                    else if (tag == TRAILER_TAG) {
+                        indexedOffset = in.readLong();
+                        complete = in.readBoolean();
+                    }
+                    else {
+                        throw new Exception ("unknown record tag: " + tag);
+                    }
+                }
+            }
+            catch (EOFException e) {
+                /* still being written, or writer stopped, use what we have */
+                logger.debug (
+                    "PLOG index: " + file + " ends in incomplete record"
+                );
+            }
+
+            return new PlogIndex (
+                uid,
+                interval,
+                Arrays.copyOf (caches, numCaches),
+                entries,
+                indexedOffset,
+                complete
+            );
+        }
+        catch (Exception e) {
+            logger.warn (
+                "Ignoring index: " + file + " of PLOG: " +
+                plog.getFileName() + ", reason: " + e.getMessage()
+            );
+            return null;
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (Exception e) {
+                    logger.debug (
+                        "Unable to close PLOG index: " + file + ", " +
+                        "reason: " + e.getMessage()
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the unique ID of the indexed PLOG
+     *
+     * @return PLOG UID
+     */
+    public long getPlogUID () {
+        return plogUID;
+    }
+
+    /**
+     * Return the interval of the indexed entry records
+     *
+     * @return every Nth entry record with an SCN is indexed
+     */
+    public int getInterval () {
+        return interval;
+    }
+
+    /**
+     * Return the number of indexed entry records
+     *
+     * @return number of entries in index
+     */
+    public int getNumEntries () {
+        return entries.size();
+    }
+
+    /**
+     * Return an indexed entry record
+     *
+     * @param i position of entry in index
+     *
+     * @return the indexed entry record
+     */
+    public Entry getEntry (final int i) {
+        return entries.get (i);
+    }
+
+    /**
+     * Return the byte offset in PLOG up to which all entry records have
+     * been indexed, any offset up to it can be seeked to
+     *
+     * @return byte offset in PLOG
+     */
+    public long getIndexedOffset () {
+        return indexedOffset;
+    }
+
+    /**
+     * Return whether or not the whole PLOG has been indexed, up to its
+     * footer
+     *
+     * @return true if complete, else false
+     */
+    public boolean isComplete () {
+        return complete;
+    }
+
+    /**
+     * Return the number of PLOG cache records that start before an offset
+     *
+     * @param offset byte offset in PLOG
+     *
+     * @return number of cache records before offset
+     */
+    public int getCacheCount (final long offset) {
+        int low  = 0;
+        int high = cacheOffsets.length;
+
+        /* first cache record at or after offset */
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (cacheOffsets[mid] < offset) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Return the byte offset of a PLOG cache record
+     *
+     * @param i position of cache record in PLOG, from 0
+     *
+     * @return byte offset of start of the cache record in PLOG
+     */
+    public long getCacheOffset (final int i) {
+        return cacheOffsets[i];
+    }
+
+    /**
+     * Find the last indexed entry record at or before an offset in PLOG
+     *
+     * @param offset byte offset in PLOG
+     *
+     * @return the indexed entry record, or null if there is none
+     */
+    public Entry findByOffset (final long offset) {
+        int low  = 0;
+        int high = entries.size();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (entries.get (mid).offset <= offset) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+
+        return low > 0 ? entries.get (low - 1) : null;
+    }
+
+    /**
+     * Find the last indexed entry record that all records before it in
+     * PLOG have a lower SCN than the one requested, it is safe to restart
+     * reading at it for all changes from that SCN
+     *
+     * @param scn SCN to restart at
+     *
+     * @return the indexed entry record, or null if there is none
+     */
+    public Entry findBySCN (final long scn) {
+        int low  = 0;
+        int high = entries.size();
+
+        /* highest SCN before each entry never decreases in PLOG order */
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (entries.get (mid).maxSCNBefore < scn) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+
+        return low > 0 ? entries.get (low - 1) : null;
+    }
+}
@@ -0,0 +1,209 @@
+package com.dbvisit.replicate.plog.reader;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dbvisit.replicate.plog.file.PlogFile;
+import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.format.EntryTagRecord;
+import com.dbvisit.replicate.plog.format.EntryTagType;
+import com.dbvisit.replicate.plog.format.decoder.SimpleDataDecoder;
+
+/**
+ * Writes the index file of a PLOG in one pass, as its entry records are
+ * read in order from the start of the PLOG. Failing to write the index
+ * never fails the read of the PLOG, the writer stops and the partial
+ * index is used as is.
+ *
+ * @see PlogIndex
+ */
+class PlogIndexWriter {
+    private static final Logger logger = LoggerFactory.getLogger(
+        PlogIndexWriter.class
+    );
+
+    /** The PLOG being indexed */
+    private final PlogFile plog;
+    /** Index every Nth entry record with an SCN */
+    private final int interval;
+    /** The index file being written */
+    private final File file;
+    /** Output stream on index file */
+    private final DataOutputStream out;
+    /** Offset of next entry record to index */
+    private long nextOffset;
+    /** Number of entry records with an SCN seen */
+    private long numSCNRecords;
+    /** Number of cache records written */
+    private int cacheCount;
+    /** Highest SCN of entry records seen */
+    private long maxSCN = -1L;
+    /** Whether or not the footer of the PLOG has been indexed */
+    private boolean complete;
+    /** Whether or not writing to index file failed */
+    private boolean failed;
+
+    /**
+     * Create the index file of a PLOG and write its header
+     *
+     * @param plog      the PLOG to index
+     * @param interval  index every Nth entry record with an SCN
+     * @param offset    offset of the first entry record to index
+     *
+     * @throws Exception when unable to create the index file
+     */
+    PlogIndexWriter (
+        final PlogFile plog,
+        final int interval,
+        final long offset
+    ) throws Exception {
+        this.plog       = plog;
+        this.interval   = interval;
+        this.file       = PlogIndex.getIndexFile (plog);
+        this.nextOffset = offset;
+
+        out = new DataOutputStream (
+            new BufferedOutputStream (new FileOutputStream (file))
+        );
+        out.writeInt (PlogIndex.MAGIC);
+        out.writeInt (PlogIndex.VERSION);
+        out.writeLong (plog.getUID());
+        out.writeInt (interval);
+    }
+
+    /**
+     * Add an entry record read from PLOG to its index, an entry record
+     * already indexed, eg. read again after the stream was rewound, is
+     * ignored
+     *
+     * @param offset byte offset of the start of entry record in PLOG
+     * @param rec    the entry record, with its SCN prepared
+     *
+     * @return true if indexing can continue, false if the writer stopped
+     *         and has been closed
+     */
+    boolean add (final long offset, final EntryRecord rec) {
+        if (offset < nextOffset) {
+            return true;
+        }
+
+        try {
+            if (offset > nextOffset) {
+                throw new Exception (
+                    "entry record at offset: " + offset + " follows " +
+                    "offset: " + nextOffset
+                );
+            }
+
+            if (rec.isIncludeFileRecord()) {
+                /* its LOAD PLOG records are not in this PLOG */
+                close();
+                return false;
+            }
+
+            nextOffset = offset + rec.getSize();
+
+            if (rec.isJSONMetaData() || rec.hasColumnMetaData()) {
+                out.writeByte (PlogIndex.CACHE_TAG);
+                out.writeLong (offset);
+                cacheCount++;
+            }
+            else if (rec.hasEntryTag (EntryTagType.TAG_SCN)) {
+                if (numSCNRecords++ % interval == 0) {
+                    writeEntry (offset, rec);
+                }
+                maxSCN = Math.max (maxSCN, rec.getRecordSCN());
+            }
+            else if (rec.isFooter()) {
+                complete = true;
+            }
+        }
+        catch (Exception e) {
+            logger.warn (
+                "Stopped indexing PLOG: " + plog.getFileName() + ", " +
+                "reason: " + e.getMessage()
+            );
+            failed = true;
+            close();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Write an indexed entry record to index file
+     *
+     * @param offset byte offset of the start of entry record in PLOG
+     * @param rec    the entry record
+     *
+     * @throws Exception when unable to decode its tags or write it
+     */
+    private void writeEntry (final long offset, final EntryRecord rec)
+    throws Exception {
+        EntryTagRecord lcrTag = rec.getEntryTags().first (
+            EntryTagType.TAG_LCR_ID
+        );
+        EntryTagRecord xidTag = rec.getEntryTags().first (
+            EntryTagType.TAG_XID
+        );
+
+        out.writeByte (PlogIndex.ENTRY_TAG);
+        out.writeLong (offset);
+        out.writeLong (rec.getRecordSCN());
+        out.writeLong (maxSCN);
+        out.writeLong (
+            lcrTag != null
+            ? SimpleDataDecoder.decodeLong (lcrTag.getData())
+            : -1L
+        );
+        out.writeUTF (
+            xidTag != null
+            ? SimpleDataDecoder.decodeCharString (xidTag.getData())
+            : ""
+        );
+        out.writeInt (cacheCount);
+    }
+
+    /**
+     * Write the trailer of the index file, unless writing to it failed,
+     * and close it
+     */
+    void close () {
+        try {
+            if (!failed) {
+                out.writeByte (PlogIndex.TRAILER_TAG);
+                out.writeLong (nextOffset);
+                out.writeBoolean (complete);
+            }
+            out.close();
+        }
+        catch (Exception e) {
+            logger.warn (
+                "Unable to close index: " + file + " of PLOG: " +
+                plog.getFileName() + ", reason: " + e.getMessage()
+            );
+        }
+    }
+}
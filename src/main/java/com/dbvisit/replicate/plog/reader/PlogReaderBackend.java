@@ -0,0 +1,79 @@
+package com.dbvisit.replicate.plog.reader;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Define the backends available for opening the data stream of a PLOG
+ * stream reader on a PLOG file
+ */
+public enum PlogReaderBackend {
+    /** Buffered byte stream on PLOG file, the default */
+    STREAM ("Buffered PLOG file stream") {
+        @Override
+        public DataInputStream open (File file) throws IOException {
+            return new DataInputStream (
+                new BufferedInputStream (
+                    new FileInputStream (file)
+                )
+            );
+        }
+    },
+    /** Memory mapped PLOG file, decoding chunks from mapped buffer */
+    MAPPED ("Memory mapped PLOG file") {
+        @Override
+        public DataInputStream open (File file) throws IOException {
+            return new MappedPlogInputStream (file);
+        }
+    };
+
+    /** Human friendly description of reader backend */
+    private final String description;
+
+    /**
+     * Create reader backend enum entry with description
+     *
+     * @param description the description of backend
+     */
+    private PlogReaderBackend (String description) {
+        this.description = description;
+    }
+
+    /**
+     * Return the description of this reader backend
+     *
+     * @return human friendly description
+     */
+    public String getDescription () {
+        return this.description;
+    }
+
+    /**
+     * Open a data input stream on PLOG file for PLOG stream reader to use
+     *
+     * @param file the PLOG file to open
+     *
+     * @return data input stream positioned at start of PLOG file
+     * @throws IOException when PLOG file cannot be opened
+     */
+    public abstract DataInputStream open (File file) throws IOException;
+}
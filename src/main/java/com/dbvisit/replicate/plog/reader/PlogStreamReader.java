@@ -16,23 +16,25 @@ package com.dbvisit.replicate.plog.reader;
  * limitations under the License.
  **/
 
-import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dbvisit.replicate.plog.domain.DomainRecord;
 import com.dbvisit.replicate.plog.domain.HeaderRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
 import com.dbvisit.replicate.plog.domain.parser.HeaderParser;
 import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.reader.PlogIndex.Entry;
 import com.dbvisit.replicate.plog.format.PlogHeader;
 import com.dbvisit.replicate.plog.format.parser.EntryRecordParser;
 import com.dbvisit.replicate.plog.format.parser.PlogHeaderParser;
@@ -85,9 +87,22 @@ public class PlogStreamReader {
     private boolean proxy = false;
     /** Paused by proxy, this is the parent */
     private boolean paused = false;
+    /** Size in bytes of PLOG file last seen when tailing it */
+    private long tailSize = 0L;
+    /** Offset of next entry record framed from its length, -1 if none */
+    private long framedOffset = -1L;
+    /** Size in bytes of the next entry record that has been framed */
+    private long framedSize = 0L;
+    /** Index of PLOG loaded when opened, null if it has none */
+    private PlogIndex index;
+    /** Writer of PLOG index, created on first entry record indexed */
+    private PlogIndexWriter indexWriter;
+    /** Whether or not entry records read are added to PLOG index */
+    private boolean indexing = false;
 
     /**
-     * Create and initialize PLOG stream reader from PLOG file handle
+     * Create and initialize PLOG stream reader from PLOG file handle, the
+     * data stream is opened using the reader backend of domain reader
      * 
      * @param plog PLOG file to open and read
      * @param domainReader the immutable domain reader to use for converting
@@ -101,11 +116,13 @@ public class PlogStreamReader {
         this.plog         = plog;
         this.domainReader = domainReader;
         
-        plogStream = new DataInputStream (
-            new BufferedInputStream (
-                new FileInputStream (new File (plog.getFullPath()))
-            )
-        );
+        /* open data stream on PLOG using configured reader backend */
+        PlogReaderBackend backend = 
+            domainReader != null 
+            ? domainReader.getReaderBackend()
+            : PlogReaderBackend.STREAM;
+        
+        plogStream = backend.open (new File (plog.getFullPath()));
         data = new LinkedList<DomainRecord>();
 
         if (plog.isLoadFile()) {
@@ -344,6 +361,16 @@ public class PlogStreamReader {
             /* read header and position at first entry record */
             prepare ();
 
+            if (domainReader != null && 
+                domainReader.getIndexInterval() > 0 &&
+                !proxy)
+            {
+                /* use existing index, else index it as it is read */
+                index    = PlogIndex.load (plog);
+                indexing = startOffset <= offset && 
+                           (index == null || !index.isComplete());
+            }
+
             if (startOffset > offset) {
                 forward (startOffset);
             }
@@ -374,6 +401,157 @@ public class PlogStreamReader {
         }
     }
 
+    /**
+     * Seek to a replicate offset in this PLOG using its index, when the
+     * PLOG stream has just been opened. The PLOG dictionary and schema
+     * records before the offset are read to restore the PLOG caches, the
+     * records in between are skipped. The index does not record which
+     * transactions and multi-part records are still open at an offset,
+     * so only a domain reader that does not carry them from one record to
+     * the next can seek, see {@link DomainReader#canSeek()}.
+     * 
+     * @param target the replicate offset to continue reading at, the end
+     *               of the last record read
+     *
+     * @return true if positioned at offset, else false if the PLOG has
+     *         no index that covers it or its domain reader cannot skip
+     *         records, the stream is not moved and must be read from its
+     *         current offset instead
+     * @throws Exception when the PLOG caches failed to be restored
+     */
+    public boolean seek (final ReplicateOffset target) throws Exception {
+        long to = target.getPlogOffset();
+
+        if (index == null ||
+            !domainReader.canSeek() ||
+            target.getPlogUID() != plog.getUID() ||
+            to < offset ||
+            to > index.getIndexedOffset())
+        {
+            return false;
+        }
+
+        restoreCaches (index.getCacheCount (to));
+        forward (to);
+
+        return true;
+    }
+
+    /**
+     * Seek to the last indexed entry record in this PLOG that all records
+     * before it have a lower SCN, when the PLOG stream has just been
+     * opened. The PLOG dictionary and schema records before it are read
+     * to restore the PLOG caches. Records from it may still have a lower
+     * SCN and should be filtered by SCN criteria.
+     * 
+     * @param scn the SCN to continue reading changes from
+     *
+     * @return true if positioned at an indexed record, else false if
+     *         there is none before SCN, the stream is not moved
+     * @throws Exception when the PLOG caches failed to be restored
+     */
+    public boolean seekSCN (final long scn) throws Exception {
+        Entry entry = index != null ? index.findBySCN (scn) : null;
+
+        if (entry == null || entry.getOffset() < offset) {
+            return false;
+        }
+
+        restoreCaches (entry.getCacheCount());
+        forward (entry.getOffset());
+
+        return true;
+    }
+
+    /**
+     * Return the index of this PLOG loaded when it was opened
+     * 
+     * @return PLOG index, or null if it has none or is not indexed
+     */
+    public PlogIndex getIndex () {
+        return index;
+    }
+
+    /**
+     * Restore the PLOG caches by reading the first PLOG cache records
+     * in index, ahead of the current offset. Their domain records are not
+     * emitted.
+     * 
+     * @param cacheCount number of cache records to read
+     * 
+     * @throws Exception when the cache records failed to be read
+     */
+    private void restoreCaches (final int cacheCount) throws Exception {
+        /* only a full read from start is indexed */
+        stopIndexing();
+
+        for (int i = 0; i < cacheCount; i++) {
+            long cacheOffset = index.getCacheOffset (i);
+
+            if (cacheOffset >= offset) {
+                forward (cacheOffset);
+                domainReader.read (this);
+            }
+        }
+    }
+
+    /**
+     * Return whether or not the entry records read are being indexed, 
+     * they need all of their tags to be indexed
+     * 
+     * @return true if PLOG is being indexed, else false
+     */
+    boolean isIndexing () {
+        return this.indexing;
+    }
+
+    /**
+     * Add an entry record read from PLOG stream to the index of PLOG,
+     * when it is being indexed
+     * 
+     * @param startOffset byte offset of start of entry record in PLOG
+     * @param rec         entry record read, with its SCN prepared
+     */
+    void indexEntryRecord (final long startOffset, final EntryRecord rec) {
+        if (!indexing) {
+            return;
+        }
+
+        if (indexWriter == null) {
+            try {
+                indexWriter = new PlogIndexWriter (
+                    plog, 
+                    domainReader.getIndexInterval(),
+                    startOffset
+                );
+            }
+            catch (Exception e) {
+                logger.warn (
+                    "Unable to index PLOG: " + plog.getFileName() + ", " +
+                    "reason: " + e.getMessage()
+                );
+                indexing = false;
+                return;
+            }
+        }
+
+        if (!indexWriter.add (startOffset, rec)) {
+            indexWriter = null;
+            indexing    = false;
+        }
+    }
+
+    /**
+     * Stop indexing PLOG, writing what has been indexed so far
+     */
+    private void stopIndexing () {
+        if (indexWriter != null) {
+            indexWriter.close();
+            indexWriter = null;
+        }
+        indexing = false;
+    }
+
     /**
      * Use the domain reader to read one PLOG format entry record from PLOG
      * stream and parse it to one or more domain records, which if needed,
@@ -441,6 +619,50 @@ public class PlogStreamReader {
         return clone;
     }
 
+    /**
+     * Flushes the data cache of domain records into a queue per table,
+     * in the order they were emitted, which is the order per table when
+     * the domain reader shards its records by table. Records that do not
+     * belong to a table are queued under the record schema they report,
+     * eg. N/A for transaction info records.
+     * 
+     * @return lists of domain records in batch by their table, in order
+     *         of first record of each table
+     */
+    public Map<String, List<DomainRecord>> flushByTable () {
+        Map<String, List<DomainRecord>> tables = 
+            new LinkedHashMap<String, List<DomainRecord>>();
+
+        for (DomainRecord dr : data) {
+            String schema = dr.getRecordSchema();
+            List<DomainRecord> queue = tables.get (schema);
+
+            if (queue == null) {
+                queue = new ArrayList<DomainRecord>();
+                tables.put (schema, queue);
+            }
+            queue.add (dr);
+        }
+
+        /* clear data list */
+        data.clear();
+
+        return tables;
+    }
+
+    /**
+     * Return the watermark of the stream reader, the offset up to which
+     * all domain records read from stream have been added to the domain
+     * cache. Once flushed this is the offset that is safe to checkpoint
+     * when the domain records are not emitted in PLOG order.
+     * 
+     * @return offset in PLOG below which all records have been read, 
+     *         null if none have been read
+     */
+    public ReplicateOffset getWatermark () {
+        return domainReader != null ? domainReader.getWatermark() : null;
+    }
+
     /**
      * Closes the PLOG stream, reset internal state and clear out domain
      * cache
@@ -451,6 +673,15 @@ public class PlogStreamReader {
         recordCount = 0;
         data.clear();
         resetOffset();
+        tailSize     = 0L;
+        framedOffset = -1L;
+        stopIndexing();
+        index = null;
+        
+        if (domainReader != null) {
+            /* records read ahead into decode pipeline are not emitted */
+            domainReader.discardInFlight();
+        }
         
         if (plogStream != null) {
             plogStream.close();
@@ -516,6 +747,60 @@ public class PlogStreamReader {
         }
     }
 
+    /**
+     * Check whether or not the next entry record in PLOG has been written
+     * in full, by checking its length against the size of the PLOG file.
+     * The length is only read once per entry record, when it has not yet
+     * been written in full only the size of the PLOG file is checked
+     * again. This allows tailing a PLOG that is still being written
+     * without reading a partial entry record. Proxy stream readers always
+     * have their entry records written.
+     * 
+     * @return true if the next entry record can be read, else false
+     * @throws Exception when the length of entry record cannot be read
+     */
+    public boolean isNextRecordWritten () throws Exception {
+        if (proxy) {
+            return true;
+        }
+        
+        if (framedOffset != offset) {
+            /* need its length prefix before it can be framed */
+            if (!isWritten (PlogFile.PLOG_DATA_CHUNK_BYTES)) {
+                return false;
+            }
+            
+            mark();
+            int length = EntryRecordParser.getParser().parseSwappedInteger (
+                plogStream
+            );
+            rewind();
+            
+            framedOffset = offset;
+            framedSize   = (long)Math.max (length, 1) * 
+                           PlogFile.PLOG_DATA_CHUNK_BYTES;
+        }
+        
+        return isWritten (framedSize);
+    }
+    
+    /**
+     * Check whether or not a number of bytes after the current offset has
+     * been written to PLOG file, only checking the size of PLOG file on
+     * disk when the size last seen is not enough
+     * 
+     * @param bytes number of bytes required
+     * 
+     * @return true if written, else false
+     */
+    private boolean isWritten (long bytes) {
+        if (offset + bytes > tailSize) {
+            tailSize = new File (plog.getFullPath()).length();
+        }
+        
+        return offset + bytes <= tailSize;
+    }
+
     /**
      * Forward to the provided byte offset in the PLOG stream
      * 
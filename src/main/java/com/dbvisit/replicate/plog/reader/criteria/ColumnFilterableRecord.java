@@ -0,0 +1,47 @@
+package com.dbvisit.replicate.plog.reader.criteria;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+/**
+ * Filterable record that carries column values, which can be tested by
+ * column value criteria, column names are matched ignoring case
+ *
+ * @param <T> Type parameter for filter
+ */
+public interface ColumnFilterableRecord<T> extends FilterableRecord<T> {
+    /**
+     * Return whether or not this record carries a value for a column, a
+     * change record may only have some of the columns of its table
+     *
+     * @param column the column name
+     *
+     * @return true if record has a value for column, else false
+     */
+    public boolean hasRecordColumn (String column);
+
+    /**
+     * Return the decoded value of a column in this record, only the
+     * values of the columns tested need to be decoded
+     *
+     * @param column the column name
+     *
+     * @return the decoded column value, null for SQL NULL or if this
+     *         record has no value for column
+     * @throws Exception if the column value failed to decode
+     */
+    public Object getRecordColumnValue (String column) throws Exception;
+}
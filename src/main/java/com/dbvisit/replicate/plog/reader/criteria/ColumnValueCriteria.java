@@ -0,0 +1,331 @@
+package com.dbvisit.replicate.plog.reader.criteria;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Criteria on the value of a column of the change records of a table, a
+ * column value must be equal to a value, be in a list of values, be in
+ * a range of values or be NULL or not NULL. Records of other tables, and
+ * records that do not carry the column, always meet this criteria, it
+ * only filters the changes to the table that have the column value. Use
+ * AND or OR criteria to combine it with other criteria.
+ *
+ * <p>
+ * Numbers are compared by value, regardless of their type, and dates by
+ * their time, all other values must be of the same type as the decoded
+ * column value. As in SQL, a NULL column value only meets the NULL checks.
+ * </p>
+ *
+ * @param <T> Type parameter for filter
+ */
+public class ColumnValueCriteria<T> implements Criteria<T> {
+    /** The test to apply to the column value */
+    public enum Operator {
+        /** Column value is equal to the one value */
+        EQUAL,
+        /** Column value is equal to any of the values */
+        IN,
+        /** Column value is between a lower and upper value, inclusive,
+         *  either may be null for an open range */
+        RANGE,
+        /** Column value is NULL */
+        IS_NULL,
+        /** Column value is not NULL */
+        IS_NOT_NULL
+    }
+
+    /** The compiled table name wildcard, null for all tables */
+    private final Pattern schemaPattern;
+    /** The name of column to test */
+    private final String column;
+    /** The test to apply */
+    private final Operator operator;
+    /** The values to test the column value against */
+    private final Object[] operands;
+    /** Normalised values for testing equality, for EQUAL and IN */
+    private final Set<Object> values;
+
+    /**
+     * Create a column value criteria for the records of a table
+     *
+     * @param schema   the full table name, as owner and table name, or
+     *                 wildcard, of the records to test, null for all,
+     *                 matched ignoring case
+     * @param column   the name of column to test, matched ignoring case
+     * @param operator the test to apply to the column value
+     * @param operands the values to test against, one value for EQUAL,
+     *                 one or more for IN, the lower and upper value for
+     *                 RANGE and none for the NULL checks
+     */
+    public ColumnValueCriteria (
+        final String schema,
+        final String column,
+        final Operator operator,
+        final Object... operands
+    ) {
+        this.schemaPattern =
+            schema != null
+            ? Pattern.compile (
+                  CriteriaUtility.wildcardToRegex (schema),
+                  Pattern.CASE_INSENSITIVE
+              )
+            : null;
+        this.column        = column;
+        this.operator      = operator;
+        this.operands      = operands != null ? operands : new Object[0];
+        this.values        = new HashSet<Object>();
+
+        for (Object operand : this.operands) {
+            values.add (normalise (operand));
+        }
+    }
+
+    /**
+     * Test if the column value of record meets the criteria
+     *
+     * @param rec the filterable record of parameterized type &lt;T&gt; to
+     *            evaluate
+     *
+     * @return true if the record is not a change to the table, has no
+     *         value for the column or if its column value meets the test,
+     *         else false
+     * @throws Exception if the criteria has not been setup correctly or
+     *                   the column value cannot be compared
+     */
+    @Override
+    public boolean meetCriteria (FilterableRecord<T> rec)
+    throws Exception {
+        if (rec == null) {
+            throw new Exception (
+                "Invalid record provided for column value criteria, " +
+                "reason: empty record"
+            );
+        }
+
+        validate();
+
+        if (!appliesTo (rec.getRecordSchema()) ||
+            !(rec instanceof ColumnFilterableRecord))
+        {
+            return true;
+        }
+
+        ColumnFilterableRecord<T> cr = (ColumnFilterableRecord<T>)rec;
+
+        if (!cr.hasRecordColumn (column)) {
+            /* only changes with the column value are tested */
+            return true;
+        }
+
+        return meetValue (cr.getRecordColumnValue (column));
+    }
+
+    /**
+     * Validate that the column value criteria has been initialised with
+     * the operands its test needs
+     *
+     * @throws Exception if the column, test or its operands are invalid
+     */
+    void validate () throws Exception {
+        if (column == null || operator == null) {
+            throw new Exception (
+                "Invalid un-initialised column value criteria"
+            );
+        }
+
+        boolean valid;
+
+        switch (operator) {
+            case EQUAL:
+                valid = operands.length == 1 && operands[0] != null;
+                break;
+            case IN:
+                valid = operands.length > 0 && !values.contains (null);
+                break;
+            case RANGE:
+                valid = operands.length == 2 &&
+                        (operands[0] != null || operands[1] != null);
+                break;
+            case IS_NULL:
+            case IS_NOT_NULL:
+            default:
+                valid = operands.length == 0;
+                break;
+        }
+
+        if (!valid) {
+            throw new Exception (
+                "Invalid column value criteria for column: " + column +
+                ", reason: invalid operands for " + operator + " test: " +
+                Arrays.toString (operands)
+            );
+        }
+    }
+
+    /**
+     * Return the name of the column tested by this criteria
+     *
+     * @return the column name
+     */
+    String getColumn () {
+        return this.column;
+    }
+
+    /**
+     * Check whether or not records of a table are tested by this criteria
+     *
+     * @param schemaName the schema of record, or null if it has none
+     *
+     * @return true if the records of schema are tested, else false
+     */
+    boolean appliesTo (final String schemaName) {
+        if (schemaPattern == null) {
+            return true;
+        }
+
+        return schemaName != null &&
+               schemaPattern.matcher(schemaName).matches();
+    }
+
+    /**
+     * Test a decoded column value
+     *
+     * @param value the decoded column value, null for SQL NULL
+     *
+     * @return true if value meets the test, else false
+     * @throws Exception if the value cannot be compared to range
+     */
+    boolean meetValue (final Object value) throws Exception {
+        switch (operator) {
+            case IS_NULL:
+                return value == null;
+            case IS_NOT_NULL:
+                return value != null;
+            default:
+                break;
+        }
+
+        if (value == null) {
+            /* NULL is not equal to, nor in range of, any value */
+            return false;
+        }
+
+        if (operator.equals (Operator.RANGE)) {
+            Object lower = operands[0];
+            Object upper = operands[1];
+
+            return (lower == null || compare (value, lower) >= 0) &&
+                   (upper == null || compare (value, upper) <= 0);
+        }
+
+        return values.contains (normalise (value));
+    }
+
+    /**
+     * Compare a column value with a range operand
+     *
+     * @param value   the decoded column value
+     * @param operand the range operand
+     *
+     * @return negative, zero or positive if value is less than, equal to
+     *         or greater than operand
+     * @throws Exception if the value and operand are not comparable
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private int compare (final Object value, final Object operand)
+    throws Exception {
+        if (value instanceof Number && operand instanceof Number) {
+            return toBigDecimal ((Number)value).compareTo (
+                toBigDecimal ((Number)operand)
+            );
+        }
+
+        if (value instanceof Date && operand instanceof Date) {
+            long t1 = ((Date)value).getTime();
+            long t2 = ((Date)operand).getTime();
+
+            return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+        }
+
+        if (value instanceof Comparable &&
+            value.getClass().isInstance (operand))
+        {
+            return ((Comparable)value).compareTo (operand);
+        }
+
+        throw new Exception (
+            "Unable to compare value of column: " + column + " of type: " +
+            value.getClass().getSimpleName() + " with: " + operand +
+            ", reason: incompatible types"
+        );
+    }
+
+    /**
+     * Normalise a value for testing equality, numbers by their value and
+     * dates by their time
+     *
+     * @param value the value to normalise
+     *
+     * @return value to compare for equality
+     */
+    private static Object normalise (final Object value) {
+        if (value instanceof Number) {
+            BigDecimal number = toBigDecimal ((Number)value);
+
+            return number.signum() == 0
+                   ? BigDecimal.ZERO
+                   : number.stripTrailingZeros();
+        }
+
+        if (value instanceof Date) {
+            return ((Date)value).getTime();
+        }
+
+        return value;
+    }
+
+    /**
+     * Convert any number to a big decimal, for comparing by value
+     *
+     * @param number the number to convert
+     *
+     * @return the number as big decimal
+     */
+    private static BigDecimal toBigDecimal (final Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal)number;
+        }
+
+        if (number instanceof BigInteger) {
+            return new BigDecimal ((BigInteger)number);
+        }
+
+        if (number instanceof Double || number instanceof Float) {
+            return new BigDecimal (number.toString());
+        }
+
+        return BigDecimal.valueOf (number.longValue());
+    }
+}
@@ -0,0 +1,686 @@
+package com.dbvisit.replicate.plog.reader.criteria;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.util.IntObjectHashMap;
+
+/**
+ * Criteria compiled from a tree of criteria for evaluating it per record
+ * with as little work as possible. All that the criteria of this package
+ * decide by the schema, type and whether or not a record is a data record
+ * is decided once for each combination of them and memoised in a decision
+ * table, what is left to evaluate per record are only the comparisons of
+ * its SCN and offset, if any, and the column values of the tables that
+ * have column value criteria.
+ *
+ * <p>
+ * The decision table is keyed by the object ID of record, when it has
+ * one, else by its schema, and by type. The decisions of an object are
+ * made for its schema, they are invalidated when a record of the object
+ * has a different schema, eg. after it was renamed. The SCN and offset
+ * that records must be at or after are looked up in the maps of their
+ * criteria for every record, only which schema or type they are looked
+ * up by is decided once, so updates to these maps apply to the records
+ * that follow. Records with a type that is not an enum and any criteria
+ * not of this package are evaluated for every record, as before. Thread
+ * safe.
+ * </p>
+ *
+ * @param <T> Type parameter for filter
+ */
+public class CompiledCriteria<T> implements Criteria<T> {
+    /** Decision for records that always pass */
+    private static final Test<Object> PASS = new Test<Object>() {
+        @Override
+        boolean test (FilterableRecord<Object> rec) {
+            return true;
+        }
+    };
+    /** Decision for records that always fail */
+    private static final Test<Object> FAIL = new Test<Object>() {
+        @Override
+        boolean test (FilterableRecord<Object> rec) {
+            return false;
+        }
+    };
+
+    /** The criteria that was compiled */
+    private final Criteria<T> criteria;
+    /** The compiled criteria tree */
+    private final Node<T> root;
+    /** Decisions for records per object ID, copied on write to be read
+     *  without locking, objects are only added once per schema */
+    private volatile IntObjectHashMap<Decisions<T>> objectDecisions;
+    /** Decisions for records with no object ID, per schema */
+    private final ConcurrentHashMap<String, Decisions<T>> decisions;
+    /** Decisions for records with no object ID or schema */
+    private volatile Decisions<T> noSchemaDecisions;
+
+    /**
+     * Compile a criteria tree
+     *
+     * @param criteria the criteria to compile
+     */
+    private CompiledCriteria (final Criteria<T> criteria) {
+        this.criteria  = criteria;
+        this.root      = compileNode (criteria);
+        this.decisions = new ConcurrentHashMap<String, Decisions<T>>();
+
+        objectDecisions = new IntObjectHashMap<Decisions<T>>();
+    }
+
+    /**
+     * Compile a criteria, and all criteria it consists of, for evaluating
+     * it per record
+     *
+     * @param <T>      Type parameter for filter
+     * @param criteria the criteria to compile
+     *
+     * @return the compiled criteria, the criteria itself if it is already
+     *         compiled, or null if there is no criteria
+     */
+    public static <T> Criteria<T> compile (final Criteria<T> criteria) {
+        if (criteria == null || criteria instanceof CompiledCriteria) {
+            return criteria;
+        }
+
+        return new CompiledCriteria<T> (criteria);
+    }
+
+    /**
+     * Return the criteria that a compiled criteria was compiled from
+     *
+     * @param <T>      Type parameter for filter
+     * @param criteria the compiled, or any other, criteria
+     *
+     * @return the criteria that was compiled, or the criteria itself if
+     *         it was not compiled
+     */
+    public static <T> Criteria<T> source (final Criteria<T> criteria) {
+        if (criteria instanceof CompiledCriteria) {
+            return ((CompiledCriteria<T>) criteria).getCriteria();
+        }
+
+        return criteria;
+    }
+
+    /**
+     * Return the criteria that was compiled
+     *
+     * @return the source criteria
+     */
+    public Criteria<T> getCriteria () {
+        return this.criteria;
+    }
+
+    /**
+     * Test whether or not a record meets the compiled criteria, by the
+     * decision for its object, or schema, and type and its SCN or offset,
+     * if needed
+     *
+     * @param rec the filterable record to evaluate
+     *
+     * @return true if record meets criteria, else false
+     * @throws Exception if any of the criteria has not been setup correctly
+     */
+    @Override
+    public boolean meetCriteria (FilterableRecord<T> rec) throws Exception {
+        return decide (rec).test (rec);
+    }
+
+    /**
+     * Return the memoised decision for records of the object, or schema,
+     * and type of a record, deciding it first if needed
+     *
+     * @param rec the filterable record to decide for
+     *
+     * @return the decision to test records with
+     * @throws Exception if any of the criteria has not been setup correctly
+     */
+    @SuppressWarnings("unchecked")
+    private Test<T> decide (final FilterableRecord<T> rec) throws Exception {
+        final String schema      = rec.getRecordSchema();
+        final T type             = rec.getRecordType();
+        final boolean dataRecord = rec.isDataRecord();
+
+        if (!(type instanceof Enum)) {
+            return root.partial (schema, type, dataRecord);
+        }
+
+        Class<?> enumType = ((Enum<?>) type).getDeclaringClass();
+        Decisions<T> table = null;
+        int objectId = rec instanceof ObjectFilterableRecord
+                       ? ((ObjectFilterableRecord<T>) rec).getRecordObjectId()
+                       : -1;
+
+        if (objectId >= 0) {
+            table = objectDecisions.get (objectId);
+
+            if (table == null || !table.isFor (schema)) {
+                /* new object, or its schema changed, decide anew */
+                table = new Decisions<T> (enumType, schema);
+                putObjectDecisions (objectId, table);
+            }
+        }
+        else if (schema == null) {
+            table = noSchemaDecisions;
+
+            if (table == null) {
+                table = new Decisions<T> (enumType, null);
+                noSchemaDecisions = table;
+            }
+        }
+        else {
+            table = decisions.get (schema);
+
+            if (table == null) {
+                table = new Decisions<T> (enumType, schema);
+
+                Decisions<T> previous = decisions.putIfAbsent (schema, table);
+                if (previous != null) {
+                    table = previous;
+                }
+            }
+        }
+
+        if (table.enumType != enumType) {
+            return root.partial (schema, type, dataRecord);
+        }
+
+        int slot = (((Enum<?>) type).ordinal() << 1) | (dataRecord ? 1 : 0);
+        Test<T> test = table.get (slot);
+
+        if (test == null) {
+            /* decisions are immutable, deciding it twice is harmless */
+            test = root.partial (schema, type, dataRecord);
+            table.set (slot, test);
+        }
+
+        return test;
+    }
+
+    /**
+     * Set the decisions for the records of an object, replacing those
+     * made for its previous schema, if any
+     *
+     * @param objectId the object ID
+     * @param table    the decisions for its records
+     */
+    private synchronized void putObjectDecisions (
+        final int objectId,
+        final Decisions<T> table
+    ) {
+        IntObjectHashMap<Decisions<T>> copy =
+            new IntObjectHashMap<Decisions<T>> (objectDecisions);
+
+        copy.put (objectId, table);
+        objectDecisions = copy;
+    }
+
+    /**
+     * Compile a criteria to its node in the compiled tree
+     *
+     * @param <T>      Type parameter for filter
+     * @param criteria the criteria to compile
+     *
+     * @return the compiled node
+     */
+    private static <T> Node<T> compileNode (final Criteria<T> criteria) {
+        if (criteria instanceof AndCriteria) {
+            final AndCriteria<T> and = (AndCriteria<T>) criteria;
+
+            if (and.c1 != null && and.c2 != null) {
+                return new AndNode<T> (
+                    compileNode (and.c1),
+                    compileNode (and.c2)
+                );
+            }
+        }
+        else if (criteria instanceof OrCriteria) {
+            final OrCriteria<T> or = (OrCriteria<T>) criteria;
+
+            if (or.c1 != null && or.c2 != null) {
+                return new OrNode<T> (
+                    compileNode (or.c1),
+                    compileNode (or.c2)
+                );
+            }
+        }
+        else if (criteria instanceof SchemaCriteria) {
+            final SchemaCriteria<T> c = (SchemaCriteria<T>) criteria;
+
+            return new Node<T>() {
+                @Override
+                Test<T> partial (String schema, T type, boolean dataRecord)
+                throws Exception {
+                    c.validate();
+
+                    if (!dataRecord) {
+                        /* not actual data records, let it through */
+                        return pass();
+                    }
+
+                    return schema != null && c.meetSchema (schema)
+                           ? CompiledCriteria.<T>pass()
+                           : CompiledCriteria.<T>fail();
+                }
+            };
+        }
+        else if (criteria instanceof SchemaOffsetCriteria) {
+            final SchemaOffsetCriteria<T> c =
+                (SchemaOffsetCriteria<T>) criteria;
+            final Test<T> delegate = new DelegateTest<T> (c);
+
+            return new Node<T>() {
+                @Override
+                Test<T> partial (String schema, T type, boolean dataRecord)
+                throws Exception {
+                    c.validate();
+
+                    if (!dataRecord) {
+                        /* do not filter non data records by offset */
+                        return pass();
+                    }
+
+                    if (schema == null) {
+                        /* invalid record, leave it to criteria */
+                        return delegate;
+                    }
+
+                    return new SchemaOffsetTest<T> (c, schema);
+                }
+            };
+        }
+        else if (criteria instanceof TypeCriteria) {
+            final TypeCriteria<T> c = (TypeCriteria<T>) criteria;
+
+            return new Node<T>() {
+                @Override
+                Test<T> partial (String schema, T type, boolean dataRecord)
+                throws Exception {
+                    c.validate();
+
+                    return c.meetType (type)
+                           ? CompiledCriteria.<T>pass()
+                           : CompiledCriteria.<T>fail();
+                }
+            };
+        }
+        else if (criteria instanceof TypeOffsetCriteria) {
+            final TypeOffsetCriteria<T> c = (TypeOffsetCriteria<T>) criteria;
+
+            return new Node<T>() {
+                @Override
+                Test<T> partial (String schema, T type, boolean dataRecord)
+                throws Exception {
+                    c.validate();
+
+                    return new TypeOffsetTest<T> (c, type);
+                }
+            };
+        }
+        else if (criteria instanceof SystemChangeNumberCriteria) {
+            final SystemChangeNumberCriteria<T> c =
+                (SystemChangeNumberCriteria<T>) criteria;
+
+            return new Node<T>() {
+                @Override
+                Test<T> partial (String schema, T type, boolean dataRecord)
+                throws Exception {
+                    c.validate();
+
+                    return new StartSCNTest<T> (c, schema);
+                }
+            };
+        }
+        else if (criteria instanceof ColumnValueCriteria) {
+            final ColumnValueCriteria<T> c =
+                (ColumnValueCriteria<T>) criteria;
+            final Test<T> delegate = new DelegateTest<T> (c);
+
+            return new Node<T>() {
+                @Override
+                Test<T> partial (String schema, T type, boolean dataRecord)
+                throws Exception {
+                    c.validate();
+
+                    /* column values are only tested for its table */
+                    return c.appliesTo (schema)
+                           ? delegate
+                           : CompiledCriteria.<T>pass();
+                }
+            };
+        }
+        else if (criteria instanceof InternalDDLFilterCriteria) {
+            final InternalDDLFilterCriteria<T> c =
+                (InternalDDLFilterCriteria<T>) criteria;
+
+            return new Node<T>() {
+                @Override
+                Test<T> partial (String schema, T type, boolean dataRecord) {
+                    return c.isInternal (schema)
+                           ? CompiledCriteria.<T>fail()
+                           : CompiledCriteria.<T>pass();
+                }
+            };
+        }
+
+        /* evaluate all other, or invalid, criteria for every record */
+        final Test<T> delegate = new DelegateTest<T> (criteria);
+
+        return new Node<T>() {
+            @Override
+            Test<T> partial (String schema, T type, boolean dataRecord) {
+                return delegate;
+            }
+        };
+    }
+
+    /**
+     * Return the decision for records that always pass
+     *
+     * @param <T> Type parameter for filter
+     *
+     * @return decision to pass
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Test<T> pass () {
+        return (Test<T>) (Test<?>) PASS;
+    }
+
+    /**
+     * Return the decision for records that always fail
+     *
+     * @param <T> Type parameter for filter
+     *
+     * @return decision to fail
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Test<T> fail () {
+        return (Test<T>) (Test<?>) FAIL;
+    }
+
+    /**
+     * Node of compiled criteria tree, decides what is left of its criteria
+     * to test for records of a schema and type
+     *
+     * @param <T> Type parameter for filter
+     */
+    private static abstract class Node<T> {
+        /**
+         * Partially evaluate criteria for records of a schema and type
+         *
+         * @param schema     the schema of records, or null
+         * @param type       the type of records
+         * @param dataRecord whether or not these are data records
+         *
+         * @return the decision to test each record with
+         * @throws Exception if the criteria has not been setup correctly
+         */
+        abstract Test<T> partial (String schema, T type, boolean dataRecord)
+        throws Exception;
+    }
+
+    /**
+     * AND of two compiled criteria, with the second only decided when
+     * the first does not fail
+     */
+    private static class AndNode<T> extends Node<T> {
+        private final Node<T> n1;
+        private final Node<T> n2;
+
+        private AndNode (final Node<T> n1, final Node<T> n2) {
+            this.n1 = n1;
+            this.n2 = n2;
+        }
+
+        @Override
+        Test<T> partial (String schema, T type, boolean dataRecord)
+        throws Exception {
+            Test<T> t1 = n1.partial (schema, type, dataRecord);
+
+            if (t1 == FAIL) {
+                return t1;
+            }
+
+            Test<T> t2 = n2.partial (schema, type, dataRecord);
+
+            if (t1 == PASS || t2 == FAIL) {
+                return t2;
+            }
+
+            if (t2 == PASS) {
+                return t1;
+            }
+
+            return new AndTest<T> (t1, t2);
+        }
+    }
+
+    /**
+     * OR of two compiled criteria, with the second only decided when
+     * the first does not pass
+     */
+    private static class OrNode<T> extends Node<T> {
+        private final Node<T> n1;
+        private final Node<T> n2;
+
+        private OrNode (final Node<T> n1, final Node<T> n2) {
+            this.n1 = n1;
+            this.n2 = n2;
+        }
+
+        @Override
+        Test<T> partial (String schema, T type, boolean dataRecord)
+        throws Exception {
+            Test<T> t1 = n1.partial (schema, type, dataRecord);
+
+            if (t1 == PASS) {
+                return t1;
+            }
+
+            Test<T> t2 = n2.partial (schema, type, dataRecord);
+
+            if (t1 == FAIL || t2 == PASS) {
+                return t2;
+            }
+
+            if (t2 == FAIL) {
+                return t1;
+            }
+
+            return new OrTest<T> (t1, t2);
+        }
+    }
+
+    /**
+     * Decision for a record, what is left of compiled criteria to test
+     * per record. Immutable.
+     *
+     * @param <T> Type parameter for filter
+     */
+    private static abstract class Test<T> {
+        /**
+         * Test whether or not a record meets the decision
+         *
+         * @param rec the filterable record to test
+         *
+         * @return true if record passes, else false
+         * @throws Exception if criteria has not been setup correctly
+         */
+        abstract boolean test (FilterableRecord<T> rec) throws Exception;
+    }
+
+    /**
+     * Data records of a schema must be after its current offset, if it
+     * has one
+     */
+    private static class SchemaOffsetTest<T> extends Test<T> {
+        private final SchemaOffsetCriteria<T> criteria;
+        private final String schema;
+
+        private SchemaOffsetTest (
+            final SchemaOffsetCriteria<T> criteria,
+            final String schema
+        ) {
+            this.criteria = criteria;
+            this.schema   = schema;
+        }
+
+        @Override
+        boolean test (FilterableRecord<T> rec) {
+            ReplicateOffset offset = criteria.lookupOffset (schema);
+
+            return offset == null ||
+                   rec.getRecordOffset().compareTo (offset) > 0;
+        }
+    }
+
+    /** Records of a type must be after its current offset */
+    private static class TypeOffsetTest<T> extends Test<T> {
+        private final TypeOffsetCriteria<T> criteria;
+        private final T type;
+
+        private TypeOffsetTest (
+            final TypeOffsetCriteria<T> criteria,
+            final T type
+        ) {
+            this.criteria = criteria;
+            this.type     = type;
+        }
+
+        @Override
+        boolean test (FilterableRecord<T> rec) {
+            ReplicateOffset offset = criteria.lookupOffset (type);
+
+            return offset != null &&
+                   rec.getRecordOffset().compareTo (offset) > 0;
+        }
+    }
+
+    /** Records of a schema must be at or after its current start SCN */
+    private static class StartSCNTest<T> extends Test<T> {
+        private final SystemChangeNumberCriteria<T> criteria;
+        private final String schema;
+
+        private StartSCNTest (
+            final SystemChangeNumberCriteria<T> criteria,
+            final String schema
+        ) {
+            this.criteria = criteria;
+            this.schema   = schema;
+        }
+
+        @Override
+        boolean test (FilterableRecord<T> rec) {
+            long startSCN = criteria.lookupStartSCN (schema);
+
+            return startSCN >= 0 && rec.getRecordSCN() >= startSCN;
+        }
+    }
+
+    /** Records must meet both decisions */
+    private static class AndTest<T> extends Test<T> {
+        private final Test<T> t1;
+        private final Test<T> t2;
+
+        private AndTest (final Test<T> t1, final Test<T> t2) {
+            this.t1 = t1;
+            this.t2 = t2;
+        }
+
+        @Override
+        boolean test (FilterableRecord<T> rec) throws Exception {
+            return t1.test (rec) && t2.test (rec);
+        }
+    }
+
+    /** Records must meet either decision */
+    private static class OrTest<T> extends Test<T> {
+        private final Test<T> t1;
+        private final Test<T> t2;
+
+        private OrTest (final Test<T> t1, final Test<T> t2) {
+            this.t1 = t1;
+            this.t2 = t2;
+        }
+
+        @Override
+        boolean test (FilterableRecord<T> rec) throws Exception {
+            return t1.test (rec) || t2.test (rec);
+        }
+    }
+
+    /** Records must meet a criteria that was not compiled */
+    private static class DelegateTest<T> extends Test<T> {
+        private final Criteria<T> criteria;
+
+        private DelegateTest (final Criteria<T> criteria) {
+            this.criteria = criteria;
+        }
+
+        @Override
+        boolean test (FilterableRecord<T> rec) throws Exception {
+            return criteria.meetCriteria (rec);
+        }
+    }
+
+    /**
+     * Memoised decisions for records of one object or schema, per type and
+     * whether or not they are data records
+     */
+    private static class Decisions<T> {
+        /** The enum type of records */
+        private final Class<?> enumType;
+        /** The schema of records decided for, or null */
+        private final String schema;
+        /** Decisions by type ordinal and data record flag */
+        private final Test<?>[] tests;
+
+        private Decisions (final Class<?> enumType, final String schema) {
+            this.enumType = enumType;
+            this.schema   = schema;
+            this.tests    = 
+                new Test<?>[enumType.getEnumConstants().length << 1];
+        }
+
+        /**
+         * Return whether or not these decisions were made for records of
+         * a schema
+         *
+         * @param recordSchema the schema of record, or null
+         *
+         * @return true if decided for schema, else false
+         */
+        private boolean isFor (final String recordSchema) {
+            return schema == recordSchema ||
+                   (schema != null && schema.equals (recordSchema));
+        }
+
+        @SuppressWarnings("unchecked")
+        private Test<T> get (final int slot) {
+            return (Test<T>) tests[slot];
+        }
+
+        private void set (final int slot, final Test<T> test) {
+            tests[slot] = test;
+        }
+    }
+}
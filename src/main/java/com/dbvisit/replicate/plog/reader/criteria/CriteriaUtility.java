@@ -15,6 +15,9 @@ package com.dbvisit.replicate.plog.reader.criteria;
  * limitations under the License.
  **/
 
+import java.util.Set;
+import java.util.TreeSet;
+
 /**
  * Utility class for criteria
  */
@@ -56,4 +59,63 @@ public class CriteriaUtility {
         return(s.toString());
     }
 
+    /**
+     * Return the names of the columns that the column value criteria in a
+     * criteria tree test for the records of a table. Column value criteria
+     * nested in criteria not of this package are not found.
+     *
+     * @param criteria the criteria, compiled or not, may be null
+     * @param schema   the full table name, as owner and table name
+     *
+     * @return the names of the columns tested, ignoring case, empty if
+     *         none
+     */
+    public static Set<String> testedColumns (
+        final Criteria<?> criteria,
+        final String schema
+    ) {
+        /* column names are matched ignoring case */
+        Set<String> columns = new TreeSet<String>(
+            String.CASE_INSENSITIVE_ORDER
+        );
+
+        addTestedColumns (CompiledCriteria.source (criteria), schema, columns);
+
+        return columns;
+    }
+
+    /**
+     * Add the names of the columns tested by the column value criteria in
+     * a criteria tree for the records of a table
+     *
+     * @param criteria the criteria, may be null
+     * @param schema   the full table name
+     * @param columns  the set of column names to add to
+     */
+    private static void addTestedColumns (
+        final Criteria<?> criteria,
+        final String schema,
+        final Set<String> columns
+    ) {
+        if (criteria instanceof AndCriteria) {
+            AndCriteria<?> and = (AndCriteria<?>) criteria;
+
+            addTestedColumns (and.c1, schema, columns);
+            addTestedColumns (and.c2, schema, columns);
+        }
+        else if (criteria instanceof OrCriteria) {
+            OrCriteria<?> or = (OrCriteria<?>) criteria;
+
+            addTestedColumns (or.c1, schema, columns);
+            addTestedColumns (or.c2, schema, columns);
+        }
+        else if (criteria instanceof ColumnValueCriteria) {
+            ColumnValueCriteria<?> c = (ColumnValueCriteria<?>) criteria;
+
+            if (c.getColumn() != null && c.appliesTo (schema)) {
+                columns.add (c.getColumn());
+            }
+        }
+    }
+
 }
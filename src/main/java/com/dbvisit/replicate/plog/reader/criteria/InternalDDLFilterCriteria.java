@@ -16,9 +16,10 @@ package com.dbvisit.replicate.plog.reader.criteria;
  * limitations under the License.
  **/
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -37,6 +38,8 @@ public class InternalDDLFilterCriteria<T> implements Criteria<T> {
             put ("DBVREP.*", true);
             put ("DBVREP*.*", true);
     }};
+    /** The internal schemas to filter, compiled once */
+    private final Pattern[] patterns = compileFilter (filter);
 
     /**
      * Test to see if the incoming record, abiding by the behavior of a
@@ -59,29 +62,52 @@ public class InternalDDLFilterCriteria<T> implements Criteria<T> {
             );
         }
 
-        String schemaName = rec.getRecordSchema();
-        
         /* pass by default, this is a filter */
-        boolean pass = true;
+        return !isInternal (rec.getRecordSchema());
+    }
 
+    /**
+     * Check whether or not a schema is an internal one to filter
+     * 
+     * @param schemaName the schema of record, or null if it has none
+     * 
+     * @return true if schema matches an internal schema, else false
+     */
+    boolean isInternal (final String schemaName) {
         if (schemaName != null) {
-            for (String f : filter.keySet()) {
-                if (filter.get (f) == true) {
-                    Pattern regex = Pattern.compile(
-                        CriteriaUtility.wildcardToRegex (f)
-                    );
-
-                    Matcher m = regex.matcher(schemaName);
-                    /* filter record if it's schema matches the regexp */
-                    if (m.matches()) {
-                        pass = false;
-                        break;
-                    }
+            for (Pattern regex : patterns) {
+                /* filter record if it's schema matches the regexp */
+                if (regex.matcher(schemaName).matches()) {
+                    return true;
                 }
             }
         }
 
-        return pass;
+        return false;
+    }
+
+    /**
+     * Compile the wildcards of the internal schemas to filter
+     * 
+     * @param filter internal schema wildcards and whether or not to
+     *               filter them
+     * 
+     * @return compiled regular expressions of schemas to filter
+     */
+    private static Pattern[] compileFilter (final Map<String, Boolean> filter) {
+        List<Pattern> regexs = new ArrayList<Pattern>(filter.size());
+
+        for (Map.Entry<String, Boolean> f : filter.entrySet()) {
+            if (f.getValue() == true) {
+                regexs.add (
+                    Pattern.compile (
+                        CriteriaUtility.wildcardToRegex (f.getKey())
+                    )
+                );
+            }
+        }
+
+        return regexs.toArray (new Pattern[regexs.size()]);
     }
 
 }
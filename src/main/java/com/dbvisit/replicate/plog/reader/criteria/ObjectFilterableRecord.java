@@ -0,0 +1,32 @@
+package com.dbvisit.replicate.plog.reader.criteria;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+/**
+ * Filterable record of a replicated object that identifies the object by
+ * its ID, which does not change when the object is renamed
+ *
+ * @param <T> Type parameter for filter
+ */
+public interface ObjectFilterableRecord<T> extends FilterableRecord<T> {
+    /**
+     * Return the ID of the replicated object this record belongs to
+     *
+     * @return object ID, or -1 if the record has none
+     */
+    public int getRecordObjectId ();
+}
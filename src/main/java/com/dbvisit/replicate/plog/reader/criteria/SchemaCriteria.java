@@ -55,11 +55,7 @@ public class SchemaCriteria<T> implements Criteria<T> {
     @Override
     public boolean meetCriteria(FilterableRecord<T> rec)
     throws Exception {
-        if (schemas == null || schemas.isEmpty()) {
-            throw new Exception (
-                "Invalid un-initialised schema name criteria"
-            );
-        }
+        validate();
 
         String schemaName = rec.getRecordSchema();
 
@@ -69,15 +65,7 @@ public class SchemaCriteria<T> implements Criteria<T> {
          * dictionary already
          */
         if (rec.isDataRecord() && schemaName != null) {
-            if (schemas.containsKey (schemaName)) {
-                pass = schemas.get (schemaName);
-            }
-            else if (schemas.containsKey (schemaName.toLowerCase())) {
-                pass = schemas.get (schemaName.toLowerCase());
-            }
-            else if (schemas.containsKey (schemaName.toUpperCase())) {
-                pass = schemas.get (schemaName.toUpperCase());
-            }
+            pass = meetSchema (schemaName);
         }
         else if (!rec.isDataRecord()) {
             /* not actual data records, let it through */
@@ -87,4 +75,42 @@ public class SchemaCriteria<T> implements Criteria<T> {
         return pass;
     }
 
+    /**
+     * Validate that the schema criteria has been initialised
+     * 
+     * @throws Exception if there are no schemas to meet
+     */
+    void validate () throws Exception {
+        if (schemas == null || schemas.isEmpty()) {
+            throw new Exception (
+                "Invalid un-initialised schema name criteria"
+            );
+        }
+    }
+
+    /**
+     * Lookup whether or not the data records of a schema meet the criteria,
+     * by its name as is, in lower or upper case
+     * 
+     * @param schemaName the schema owner name of a data record
+     * 
+     * @return true if schema is in white list, else false if it is in
+     *         black list or not present at all
+     */
+    boolean meetSchema (final String schemaName) {
+        boolean pass = false;
+
+        if (schemas.containsKey (schemaName)) {
+            pass = schemas.get (schemaName);
+        }
+        else if (schemas.containsKey (schemaName.toLowerCase())) {
+            pass = schemas.get (schemaName.toLowerCase());
+        }
+        else if (schemas.containsKey (schemaName.toUpperCase())) {
+            pass = schemas.get (schemaName.toUpperCase());
+        }
+
+        return pass;
+    }
+
 }
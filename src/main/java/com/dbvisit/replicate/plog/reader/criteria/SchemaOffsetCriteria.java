@@ -57,11 +57,7 @@ public class SchemaOffsetCriteria<T> implements Criteria<T> {
     @Override
     public boolean meetCriteria(FilterableRecord<T> rec)
     throws Exception {
-        if (schemaOffsets == null || schemaOffsets.isEmpty()) {
-            throw new Exception (
-                "Invalid un-initialised skip offset criteria"
-            );
-        }
+        validate();
 
         /* criteria is not met by default */
         boolean pass = false;
@@ -69,8 +65,6 @@ public class SchemaOffsetCriteria<T> implements Criteria<T> {
         /* criteria only applies for data records */
         if (rec.isDataRecord()) {
             String schema = rec.getRecordSchema();
-            ReplicateOffset schemaOffset = null;
-
             if (schema == null && rec.getRecordOffset() == null) {
                 throw new Exception (
                     "Invalid data record provided for skip offset criteria, " +
@@ -78,15 +72,7 @@ public class SchemaOffsetCriteria<T> implements Criteria<T> {
                 );
             }
 
-            if (schemaOffsets.containsKey (schema)) {
-                schemaOffset = schemaOffsets.get (schema);
-            }
-            else if (schemaOffsets.containsKey (schema.toLowerCase())) {
-                schemaOffset = schemaOffsets.get (schema.toLowerCase());
-            }
-            else if (schemaOffsets.containsKey (schema.toUpperCase())) {
-                schemaOffset = schemaOffsets.get (schema.toUpperCase());
-            }
+            ReplicateOffset schemaOffset = lookupOffset (schema);
 
             if (schemaOffset != null) {
                 /* skip offset is the offset until which to skip parsing */
@@ -107,4 +93,42 @@ public class SchemaOffsetCriteria<T> implements Criteria<T> {
         return pass;
     }
 
+    /**
+     * Validate that the schema offset criteria has been initialised
+     * 
+     * @throws Exception if there are no schema offsets
+     */
+    void validate () throws Exception {
+        if (schemaOffsets == null || schemaOffsets.isEmpty()) {
+            throw new Exception (
+                "Invalid un-initialised skip offset criteria"
+            );
+        }
+    }
+
+    /**
+     * Lookup the skip offset of a schema by its name as is, in lower or
+     * upper case
+     * 
+     * @param schema the schema owner name of a data record
+     * 
+     * @return the offset until which to skip data records of schema, or
+     *         null if schema has none
+     */
+    ReplicateOffset lookupOffset (final String schema) {
+        ReplicateOffset schemaOffset = null;
+
+        if (schemaOffsets.containsKey (schema)) {
+            schemaOffset = schemaOffsets.get (schema);
+        }
+        else if (schemaOffsets.containsKey (schema.toLowerCase())) {
+            schemaOffset = schemaOffsets.get (schema.toLowerCase());
+        }
+        else if (schemaOffsets.containsKey (schema.toUpperCase())) {
+            schemaOffset = schemaOffsets.get (schema.toUpperCase());
+        }
+
+        return schemaOffset;
+    }
+
 }
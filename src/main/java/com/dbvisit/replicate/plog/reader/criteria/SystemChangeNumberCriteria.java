@@ -17,7 +17,8 @@ package com.dbvisit.replicate.plog.reader.criteria;
  **/
 
 import java.util.LinkedHashMap;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -34,6 +35,9 @@ public class SystemChangeNumberCriteria<T> implements Criteria<T> {
      * by priority
      */
     private final LinkedHashMap<String, Long> scnOffsets;
+    /** Schema wildcards of SCN offsets, compiled once when first used */
+    private final ConcurrentHashMap<String, Wildcard> wildcards =
+        new ConcurrentHashMap<String, Wildcard>();
 
     /**
      * Creates a global SCN criteria from a single system change value
@@ -81,51 +85,119 @@ public class SystemChangeNumberCriteria<T> implements Criteria<T> {
             );
         }
 
+        validate();
+
+        /* fail, unless a record passes the defined SCN criteria */
+        boolean pass = false;
+
+        long startSCN = lookupStartSCN (rec.getRecordSchema());
+
+        if (startSCN >= 0) {
+            /* first failure or pass is returned, rest is ignored */
+            pass = rec.getRecordSCN() >= startSCN;
+        }
+
+        return pass;
+    }
+
+    /**
+     * Validate that the SCN criteria has been initialised
+     * 
+     * @throws Exception if there are no SCN offsets
+     */
+    void validate () throws Exception {
         if (scnOffsets == null || scnOffsets.isEmpty()) {
             throw new Exception (
                 "Invalid un-initialised SCN criteria for schemas"
             );
         }
+    }
 
-        /* fail, unless a record passes the defined SCN criteria */
-        boolean pass = false;
-
+    /**
+     * Lookup the current SCN offset of the first schema wildcard, by
+     * priority, that matches the schema of a record
+     * 
+     * @param schema the schema of record, or null if it has none
+     * 
+     * @return the SCN that records of schema must be at or after to pass,
+     *         or -1 if there is none and records of schema always fail
+     */
+    long lookupStartSCN (final String schema) {
         /* we default to N/A string, this is done so that global wildcard
          * SCN filter can be applied to all records
          */
-        String schemaName = rec.getRecordSchema() != null 
-                ? rec.getRecordSchema()
-                : NO_SCHEMA;
+        String schemaName = schema != null ? schema : NO_SCHEMA;
 
         /* by priority */
-        for (String f : scnOffsets.keySet()) {
-            /* get start SCN value for regexp */
-            long startSCN = scnOffsets.get (f);
-
-            /* has an SCN offset greater or equal to zero */
-            if (startSCN >= 0) {
-                Pattern regex = Pattern.compile(
-                    CriteriaUtility.wildcardToRegex (f)
-                );
-
-                Matcher m = regex.matcher(schemaName);
-
-                /* apply SCN criteria for records in a schema that matches
-                 * regular expression */
-                if (m.matches()) {
-                    /* first failure or pass is returned, rest is ignored */
-                    if (rec.getRecordSCN() >= startSCN) {
-                        pass = true;
-                    }
-                    else {
-                        pass = false;
-                    }
-                    break;
-                }
+        for (Map.Entry<String, Long> scnOffset : scnOffsets.entrySet()) {
+            Long startSCN = scnOffset.getValue();
+
+            /* has an SCN offset greater or equal to zero, apply SCN 
+             * criteria for records in a schema that matches regular 
+             * expression */
+            if (startSCN != null && 
+                startSCN >= 0 && 
+                wildcard (scnOffset.getKey()).matches (schemaName)) 
+            {
+                return startSCN;
             }
         }
 
-        return pass;
+        return -1L;
+    }
+
+    /**
+     * Return the compiled schema wildcard, compiling it when first used
+     * 
+     * @param wildcard schema wildcard
+     * 
+     * @return compiled wildcard
+     */
+    private Wildcard wildcard (final String wildcard) {
+        Wildcard compiled = wildcards.get (wildcard);
+
+        if (compiled == null) {
+            compiled = new Wildcard (wildcard);
+            wildcards.put (wildcard, compiled);
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Schema wildcard compiled to its regular expression, which remembers
+     * the schemas it was matched against
+     */
+    private static class Wildcard {
+        /** The compiled regular expression */
+        private final Pattern pattern;
+        /** Whether or not the schemas matched so far match */
+        private final ConcurrentHashMap<String, Boolean> matches =
+            new ConcurrentHashMap<String, Boolean>();
+
+        private Wildcard (final String wildcard) {
+            pattern = Pattern.compile (
+                CriteriaUtility.wildcardToRegex (wildcard)
+            );
+        }
+
+        /**
+         * Match a schema against wildcard
+         * 
+         * @param schema the schema name
+         * 
+         * @return true if schema matches, else false
+         */
+        private boolean matches (final String schema) {
+            Boolean match = matches.get (schema);
+
+            if (match == null) {
+                match = pattern.matcher (schema).matches();
+                matches.put (schema, match);
+            }
+
+            return match;
+        }
     }
 
 }
@@ -50,17 +50,35 @@ public class TypeCriteria<T> implements Criteria<T> {
     @Override
     public boolean meetCriteria(FilterableRecord<T> rec) 
     throws Exception {
+        validate();
+
+        return meetType (rec.getRecordType());
+    }
+
+    /**
+     * Validate that the type criteria has been initialised
+     * 
+     * @throws Exception if there are no types to meet
+     */
+    void validate () throws Exception {
         if (types == null || types.isEmpty()) {
             throw new Exception (
                 "Invalid un-initialised type criteria"
             );
         }
+    }
 
+    /**
+     * Lookup whether or not records of a type meet the criteria
+     * 
+     * @param type the record type
+     * 
+     * @return true if records of type pass, else false
+     */
+    boolean meetType (final T type) {
         /* criteria is not met by default */
         boolean pass = false;
 
-        T type = rec.getRecordType();
-
         /* lookup the pass criteria for this record type, no entry means it 
          * has to be filtered
          */
@@ -51,19 +51,15 @@ public class TypeOffsetCriteria<T> implements Criteria<T> {
     @Override
     public boolean meetCriteria(FilterableRecord<T> rec) 
     throws Exception {
-        if (typeOffsets == null || typeOffsets.isEmpty()) {
-            throw new Exception (
-                "Invalid un-initialised type offset criteria"
-            );
-        }
+        validate();
 
         /* criteria is not met by default */
         boolean pass = false;
 
         /* apply offset criteria to all records of this type */
-        if (typeOffsets.containsKey(rec.getRecordType())) {
-            ReplicateOffset typeOffset = typeOffsets.get (rec.getRecordType());
+        ReplicateOffset typeOffset = lookupOffset (rec.getRecordType());
 
+        if (typeOffset != null) {
             /* filter all records of type T that is older than the filter's
              * replicate offset */
             if (rec.getRecordOffset().compareTo(typeOffset) > 0) {
@@ -74,4 +70,35 @@ public class TypeOffsetCriteria<T> implements Criteria<T> {
         return pass;
     }
 
+    /**
+     * Validate that the type offset criteria has been initialised
+     * 
+     * @throws Exception if there are no type offsets
+     */
+    void validate () throws Exception {
+        if (typeOffsets == null || typeOffsets.isEmpty()) {
+            throw new Exception (
+                "Invalid un-initialised type offset criteria"
+            );
+        }
+    }
+
+    /**
+     * Lookup the offset that records of a type must be after to pass
+     * 
+     * @param type the record type
+     * 
+     * @return the replicate offset of type, or null if records of type
+     *         are always filtered
+     */
+    ReplicateOffset lookupOffset (final T type) {
+        ReplicateOffset typeOffset = null;
+
+        if (typeOffsets.containsKey (type)) {
+            typeOffset = typeOffsets.get (type);
+        }
+
+        return typeOffset;
+    }
+
 }
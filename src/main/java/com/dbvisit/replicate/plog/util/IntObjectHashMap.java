@@ -0,0 +1,397 @@
+package com.dbvisit.replicate.plog.util;
+
+/**
+ * Copyright 2016 Dbvisit Software Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Hash map with primitive integer keys, using open addressing with linear
+ * probing. Lookups by primitive key do not box the key, which is what the
+ * PLOG object and column ID caches are looked up with for every record.
+ * <p>
+ * It is a complete <em>Map</em> to allow it to be used as one, iteration
+ * is over a snapshot of keys taken when iterator is created, this is not
+ * meant for iterating in the hot path. Not thread safe.
+ * </p>
+ *
+ * @param <V> type of value
+ */
+public class IntObjectHashMap<V> extends AbstractMap<Integer, V> {
+    /** Default initial number of slots, must be power of two */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Maximum ratio of used slots before the slots are doubled */
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /** The keys, for used slots only */
+    private int[] keys;
+    /** The values, for used slots only */
+    private Object[] values;
+    /** Whether or not a slot is in use */
+    private boolean[] used;
+    /** Number of keys in map */
+    private int size;
+    /** Number of used slots before growing */
+    private int threshold;
+    /** Number of modifications, to detect stale views of map */
+    private int modCount;
+
+    /**
+     * Create an empty map
+     */
+    public IntObjectHashMap () {
+        this (DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty map with room for a number of keys before growing
+     *
+     * @param expected number of keys expected
+     */
+    public IntObjectHashMap (int expected) {
+        allocate (slotsFor (expected));
+    }
+
+    /**
+     * Create a map with all entries of another map
+     *
+     * @param map the map to copy
+     */
+    public IntObjectHashMap (Map<Integer, ? extends V> map) {
+        this (map.size());
+        putAll (map);
+    }
+
+    /**
+     * Return the number of slots to use for a number of keys
+     *
+     * @param expected number of keys
+     *
+     * @return power of two number of slots
+     */
+    private static int slotsFor (int expected) {
+        int slots = DEFAULT_CAPACITY;
+
+        while (slots * LOAD_FACTOR < expected) {
+            slots <<= 1;
+        }
+
+        return slots;
+    }
+
+    /**
+     * Allocate empty slots
+     *
+     * @param slots number of slots, power of two
+     */
+    private void allocate (int slots) {
+        keys      = new int[slots];
+        values    = new Object[slots];
+        used      = new boolean[slots];
+        threshold = (int)(slots * LOAD_FACTOR);
+    }
+
+    /**
+     * Return the home slot of a key
+     *
+     * @param key the key
+     *
+     * @return slot to start probing from
+     */
+    private int slot (int key) {
+        /* object IDs are sequential, spread them across slots */
+        int h = key * 0x9E3779B9;
+
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Find the slot of a key
+     *
+     * @param key the key
+     *
+     * @return slot of key, or -1 if key is not in map
+     */
+    private int find (int key) {
+        int mask = keys.length - 1;
+
+        for (int s = slot (key); used[s]; s = (s + 1) & mask) {
+            if (keys[s] == key) {
+                return s;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Return the value for a key
+     *
+     * @param key the primitive key
+     *
+     * @return the value, or null if the key is not in map
+     */
+    @SuppressWarnings("unchecked")
+    public V get (int key) {
+        int s = find (key);
+
+        return s < 0 ? null : (V) values[s];
+    }
+
+    /**
+     * Check whether or not the map contains a key
+     *
+     * @param key the primitive key
+     *
+     * @return true if key is in map, else false
+     */
+    public boolean containsKey (int key) {
+        return find (key) >= 0;
+    }
+
+    /**
+     * Add or replace the value for a key
+     *
+     * @param key   the primitive key
+     * @param value the value
+     *
+     * @return the previous value, or null if the key was not in map
+     */
+    @SuppressWarnings("unchecked")
+    public V put (int key, V value) {
+        int mask = keys.length - 1;
+        int s    = slot (key);
+
+        while (used[s]) {
+            if (keys[s] == key) {
+                V previous = (V) values[s];
+                values[s] = value;
+                modCount++;
+
+                return previous;
+            }
+            s = (s + 1) & mask;
+        }
+
+        used[s]   = true;
+        keys[s]   = key;
+        values[s] = value;
+        size++;
+        modCount++;
+
+        if (size > threshold) {
+            rehash (keys.length << 1);
+        }
+
+        return null;
+    }
+
+    /**
+     * Remove a key from the map
+     *
+     * @param key the primitive key
+     *
+     * @return the removed value, or null if the key was not in map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove (int key) {
+        int s = find (key);
+
+        if (s < 0) {
+            return null;
+        }
+
+        V previous = (V) values[s];
+        int mask   = keys.length - 1;
+
+        /* shift back the keys that probed past the removed slot */
+        int free = s;
+        for (int n = (s + 1) & mask; used[n]; n = (n + 1) & mask) {
+            int home = slot (keys[n]);
+
+            /* move it unless its home slot is cyclically after free slot */
+            if (((n - home) & mask) >= ((n - free) & mask)) {
+                keys[free]   = keys[n];
+                values[free] = values[n];
+                free         = n;
+            }
+        }
+
+        used[free]   = false;
+        values[free] = null;
+        size--;
+        modCount++;
+
+        return previous;
+    }
+
+    /**
+     * Move all keys to a new set of slots
+     *
+     * @param slots new number of slots, power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void rehash (int slots) {
+        int[] oldKeys       = keys;
+        Object[] oldValues  = values;
+        boolean[] oldUsed   = used;
+
+        allocate (slots);
+        size = 0;
+
+        for (int s = 0; s < oldKeys.length; s++) {
+            if (oldUsed[s]) {
+                put (oldKeys[s], (V) oldValues[s]);
+            }
+        }
+    }
+
+    /**
+     * Return the number of modifications made to map, adding, replacing
+     * or removing keys, for caching views of the map
+     *
+     * @return modification count
+     */
+    public int getModCount () {
+        return modCount;
+    }
+
+    @Override
+    public V get (Object key) {
+        return key instanceof Integer ? get (((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey (Object key) {
+        return key instanceof Integer &&
+               containsKey (((Integer) key).intValue());
+    }
+
+    @Override
+    public V put (Integer key, V value) {
+        return put (key.intValue(), value);
+    }
+
+    @Override
+    public V remove (Object key) {
+        return key instanceof Integer
+               ? remove (((Integer) key).intValue())
+               : null;
+    }
+
+    @Override
+    public int size () {
+        return size;
+    }
+
+    @Override
+    public void clear () {
+        if (size > 0) {
+            for (int s = 0; s < keys.length; s++) {
+                used[s]   = false;
+                values[s] = null;
+            }
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet () {
+        return new AbstractSet<Map.Entry<Integer, V>>() {
+            @Override
+            public Iterator<Map.Entry<Integer, V>> iterator () {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size () {
+                return size;
+            }
+
+            @Override
+            public void clear () {
+                IntObjectHashMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Iterator over a snapshot of the keys in map, the entries are live
+     */
+    private class EntryIterator implements Iterator<Map.Entry<Integer, V>> {
+        /** Keys in map when iterator was created */
+        private final int[] snapshot;
+        /** Index of next key in snapshot */
+        private int next = 0;
+        /** Index of last key returned, or -1 */
+        private int last = -1;
+
+        /**
+         * Create iterator over current keys
+         */
+        private EntryIterator () {
+            snapshot = new int[size];
+
+            int k = 0;
+            for (int s = 0; s < keys.length; s++) {
+                if (used[s]) {
+                    snapshot[k++] = keys[s];
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext () {
+            return next < snapshot.length;
+        }
+
+        @Override
+        public Map.Entry<Integer, V> next () {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+            final int key = snapshot[last];
+
+            return new AbstractMap.SimpleEntry<Integer, V>(key, get (key)) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue (V value) {
+                    super.setValue (value);
+                    return put (key, value);
+                }
+            };
+        }
+
+        @Override
+        public void remove () {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            IntObjectHashMap.this.remove (snapshot[last]);
+            last = -1;
+        }
+    }
+}
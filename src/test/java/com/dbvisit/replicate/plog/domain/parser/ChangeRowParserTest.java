@@ -3,10 +3,14 @@ package com.dbvisit.replicate.plog.domain.parser;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Date;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import java.sql.Timestamp;
 
@@ -17,11 +21,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dbvisit.replicate.plog.domain.ChangeAction;
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
 import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.DomainRecordType;
 import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
 import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.format.EntryTags;
 import com.dbvisit.replicate.plog.metadata.Column;
 import com.dbvisit.replicate.plog.metadata.DDLMetaData;
+import com.dbvisit.replicate.plog.metadata.Table;
+import com.dbvisit.replicate.plog.reader.criteria.ColumnValueCriteria;
+import com.dbvisit.replicate.plog.reader.criteria.ColumnValueCriteria.Operator;
 
 /** Test parsing single entry record to LCR, verifies PLOG parsing of 
  *  Entry Records as well.
@@ -125,6 +135,246 @@ public class ChangeRowParserTest extends ChangeParserTestConfig {
         );
     }
     
+    @Test
+    public void testParseNumberLCRLazily() {
+        final Object COLUMN_VALUE = new BigDecimal("9999999.99999");
+        
+        try {
+            List<EntryRecord> records = parseEntryRecord (numberValueLCR());
+            
+            ChangeRowParser lp = new ChangeRowParser();
+            lp.setLazyColumnDecoding (true);
+            
+            boolean found = false;
+            for (EntryRecord rec : records) {
+                lp.parse(plog, rec);
+                
+                ChangeRowRecord lcr = (ChangeRowRecord)lp.emit();
+                
+                if (lcr.getAction().equals (ChangeAction.INSERT)) {
+                    ColumnValue cr = lcr.getColumnValues().get(0);
+                    
+                    assertFalse (
+                        "Expecting column value to not be decoded yet",
+                        cr.isDecoded()
+                    );
+                    
+                    assertTrue (
+                        "Expecting column value: " + COLUMN_VALUE + ", " +
+                        "got: " + cr.getValue(),
+                        cr.getValue().equals (COLUMN_VALUE)
+                    );
+                    
+                    assertTrue (
+                        "Expecting column value to be decoded on access",
+                        cr.isDecoded()
+                    );
+                    
+                    assertTrue (
+                        "Expecting JSON to contain decoded value, got: " +
+                        lcr.toJSONString(),
+                        lcr.toJSONString().contains (
+                            "\"value\":\"" + COLUMN_VALUE + "\""
+                        )
+                    );
+                    found = true;
+                }
+            }
+            
+            assertTrue ("Expecting an INSERT LCR", found);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+        finally {
+            plog.getSchemas().clear();
+            plog.getDictionary().clear();
+        }
+    }
+    
+    @Test
+    public void testParseIntegerLCRWithDecodePlan() {
+        final Object COLUMN_VALUE = 9999;
+        
+        try {
+            List<EntryRecord> records = parseEntryRecord (integerValueLCR());
+            
+            ChangeRowParser lp = new ChangeRowParser();
+            
+            boolean found = false;
+            for (EntryRecord rec : records) {
+                lp.parse(plog, rec);
+                
+                ChangeRowRecord lcr = (ChangeRowRecord)lp.emit();
+                
+                if (lcr.getAction().equals (ChangeAction.INSERT)) {
+                    ColumnValue cr = lcr.getColumnValues().get(0);
+                    
+                    assertEquals (COLUMN_VALUE, cr.getValue());
+                    
+                    /* plan is built once per schema version */
+                    ColumnDecodePlan plan = 
+                        plog.getDecodePlans().get (LCR_SCHEMA);
+                    
+                    assertNotNull ("Expecting a decode plan", plan);
+                    assertSame (
+                        plan,
+                        ColumnDecodePlan.forSchema (plog, LCR_SCHEMA)
+                    );
+                    assertNotNull (
+                        plan.getDecoder (cr.getId(), ColumnDataType.NUMBER)
+                    );
+                    assertNull (
+                        "Expecting no decoder for a different data type",
+                        plan.getDecoder (cr.getId(), ColumnDataType.VARCHAR2)
+                    );
+                    
+                    /* rebuilt for a newer schema version */
+                    DDLMetaData ddl = plog.getSchemas().get (LCR_SCHEMA);
+                    ddl.setValidSinceSCN (ddl.getValidSinceSCN() + 1);
+                    
+                    ColumnDecodePlan rebuilt =
+                        ColumnDecodePlan.forSchema (plog, LCR_SCHEMA);
+                    
+                    assertFalse (
+                        "Expecting decode plan to be rebuilt",
+                        plan == rebuilt
+                    );
+                    
+                    /* and when invalidated */
+                    plog.invalidateDecodePlan (LCR_SCHEMA);
+                    
+                    assertNull (plog.getDecodePlans().get (LCR_SCHEMA));
+                    found = true;
+                }
+            }
+            
+            assertTrue ("Expecting an INSERT LCR", found);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+        finally {
+            plog.getSchemas().clear();
+            plog.getDictionary().clear();
+            plog.getDecodePlans().clear();
+        }
+    }
+    
+    @Test
+    public void testCanParseInParallelWithKeyOnly() {
+        try {
+            List<EntryRecord> records = parseEntryRecord (integerValueLCR());
+            
+            ChangeRowParser lp = new ChangeRowParser();
+            
+            boolean found = false;
+            for (EntryRecord rec : records) {
+                if (rec.hasColumnData() && 
+                    !rec.isJSONMetaData() &&
+                    !rec.hasColumnMetaData())
+                {
+                    /* as done by domain reader, before parsing */
+                    rec.setOwner (LCR_SCHEMA);
+                    
+                    assertFalse (
+                        "Expecting record of table without key definition " +
+                        "to be parsed in order",
+                        lp.canParseInParallel (plog, rec)
+                    );
+                    
+                    DDLMetaData md = plog.getSchemas().get (LCR_SCHEMA);
+                    md.setHasKey (true);
+                    
+                    assertFalse (
+                        "Expecting dictionary table key definition to be " +
+                        "required",
+                        lp.canParseInParallel (plog, rec)
+                    );
+                    
+                    for (Table table : plog.getDictionary().values()) {
+                        table.setHasKey (true);
+                    }
+                    
+                    assertTrue (lp.canParseInParallel (plog, rec));
+                    found = true;
+                    break;
+                }
+                
+                lp.parse(plog, rec);
+            }
+            
+            assertTrue ("Expecting a data LCR", found);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+        finally {
+            plog.getSchemas().clear();
+            plog.getDictionary().clear();
+        }
+    }
+    
+    @Test
+    public void testParseNumberLCRLazilyFromRecycledPayload() {
+        final Object COLUMN_VALUE = new BigDecimal("9999999.99999");
+        
+        try {
+            List<EntryRecord> records = parseEntryRecord (numberValueLCR());
+            
+            ChangeRowParser lp = new ChangeRowParser();
+            lp.setLazyColumnDecoding (true);
+            
+            boolean found = false;
+            for (EntryRecord rec : records) {
+                /* as if read into the reader's reused pay load buffer */
+                rec.setRecycledPayload (true);
+                
+                lp.parse(plog, rec);
+                
+                ChangeRowRecord lcr = (ChangeRowRecord)lp.emit();
+                
+                /* reader overwrites buffer with next record */
+                EntryTags tags = rec.getEntryTags();
+                for (int s = 0; s < tags.getNumTags(); s++) {
+                    ByteBuffer data = tags.getTag (s).getData();
+                    while (data.hasRemaining()) {
+                        data.put ((byte)0);
+                    }
+                }
+                
+                if (lcr.getAction().equals (ChangeAction.INSERT)) {
+                    ColumnValue cr = lcr.getColumnValues().get(0);
+                    
+                    assertFalse (
+                        "Expecting column value to not be decoded yet",
+                        cr.isDecoded()
+                    );
+                    
+                    assertTrue (
+                        "Expecting column value: " + COLUMN_VALUE + ", " +
+                        "got: " + cr.getValue(),
+                        cr.getValue().equals (COLUMN_VALUE)
+                    );
+                    found = true;
+                }
+            }
+            
+            assertTrue ("Expecting an INSERT LCR", found);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+        finally {
+            plog.getSchemas().clear();
+            plog.getDictionary().clear();
+        }
+    }
+    
     @Test
     public void testParseVarcharLCR() {
         /* UNITTEST SQL:
@@ -430,6 +680,127 @@ public class ChangeRowParserTest extends ChangeParserTestConfig {
         );
     }
     
+    @Test
+    public void testParseClobLCRWithColumnProjection() {
+        /* UNITTEST SQL: as for testParseClobLCR, a CLOB cannot be used
+         * as fall back key of a table without key constraint
+         */
+        try {
+            Map<String, List<String>> columns = 
+                new HashMap<String, List<String>>();
+            columns.put (LCR_SCHEMA, Arrays.asList ("NONE"));
+
+            List<EntryRecord> records = parseEntryRecord (clobValueLCR());
+
+            ChangeRowParser lp = new ChangeRowParser();
+            lp.setColumnProjection (new ColumnProjection (columns));
+
+            /* projection is inherited by worker parsers */
+            assertSame (
+                lp.getColumnProjection(),
+                ((ChangeRowParser)lp.newWorkerParser()).getColumnProjection()
+            );
+
+            int numLCRs = 0;
+            for (EntryRecord rec : records) {
+                lp.parse(plog, rec);
+
+                ChangeRowRecord lcr = (ChangeRowRecord)lp.emit();
+
+                if (lcr.getAction().equals (ChangeAction.INSERT) ||
+                    lcr.getAction().equals (ChangeAction.LOB_WRITE))
+                {
+                    assertEquals (
+                        NUM_COLUMNS,
+                        lcr.getColumnValues().size()
+                    );
+                    assertNull (
+                        "Expecting column: " + COLUMN_NAME + " to not be " +
+                        "parsed, got: " + lcr.toJSONString(),
+                        lcr.getColumnValues().get(0)
+                    );
+                    numLCRs++;
+                }
+            }
+
+            assertEquals (2, numLCRs);
+
+            plog.getSchemas().clear();
+            plog.getDictionary().clear();
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testParseClobLCRWithColumnProjectionAndCriteria() {
+        /* UNITTEST SQL: as for testParseClobLCR, the CLOB column is not
+         * projected but is tested by the column criteria
+         */
+        final Object COLUMN_VALUE =
+            "<html><body><p>This is a HTML paragraph</p></body></html>";
+        try {
+            Map<String, List<String>> columns = 
+                new HashMap<String, List<String>>();
+            columns.put (LCR_SCHEMA, Arrays.asList ("NONE"));
+
+            for (boolean meets : new boolean[] { true, false }) {
+                List<EntryRecord> records = parseEntryRecord (clobValueLCR());
+
+                ChangeRowParser lp = new ChangeRowParser();
+                lp.setColumnProjection (new ColumnProjection (columns));
+                lp.setColumnCriteria (
+                    new ColumnValueCriteria<DomainRecordType> (
+                        LCR_SCHEMA,
+                        COLUMN_NAME,
+                        Operator.EQUAL,
+                        meets ? COLUMN_VALUE : "NONE"
+                    )
+                );
+
+                int numLOBs = 0;
+                for (EntryRecord rec : records) {
+                    lp.parse(plog, rec);
+
+                    ChangeRowRecord lcr = (ChangeRowRecord)lp.emit();
+
+                    if (rec.isLOB()) {
+                        if (!meets) {
+                            assertNull (
+                                "Expecting LOB write to not meet criteria",
+                                lcr
+                            );
+                            continue;
+                        }
+
+                        assertEquals (ChangeAction.LOB_WRITE, lcr.getAction());
+                        assertNull (
+                            "Expecting column: " + COLUMN_NAME + " to only " +
+                            "be tested, got: " + lcr.toJSONString(),
+                            lcr.getColumnValues().get(0)
+                        );
+                        numLOBs++;
+                    }
+                }
+
+                assertEquals (meets ? 1 : 0, numLOBs);
+
+                plog.getSchemas().clear();
+                plog.getDictionary().clear();
+            }
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+        finally {
+            plog.getSchemas().clear();
+            plog.getDictionary().clear();
+        }
+    }
+    
     @Test
     public void testParseNClobLCR() {
         /* UNITTEST SQL:
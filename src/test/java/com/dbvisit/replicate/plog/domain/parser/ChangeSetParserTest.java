@@ -8,6 +8,7 @@ import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
@@ -115,6 +116,53 @@ public class ChangeSetParserTest extends ChangeParserTestConfig {
         }
     }
     
+
+    @Test
+    public void testParseUpdateLCRLazily () {
+        try {
+            List<EntryRecord> records = parseEntryRecord (updateValueLCR());
+            
+            ChangeSetParser csp = new ChangeSetParser();
+            csp.setLazyColumnDecoding (true);
+            
+            boolean found = false;
+            for (EntryRecord rec : records) {
+                csp.parse(plog, rec);
+            
+                ChangeSetRecord csr = (ChangeSetRecord)csp.emit();
+                
+                if (csr.getAction().equals (ChangeAction.UPDATE)) {
+                    List<ColumnValue> values = new ArrayList<ColumnValue>();
+                    values.addAll (csr.getKeyValues());
+                    values.addAll (csr.getNewValues());
+                    
+                    assertFalse (values.isEmpty());
+                    
+                    for (ColumnValue cv : values) {
+                        assertFalse (
+                            "Expecting column value: " + cv.getId() + " " +
+                            "to not be decoded yet",
+                            cv.isDecoded()
+                        );
+                        assertNotNull (cv.getValue());
+                        assertTrue (cv.isDecoded());
+                    }
+                    found = true;
+                }
+            }
+            
+            assertTrue ("Expecting an UPDATE LCR", found);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+        finally {
+            plog.getSchemas().clear();
+            plog.getDictionary().clear();
+        }
+    }
+    
     
     private static int LCR_INSERT_NUM_ENTRY_RECORDS    = 6;
     private static int LCR_LOB_WRITE_NUM_ENTRY_RECORDS = 7;
@@ -0,0 +1,253 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.junit.Test;
+
+import com.dbvisit.replicate.plog.domain.ChangeAction;
+import com.dbvisit.replicate.plog.domain.ChangeSetRecord;
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.MetaDataRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.domain.TransactionInfoRecord;
+import com.dbvisit.replicate.plog.metadata.Column;
+import com.dbvisit.replicate.plog.metadata.DDLMetaData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ChangeSetBatchEncoderTest {
+    private final int TABLE_ID = 20160;
+    private final String TABLE_OWNER = "SOE";
+    private final String TABLE_NAME = "UNITTEST";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private MetaDataRecord createMetaDataRecord (long scn) {
+        DDLMetaData ddl = new DDLMetaData();
+
+        ddl.setValidSinceSCN (scn);
+        ddl.setObjectId (TABLE_ID);
+        ddl.setSchemaName (TABLE_OWNER);
+        ddl.setTableName (TABLE_NAME);
+        ddl.setTableColumns (
+            Arrays.asList (
+                new Column (1, "ID", "NUMBER", 6, 0, false),
+                new Column (2, "NAME", "VARCHAR2", -1, -1, true)
+            )
+        );
+
+        MetaDataRecord rec = new MetaDataRecord();
+        rec.setMetaData (ddl);
+
+        return rec;
+    }
+
+    private ChangeSetRecord createChangeSetRecord (
+        ChangeAction action,
+        long id,
+        long scn
+    ) throws Exception {
+        ChangeSetRecord rec = new ChangeSetRecord();
+
+        rec.setAction (action);
+        rec.setId (id);
+        rec.setPlogId (12);
+        rec.setTransactionId ("0002.010.0000019e");
+        rec.setSystemChangeNumber (scn);
+        rec.setTableId (TABLE_ID);
+        rec.setTableOwner (TABLE_OWNER);
+        rec.setTableName (TABLE_NAME);
+        rec.setReplicateOffset (new ReplicateOffset (53006688148L, id * 100));
+
+        Timestamp timestamp = new Timestamp (1467080596123L + id);
+        timestamp.setNanos (timestamp.getNanos() + 456789);
+        rec.setTimestamp (timestamp);
+
+        ColumnValue key = new ColumnValue (
+            1, ColumnDataType.NUMBER, "ID", (int) id, true
+        );
+        key.setIsSupLogKey (true);
+        rec.addKeyValue (key);
+
+        rec.addNewValue (
+            new ColumnValue (1, ColumnDataType.NUMBER, "ID", (int) id, true)
+        );
+        rec.addNewValue (
+            new ColumnValue (
+                2, ColumnDataType.VARCHAR2, "NAME", "Name " + id, false
+            )
+        );
+        rec.addNewValue (
+            new ColumnValue (3, ColumnDataType.VARCHAR2, "NOTES", null, false)
+        );
+        rec.addNewValue (
+            new ColumnValue (
+                4, ColumnDataType.NUMBER, "AMOUNT",
+                id % 2 == 0
+                ? new BigDecimal ("-12345678901234567890.123")
+                : new BigDecimal ("1.50"),
+                false
+            )
+        );
+        rec.addNewValue (
+            new ColumnValue (
+                5, ColumnDataType.NUMBER, "TOTAL", 9000000000L + id, false
+            )
+        );
+        rec.addNewValue (
+            new ColumnValue (
+                6, ColumnDataType.TIMESTAMP, "CREATED", timestamp, false
+            )
+        );
+        rec.addLobValue (
+            new ColumnValue (
+                7, ColumnDataType.BLOB, "DATA",
+                new SerialBlob (new byte[] { 0x01, 0x2a, (byte) id }),
+                false
+            )
+        );
+
+        if (action == ChangeAction.UPDATE) {
+            rec.addOldValue (
+                new ColumnValue (
+                    2, ColumnDataType.VARCHAR2, "NAME", "Old " + id, false
+                )
+            );
+        }
+
+        return rec;
+    }
+
+    @Test
+    public void testEncodeDecodeBatch() {
+        try {
+            List<DomainRecord> records = new ArrayList<DomainRecord>();
+            List<ChangeSetRecord> expected = new ArrayList<ChangeSetRecord>();
+
+            records.add (createMetaDataRecord (100L));
+
+            for (int r = 1; r <= 4; r++) {
+                expected.add (
+                    createChangeSetRecord (
+                        r % 2 == 0 ? ChangeAction.UPDATE : ChangeAction.INSERT,
+                        r,
+                        1000L + r
+                    )
+                );
+                records.add (expected.get (expected.size() - 1));
+            }
+
+            /* not encoded */
+            records.add (new TransactionInfoRecord());
+            /* newer schema version for the records that follow */
+            records.add (createMetaDataRecord (2000L));
+
+            expected.add (
+                createChangeSetRecord (ChangeAction.DELETE, 5L, 2001L)
+            );
+            records.add (expected.get (expected.size() - 1));
+
+            byte[] data = new ChangeSetBatchEncoder().encode (records);
+            List<ChangeSetRecord> decoded = ChangeSetBatchDecoder.decode (
+                data
+            );
+
+            assertTrue (decoded.size() == expected.size());
+
+            int jsonSize = 0;
+
+            for (int r = 0; r < expected.size(); r++) {
+                String json = DomainJSONConverter.toJSONString (
+                    expected.get (r)
+                );
+                jsonSize += json.length();
+
+                assertEquals (
+                    mapper.readTree (json),
+                    mapper.readTree (
+                        DomainJSONConverter.toJSONString (decoded.get (r))
+                    )
+                );
+                assertEquals (
+                    expected.get (r).getTimestamp(),
+                    decoded.get (r).getTimestamp()
+                );
+            }
+
+            assertTrue (
+                "Expecting batch to be smaller than JSON",
+                data.length < jsonSize
+            );
+
+            /* decoded values have the same types */
+            ChangeSetRecord rec = decoded.get (1);
+            assertTrue (rec.getNewValues().get (0).getValue() instanceof Integer);
+            assertTrue (rec.getNewValues().get (3).getValue() instanceof BigDecimal);
+            assertTrue (rec.getNewValues().get (4).getValue() instanceof Long);
+            assertTrue (rec.getNewValues().get (5).getValue() instanceof Timestamp);
+            assertTrue (rec.getLobValues().get (0).getValue() instanceof SerialBlob);
+            assertNull (rec.getNewValues().get (2).getValue());
+
+            List<DDLMetaData> schemas = ChangeSetBatchDecoder.decodeSchemas (
+                data
+            );
+
+            assertTrue (schemas.size() == 2);
+            assertTrue (schemas.get (0).getValidSinceSCN() == 100L);
+            assertTrue (schemas.get (1).getValidSinceSCN() == 2000L);
+            assertTrue (schemas.get (1).getObjectId() == TABLE_ID);
+            assertEquals (TABLE_OWNER, schemas.get (1).getSchemaName());
+            assertEquals (TABLE_NAME, schemas.get (1).getTableName());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDecodeInvalidBatch() {
+        try {
+            List<DomainRecord> records = new ArrayList<DomainRecord>();
+            records.add (createChangeSetRecord (ChangeAction.INSERT, 1L, 1L));
+
+            byte[] data = new ChangeSetBatchEncoder().encode (records);
+
+            assertTrue (
+                ChangeSetBatchDecoder.decodeSchemas (data)
+                                     .get (0)
+                                     .getValidSinceSCN() == -1L
+            );
+
+            byte[] truncated = Arrays.copyOf (data, data.length - 1);
+
+            try {
+                ChangeSetBatchDecoder.decode (truncated);
+                fail ("Expecting truncated batch to be rejected");
+            }
+            catch (Exception e) {
+                assertTrue (e.getMessage().contains ("truncated"));
+            }
+
+            try {
+                ChangeSetBatchDecoder.decode ("{}".getBytes ("UTF-8"));
+                fail ("Expecting JSON to be rejected");
+            }
+            catch (Exception e) {
+                assertTrue (e.getMessage().contains ("change set batch"));
+            }
+        }
+        catch (Exception e) {
+            fail (e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dbvisit.replicate.plog.domain.ChangeAction;
+import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
+import com.dbvisit.replicate.plog.domain.ChangeSetRecord;
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+
+/**
+ * Benchmark serializing change row and change set records to UTF-8 JSON
+ * for publishing, using the object mapper as before versus the streaming
+ * JSON writer to a reusable byte buffer. Each operation serializes a batch
+ * of records of a table with a mix of number, string, date and binary LOB
+ * columns, run with the GC profiler to report the allocation rate per
+ * operation.
+ *
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.dbvisit.replicate.plog.domain.util.DomainJSONWriterBenchmark
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DomainJSONWriterBenchmark {
+    private static final int NUM_RECORDS = 256;
+    private static final int NUM_COLUMNS = 12;
+    private static final int BLOB_SIZE   = 512;
+
+    private DomainRecord[] records;
+    private DomainJSONWriter writer;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup () throws Exception {
+        records = new DomainRecord[NUM_RECORDS];
+        writer  = new DomainJSONWriter();
+        buffer  = ByteBuffer.allocate (64 * 1024);
+
+        byte[] blob = new byte[BLOB_SIZE];
+
+        for (int b = 0; b < BLOB_SIZE; b++) {
+            blob[b] = (byte) b;
+        }
+
+        for (int r = 0; r < NUM_RECORDS; r++) {
+            List<ColumnValue> values = new ArrayList<ColumnValue>();
+
+            for (int c = 1; c <= NUM_COLUMNS; c++) {
+                switch (c % 4) {
+                    case 0:
+                        values.add (
+                            new ColumnValue (
+                                c, ColumnDataType.NUMBER, "COLUMN" + c,
+                                new BigDecimal (r * 1000L + c).movePointLeft (2),
+                                c == 4
+                            )
+                        );
+                        break;
+                    case 1:
+                        values.add (
+                            new ColumnValue (
+                                c, ColumnDataType.VARCHAR2, "COLUMN" + c,
+                                "Value of column " + c + " in row " + r,
+                                false
+                            )
+                        );
+                        break;
+                    case 2:
+                        values.add (
+                            new ColumnValue (
+                                c, ColumnDataType.DATE, "COLUMN" + c,
+                                new Timestamp (1467080596000L + r * 1000L),
+                                false
+                            )
+                        );
+                        break;
+                    default:
+                        values.add (
+                            new ColumnValue (
+                                c, ColumnDataType.BLOB, "COLUMN" + c,
+                                new SerialBlob (blob),
+                                false
+                            )
+                        );
+                        break;
+                }
+            }
+
+            ChangeRowRecord rec;
+
+            if (r % 2 == 0) {
+                rec = new ChangeRowRecord();
+                rec.setColumnValues (values);
+            }
+            else {
+                ChangeSetRecord set = new ChangeSetRecord();
+
+                set.addKeyValue (values.get (3));
+                for (ColumnValue value : values) {
+                    set.addOldValue (value);
+                    set.addNewValue (value);
+                }
+                rec = set;
+            }
+
+            rec.setAction (ChangeAction.UPDATE);
+            rec.setId (r);
+            rec.setPlogId (12);
+            rec.setTransactionId ("0002.010.0000019e");
+            rec.setSystemChangeNumber (123456789L + r);
+            rec.setTimestamp (new Timestamp (1467080596000L + r));
+            rec.setTableId (20160);
+            rec.setTableOwner ("SOE");
+            rec.setTableName ("UNITTEST");
+            rec.setReplicateOffset (new ReplicateOffset (53006688148L, r * 512L));
+
+            records[r] = rec;
+        }
+    }
+
+    @Benchmark
+    public long objectMapper () throws Exception {
+        long size = 0L;
+
+        for (DomainRecord rec : records) {
+            size += DomainJSONConverter.toJSONString (rec)
+                                       .getBytes (StandardCharsets.UTF_8)
+                                       .length;
+        }
+
+        return size;
+    }
+
+    @Benchmark
+    public long streamingWriter () throws Exception {
+        long size = 0L;
+
+        for (DomainRecord rec : records) {
+            buffer.clear();
+            size += writer.write (rec, buffer);
+        }
+
+        return size;
+    }
+
+    public static void main (String[] args) throws Exception {
+        new Runner (
+            new OptionsBuilder()
+                .include(DomainJSONWriterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+}
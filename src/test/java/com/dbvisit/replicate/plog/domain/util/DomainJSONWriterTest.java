@@ -0,0 +1,177 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.junit.Test;
+
+import com.dbvisit.replicate.plog.domain.ChangeAction;
+import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
+import com.dbvisit.replicate.plog.domain.ChangeSetRecord;
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.domain.TransactionInfoRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DomainJSONWriterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /* the order of properties written by object mapper is not fixed */
+    private void assertSameJSON (String expected, String actual)
+    throws Exception {
+        assertEquals (mapper.readTree (expected), mapper.readTree (actual));
+    }
+
+    private List<ColumnValue> createColumnValues () throws Exception {
+        List<ColumnValue> values = new ArrayList<ColumnValue>();
+
+        values.add (
+            new ColumnValue (
+                1, ColumnDataType.NUMBER, "ID", new BigDecimal ("12.50"), true
+            )
+        );
+        values.add (
+            new ColumnValue (
+                2, ColumnDataType.VARCHAR2, "NAME",
+                "quote \" slash \\ tab \t ctrl \u0001 utf8 \u00e9\u4e2d", false
+            )
+        );
+        values.add (
+            new ColumnValue (
+                3, ColumnDataType.BLOB, "DATA",
+                new SerialBlob (new byte[] { 0x01, 0x2a, (byte) 0xff }), false
+            )
+        );
+        values.add (
+            new ColumnValue (4, ColumnDataType.DATE, "CREATED", null, false)
+        );
+        values.add (
+            new ColumnValue (5, ColumnDataType.CHAR, "", "", false)
+        );
+        values.get (1).setIsSupLogKey (true);
+
+        return values;
+    }
+
+    private ChangeRowRecord createChangeRowRecord () throws Exception {
+        ChangeRowRecord rec = new ChangeRowRecord();
+
+        rec.setAction (ChangeAction.UPDATE);
+        rec.setId (12L);
+        rec.setPlogId (3);
+        rec.setTransactionId ("0002.010.0000019e");
+        rec.setSystemChangeNumber (123456789L);
+        rec.setTimestamp (new Timestamp (1467080596000L));
+        rec.setTableId (20160);
+        rec.setTableOwner ("SOE");
+        rec.setTableName ("UNITTEST");
+        rec.setReplicateOffset (new ReplicateOffset (53006688148L, 374860L));
+        rec.setColumnValues (createColumnValues());
+
+        return rec;
+    }
+
+    private ChangeSetRecord createChangeSetRecord () throws Exception {
+        ChangeSetRecord rec = new ChangeSetRecord();
+        List<ColumnValue> values = createColumnValues();
+
+        rec.setAction (ChangeAction.UPDATE);
+        rec.setTableOwner ("");
+        rec.setReplicateOffset (new ReplicateOffset (1L, 2L));
+        rec.addKeyValue (values.get (0));
+        rec.addOldValue (values.get (1));
+        rec.addNewValue (values.get (1));
+        rec.addNewValue (values.get (3));
+        rec.addLobValue (values.get (2));
+
+        return rec;
+    }
+
+    @Test
+    public void testWriteSameAsObjectMapper() {
+        DomainJSONWriter writer = new DomainJSONWriter();
+
+        try {
+            TransactionInfoRecord tx = new TransactionInfoRecord();
+            tx.setId ("0002.010.0000019e");
+
+            DomainRecord[] recs = new DomainRecord[] {
+                createChangeRowRecord(),
+                new ChangeRowRecord(),
+                createChangeSetRecord(),
+                new ChangeSetRecord(),
+                tx,
+                /* writer is reused */
+                createChangeRowRecord()
+            };
+
+            for (DomainRecord rec : recs) {
+                assertSameJSON (
+                    DomainJSONConverter.toJSONString (rec),
+                    writer.toJSONString (rec)
+                );
+            }
+        }
+        catch (Exception e) {
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWriteToStreamAndBuffer() {
+        DomainJSONWriter writer = new DomainJSONWriter();
+
+        try {
+            ChangeRowRecord rec = createChangeRowRecord();
+            byte[] expected = writer.toJSONBytes (rec);
+
+            assertSameJSON (
+                DomainJSONConverter.toJSONString (rec),
+                new String (expected, StandardCharsets.UTF_8)
+            );
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            assertTrue (writer.write (rec, out) == expected.length);
+            assertTrue (writer.write (rec, out) == expected.length);
+            assertEquals (
+                new String (expected, StandardCharsets.UTF_8) +
+                new String (expected, StandardCharsets.UTF_8),
+                out.toString (StandardCharsets.UTF_8.name())
+            );
+
+            ByteBuffer buffer = ByteBuffer.allocate (expected.length + 1);
+            assertTrue (writer.write (rec, buffer) == expected.length);
+
+            try {
+                writer.write (rec, buffer);
+                fail ("Expecting JSON not to fit in buffer");
+            }
+            catch (Exception e) {
+                assertTrue (buffer.position() == expected.length);
+            }
+
+            assertEquals (
+                new String (expected, StandardCharsets.UTF_8),
+                new String (
+                    buffer.array(), 0, buffer.position(),
+                    StandardCharsets.UTF_8
+                )
+            );
+        }
+        catch (Exception e) {
+            fail (e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.dbvisit.replicate.plog.domain.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.dbvisit.replicate.plog.domain.ReplicateInfo;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+
+public class ReplicateBinaryCodecTest {
+    private final long PLOG_UID = 53006688148L;
+    private final long PLOG_OFFSET = 374860L;
+
+    @Test
+    public void testEncodeReplicateOffset() {
+        try {
+            ReplicateOffset offset = new ReplicateOffset (
+                PLOG_UID, PLOG_OFFSET
+            );
+
+            byte[] fixed = ReplicateBinaryCodec.encode (offset, false);
+            byte[] compact = ReplicateBinaryCodec.encode (offset, true);
+
+            assertTrue (
+                "Expecting fixed width offset",
+                fixed.length == ReplicateBinaryCodec.OFFSET_FIXED_SIZE
+            );
+            assertTrue (
+                "Expecting compact offset to be smaller",
+                compact.length < fixed.length
+            );
+
+            for (byte[] data : new byte[][] { fixed, compact }) {
+                ReplicateOffset decoded =
+                    ReplicateBinaryCodec.decodeOffset (data);
+
+                assertTrue (
+                    "Expecting offset: " + offset + ", got: " + decoded,
+                    decoded.compareTo (offset) == 0
+                );
+            }
+
+            /* negative values are not expected but must not be lost */
+            offset = new ReplicateOffset (-1L, Long.MAX_VALUE);
+            ReplicateOffset decoded = ReplicateBinaryCodec.decodeOffset (
+                ReplicateBinaryCodec.encode (offset, true)
+            );
+
+            assertTrue (decoded.getPlogUID() == -1L);
+            assertTrue (decoded.getPlogOffset() == Long.MAX_VALUE);
+
+            /* existing JSON checkpoints are still readable */
+            decoded = ReplicateBinaryCodec.decodeOffset (
+                new ReplicateOffset (PLOG_UID, PLOG_OFFSET)
+                    .toJSONString()
+                    .getBytes (StandardCharsets.UTF_8)
+            );
+
+            assertTrue (decoded.getPlogUID() == PLOG_UID);
+            assertTrue (decoded.getPlogOffset() == PLOG_OFFSET);
+        }
+        catch (Exception e) {
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEncodeReplicateInfo() {
+        try {
+            ReplicateInfo info = new ReplicateInfo();
+            info.setPlogUID (PLOG_UID);
+            info.setDataOffset (PLOG_OFFSET);
+            info.setIdentifier ("SOE.UNITTEST");
+            info.setSent (true);
+
+            for (boolean compact : new boolean[] { false, true }) {
+                ReplicateInfo decoded = ReplicateBinaryCodec.decodeInfo (
+                    ReplicateBinaryCodec.encode (info, compact)
+                );
+
+                assertTrue (decoded.getPlogUID() == PLOG_UID);
+                assertTrue (decoded.getDataOffset() == PLOG_OFFSET);
+                assertEquals ("SOE.UNITTEST", decoded.getIdentifier());
+                assertTrue (decoded.sent());
+                assertFalse (decoded.isAggregate());
+            }
+
+            /* empty replicate info */
+            ReplicateInfo decoded = ReplicateBinaryCodec.decodeInfo (
+                ReplicateBinaryCodec.encode (new ReplicateInfo(), true)
+            );
+
+            assertNull (decoded.getPlogUID());
+            assertNull (decoded.getDataOffset());
+            assertNull (decoded.getIdentifier());
+
+            decoded = ReplicateBinaryCodec.decodeInfo (
+                info.toJSONString().getBytes (StandardCharsets.UTF_8)
+            );
+
+            assertEquals ("SOE.UNITTEST", decoded.getIdentifier());
+            assertTrue (decoded.getDataOffset() == PLOG_OFFSET);
+        }
+        catch (Exception e) {
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEncodeReplicateOffsets() {
+        try {
+            Map<String, ReplicateOffset> offsets =
+                new LinkedHashMap<String, ReplicateOffset>();
+
+            offsets.put ("SOE.UNITTEST", new ReplicateOffset (PLOG_UID, 10L));
+            offsets.put ("SOE.ORDERS", new ReplicateOffset (PLOG_UID, 20L));
+            offsets.put (
+                "SOE.CUSTOMERS", new ReplicateOffset (PLOG_UID + 1, 30L)
+            );
+
+            for (boolean compact : new boolean[] { false, true }) {
+                Map<String, ReplicateOffset> decoded =
+                    ReplicateBinaryCodec.decodeOffsets (
+                        ReplicateBinaryCodec.encode (offsets, compact)
+                    );
+
+                assertEquals (offsets.keySet().toString(),
+                              decoded.keySet().toString());
+
+                for (String name : offsets.keySet()) {
+                    assertTrue (
+                        decoded.get (name).compareTo (offsets.get (name)) == 0
+                    );
+                }
+            }
+
+            Map<String, ReplicateOffset> decoded =
+                ReplicateBinaryCodec.decodeOffsets (
+                    ("{\"SOE.ORDERS\":" +
+                     offsets.get ("SOE.ORDERS").toJSONString() + "}")
+                    .getBytes (StandardCharsets.UTF_8)
+                );
+
+            assertTrue (decoded.size() == 1);
+            assertTrue (decoded.get ("SOE.ORDERS").getPlogOffset() == 20L);
+
+            /* truncated data is rejected */
+            byte[] data = ReplicateBinaryCodec.encode (offsets, true);
+            byte[] truncated = new byte[data.length - 1];
+            System.arraycopy (data, 0, truncated, 0, truncated.length);
+
+            try {
+                ReplicateBinaryCodec.decodeOffsets (truncated);
+                fail ("Expecting truncated offsets to be rejected");
+            }
+            catch (Exception e) {
+                assertTrue (e.getMessage().contains ("truncated"));
+            }
+        }
+        catch (Exception e) {
+            fail (e.getMessage());
+        }
+    }
+}
@@ -2,8 +2,13 @@ package com.dbvisit.replicate.plog.file;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -11,11 +16,18 @@ import org.slf4j.LoggerFactory;
 
 import com.dbvisit.replicate.plog.config.PlogConfig;
 import com.dbvisit.replicate.plog.config.PlogConfigType;
+import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
+import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.domain.TransactionInfoRecord;
 import com.dbvisit.replicate.plog.domain.parser.ChangeRowParser;
 import com.dbvisit.replicate.plog.domain.parser.DomainParser;
+import com.dbvisit.replicate.plog.domain.parser.MetaDataParser;
+import com.dbvisit.replicate.plog.domain.parser.TransactionInfoParser;
 import com.dbvisit.replicate.plog.file.PlogFileManager;
 import com.dbvisit.replicate.plog.format.EntryType;
 import com.dbvisit.replicate.plog.reader.DomainReader;
+import com.dbvisit.replicate.plog.reader.PlogStreamReader;
 
 /** 
  * Test the PlogFileManager
@@ -398,6 +410,580 @@ public class PlogFileManagerTest {
         }
     }
     
+    @Test
+    public void testScanWithMultiPartPlogFilesReadAhead () {
+        int i = 0;
+        try {
+            PlogConfig config = getConfigForMultiPartSet();
+            config.setConfigValue (PlogConfigType.READ_AHEAD_COUNT, "2");
+            
+            @SuppressWarnings("serial")
+            PlogFileManager fm = new PlogFileManager (
+                config,
+                DomainReader.builder().domainParsers(
+                    new HashMap<EntryType, DomainParser[]> () {{
+                        put (
+                            EntryType.ETYPE_CONTROL, 
+                            new DomainParser[] { 
+                                new ChangeRowParser() 
+                            }
+                        );
+                    }}
+                )
+            );
+            
+            assertEquals (2, fm.getReadAheadCount());
+            
+            fm.scan();
+            PlogFile plog = fm.getPlog();
+            
+            fm.setForceInterrupt();
+            
+            while (plog != null) {
+                logger.info ("Found " + plog);
+
+                assertTrue (plog.isValid());
+                assertTrue (plog.canUse());
+                assertFalse (plog.getReader().isDone());
+                
+                /* opened ahead, but not read past its control header */
+                assertEquals (
+                    PlogFile.PLOG_DATA_BYTE_OFFSET,
+                    plog.getReader().getOffset()
+                );
+                
+                assertEquals (
+                    "Expecting multi-part PLOG file in sequence",
+                    PLOG_MINE_RESTART_SET_FILENAMES[i],
+                    plog.getFileName()
+                );
+                
+                i++;
+                fm.scan();
+                plog = fm.getPlog();
+            }
+            
+        }
+        catch (InterruptedException ie) {
+            logger.info ("Forcefully interrupted");
+            assertEquals (
+                "Must have found " + PLOG_MINE_RESTART_SET_FILENAMES.length + 
+                " PLOGS",
+                PLOG_MINE_RESTART_SET_FILENAMES.length,
+                i
+            );
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            logger.error (e.getMessage());
+            fail (e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testInvalidReadAheadCount () {
+        try {
+            PlogConfig config = getConfigForMultiPartSet();
+            config.setConfigValue (PlogConfigType.READ_AHEAD_COUNT, "-1");
+            
+            new PlogFileManager (config, DomainReader.builder());
+            
+            fail ("Expecting negative read-ahead count to be rejected");
+        }
+        catch (Exception e) {
+            assertTrue (
+                e.getMessage(),
+                e.getMessage().contains ("read-ahead count")
+            );
+        }
+    }
+    
+    @Test
+    public void testScanPlogFilesWatchingLocation () {
+        int i = 0;
+        try {
+            PlogConfig config = getConfigForMultiSet();
+            config.setConfigValue (PlogConfigType.WATCH_LOCATION, "true");
+            
+            @SuppressWarnings("serial")
+            PlogFileManager fm = new PlogFileManager (
+                config,
+                DomainReader.builder().domainParsers(
+                    new HashMap<EntryType, DomainParser[]> () {{
+                        put (
+                            EntryType.ETYPE_CONTROL, 
+                            new DomainParser[] { 
+                                new ChangeRowParser() 
+                            }
+                        );
+                    }}
+                )
+            );
+            
+            fm.scan();
+            PlogFile plog = fm.getPlog();
+            
+            assertTrue (fm.isWatchingLocation());
+            
+            fm.setForceInterrupt();
+            
+            while (plog != null) {
+                logger.info ("Found " + plog);
+
+                assertTrue (plog.isValid());
+                assertTrue (plog.canUse());
+                assertEquals (
+                    "Current PLOG ID must be " + PLOG_SET_IDS[i],
+                    PLOG_SET_IDS[i],
+                    plog.getId()
+                );
+                
+                i++;
+                fm.scan();
+                plog = fm.getPlog();
+            }
+            
+        }
+        catch (InterruptedException ie) {
+            logger.info ("Forcefully interrupted");
+            assertEquals (
+                "Must have found " + PLOG_SET_IDS.length + " PLOGS",
+                PLOG_SET_IDS.length,
+                i
+            );
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            logger.error (e.getMessage());
+            fail (e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testWatchLocationForNewPlogFile () {
+        File dir = null;
+        try {
+            URL resURL = this.getClass().getResource("/data/mine/plog_multi_set");
+            File source = new File (resURL.toURI());
+            
+            dir = Files.createTempDirectory ("plog_watch").toFile();
+            
+            Files.copy (
+                new File (source, "20.plog.1468812543").toPath(),
+                new File (dir, "20.plog.1468812543").toPath()
+            );
+            
+            PlogConfig config = new PlogConfig();
+            config.setConfigValue (
+                PlogConfigType.PLOG_LOCATION_URI,
+                dir.toURI().toString()
+            );
+            /* only a watch event can end the wait for next PLOG in time */
+            config.setConfigValue (PlogConfigType.SCAN_WAIT_TIME_MS, "60000");
+            config.setConfigValue (PlogConfigType.WATCH_LOCATION, "true");
+            
+            @SuppressWarnings("serial")
+            PlogFileManager fm = new PlogFileManager (
+                config,
+                DomainReader.builder().domainParsers(
+                    new HashMap<EntryType, DomainParser[]> () {{
+                        put (
+                            EntryType.ETYPE_CONTROL, 
+                            new DomainParser[] { 
+                                new ChangeRowParser() 
+                            }
+                        );
+                    }}
+                )
+            );
+            
+            fm.startAt (PlogFile.createPlogUID (20, 1468812543));
+            fm.scan();
+            
+            assertEquals (20, fm.getPlog().getId());
+            
+            if (!fm.isWatchingLocation()) {
+                logger.warn ("Unable to watch PLOG location, skipping test");
+                fm.close();
+                return;
+            }
+            
+            /* write next PLOG in full before it appears under its name */
+            Files.copy (
+                new File (source, "21.plog.1468812547").toPath(),
+                new File (dir, ".21.tmp").toPath()
+            );
+            
+            final File written = new File (dir, ".21.tmp");
+            final File arrived = new File (dir, "21.plog.1468812547");
+            
+            Thread mine = new Thread () {
+                public void run () {
+                    try {
+                        Thread.sleep (200);
+                        Files.move (written.toPath(), arrived.toPath());
+                    } catch (Exception e) {
+                        logger.error (e.getMessage());
+                    }
+                }
+            };
+            
+            long start = System.currentTimeMillis();
+            mine.start();
+            
+            fm.scan();
+            
+            long elapsed = System.currentTimeMillis() - start;
+            
+            assertEquals (21, fm.getPlog().getId());
+            assertTrue (
+                "Expecting new PLOG to be found without waiting a full " +
+                "scan interval, took: " + elapsed + " ms",
+                elapsed < 30000
+            );
+            
+            mine.join();
+            fm.close();
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            logger.error (e.getMessage());
+            fail (e.getMessage());
+        }
+        finally {
+            if (dir != null) {
+                for (File f : dir.listFiles()) {
+                    f.delete();
+                }
+                dir.delete();
+            }
+        }
+    }
+    
+    @Test
+    public void testRestartFromCacheSnapshot () {
+        File snapshots = null;
+        try {
+            URL resURL = this.getClass().getResource(
+                "/data/mine/plog_single_addcolumn"
+            );
+            long uid = PlogFile.createPlogUID (12, 1467080596);
+            
+            snapshots = Files.createTempDirectory ("plog_snapshots").toFile();
+            
+            PlogConfig config = new PlogConfig();
+            config.setConfigValue (
+                PlogConfigType.PLOG_LOCATION_URI,
+                resURL.toString()
+            );
+            config.setConfigValue (
+                PlogConfigType.SNAPSHOT_LOCATION,
+                snapshots.getPath()
+            );
+            
+            PlogFileManager fm = new PlogFileManager (
+                config, 
+                DomainReader.builder().domainParsers(getMetaDataParsers())
+            );
+            
+            assertEquals (snapshots, fm.getSnapshotLocation());
+            
+            fm.startAt (uid);
+            fm.scan();
+            
+            PlogStreamReader reader = fm.getPlog().getReader();
+            reader.setFlushSize (1);
+            
+            /* checkpoint after the third change record */
+            List<String> expected = new ArrayList<String>();
+            ReplicateOffset checkpoint = null;
+            int count = 0;
+            
+            while (!reader.isDone()) {
+                reader.read();
+                
+                if (!reader.canFlush()) {
+                    continue;
+                }
+                
+                for (DomainRecord dr : reader.flush()) {
+                    if (!dr.isChangeRowRecord()) {
+                        continue;
+                    }
+                    
+                    if (checkpoint != null) {
+                        expected.add (dr.toJSONString());
+                    }
+                    else if (++count == 3) {
+                        checkpoint = dr.getReplicateOffset();
+                        
+                        assertEquals (
+                            checkpoint.getPlogOffset(), 
+                            reader.getOffset()
+                        );
+                        fm.checkpointCaches();
+                    }
+                }
+            }
+            fm.close();
+            
+            assertNotNull ("Expecting checkpoint", checkpoint);
+            assertFalse ("Expecting records after checkpoint", expected.isEmpty());
+            assertTrue (
+                "Expecting snapshot at checkpoint",
+                PlogCacheSnapshot.getSnapshotFile (
+                    snapshots, 
+                    uid, 
+                    checkpoint.getPlogOffset()
+                ).isFile()
+            );
+            
+            /* restart at checkpoint in new file manager */
+            fm = new PlogFileManager (
+                config, 
+                DomainReader.builder().domainParsers(getMetaDataParsers())
+            );
+            fm.startAt (checkpoint);
+            fm.scan();
+            
+            reader = fm.getPlog().getReader();
+            
+            assertEquals (
+                "Expecting PLOG to be opened at checkpoint",
+                checkpoint.getPlogOffset(), 
+                reader.getOffset()
+            );
+            assertFalse (
+                "Expecting caches restored from snapshot",
+                fm.getPlog().getSchemas().isEmpty()
+            );
+            
+            List<String> restarted = new ArrayList<String>();
+            
+            while (!reader.isDone()) {
+                reader.read();
+            }
+            
+            for (DomainRecord dr : reader.flush()) {
+                if (dr.isChangeRowRecord()) {
+                    restarted.add (dr.toJSONString());
+                }
+            }
+            fm.close();
+            
+            assertEquals (
+                "Expecting records after checkpoint",
+                expected,
+                restarted
+            );
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            logger.error (e.getMessage());
+            fail (e.getMessage());
+        }
+        finally {
+            if (snapshots != null) {
+                for (File f : snapshots.listFiles()) {
+                    f.delete();
+                }
+                snapshots.delete();
+            }
+        }
+    }
+    
+    @Test
+    public void testRestartInOpenTransaction () {
+        File snapshots = null;
+        try {
+            URL resURL = this.getClass().getResource(
+                "/data/mine/plog_single_addcolumn"
+            );
+            long uid = PlogFile.createPlogUID (12, 1467080596);
+            
+            snapshots = Files.createTempDirectory ("plog_snapshots").toFile();
+            
+            PlogConfig config = new PlogConfig();
+            config.setConfigValue (
+                PlogConfigType.PLOG_LOCATION_URI,
+                resURL.toString()
+            );
+            config.setConfigValue (
+                PlogConfigType.SNAPSHOT_LOCATION,
+                snapshots.getPath()
+            );
+            
+            PlogFileManager fm = new PlogFileManager (
+                config, 
+                DomainReader.builder().domainParsers(getTransactionParsers())
+            );
+            
+            fm.startAt (uid);
+            fm.scan();
+            
+            PlogStreamReader reader = fm.getPlog().getReader();
+            reader.setFlushSize (1);
+            
+            /* checkpoint after every change record */
+            List<DomainRecord> all = new ArrayList<DomainRecord>();
+            
+            while (!reader.isDone()) {
+                reader.read();
+                
+                if (!reader.canFlush()) {
+                    continue;
+                }
+                
+                for (DomainRecord dr : reader.flush()) {
+                    all.add (dr);
+                    
+                    if (dr.isChangeRowRecord()) {
+                        fm.checkpointCaches();
+                    }
+                }
+            }
+            fm.close();
+            
+            /* restart after the first record of last transaction */
+            TransactionInfoRecord txr = null;
+            for (DomainRecord dr : all) {
+                if (dr.isTransactionInfoRecord()) {
+                    txr = (TransactionInfoRecord)dr;
+                }
+            }
+            assertNotNull ("Expecting transaction", txr);
+            
+            ReplicateOffset checkpoint = null;
+            for (DomainRecord dr : all) {
+                if (dr.isChangeRowRecord() &&
+                    ((ChangeRowRecord)dr).getId() == txr.getStartRecordId())
+                {
+                    checkpoint = dr.getReplicateOffset();
+                }
+            }
+            
+            assertNotNull ("Expecting start of transaction", checkpoint);
+            assertTrue (
+                "Expecting transaction to span checkpoint",
+                checkpoint.compareTo (txr.getReplicateOffset()) < 0
+            );
+            assertTrue (
+                "Expecting snapshot at checkpoint",
+                PlogCacheSnapshot.getSnapshotFile (
+                    snapshots, 
+                    uid, 
+                    checkpoint.getPlogOffset()
+                ).isFile()
+            );
+            
+            List<String> expected = new ArrayList<String>();
+            for (DomainRecord dr : all) {
+                if (dr.getReplicateOffset().compareTo (checkpoint) > 0) {
+                    expected.add (dr.toJSONString());
+                }
+            }
+            
+            /* restart at checkpoint in new file manager */
+            fm = new PlogFileManager (
+                config, 
+                DomainReader.builder().domainParsers(getTransactionParsers())
+            );
+            fm.startAt (checkpoint);
+            fm.scan();
+            
+            reader = fm.getPlog().getReader();
+            
+            /* records up to checkpoint are read again, skip them */
+            List<String> restarted = new ArrayList<String>();
+            
+            while (!reader.isDone()) {
+                reader.read();
+            }
+            
+            for (DomainRecord dr : reader.flush()) {
+                if (dr.getReplicateOffset().compareTo (checkpoint) > 0) {
+                    restarted.add (dr.toJSONString());
+                }
+            }
+            fm.close();
+            
+            assertEquals (
+                "Expecting complete transaction after checkpoint",
+                expected,
+                restarted
+            );
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            logger.error (e.getMessage());
+            fail (e.getMessage());
+        }
+        finally {
+            if (snapshots != null) {
+                for (File f : snapshots.listFiles()) {
+                    f.delete();
+                }
+                snapshots.delete();
+            }
+        }
+    }
+    
+    /**
+     * Return new domain parsers for PLOG meta data and change records
+     * 
+     * @return domain parsers by entry type
+     */
+    @SuppressWarnings("serial")
+    private Map<EntryType, DomainParser[]> getMetaDataParsers () {
+        return new HashMap<EntryType, DomainParser[]> () {{
+            put (
+                EntryType.ETYPE_METADATA, 
+                new DomainParser[] { 
+                    new MetaDataParser() 
+                }
+            );
+            put (
+                EntryType.ETYPE_LCR_DATA, 
+                new DomainParser[] { 
+                    new ChangeRowParser() 
+                }
+            );
+        }};
+    }
+    
+    /**
+     * Return new domain parsers for PLOG meta data, change records and the
+     * transactions they are in
+     * 
+     * @return domain parsers by entry type
+     */
+    @SuppressWarnings("serial")
+    private Map<EntryType, DomainParser[]> getTransactionParsers () {
+        final TransactionInfoParser txParser = new TransactionInfoParser();
+        
+        return new HashMap<EntryType, DomainParser[]> () {{
+            put (
+                EntryType.ETYPE_METADATA, 
+                new DomainParser[] { 
+                    new MetaDataParser() 
+                }
+            );
+            put (
+                EntryType.ETYPE_LCR_DATA, 
+                new DomainParser[] { 
+                    new ChangeRowParser(),
+                    txParser
+                }
+            );
+            put (
+                EntryType.ETYPE_TRANSACTIONS, 
+                new DomainParser[] { 
+                    txParser
+                }
+            );
+        }};
+    }
+    
     @Test
     public void testStartScanAtMultiPartPlogFile () {
         int i = 0;
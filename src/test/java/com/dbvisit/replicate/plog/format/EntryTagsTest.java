@@ -0,0 +1,130 @@
+package com.dbvisit.replicate.plog.format;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/** Test the flat tag store of entry records */
+public class EntryTagsTest {
+
+    @Test
+    public void testTagsByTypeInEncodedOrder() {
+        EntryRecord rec = new EntryRecord();
+
+        /* interleaved tags, as encoded for column data */
+        EntryTagType[] types = {
+            EntryTagType.TAG_SCN,
+            EntryTagType.TAG_COL_ID,
+            EntryTagType.TAG_POSTIMAGE,
+            EntryTagType.TAG_COL_ID,
+            EntryTagType.TAG_POSTIMAGE,
+            EntryTagType.TAG_COL_ID,
+            EntryTagType.TAG_POSTIMAGE
+        };
+
+        for (int s = 0; s < types.length; s++) {
+            rec.addEntryTag (types[s], tag (s));
+        }
+
+        EntryTags tags = rec.getEntryTags();
+
+        assertEquals (types.length, tags.getNumTags());
+        assertEquals (3, tags.size());
+        assertEquals (3, rec.getEntryTagCount (EntryTagType.TAG_COL_ID));
+        assertEquals (0, rec.getEntryTagCount (EntryTagType.TAG_LOBDATA));
+        assertFalse (rec.hasEntryTag (EntryTagType.TAG_LOBDATA));
+        assertNull (rec.getEntryTag (EntryTagType.TAG_LOBDATA));
+        assertNull (tags.get (EntryTagType.TAG_LOBDATA));
+
+        assertEquals (0, rec.getEntryTag (EntryTagType.TAG_SCN).getSequence());
+        assertEquals (
+            1,
+            rec.getEntryTag (EntryTagType.TAG_COL_ID).getSequence()
+        );
+
+        List<EntryTagRecord> values = tags.get (EntryTagType.TAG_POSTIMAGE);
+        assertEquals (3, values.size());
+
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals (2 + 2 * i, values.get (i).getSequence());
+            assertSame (
+                values.get (i),
+                tags.get (EntryTagType.TAG_POSTIMAGE, i)
+            );
+        }
+
+        for (int s = 0; s < tags.getNumTags(); s++) {
+            assertEquals (types[s], tags.getTagType (s));
+            assertEquals (s, tags.getTag (s).getSequence());
+        }
+    }
+
+    @Test
+    public void testReuseAfterClear() {
+        EntryRecord rec = new EntryRecord();
+
+        /* grow past initial size, then reuse for a smaller record */
+        for (int s = 0; s < 100; s++) {
+            rec.addEntryTag (EntryTagType.TAG_COL_ID, tag (s));
+        }
+        assertEquals (100, rec.getEntryTagCount (EntryTagType.TAG_COL_ID));
+
+        rec.clear();
+
+        assertEquals (0, rec.getEntryTags().getNumTags());
+        assertTrue (rec.getEntryTags().isEmpty());
+        assertFalse (rec.hasEntryTag (EntryTagType.TAG_COL_ID));
+
+        rec.addEntryTag (EntryTagType.TAG_SCN, tag (0));
+
+        assertEquals (1, rec.getEntryTags().size());
+        assertEquals (1, rec.getEntryTags().get (EntryTagType.TAG_SCN).size());
+        assertFalse (rec.getEntryTags().containsKey (EntryTagType.TAG_COL_ID));
+    }
+
+    @Test
+    public void testSetEntryTagsKeepsEncodedOrder() {
+        Map<EntryTagType, List<EntryTagRecord>> map =
+            new HashMap<EntryTagType, List<EntryTagRecord>>();
+
+        List<EntryTagRecord> ids = new LinkedList<EntryTagRecord>();
+        ids.add (tag (0));
+        ids.add (tag (2));
+
+        List<EntryTagRecord> names = new LinkedList<EntryTagRecord>();
+        names.add (tag (1));
+        names.add (tag (3));
+
+        map.put (EntryTagType.TAG_COL_ID, ids);
+        map.put (EntryTagType.TAG_COL_NAME, names);
+
+        EntryRecord rec = new EntryRecord();
+        rec.setEntryTags (map);
+
+        EntryTags tags = rec.getEntryTags();
+
+        assertEquals (map, tags);
+
+        for (int s = 0; s < tags.getNumTags(); s++) {
+            assertEquals (s, tags.getTag (s).getSequence());
+            assertEquals (
+                s % 2 == 0
+                ? EntryTagType.TAG_COL_ID
+                : EntryTagType.TAG_COL_NAME,
+                tags.getTagType (s)
+            );
+        }
+    }
+
+    private EntryTagRecord tag (int sequence) {
+        EntryTagRecord tag = new EntryTagRecord();
+        tag.setSequence (sequence);
+
+        return tag;
+    }
+}
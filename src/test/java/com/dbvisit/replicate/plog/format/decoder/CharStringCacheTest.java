@@ -0,0 +1,91 @@
+package com.dbvisit.replicate.plog.format.decoder;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+/** Test resolving raw null-terminated strings to cached strings */
+public class CharStringCacheTest {
+    
+    @Test
+    public void testDecodeCharStringIsCanonical() {
+        try {
+            String first  = SimpleDataDecoder.decodeCharString (
+                encodeCharString ("UNITTEST")
+            );
+            String second = SimpleDataDecoder.decodeCharString (
+                encodeCharString ("UNITTEST")
+            );
+            String other  = SimpleDataDecoder.decodeCharString (
+                encodeCharString ("UNITTESTS")
+            );
+            
+            assertEquals ("UNITTEST", first);
+            assertSame (
+                "Expecting identical names to be the same string",
+                first,
+                second
+            );
+            assertEquals ("UNITTESTS", other);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testCacheIsBounded() {
+        /* a single entry cache, every new string replaces previous one */
+        CharStringCache cache = new CharStringCache (1);
+        
+        try {
+            String a1 = decode (cache, "SOE");
+            String b1 = decode (cache, "UNITTEST");
+            String a2 = decode (cache, "SOE");
+            String a3 = decode (cache, "SOE");
+            
+            assertEquals ("SOE", a1);
+            assertEquals ("UNITTEST", b1);
+            assertNotSame ("Expecting evicted string to be decoded", a1, a2);
+            assertSame ("Expecting cached string", a2, a3);
+            
+            /* too long to cache, but still decoded */
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i <= CharStringCache.MAX_CACHED_LENGTH; i++) {
+                sb.append ('X');
+            }
+            String l1 = decode (cache, sb.toString());
+            String l2 = decode (cache, sb.toString());
+            
+            assertEquals (sb.toString(), l1);
+            assertNotSame ("Expecting long string not cached", l1, l2);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+    
+    private String decode (CharStringCache cache, String str) 
+    throws Exception {
+        ByteBuffer data = encodeCharString (str);
+        int hash = CharStringCache.HASH_SEED;
+        
+        for (int i = 0; i < str.length(); i++) {
+            hash = CharStringCache.hash (hash, data.get(i));
+        }
+        
+        return cache.decode (data, str.length(), hash, "US-ASCII");
+    }
+    
+    private ByteBuffer encodeCharString (String str) {
+        /* padded to PLOG chunks, null terminated */
+        ByteBuffer data = ByteBuffer.allocate ((str.length() / 4 + 1) * 4);
+        data.order (ByteOrder.LITTLE_ENDIAN);
+        data.put (str.getBytes());
+        
+        return data;
+    }
+}
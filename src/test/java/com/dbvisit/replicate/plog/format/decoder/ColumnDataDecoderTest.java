@@ -3,10 +3,14 @@ package com.dbvisit.replicate.plog.format.decoder;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Random;
 import java.util.TimeZone;
 
 import javax.sql.rowset.serial.SerialBlob;
@@ -15,6 +19,8 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.dbvisit.replicate.plog.format.EntryTagRecord;
+
 /** Simple tests for validating decoding of the raw data payload of
  *  entry tag records in PLOG 
  */
@@ -461,4 +467,479 @@ public class ColumnDataDecoderTest {
         }
     }
 
+    @Test
+    public void testDecodeFromTagDataView() {
+        final int []VARCHAR2 = {
+            60, 1953719636, 1634231072, 1952670066, 1931506277,
+            1852404340, 1869881447, 1667589152, 543515759, 825237549,
+            892613426, 959985462, 2116037920, 606289953, 707157541,
+            727656744
+        };
+        final int []LONG_NUMBER = {
+            10, 1684277961, 1684300900, 25700
+        };
+        
+        try {
+            /* read buffer with both pay loads surrounded by other data */
+            ByteBuffer buffer = ByteBuffer.allocate (
+                (VARCHAR2.length + LONG_NUMBER.length + 3) * 4
+            );
+            buffer.order (ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt (-1);
+            buffer.asIntBuffer().put (VARCHAR2);
+            buffer.position (buffer.position() + VARCHAR2.length * 4);
+            buffer.putInt (-1);
+            buffer.asIntBuffer().put (LONG_NUMBER);
+            buffer.position (buffer.position() + LONG_NUMBER.length * 4);
+            buffer.putInt (-1);
+            
+            EntryTagRecord stringTag = new EntryTagRecord();
+            stringTag.setData (buffer, 4, VARCHAR2.length * 4);
+            
+            EntryTagRecord numberTag = new EntryTagRecord();
+            numberTag.setData (
+                buffer, 
+                (VARCHAR2.length + 2) * 4,
+                LONG_NUMBER.length * 4
+            );
+            
+            assertEquals (
+                ColumnDataDecoder.decodeString (VARCHAR2),
+                ColumnDataDecoder.decodeString (stringTag.getData())
+            );
+            assertEquals (
+                ColumnDataDecoder.decodeNumberAsLong (LONG_NUMBER, 0),
+                ColumnDataDecoder.decodeNumberAsLong (numberTag.getData(), 0)
+            );
+            
+            /* compatibility path materialises the chunk data of view */
+            assertArrayEquals (VARCHAR2, stringTag.getRawData());
+            assertArrayEquals (LONG_NUMBER, numberTag.getRawData());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDecodeNumberMatchesDecimalStringDecoding() {
+        /* random, but repeatable, Oracle numbers of all lengths */
+        final Random random = new Random (20170101L);
+        final int NUM_NUMBERS = 20000;
+        
+        try {
+            for (int i = 0; i < NUM_NUMBERS; i++) {
+                boolean negative = random.nextBoolean();
+                int digits = 1 + random.nextInt (20);
+                int exponent = random.nextInt (41) - 20;
+                int scale = random.nextInt (20) - 6;
+                
+                ByteBuffer data = encodeNumber (
+                    random,
+                    negative,
+                    digits,
+                    exponent
+                );
+                
+                BigDecimal expected = decodeNumberAsDecimalString (
+                    data,
+                    scale
+                );
+                BigDecimal decoded = ColumnDataDecoder.decodeNumber (
+                    data,
+                    scale
+                );
+                
+                assertEquals (
+                    "Number " + expected + " at scale: " + scale,
+                    expected,
+                    decoded
+                );
+                
+                if (scale > 0) {
+                    continue;
+                }
+                
+                /* integral decoding must agree, including overflows */
+                Long expectedLong = null;
+                try {
+                    expectedLong = expected.longValueExact();
+                } catch (ArithmeticException e) {
+                    /* not a long */
+                }
+                
+                Long decodedLong = null;
+                try {
+                    decodedLong = 
+                        ColumnDataDecoder.decodeNumberAsLong (data, scale);
+                } catch (Exception e) {
+                    /* not a long */
+                }
+                
+                assertEquals (
+                    "Long " + expected + " at scale: " + scale,
+                    expectedLong,
+                    decodedLong
+                );
+                
+                Integer expectedInt = null;
+                try {
+                    expectedInt = expected.intValueExact();
+                } catch (ArithmeticException e) {
+                    /* not an integer */
+                }
+                
+                Integer decodedInt = null;
+                try {
+                    decodedInt = 
+                        ColumnDataDecoder.decodeNumberAsInt (data, scale);
+                } catch (Exception e) {
+                    /* not an integer */
+                }
+                
+                assertEquals (
+                    "Integer " + expected + " at scale: " + scale,
+                    expectedInt,
+                    decodedInt
+                );
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testDecodeDateMatchesCalendarDecoding() {
+        final Random random = new Random (20170102L);
+        final String[] DEFAULT_ZONES = { "UTC", "Pacific/Auckland" };
+        
+        TimeZone defaultZone = TimeZone.getDefault();
+        
+        try {
+            for (String zone : DEFAULT_ZONES) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                
+                /* every month of every year from 4700 BC to 9999 AD */
+                for (int century = 53; century < 200; century++) {
+                    for (int year = 100; year < 200; year++) {
+                        for (int month = 1; month <= 12; month++) {
+                            int day = 1 + random.nextInt (31);
+                            
+                            assertDecodedDatesMatch (
+                                encodeTimestamp (
+                                    random,
+                                    new int[] {
+                                        century, year, month, day,
+                                        1 + random.nextInt (24),
+                                        1 + random.nextInt (60),
+                                        1 + random.nextInt (60)
+                                    },
+                                    random.nextBoolean()
+                                )
+                            );
+                        }
+                    }
+                }
+                
+                /* any field values, including out of range */
+                for (int i = 0; i < 50000; i++) {
+                    int[] fields = new int[7];
+                    for (int f = 0; f < fields.length; f++) {
+                        fields[f] = random.nextInt (256);
+                    }
+                    
+                    assertDecodedDatesMatch (
+                        encodeTimestamp (random, fields, random.nextBoolean())
+                    );
+                }
+                
+                /* internal time of LCRs, in default time zone */
+                for (int i = 0; i < 50000; i++) {
+                    int t = random.nextInt();
+                    
+                    assertEquals (
+                        "Internal date: " + t,
+                        decodeInternalDateWithCalendar (t),
+                        SimpleDataDecoder.decodeDate (
+                            ByteBuffer.allocate (4)
+                                      .order (ByteOrder.LITTLE_ENDIAN)
+                                      .putInt (0, t)
+                        )
+                    );
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+    
+    /**
+     * Assert that the date and time stamp decoders agree with decoding
+     * using a calendar, as they were decoded before
+     */
+    private void assertDecodedDatesMatch (ByteBuffer data) throws Exception {
+        Timestamp expected = decodeDateWithCalendar (data, false);
+        Timestamp decoded  = ColumnDataDecoder.decodeDate (data);
+        
+        assertEquals ("Date", expected, decoded);
+        assertEquals (
+            "Date as epoch milliseconds",
+            expected.getTime(),
+            ColumnDataDecoder.decodeDateAsEpochMillis (data)
+        );
+        
+        expected = decodeDateWithCalendar (data, true);
+        decoded  = ColumnDataDecoder.decodeTimestamp (data);
+        
+        assertEquals ("Timestamp", expected, decoded);
+        
+        long seconds = expected.getTime() / 1000;
+        if (expected.getTime() % 1000 < 0) {
+            seconds--;
+        }
+        if (Math.abs (seconds) < Long.MAX_VALUE / 1000000000L - 1) {
+            assertEquals (
+                "Timestamp as epoch nano seconds",
+                seconds * 1000000000L + expected.getNanos(),
+                ColumnDataDecoder.decodeTimestampAsEpochNanos (data)
+            );
+        }
+        
+        /* a time stamp with UTC and other time zone bytes */
+        int rawLength = data.getInt(0);
+        
+        for (boolean utc : new boolean[] { true, false }) {
+            ByteBuffer tz = ByteBuffer.allocate (data.capacity() + 4);
+            tz.order (ByteOrder.LITTLE_ENDIAN);
+            tz.putInt (rawLength + 2);
+            for (int b = 0; b < rawLength; b++) {
+                tz.put (data.get (4 + b));
+            }
+            tz.put ((byte)(utc ? 0xd0 : 0xd1));
+            tz.put ((byte)0x4);
+            
+            expected = decodeDateWithCalendar (
+                data,
+                false, 
+                utc ? TimeZone.getTimeZone("UTC") : null
+            );
+            expected.setNanos (decodeRawNanos (data));
+            
+            assertEquals (
+                "Timestamp with time zone",
+                expected,
+                ColumnDataDecoder.decodeTimestampWithTz (tz)
+            );
+        }
+    }
+    
+    /**
+     * Encode an Oracle date, and optionally the fractional seconds of a time
+     * stamp as PLOG tag data pay load
+     */
+    private ByteBuffer encodeTimestamp (
+        Random random,
+        int[] fields,
+        boolean fractional
+    ) {
+        int rawLength = fractional ? 11 : 7;
+        ByteBuffer data = ByteBuffer.allocate (4 + 12);
+        data.order (ByteOrder.LITTLE_ENDIAN);
+        data.putInt (rawLength);
+        for (int f : fields) {
+            data.put ((byte)f);
+        }
+        if (fractional) {
+            data.putInt (
+                Integer.reverseBytes (random.nextInt (1000000000))
+            );
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Decode the fractional seconds of a time stamp as encoded
+     */
+    private int decodeRawNanos (ByteBuffer data) {
+        int nanos = 0;
+        for (int j = 7; j < data.getInt(0); j++) {
+            nanos = (nanos << 8) + ((int) data.get(4 + j) & 0xFF);
+        }
+        return nanos;
+    }
+    
+    /**
+     * Reference decoding of Oracle date or time stamp using a calendar, as
+     * it was decoded before it was calculated directly from its fields
+     */
+    private Timestamp decodeDateWithCalendar (
+        ByteBuffer data,
+        boolean timestamp
+    ) {
+        return decodeDateWithCalendar (
+            data,
+            timestamp,
+            TimeZone.getTimeZone("UTC")
+        );
+    }
+    
+    /**
+     * Reference decoding of Oracle date or time stamp using a calendar in
+     * the time zone provided, or default time zone when null
+     */
+    private Timestamp decodeDateWithCalendar (
+        ByteBuffer data,
+        boolean timestamp,
+        TimeZone zone
+    ) {
+        int year = 
+            (((int) data.get(4) & 0xFF) - 100) * 100 + 
+            (((int) data.get(5) & 0xFF) - 100);
+        int month  = data.get(6) - 1;
+        int day    = data.get(7);
+        int hour   = data.get(8) - 1;
+        int minute = data.get(9) - 1;
+        int second = data.get(10) - 1;
+        
+        GregorianCalendar gcal = 
+            new GregorianCalendar(year, month, day, hour, minute, second);
+        if (zone != null) {
+            gcal.setTimeZone(zone);
+        }
+        
+        Timestamp ts = new Timestamp(gcal.getTimeInMillis());
+        
+        if (timestamp) {
+            int umilli = decodeRawNanos (data);
+            if (umilli > 999999999) {
+                umilli = 999999999;
+            }
+            if (umilli < 0) {
+                umilli = 0;
+            }
+            ts.setNanos(umilli);
+        }
+        
+        return ts;
+    }
+    
+    /**
+     * Reference decoding of Oracle internal time using a calendar
+     */
+    private Timestamp decodeInternalDateWithCalendar (int t) {
+        int seconds, minutes, hours, day, month, year;
+
+        seconds = t % 60;
+        t /= 60;
+        minutes = t % 60;
+        t /= 60;
+        hours = t % 24;
+        t /= 24;
+        day = t % 31 + 1;
+        t /= 31;
+        month = t % 12 + 1;
+        t /= 12;
+        year = t + 1988;
+
+        GregorianCalendar gc = new GregorianCalendar(
+            year, 
+            month - 1 ,
+            day,
+            hours,
+            minutes,
+            seconds
+        );
+
+        return new Timestamp(gc.getTimeInMillis());
+    }
+    
+    /**
+     * Encode a random Oracle number as PLOG tag data pay load
+     */
+    private ByteBuffer encodeNumber (
+        Random random,
+        boolean negative,
+        int digits,
+        int exponent
+    ) {
+        int rawLength = 1 + digits + (negative ? 1 : 0);
+        ByteBuffer data = ByteBuffer.allocate (
+            4 + ((rawLength + 3) / 4) * 4
+        );
+        data.order (ByteOrder.LITTLE_ENDIAN);
+        data.putInt (rawLength);
+        data.put ((byte)(negative ? 0x3e - exponent : 0xc1 + exponent));
+        
+        for (int d = 0; d < digits; d++) {
+            /* mostly small or large digit pairs to hit rounding edges */
+            int pair;
+            switch (random.nextInt (4)) {
+                case 0:  pair = 0;  break;
+                case 1:  pair = 50; break;
+                case 2:  pair = 99; break;
+                default: pair = random.nextInt (100);
+            }
+            data.put ((byte)(negative ? 101 - pair : pair + 1));
+        }
+        
+        if (negative) {
+            data.put ((byte)0x66);
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Reference decoding of Oracle number via its decimal string, as it
+     * was decoded before it was decoded directly from its digit pairs
+     */
+    private BigDecimal decodeNumberAsDecimalString (
+        ByteBuffer data,
+        int scale
+    ) {
+        int rawLength = data.getInt(0);
+        int length;
+        int shift;
+        StringBuilder rtval = new StringBuilder();
+        
+        if (data.get(4 + rawLength - 1) == 0x66) {
+            length = rawLength - 1;
+            shift = -(((int) data.get(4) & 0xFF) - 0x3e);
+            rtval.append("-.");
+            for (int o = 1; o < length; o++) {
+                rtval.append(
+                    String.format(
+                        "%02d",
+                        101 - ((int) data.get(4 + o) & 0xFF)
+                    )
+                );
+            }
+        }
+        else {
+            length = rawLength;
+            rtval.append(".");
+            shift = ((int) data.get(4) & 0xFF) - 0xc1;
+            for (int o = 1; o < length; o++) {
+                rtval.append(
+                    String.format(
+                        "%02d",
+                        ((int) data.get(4 + o) & 0xFF) - 1
+                    )
+                );
+            }
+        }
+        
+        BigDecimal bd = new BigDecimal(rtval.toString());
+        bd = bd.scaleByPowerOfTen(shift * 2 + 2);
+        
+        return new BigDecimal (
+            bd.toPlainString()
+        ).setScale (scale, BigDecimal.ROUND_HALF_DOWN);
+    }
+
 }
@@ -0,0 +1,145 @@
+package com.dbvisit.replicate.plog.format.decoder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Timestamp;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark decoding of Oracle TIMESTAMP column values using a calendar per
+ * value, as before, versus calculating them directly from the date fields,
+ * as time stamp and as primitive nano seconds since epoch.
+ *
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.dbvisit.replicate.plog.format.decoder.DateDecodeBenchmark
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DateDecodeBenchmark {
+    private static final int NUM_VALUES = 1024;
+
+    /** Encoded TIMESTAMP values, years 1970 to 2069 */
+    private ByteBuffer[] values;
+
+    @Setup
+    public void setup () {
+        Random random = new Random (1L);
+
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+
+        values = new ByteBuffer[NUM_VALUES];
+
+        for (int i = 0; i < NUM_VALUES; i++) {
+            ByteBuffer data = ByteBuffer.allocate (16);
+            data.order (ByteOrder.LITTLE_ENDIAN);
+            data.putInt (11);
+            data.put ((byte)(119 + random.nextInt (2)));
+            data.put ((byte)(100 + random.nextInt (100)));
+            data.put ((byte)(1 + random.nextInt (12)));
+            data.put ((byte)(1 + random.nextInt (28)));
+            data.put ((byte)(1 + random.nextInt (24)));
+            data.put ((byte)(1 + random.nextInt (60)));
+            data.put ((byte)(1 + random.nextInt (60)));
+            data.putInt (Integer.reverseBytes (random.nextInt (1000000000)));
+
+            values[i] = data;
+        }
+    }
+
+    @Benchmark
+    public long calendarDecode () {
+        long sum = 0L;
+
+        for (ByteBuffer data : values) {
+            sum += decodeTimestampWithCalendar (data).getTime();
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long timestampDecode () throws Exception {
+        long sum = 0L;
+
+        for (ByteBuffer data : values) {
+            sum += ColumnDataDecoder.decodeTimestamp (data).getTime();
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long epochNanosDecode () throws Exception {
+        long sum = 0L;
+
+        for (ByteBuffer data : values) {
+            sum += ColumnDataDecoder.decodeTimestampAsEpochNanos (data);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Decoding of time stamp using a calendar, as used before decoding
+     * directly from the date fields
+     *
+     * @param data PLOG tag data pay load
+     *
+     * @return decoded time stamp
+     */
+    private Timestamp decodeTimestampWithCalendar (ByteBuffer data) {
+        int rawLength = data.getInt(0);
+        int year =
+            (((int) data.get(4) & 0xFF) - 100) * 100 +
+            (((int) data.get(5) & 0xFF) - 100);
+        int month  = data.get(6) - 1;
+        int day    = data.get(7);
+        int hour   = data.get(8) - 1;
+        int minute = data.get(9) - 1;
+        int second = data.get(10) - 1;
+
+        GregorianCalendar gcal =
+            new GregorianCalendar(year, month, day, hour, minute, second);
+        gcal.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        int umilli = 0;
+        for (int j = 7; j < rawLength; j++) {
+            umilli = (umilli << 8) + ((int) data.get(4 + j) & 0xFF);
+        }
+
+        Timestamp ts = new Timestamp(gcal.getTimeInMillis());
+        ts.setNanos(umilli);
+
+        return ts;
+    }
+
+    public static void main (String[] args) throws Exception {
+        new Runner (
+            new OptionsBuilder()
+                .include(DateDecodeBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,212 @@
+package com.dbvisit.replicate.plog.format.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.format.EntryTagRecord;
+import com.dbvisit.replicate.plog.format.PlogHeader;
+
+/**
+ * Benchmark decoding of the PLOG chunks in entry tag records, per chunk
+ * as before versus bulk decoding of tag pay load, over all bundled test
+ * PLOGs. Each operation decodes all bundled PLOGs, the decode rate is
+ * reported in bytes per second by the <em>bytes</em> counter of each
+ * benchmark.
+ *
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.dbvisit.replicate.plog.format.parser.ChunkDecodeBenchmark
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChunkDecodeBenchmark {
+    private static final String PLOG_LOCATION = "/data/mine";
+
+    /** Raw contents of all bundled PLOGs */
+    private List<byte[]> plogs;
+    /** Total number of bytes in all bundled PLOGs */
+    private long totalBytes;
+    /** Parser to use for decoding chunks */
+    private final FormatParser parser = new FormatParser() {};
+
+    @Setup
+    public void setup () throws Exception {
+        URL resURL = this.getClass().getResource(PLOG_LOCATION);
+
+        if (resURL == null) {
+            throw new Exception (
+                "Mine test path resource is not setup correctly"
+            );
+        }
+
+        plogs = new ArrayList<byte[]>();
+        totalBytes = 0L;
+
+        for (File dir : new File (resURL.getFile()).listFiles()) {
+            if (!dir.isDirectory() || dir.getName().equals("plog_invalid")) {
+                continue;
+            }
+            for (File file : dir.listFiles()) {
+                byte[] bytes = Files.readAllBytes(file.toPath());
+
+                plogs.add (bytes);
+                totalBytes += bytes.length;
+            }
+        }
+    }
+
+    /**
+     * Counter of the PLOG bytes decoded, reported by JMH as a rate in
+     * bytes per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class BytesDecoded {
+        /** Number of PLOG bytes decoded in iteration */
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset () {
+            bytes = 0L;
+        }
+    }
+
+    @Benchmark
+    public long perChunkDecode (BytesDecoded counter) throws Exception {
+        long sum = 0L;
+
+        for (byte[] plog : plogs) {
+            sum += decode (plog, false);
+        }
+        counter.bytes += totalBytes;
+
+        return sum;
+    }
+
+    @Benchmark
+    public long bulkDecode (BytesDecoded counter) throws Exception {
+        long sum = 0L;
+
+        for (byte[] plog : plogs) {
+            sum += decode (plog, true);
+        }
+        counter.bytes += totalBytes;
+
+        return sum;
+    }
+
+    /**
+     * Decode all entry records and tag pay loads in PLOG
+     *
+     * @param plog raw bytes of PLOG
+     * @param bulk whether or not to decode tag pay load in bulk
+     *
+     * @return checksum of all decoded chunks
+     * @throws Exception when a decode error occurred
+     */
+    private long decode (byte[] plog, boolean bulk) throws Exception {
+        DataInputStream input = new DataInputStream (
+            new ByteArrayInputStream (plog)
+        );
+        long sum = 0L;
+
+        try {
+            input.skipBytes(PlogHeader.HEADER_SIGNATURE_LENGTH + 8);
+
+            while (true) {
+                int length = parser.parseSwappedInteger(input);
+                /* type and sub type */
+                sum += parser.parseSwappedInteger(input);
+                sum += parser.parseSwappedInteger(input);
+
+                int chunksRead = EntryRecord.DATA_CHUNK_OFFSET;
+
+                while (chunksRead < length) {
+                    int tagLength = parser.parseSwappedInteger(input);
+                    sum += parser.parseSwappedInteger(input);
+
+                    int size = tagLength - EntryTagRecord.DATA_CHUNK_OFFSET;
+                    int[] rawData = new int[size];
+
+                    if (bulk) {
+                        parser.parseSwappedIntegers(input, rawData, size);
+                    }
+                    else {
+                        for (int i = 0; i < size; i++) {
+                            rawData[i] = parseSwappedIntegerPerByte(input);
+                        }
+                    }
+
+                    for (int i = 0; i < size; i++) {
+                        sum += rawData[i];
+                    }
+
+                    chunksRead += tagLength;
+                }
+            }
+        } catch (EOFException e) {
+            /* end of PLOG */
+        }
+
+        return sum;
+    }
+
+    /**
+     * The per chunk decoding of PLOG integer, as used before bulk decoding
+     *
+     * @param input the data input stream
+     *
+     * @return decoded integer value
+     * @throws Exception when an I/O error occurred
+     */
+    private int parseSwappedIntegerPerByte (DataInputStream input)
+    throws Exception {
+        byte[] bytes = new byte[4];
+
+        for (int i = 0; i < 4; i++) {
+            bytes[i] = input.readByte();
+        }
+
+        return
+            ((bytes[0] & 0xFF) << 0) +
+            ((bytes[1] & 0xFF) << 8) +
+            ((bytes[2] & 0xFF) << 16) +
+            ((bytes[3] & 0xFF) << 24);
+    }
+
+    public static void main (String[] args) throws Exception {
+        new Runner (
+            new OptionsBuilder()
+                .include(ChunkDecodeBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
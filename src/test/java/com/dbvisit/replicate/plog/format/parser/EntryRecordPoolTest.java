@@ -0,0 +1,184 @@
+package com.dbvisit.replicate.plog.format.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.format.EntryTagRecord;
+import com.dbvisit.replicate.plog.format.EntryTagType;
+
+/** Test recycling of entry records, tag records and pay load buffers */
+public class EntryRecordPoolTest {
+    private static final int TAG_DATA_CHUNKS = 4;
+
+    @Test
+    public void testRecycleRecordsAndTags() {
+        EntryRecordPool pool = new EntryRecordPool ();
+        EntryRecordParser parser = EntryRecordParser.getParser();
+
+        try {
+            DataInputStream input = new DataInputStream (
+                new ByteArrayInputStream (encodeRecords (2, 3))
+            );
+
+            EntryRecord first = parser.parse (input, pool);
+            assertSame (pool.getRecord(), first);
+            assertEquals (3, first.getEntryTagCount (EntryTagType.TAG_SCN));
+            assertTrue (
+                "Expecting pay load in retained buffer",
+                first.hasRecycledPayload()
+            );
+
+            EntryTagRecord tag = first.getEntryTag (EntryTagType.TAG_SCN);
+            pool.recycle (first);
+
+            assertFalse (first.hasEntryTag (EntryTagType.TAG_SCN));
+
+            EntryRecord second = parser.parse (input, pool);
+            assertSame (first, second);
+            assertEquals (3, second.getEntryTagCount (EntryTagType.TAG_SCN));
+
+            /* recycled in last in first out order */
+            assertSame (tag, second.getEntryTags().getTag (2));
+            assertEquals (
+                2L,
+                second.getEntryTag (EntryTagType.TAG_SCN).getData().getLong (0)
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLargePayloadIsNotRetained() {
+        /* room for the pay load of one tag only */
+        EntryRecordPool pool = new EntryRecordPool (
+            (TAG_DATA_CHUNKS + EntryTagRecord.DATA_CHUNK_OFFSET) * 4
+        );
+
+        ByteBuffer small = pool.getPayload (16);
+        assertTrue (pool.isRetained (small));
+        assertEquals (ByteOrder.LITTLE_ENDIAN, small.order());
+        assertEquals (16, small.limit());
+        assertSame (small, pool.getPayload (8));
+
+        ByteBuffer large = pool.getPayload (1024);
+        assertFalse (pool.isRetained (large));
+        assertEquals (ByteOrder.LITTLE_ENDIAN, large.order());
+        assertEquals (1024, large.limit());
+
+        try {
+            DataInputStream input = new DataInputStream (
+                new ByteArrayInputStream (encodeRecords (1, 3))
+            );
+
+            EntryRecord rec =
+                EntryRecordParser.getParser().parse (input, pool);
+
+            assertEquals (3, rec.getEntryTagCount (EntryTagType.TAG_SCN));
+            assertFalse (
+                "Expecting large pay load to not be in retained buffer",
+                rec.hasRecycledPayload()
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFilterSkipsRecordsWithoutDecodingTags() {
+        EntryRecordPool pool = new EntryRecordPool ();
+        EntryRecordParser parser = EntryRecordParser.getParser();
+
+        /* skip first record by type, second by its SCN */
+        EntryRecordFilter filter = new EntryRecordFilter () {
+            private int records = 0;
+
+            public boolean skipType (EntryRecord rec) {
+                return ++records == 1;
+            }
+
+            public boolean skip (EntryRecord rec) {
+                EntryTagRecord tag = rec.getEntryTag (EntryTagType.TAG_SCN);
+                return tag.getData().getLong (0) == 2L;
+            }
+        };
+
+        try {
+            ByteArrayInputStream bytes = 
+                new ByteArrayInputStream (encodeRecords (3, 3));
+            DataInputStream input = new DataInputStream (bytes);
+
+            EntryRecord rec = parser.parse (input, pool, filter);
+            assertTrue (rec.isFiltered());
+            assertEquals (0, rec.getEntryTags().getNumTags());
+            assertEquals (3 + 3 * 6, rec.getLength());
+
+            rec = parser.parse (input, pool, filter);
+            assertTrue (rec.isFiltered());
+            assertEquals (
+                "Expecting only first SCN tag of filtered record",
+                1, 
+                rec.getEntryTagCount (EntryTagType.TAG_SCN)
+            );
+
+            rec = parser.parse (input, pool, filter);
+            assertFalse (rec.isFiltered());
+            assertEquals (3, rec.getEntryTagCount (EntryTagType.TAG_SCN));
+            assertEquals (
+                3L,
+                rec.getEntryTags().getTag (2).getData().getLong (0)
+            );
+            assertEquals (2, rec.getEntryTags().getTag (2).getSequence());
+
+            assertEquals (
+                "Expecting all records to be read",
+                0,
+                bytes.available()
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    /**
+     * Encode entry records with SCN tags in PLOG format, the SCN values of
+     * each record are its number, starting from 1
+     *
+     * @param numRecords number of records
+     * @param numTags    number of SCN tags per record
+     *
+     * @return encoded records
+     */
+    private byte[] encodeRecords (int numRecords, int numTags) {
+        int tagLength = TAG_DATA_CHUNKS + EntryTagRecord.DATA_CHUNK_OFFSET;
+        int recLength = EntryRecord.DATA_CHUNK_OFFSET + numTags * tagLength;
+
+        ByteBuffer buffer = ByteBuffer.allocate (numRecords * recLength * 4);
+        buffer.order (ByteOrder.LITTLE_ENDIAN);
+
+        for (int r = 1; r <= numRecords; r++) {
+            buffer.putInt (recLength);
+            buffer.putInt (0);
+            buffer.putInt (0);
+
+            for (int t = 0; t < numTags; t++) {
+                buffer.putInt (tagLength);
+                buffer.putInt (EntryTagType.TAG_SCN.getId());
+                buffer.putLong (r);
+                buffer.putLong (0L);
+            }
+        }
+
+        return buffer.array();
+    }
+}
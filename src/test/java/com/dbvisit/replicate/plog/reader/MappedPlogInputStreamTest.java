@@ -0,0 +1,164 @@
+package com.dbvisit.replicate.plog.reader;
+
+import static org.junit.Assert.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+public class MappedPlogInputStreamTest {
+    private static final int WINDOW_SIZE = 64;
+
+    /**
+     * Write bytes with their offset as value to a temporary file
+     *
+     * @param size number of bytes to write
+     *
+     * @return the temporary file
+     * @throws Exception if the file cannot be written
+     */
+    private File writeFile (int size) throws Exception {
+        File file = File.createTempFile ("mapped", ".plog");
+        FileOutputStream out = new FileOutputStream (file);
+
+        try {
+            out.write (bytes (0, size));
+        } finally {
+            out.close();
+        }
+
+        return file;
+    }
+
+    private byte[] bytes (int offset, int size) {
+        byte[] b = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte)(offset + i);
+        }
+
+        return b;
+    }
+
+    private int chunk (int offset) {
+        return ByteBuffer.wrap (bytes (offset, 4))
+                         .order (ByteOrder.LITTLE_ENDIAN)
+                         .getInt();
+    }
+
+    @Test
+    public void testReadAcrossMappedWindows () {
+        final int FILE_SIZE = 1000;
+
+        File file = null;
+        MappedPlogInputStream in = null;
+        try {
+            file = writeFile (FILE_SIZE);
+            in = new MappedPlogInputStream (file, WINDOW_SIZE);
+
+            /* chunks crossing the end of first window */
+            in.skip (60);
+            assertEquals (chunk (60), in.readChunk());
+            assertEquals (chunk (64), in.readChunk());
+
+            in.mark (0);
+
+            /* slice larger than a window, mapped as a whole */
+            ByteBuffer slice = in.readSlice (200);
+            assertEquals (200, slice.remaining());
+            for (int i = 0; i < 200; i++) {
+                assertEquals ((byte)(68 + i), slice.get (i));
+            }
+
+            /* skip past several windows without mapping them */
+            assertEquals (500, in.skip (500));
+            assertEquals ((byte)768, (byte)in.read());
+
+            /* reset to marker in an earlier window */
+            in.reset();
+            assertEquals (68, in.read());
+
+            /* views remain valid after remapping */
+            assertEquals ((byte)68, slice.get (0));
+
+            int[] chunks = new int[2];
+            in.skip (FILE_SIZE - 69 - 8);
+            in.readChunks (chunks, 0, 2);
+            assertEquals (chunk (FILE_SIZE - 8), chunks[0]);
+            assertEquals (chunk (FILE_SIZE - 4), chunks[1]);
+
+            assertEquals (-1, in.read());
+            assertEquals (0, in.skip (10));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+        finally {
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } catch (Exception e) {
+                fail (e.getMessage());
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testReadGrowingTail () {
+        final int WRITTEN = 100;
+
+        File file = null;
+        MappedPlogInputStream in = null;
+        try {
+            file = writeFile (WRITTEN);
+            in = new MappedPlogInputStream (file, WINDOW_SIZE);
+
+            in.skip (WRITTEN - 2);
+
+            try {
+                in.readChunk();
+                fail ("Expecting incomplete chunk at end of PLOG");
+            } catch (EOFException e) {
+                /* expected, still at same position */
+            }
+
+            /* PLOG is still being written */
+            FileOutputStream out = new FileOutputStream (file, true);
+            try {
+                out.write (bytes (WRITTEN, 2 * WINDOW_SIZE));
+            } finally {
+                out.close();
+            }
+
+            assertEquals (chunk (WRITTEN - 2), in.readChunk());
+            assertEquals (
+                2 * WINDOW_SIZE - 2,
+                in.skip (2 * WINDOW_SIZE)
+            );
+            assertEquals (-1, in.read());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+        finally {
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } catch (Exception e) {
+                fail (e.getMessage());
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -2,7 +2,10 @@ package com.dbvisit.replicate.plog.reader;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +26,7 @@ import com.dbvisit.replicate.plog.domain.parser.TransactionInfoParser;
 import com.dbvisit.replicate.plog.domain.ChangeAction;
 import com.dbvisit.replicate.plog.domain.ColumnValue;
 import com.dbvisit.replicate.plog.domain.DomainRecord;
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
 import com.dbvisit.replicate.plog.file.PlogFile;
 import com.dbvisit.replicate.plog.format.EntrySubType;
 import com.dbvisit.replicate.plog.format.EntryType;
@@ -301,6 +305,83 @@ public class PlogReaderTest {
         }
     }
     
+    @Test
+    public void testSingleInsertMappedBackend () {
+        final int PLOG_WITH_LCR_INSERT_ID = 19;
+        final int PLOG_WITH_LCR_INSERT_TIMESTAMP = 1469588821;
+        final String PLOG_WITH_LCR_INSERT_FILENAME = "19.plog.1469588821";
+        
+        final String PLOG_LOCATION = "/data/mine/plog_single_insert";
+        
+        URL resURL = this.getClass().getResource(PLOG_LOCATION);
+        
+        if (resURL == null) {
+            fail ("Mine test path resource is not setup correctly");
+        }
+        
+        String plogDir = resURL.getFile().toString();
+        
+        String fileName = plogDir + "/" + PLOG_WITH_LCR_INSERT_FILENAME;
+        PlogFile plog = null;
+        try {
+            plog = new PlogFile (
+                PLOG_WITH_LCR_INSERT_ID,
+                PLOG_WITH_LCR_INSERT_TIMESTAMP,
+                fileName,
+                DomainReader.builder()
+                    .persistCriteria(persistCriteria)
+                    .domainParsers(domainParsers)
+                    .readerBackend(PlogReaderBackend.MAPPED)
+                    .build()
+            );
+            
+            plog.open ();
+            
+            PlogStreamReader reader = plog.getReader();
+            
+            assertTrue (
+                "Expecting memory mapped PLOG stream",
+                reader.getPlogStream() instanceof MappedPlogInputStream
+            );
+            
+            reader.setFlushSize(100);
+            
+            while (!reader.isDone()) {
+                reader.read();
+            }
+            
+            List <DomainRecord> drs = reader.flush();
+            
+            ChangeRowRecord lcr = (ChangeRowRecord)drs.get(0);
+            TransactionInfoRecord txr = (TransactionInfoRecord)drs.get(1);
+            
+            assertTrue (
+                "Expecting 1 INSERT LCR and 1 TX", 
+                drs.size() == 2 && 
+                lcr.getAction().equals (ChangeAction.INSERT) &&
+                txr.getRecordCount() == 1
+            );
+            
+            for (int c = 0; c < lcr.getColumnValues().size(); c++) {
+                ColumnValue cr = lcr.getColumnValues().get(c);
+                
+                assertTrue (
+                    cr.getValue() + " must be same as " + INSERT_SQL[c],
+                    cr.getValue().toString().equals (INSERT_SQL[c].toString())
+                );
+            }
+            
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+        finally {
+            if (plog != null) {
+                plog.close();
+            }
+        }
+    }
+    
     @Test
     public void testUpdate () {
         final int PLOG_WITH_LCR_UPDATE_ID = 21;
@@ -1072,6 +1153,227 @@ public class PlogReaderTest {
     /* single transaction info parser for aggregating */
     TransactionInfoParser txParser = new TransactionInfoParser();
     
+    @Test
+    public void testSeekIndexedPlog () {
+        final int PLOG_ID = 12;
+        final int PLOG_TIMESTAMP = 1467080596;
+        final String PLOG_FILENAME = "12.plog.1467080596";
+        
+        final String PLOG_LOCATION = "/data/mine/plog_single_addcolumn";
+        
+        URL resURL = this.getClass().getResource(PLOG_LOCATION);
+        
+        if (resURL == null) {
+            fail ("Mine test path resource is not setup correctly");
+        }
+        
+        File dir = null;
+        File copy = null;
+        PlogFile plog = null;
+        try {
+            /* index file is written alongside PLOG, use a copy */
+            dir = Files.createTempDirectory ("plog_index").toFile();
+            copy = new File (dir, PLOG_FILENAME);
+            Files.copy (
+                new File (resURL.getFile(), PLOG_FILENAME).toPath(),
+                copy.toPath()
+            );
+            
+            plog = openIndexedPlog (PLOG_ID, PLOG_TIMESTAMP, copy);
+            
+            List<ChangeRowRecord> all = readChangeRows (plog.getReader());
+            plog.close();
+            
+            assertTrue (
+                "Expecting PLOG index file to be written",
+                PlogIndex.getIndexFile (plog).isFile()
+            );
+            
+            PlogIndex index = PlogIndex.load (plog);
+            
+            assertTrue ("Expecting complete index", index.isComplete());
+            assertTrue ("Expecting indexed records", index.getNumEntries() > 1);
+            assertEquals (2, index.getInterval());
+            
+            /* restart after a record half way, without reading the PLOG
+             * caches before it */
+            ChangeRowRecord last = all.get (all.size() / 2);
+            ReplicateOffset restart = last.getReplicateOffset();
+            
+            plog = openIndexedPlog (PLOG_ID, PLOG_TIMESTAMP, copy);
+            PlogStreamReader reader = plog.getReader();
+            long start = reader.getOffset();
+            
+            assertFalse (
+                "Expecting aggregate reader to not skip open transactions", 
+                reader.seek (restart)
+            );
+            assertEquals (start, reader.getOffset());
+            plog.close();
+            
+            plog = openIndexedPlog (
+                PLOG_ID, 
+                PLOG_TIMESTAMP, 
+                copy, 
+                changeRowParsers
+            );
+            reader = plog.getReader();
+            
+            assertTrue (
+                "Expecting to seek to offset: " + restart, 
+                reader.seek (restart)
+            );
+            assertEquals (restart.getPlogOffset(), reader.getOffset());
+            
+            List<ChangeRowRecord> after = readChangeRows (reader);
+            plog.close();
+            
+            List<String> expected = new ArrayList<String>();
+            for (ChangeRowRecord lcr : all) {
+                if (lcr.getReplicateOffset().compareTo (restart) > 0) {
+                    expected.add (lcr.toJSONString());
+                }
+            }
+            
+            List<String> seeked = new ArrayList<String>();
+            for (ChangeRowRecord lcr : after) {
+                seeked.add (lcr.toJSONString());
+            }
+            
+            assertEquals (
+                "Expecting records after restart offset only",
+                expected, 
+                seeked
+            );
+            
+            /* restart at SCN of the record, from nearest indexed record */
+            long scn = last.getSystemChangeNumber();
+            
+            plog = openIndexedPlog (PLOG_ID, PLOG_TIMESTAMP, copy);
+            reader = plog.getReader();
+            start = reader.getOffset();
+            
+            assertTrue ("Expecting to seek to SCN: " + scn, reader.seekSCN (scn));
+            assertTrue (
+                "Expecting to skip records before SCN: " + scn,
+                reader.getOffset() > start
+            );
+            
+            after = readChangeRows (reader);
+            plog.close();
+            
+            expected.clear();
+            for (ChangeRowRecord lcr : all) {
+                if (lcr.getSystemChangeNumber() >= scn) {
+                    expected.add (lcr.toJSONString());
+                }
+            }
+            
+            seeked.clear();
+            for (ChangeRowRecord lcr : after) {
+                if (lcr.getSystemChangeNumber() >= scn) {
+                    seeked.add (lcr.toJSONString());
+                }
+            }
+            
+            assertEquals (
+                "Expecting records from restart SCN",
+                expected, 
+                seeked
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+        finally {
+            if (plog != null) {
+                plog.close();
+            }
+            if (copy != null) {
+                new File (copy.getPath() + "." + PlogIndex.INDEX_EXT).delete();
+                copy.delete();
+            }
+            if (dir != null) {
+                dir.delete();
+            }
+        }
+    }
+    
+    /**
+     * Open a PLOG with a domain reader that indexes every second record
+     * 
+     * @param id        PLOG sequence
+     * @param timestamp PLOG time stamp
+     * @param file      the PLOG file
+     * 
+     * @return opened PLOG
+     * @throws Exception if PLOG failed to open
+     */
+    private PlogFile openIndexedPlog (int id, int timestamp, File file)
+    throws Exception {
+        return openIndexedPlog (id, timestamp, file, domainParsers);
+    }
+    
+    /**
+     * Open a PLOG with a domain reader that indexes every second record
+     * and parses it with the given domain parsers
+     * 
+     * @param id        PLOG sequence
+     * @param timestamp PLOG time stamp
+     * @param file      the PLOG file
+     * @param parsers   domain parsers by entry type
+     * 
+     * @return opened PLOG
+     * @throws Exception if PLOG failed to open
+     */
+    private PlogFile openIndexedPlog (
+        int id, 
+        int timestamp, 
+        File file,
+        Map<EntryType, DomainParser[]> parsers
+    ) throws Exception {
+        PlogFile plog = new PlogFile (
+            id,
+            timestamp,
+            file.getPath(),
+            DomainReader.builder()
+                .persistCriteria(persistCriteria)
+                .domainParsers(parsers)
+                .indexInterval(2)
+                .build()
+        );
+        plog.open();
+        
+        return plog;
+    }
+    
+    /**
+     * Read the rest of a PLOG and return its change row records
+     * 
+     * @param reader the PLOG stream reader
+     * 
+     * @return change row records read
+     * @throws Exception if reading failed
+     */
+    private List<ChangeRowRecord> readChangeRows (PlogStreamReader reader)
+    throws Exception {
+        List<ChangeRowRecord> lcrs = new ArrayList<ChangeRowRecord>();
+        
+        while (!reader.isDone()) {
+            reader.read();
+            
+            if (reader.canFlush()) {
+                for (DomainRecord dr : reader.flush()) {
+                    if (dr.isChangeRowRecord()) {
+                        lcrs.add ((ChangeRowRecord) dr);
+                    }
+                }
+            }
+        }
+        
+        return lcrs;
+    }
+    
     @SuppressWarnings("serial")
     private final Map<EntryType, DomainParser[]> domainParsers = 
         new HashMap<EntryType, DomainParser[]> () {{
@@ -1102,6 +1404,23 @@ public class PlogReaderTest {
             );
     }};
     
+    @SuppressWarnings("serial")
+    private final Map<EntryType, DomainParser[]> changeRowParsers = 
+        new HashMap<EntryType, DomainParser[]> () {{
+            put (
+                EntryType.ETYPE_METADATA,
+                new DomainParser[] {  
+                    new MetaDataParser()
+                }
+            );
+            put (
+                EntryType.ETYPE_LCR_DATA,
+                new DomainParser[] {
+                    new ChangeRowParser()
+                }
+            );
+    }};
+    
     @SuppressWarnings("serial")
     final Map<EntrySubType, Boolean> persistent = 
         new HashMap<EntrySubType, Boolean> () {{
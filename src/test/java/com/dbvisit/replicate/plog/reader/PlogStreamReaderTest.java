@@ -17,26 +17,36 @@ import com.dbvisit.replicate.plog.domain.TransactionInfoRecord;
 import com.dbvisit.replicate.plog.domain.ReplicateOffset;
 import com.dbvisit.replicate.plog.domain.parser.DomainParser;
 import com.dbvisit.replicate.plog.domain.parser.ChangeRowParser;
+import com.dbvisit.replicate.plog.domain.parser.ColumnProjection;
 import com.dbvisit.replicate.plog.domain.parser.TransactionInfoParser;
 import com.dbvisit.replicate.plog.domain.parser.MetaDataParser;
+import com.dbvisit.replicate.plog.domain.parser.ParallelDomainParser;
 import com.dbvisit.replicate.plog.domain.parser.ProxyDomainParser;
 import com.dbvisit.replicate.plog.file.PlogFile;
+import com.dbvisit.replicate.plog.format.EntryRecord;
 import com.dbvisit.replicate.plog.format.EntrySubType;
 import com.dbvisit.replicate.plog.format.EntryType;
 import com.dbvisit.replicate.plog.metadata.Column;
 import com.dbvisit.replicate.plog.metadata.DDLMetaData;
 import com.dbvisit.replicate.plog.reader.criteria.AndCriteria;
+import com.dbvisit.replicate.plog.reader.criteria.ColumnValueCriteria;
+import com.dbvisit.replicate.plog.reader.criteria.ColumnValueCriteria.Operator;
 import com.dbvisit.replicate.plog.reader.criteria.InternalDDLFilterCriteria;
 import com.dbvisit.replicate.plog.reader.criteria.SchemaOffsetCriteria;
 import com.dbvisit.replicate.plog.reader.criteria.TypeCriteria;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -455,6 +465,543 @@ public class PlogStreamReaderTest {
         }
     }
     
+    @Test
+    public void testReadDataPLOGStreamPipelined() {
+        try {
+            byte[][] plogs = new byte[][] {
+                insertDataPLOGByteArray,
+                updateDataPLOGByteArray,
+                deleteDataPLOGByteArray
+            };
+
+            for (byte[] plog : plogs) {
+                List<String> expected = readAsJSON (
+                    DomainReader.builder()
+                        .persistCriteria(persistCriteria)
+                        .domainParsers(rowParsers)
+                        .build(),
+                    plog
+                );
+
+                DomainReader r = DomainReader.builder()
+                    .persistCriteria(persistCriteria)
+                    .domainParsers(rowParsers)
+                    .pipelineWorkers(2)
+                    .build();
+
+                assertEquals (2, r.getPipelineWorkers());
+
+                List<String> pipelined = readAsJSON (r, plog);
+
+                assertTrue (
+                    "Expecting data LCRs to be parsed",
+                    expected.size() > 1
+                );
+                assertEquals (
+                    "Expecting pipelined records in PLOG order",
+                    expected,
+                    pipelined
+                );
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadDataPLOGStreamPipelinedWithoutKey() {
+        try {
+            List<String> expected = readAsJSON (
+                DomainReader.builder()
+                    .persistCriteria(persistCriteria)
+                    .domainParsers(newRowParsers())
+                    .build(),
+                insertDataPLOGByteArray
+            );
+
+            /* record the threads that parse the data LCRs */
+            final List<Thread> threads = 
+                Collections.synchronizedList (new ArrayList<Thread>());
+
+            Map<EntryType, DomainParser[]> parsers = newRowParsers();
+            parsers.put (
+                EntryType.ETYPE_LCR_DATA,
+                new DomainParser[] { 
+                    new ThreadRecordingParser (new ChangeRowParser(), threads)
+                }
+            );
+
+            DomainReader r = DomainReader.builder()
+                .persistCriteria(persistCriteria)
+                .domainParsers(parsers)
+                .pipelineWorkers(2)
+                .build();
+
+            PlogStreamReader psr = openStream (r, insertDataPLOGByteArray);
+
+            List<String> pipelined = new ArrayList<String>();
+            for (DomainRecord dr : psr.flush()) {
+                pipelined.add (dr.toJSONString());
+            }
+
+            /* the table has no key definition */
+            assertFalse (psr.getPlog().getSchemas().isEmpty());
+            for (DDLMetaData md : psr.getPlog().getSchemas().values()) {
+                assertFalse (md.hasKey());
+            }
+            psr.close();
+
+            assertFalse ("Expecting data LCRs to be parsed", threads.isEmpty());
+            for (Thread thread : threads) {
+                assertSame (
+                    "Expecting records of a table without key to be " +
+                    "parsed in order, by reader thread",
+                    Thread.currentThread(),
+                    thread
+                );
+            }
+            assertEquals (
+                "Expecting pipelined records in PLOG order",
+                expected,
+                pipelined
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    /**
+     * Parallel domain parser that records the threads that parse its
+     * data LCRs
+     */
+    private static class ThreadRecordingParser
+    implements ParallelDomainParser {
+        private final ChangeRowParser parser;
+        private final List<Thread> threads;
+
+        private ThreadRecordingParser (
+            ChangeRowParser parser,
+            List<Thread> threads
+        ) {
+            this.parser  = parser;
+            this.threads = threads;
+        }
+
+        @Override
+        public void parse (PlogFile plog, EntryRecord rec)
+        throws Exception {
+            if (rec.hasColumnData()) {
+                threads.add (Thread.currentThread());
+            }
+            parser.parse (plog, rec);
+        }
+
+        @Override
+        public DomainRecord emit () {
+            return parser.emit();
+        }
+
+        @Override
+        public boolean canEmit () {
+            return parser.canEmit();
+        }
+
+        @Override
+        public boolean supportMultiPartMerging () {
+            return parser.supportMultiPartMerging();
+        }
+
+        @Override
+        public void enableMultiPartMerging () throws Exception {
+            parser.enableMultiPartMerging();
+        }
+
+        @Override
+        public boolean isAggregateParser () {
+            return parser.isAggregateParser();
+        }
+
+        @Override
+        public ParallelDomainParser newWorkerParser () {
+            return new ThreadRecordingParser (
+                (ChangeRowParser) parser.newWorkerParser(),
+                threads
+            );
+        }
+
+        @Override
+        public boolean canParseInParallel (PlogFile plog, EntryRecord rec) {
+            return parser.canParseInParallel (plog, rec);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    @Test
+    public void testReadDataPLOGStreamWithColumnProjection() {
+        try {
+            byte[][] plogs = new byte[][] {
+                insertDataPLOGByteArray,
+                updateDataPLOGByteArray,
+                deleteDataPLOGByteArray
+            };
+
+            /* test table has no key constraint, its columns are all used
+             * as key, in key image or as fall back, so are always parsed
+             */
+            ColumnProjection projection = new ColumnProjection (
+                new HashMap<String, List<String>>() {{
+                    put ("soe.unit*", Arrays.asList ("NONE"));
+            }});
+
+            assertNull (projection.forTable ("SOE.WAREHOUSES"));
+            assertNotNull (projection.forTable ("SOE.UNITTEST"));
+
+            for (byte[] plog : plogs) {
+                List<String> expected = readAsJSON (
+                    DomainReader.builder()
+                        .persistCriteria(persistCriteria)
+                        .domainParsers(newRowParsers())
+                        .build(),
+                    plog
+                );
+
+                DomainReader r = DomainReader.builder()
+                    .persistCriteria(persistCriteria)
+                    .domainParsers(newRowParsers())
+                    .columnProjection(projection)
+                    .build();
+
+                assertSame (projection, r.getColumnProjection());
+
+                List<String> projected = readAsJSON (r, plog);
+
+                assertTrue (
+                    "Expecting data LCRs to be parsed",
+                    expected.size() > 1
+                );
+                assertEquals (
+                    "Expecting key columns to be parsed when projected",
+                    expected,
+                    projected
+                );
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadDataPLOGStreamWithColumnCriteria() {
+        try {
+            List<String> expected = readAsJSON (
+                DomainReader.builder()
+                    .persistCriteria(persistCriteria)
+                    .domainParsers(newRowParsers())
+                    .build(),
+                insertDataPLOGByteArray
+            );
+
+            /* the inserted row meets it */
+            DomainReader r = DomainReader.builder()
+                .persistCriteria(persistCriteria)
+                .domainParsers(newRowParsers())
+                .columnCriteria(
+                    new AndCriteria<DomainRecordType> (
+                        new ColumnValueCriteria<DomainRecordType> (
+                            "SOE.UNITTEST", "ID", Operator.IN, 1, 2
+                        ),
+                        new ColumnValueCriteria<DomainRecordType> (
+                            "SOE.UNITTEST", "TEST_NAME", Operator.IS_NOT_NULL
+                        )
+                    )
+                )
+                .build();
+
+            assertNotNull (r.getColumnCriteria());
+            assertEquals (expected, readAsJSON (r, insertDataPLOGByteArray));
+
+            /* the inserted row does not meet it and is abandoned */
+            r = DomainReader.builder()
+                .persistCriteria(persistCriteria)
+                .domainParsers(newRowParsers())
+                .pipelineWorkers(2)
+                .columnCriteria(
+                    new ColumnValueCriteria<DomainRecordType> (
+                        "SOE.UNITTEST", "TEST_NAME", Operator.EQUAL, "NONE"
+                    )
+                )
+                .build();
+
+            List<String> filtered = readAsJSON (r, insertDataPLOGByteArray);
+
+            int numInserts = 0;
+            for (String json : expected) {
+                if (json.contains ("\"action\":\"INSERT\"")) {
+                    numInserts++;
+                }
+                else {
+                    assertTrue (filtered.contains (json));
+                }
+            }
+
+            assertTrue ("Expecting inserts to be parsed", numInserts > 0);
+            assertEquals (expected.size() - numInserts, filtered.size());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadDataPLOGStreamShardedByTable() {
+        try {
+            byte[][] plogs = new byte[][] {
+                insertDataPLOGByteArray,
+                updateDataPLOGByteArray,
+                deleteDataPLOGByteArray
+            };
+
+            for (byte[] plog : plogs) {
+                PlogStreamReader psr = openStream (
+                    DomainReader.builder()
+                        .persistCriteria(persistCriteria)
+                        .domainParsers(rowParsers)
+                        .build(),
+                    plog
+                );
+                Map<String, List<DomainRecord>> expected = 
+                    psr.flushByTable();
+                psr.close();
+
+                DomainReader r = DomainReader.builder()
+                    .persistCriteria(persistCriteria)
+                    .domainParsers(rowParsers)
+                    .pipelineWorkers(3)
+                    .shardByTable(true)
+                    .build();
+
+                assertTrue (r.isShardByTable());
+                assertNull (r.getWatermark());
+
+                psr = openStream (r, plog);
+
+                /* all records have been emitted at end of PLOG */
+                ReplicateOffset end = new ReplicateOffset (
+                    psr.getPlog().getUID(),
+                    psr.getOffset()
+                );
+                assertEquals (
+                    "Expecting watermark: " + end + ", got: " + 
+                    psr.getWatermark(),
+                    0,
+                    end.compareTo (psr.getWatermark())
+                );
+
+                Map<String, List<DomainRecord>> sharded = psr.flushByTable();
+                psr.close();
+
+                assertEquals (expected.keySet(), sharded.keySet());
+
+                for (String table : expected.keySet()) {
+                    List<DomainRecord> records = sharded.get (table);
+
+                    assertEquals (expected.get (table).size(), records.size());
+
+                    for (int i = 0; i < records.size(); i++) {
+                        assertEquals (
+                            "Expecting records in order for table: " + table,
+                            expected.get (table).get (i).toJSONString(),
+                            records.get (i).toJSONString()
+                        );
+                    }
+                }
+            }
+
+            /* a pipeline is needed for sharding */
+            try {
+                DomainReader.builder()
+                    .domainParsers(rowParsers)
+                    .shardByTable(true)
+                    .build();
+                fail ("Expecting sharding without pipeline workers to fail");
+            } catch (Exception e) {
+                assertTrue (e.getMessage().contains ("no pipeline workers"));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTailDataPLOGStream() {
+        File tail = null;
+        try {
+            final byte[] plog = insertDataPLOGByteArray;
+
+            List<String> expected = readAsJSON (
+                DomainReader.builder()
+                    .persistCriteria(persistCriteria)
+                    .domainParsers(rowParsers)
+                    .build(),
+                plog
+            );
+
+            DomainReader r = DomainReader.builder()
+                .persistCriteria(persistCriteria)
+                .domainParsers(rowParsers)
+                .tailing(true)
+                .build();
+
+            assertTrue (r.isTailing());
+
+            /* MINE has written the control header and part of the data */
+            final int written = PlogFile.PLOG_DATA_BYTE_OFFSET + 10;
+
+            tail = File.createTempFile ("tail", ".plog");
+            final FileOutputStream out = new FileOutputStream (tail);
+            out.write (plog, 0, written);
+            out.flush();
+
+            final String path = tail.getAbsolutePath();
+
+            /* make a fake PLOG on the file being written */
+            PlogFile p = new PlogFile(r) {
+                public boolean canUse() {
+                    return true;
+                }
+                public boolean isCompact() {
+                    return true;
+                }
+                public String getFullPath() {
+                    return path;
+                }
+                public String getFileName() {
+                    return "mock-tail-plog";
+                }
+            };
+            p.setHeader (new HeaderRecord());
+            p.getHeader().setCompactEncoding(true);
+
+            PlogStreamReader psr = p.getReader();
+            psr.prepare();
+
+            /* write the rest in small pieces, splitting entry records */
+            Thread mine = new Thread () {
+                public void run () {
+                    try {
+                        for (int o = written; o < plog.length; o += 7) {
+                            out.write (plog, o, Math.min (7, plog.length - o));
+                            out.flush();
+                            Thread.sleep (1);
+                        }
+                        out.close();
+                    } catch (Exception e) {
+                        logger.error (e.getMessage());
+                    }
+                }
+            };
+            mine.start();
+
+            while (!psr.isDone()) {
+                psr.read();
+            }
+            mine.join();
+
+            List<String> tailed = new ArrayList<String>();
+
+            for (DomainRecord dr : psr.flush()) {
+                tailed.add (dr.toJSONString());
+            }
+            psr.close();
+
+            assertEquals (
+                "Expecting records of tailed PLOG in PLOG order",
+                expected,
+                tailed
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+        finally {
+            if (tail != null) {
+                tail.delete();
+            }
+        }
+    }
+
+    /**
+     * Read all domain records in a compact PLOG stream as JSON
+     * 
+     * @param r    the domain reader to use
+     * @param plog byte array of PLOG
+     * 
+     * @return domain records as JSON, in order emitted
+     * @throws Exception if reading failed
+     */
+    private List<String> readAsJSON (DomainReader r, byte[] plog)
+    throws Exception {
+        PlogStreamReader psr = openStream (r, plog);
+
+        List<String> json = new ArrayList<String>();
+
+        for (DomainRecord dr : psr.flush()) {
+            json.add (dr.toJSONString());
+        }
+
+        psr.close();
+
+        return json;
+    }
+
+    /**
+     * Read all domain records in a compact PLOG stream into the domain
+     * cache of its stream reader
+     * 
+     * @param r    the domain reader to use
+     * @param plog byte array of PLOG
+     * 
+     * @return the stream reader, done reading
+     * @throws Exception if reading failed
+     */
+    private PlogStreamReader openStream (DomainReader r, byte[] plog)
+    throws Exception {
+        DataInputStream dis = new DataInputStream (
+            new ByteArrayInputStream (plog)
+        );
+
+        /* make a fake PLOG */
+        PlogFile p = new PlogFile(r) {
+            public boolean canUse() {
+                return true;
+            }
+            public boolean isCompact() {
+                return true;
+            }
+            public String getFullPath() {
+                return "/dev/null";
+            }
+            public String getFileName() {
+                return "mock-plog";
+            }
+        };
+        p.setHeader (new HeaderRecord());
+        p.getHeader().setCompactEncoding(true);
+
+        PlogStreamReader psr = new PlogStreamReader(p, r, dis);
+        psr.prepare();
+
+        while (!psr.isDone()) {
+            psr.read();
+        }
+
+        return psr;
+    }
+    
     @Test
     public void testReadUpdateDataPLOGStream() {
         try {
@@ -1333,6 +1880,52 @@ public class PlogStreamReaderTest {
             );
     }};
 
+    /* data LCRs are only parsed by change row parser, so that they are
+     * decoded by pipeline workers
+     */
+    @SuppressWarnings("serial")
+    private final Map<EntryType, DomainParser[]> rowParsers = 
+        new HashMap<EntryType, DomainParser[]> () {{
+            put (
+                EntryType.ETYPE_CONTROL, 
+                new DomainParser[] { new ChangeRowParser() }
+            );
+            put (
+                EntryType.ETYPE_METADATA,
+                new DomainParser[] { new MetaDataParser() }
+            );
+            put (
+                EntryType.ETYPE_LCR_DATA,
+                new DomainParser[] { new ChangeRowParser() }
+            );
+    }};
+
+    /**
+     * Create new change row parsers, for building a domain reader that
+     * configures its own parsers
+     *
+     * @return data LCR parsers, as in <em>rowParsers</em>
+     */
+    private Map<EntryType, DomainParser[]> newRowParsers () {
+        Map<EntryType, DomainParser[]> parsers =
+            new HashMap<EntryType, DomainParser[]>();
+
+        parsers.put (
+            EntryType.ETYPE_CONTROL,
+            new DomainParser[] { new ChangeRowParser() }
+        );
+        parsers.put (
+            EntryType.ETYPE_METADATA,
+            new DomainParser[] { new MetaDataParser() }
+        );
+        parsers.put (
+            EntryType.ETYPE_LCR_DATA,
+            new DomainParser[] { new ChangeRowParser() }
+        );
+
+        return parsers;
+    }
+
     @SuppressWarnings("serial")
     final Map<EntrySubType, Boolean> persistent = 
         new HashMap<EntrySubType, Boolean> () {{
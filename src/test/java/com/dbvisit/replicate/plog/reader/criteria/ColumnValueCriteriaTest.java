@@ -0,0 +1,193 @@
+package com.dbvisit.replicate.plog.reader.criteria;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dbvisit.replicate.plog.domain.ChangeAction;
+import com.dbvisit.replicate.plog.domain.ChangeRowRecord;
+import com.dbvisit.replicate.plog.domain.ColumnDataType;
+import com.dbvisit.replicate.plog.domain.ColumnValue;
+import com.dbvisit.replicate.plog.domain.DomainRecordType;
+import com.dbvisit.replicate.plog.domain.TransactionInfoRecord;
+import com.dbvisit.replicate.plog.reader.criteria.ColumnValueCriteria.Operator;
+
+public class ColumnValueCriteriaTest {
+    private ChangeRowRecord changeRow (
+        String owner,
+        String name,
+        Object status,
+        Object tenant
+    ) {
+        ChangeRowRecord lcr = new ChangeRowRecord();
+        lcr.setAction (ChangeAction.INSERT);
+        lcr.setTableOwner (owner);
+        lcr.setTableName (name);
+
+        List<ColumnValue> values = new ArrayList<ColumnValue>();
+        values.add (
+            new ColumnValue (
+                1, ColumnDataType.VARCHAR2, "STATUS", status, false
+            )
+        );
+        values.add (
+            new ColumnValue (
+                2, ColumnDataType.NUMBER, "TENANT_ID", tenant, false
+            )
+        );
+        lcr.setColumnValues (values);
+
+        return lcr;
+    }
+
+    @Test
+    public void testColumnValueCriteria () {
+        ChangeRowRecord open   = changeRow ("SOE", "ORDERS", "OPEN", 10);
+        ChangeRowRecord closed = changeRow ("SOE", "ORDERS", "CLOSED", 25L);
+        ChangeRowRecord nulls  = changeRow ("SOE", "ORDERS", null, null);
+        ChangeRowRecord other  = changeRow ("SOE", "ITEMS", "CLOSED", 99);
+
+        try {
+            Criteria<DomainRecordType> status =
+                new ColumnValueCriteria<DomainRecordType> (
+                    "SOE.ORDERS", "STATUS", Operator.EQUAL, "OPEN"
+                );
+            assertTrue (status.meetCriteria (open));
+            assertFalse (status.meetCriteria (closed));
+            assertFalse (status.meetCriteria (nulls));
+            /* other tables are not tested */
+            assertTrue (status.meetCriteria (other));
+
+            Criteria<DomainRecordType> tenants =
+                new ColumnValueCriteria<DomainRecordType> (
+                    "SOE.*", "TENANT_ID", Operator.IN,
+                    new BigDecimal ("10.00"), 99L
+                );
+            assertTrue (tenants.meetCriteria (open));
+            assertFalse (tenants.meetCriteria (closed));
+            assertTrue (tenants.meetCriteria (other));
+
+            Criteria<DomainRecordType> range =
+                new ColumnValueCriteria<DomainRecordType> (
+                    null, "TENANT_ID", Operator.RANGE, 20, null
+                );
+            assertFalse (range.meetCriteria (open));
+            assertTrue (range.meetCriteria (closed));
+            assertFalse (range.meetCriteria (nulls));
+
+            assertTrue (
+                new ColumnValueCriteria<DomainRecordType> (
+                    null, "STATUS", Operator.IS_NULL
+                ).meetCriteria (nulls)
+            );
+            assertFalse (
+                new ColumnValueCriteria<DomainRecordType> (
+                    null, "STATUS", Operator.IS_NOT_NULL
+                ).meetCriteria (nulls)
+            );
+
+            /* records without column values are not tested */
+            TransactionInfoRecord tx = new TransactionInfoRecord();
+            assertTrue (status.meetCriteria (tx));
+            assertTrue (
+                new ColumnValueCriteria<DomainRecordType> (
+                    null, "MISSING", Operator.IS_NOT_NULL
+                ).meetCriteria (open)
+            );
+
+            /* composes with AND and OR, also when compiled */
+            List<Criteria<DomainRecordType>> composed =
+                new ArrayList<Criteria<DomainRecordType>>();
+            composed.add (
+                new AndCriteria<DomainRecordType> (status, tenants)
+            );
+            composed.add (
+                new OrCriteria<DomainRecordType> (status, range)
+            );
+
+            ChangeRowRecord[] records = new ChangeRowRecord[] {
+                open, closed, nulls, other
+            };
+            boolean[][] expected = new boolean[][] {
+                { true, false, false, true },
+                { true, true, false, true }
+            };
+
+            for (int c = 0; c < composed.size(); c++) {
+                Criteria<DomainRecordType> compiled =
+                    CompiledCriteria.compile (composed.get (c));
+
+                for (int r = 0; r < records.length; r++) {
+                    assertEquals (
+                        expected[c][r],
+                        composed.get(c).meetCriteria (records[r])
+                    );
+                    assertEquals (
+                        expected[c][r],
+                        compiled.meetCriteria (records[r])
+                    );
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLowerCaseColumnValueCriteria () {
+        ChangeRowRecord open   = changeRow ("SOE", "ORDERS", "OPEN", 10);
+        ChangeRowRecord closed = changeRow ("SOE", "ORDERS", "CLOSED", 25L);
+
+        try {
+            /* table wildcard and column name are matched ignoring case */
+            Criteria<DomainRecordType> status =
+                new ColumnValueCriteria<DomainRecordType> (
+                    "soe.orders", "status", Operator.EQUAL, "OPEN"
+                );
+            Criteria<DomainRecordType> compiled =
+                CompiledCriteria.compile (status);
+
+            assertTrue (status.meetCriteria (open));
+            assertFalse (status.meetCriteria (closed));
+            assertTrue (compiled.meetCriteria (open));
+            assertFalse (compiled.meetCriteria (closed));
+
+            assertTrue (
+                CriteriaUtility.testedColumns (
+                    status, "SOE.ORDERS"
+                ).contains ("STATUS")
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvalidColumnValueCriteria () {
+        ChangeRowRecord open = changeRow ("SOE", "ORDERS", "OPEN", 10);
+
+        try {
+            new ColumnValueCriteria<DomainRecordType> (
+                "SOE.ORDERS", "STATUS", Operator.RANGE, "A"
+            ).meetCriteria (open);
+            fail ("Expecting range without upper value to fail");
+        } catch (Exception e) {
+            assertTrue (e.getMessage().contains ("invalid operands"));
+        }
+
+        try {
+            new ColumnValueCriteria<DomainRecordType> (
+                "SOE.ORDERS", "TENANT_ID", Operator.RANGE, "A", "Z"
+            ).meetCriteria (open);
+            fail ("Expecting number and string comparison to fail");
+        } catch (Exception e) {
+            assertTrue (e.getMessage().contains ("incompatible types"));
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.dbvisit.replicate.plog.reader.criteria;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.dbvisit.replicate.plog.domain.ReplicateOffset;
+import com.dbvisit.replicate.plog.format.EntryRecord;
+import com.dbvisit.replicate.plog.format.EntrySubType;
+
+public class CompiledCriteriaTest {
+    private static final long PLOG_UID = 2114597620763L;
+
+    @SuppressWarnings("serial")
+    @Test
+    public void testCompiledCriteriaMeetsSameRecords () {
+        Map<String, Boolean> schemas = new HashMap<String, Boolean>() {{
+            put ("SOE.WAREHOUSES", true);
+            put ("soe.inventories", true);
+            put ("SOE.ORDERS", false);
+        }};
+
+        Map<String, ReplicateOffset> schemaOffsets =
+            new HashMap<String, ReplicateOffset>() {{
+                put ("SOE.WAREHOUSES", new ReplicateOffset (PLOG_UID, 5000));
+        }};
+
+        LinkedHashMap<String, Long> scnOffsets =
+            new LinkedHashMap<String, Long>() {{
+                put ("SOE.INV*", 475319L);
+                put ("SOE.*", 475300L);
+                put ("N/A", -1L);
+        }};
+
+        Map<EntrySubType, Boolean> types =
+            new HashMap<EntrySubType, Boolean>() {{
+                put (EntrySubType.ESTYPE_LCR_INSERT, true);
+                put (EntrySubType.ESTYPE_LCR_UPDATE, true);
+                put (EntrySubType.ESTYPE_TRAN_COMMIT, true);
+                put (EntrySubType.ESTYPE_DDL_JSON, false);
+        }};
+
+        Map<EntrySubType, ReplicateOffset> typeOffsets =
+            new HashMap<EntrySubType, ReplicateOffset>() {{
+                put (
+                    EntrySubType.ESTYPE_LCR_UPDATE,
+                    new ReplicateOffset (PLOG_UID, 6000)
+                );
+        }};
+
+        List<Criteria<EntrySubType>> criteria =
+            new ArrayList<Criteria<EntrySubType>>();
+
+        criteria.add (new SchemaCriteria<EntrySubType> (schemas));
+        criteria.add (new SchemaOffsetCriteria<EntrySubType> (schemaOffsets));
+        criteria.add (
+            new SystemChangeNumberCriteria<EntrySubType> (scnOffsets)
+        );
+        criteria.add (new TypeCriteria<EntrySubType> (types));
+        criteria.add (new TypeOffsetCriteria<EntrySubType> (typeOffsets));
+        criteria.add (new InternalDDLFilterCriteria<EntrySubType>());
+        criteria.add (
+            new AndCriteria<EntrySubType> (
+                new OrCriteria<EntrySubType> (
+                    new TypeCriteria<EntrySubType> (types),
+                    new SystemChangeNumberCriteria<EntrySubType> (475318L)
+                ),
+                new AndCriteria<EntrySubType> (
+                    new SchemaCriteria<EntrySubType> (schemas),
+                    new InternalDDLFilterCriteria<EntrySubType>()
+                )
+            )
+        );
+        criteria.add (
+            new OrCriteria<EntrySubType> (
+                new SchemaOffsetCriteria<EntrySubType> (schemaOffsets),
+                new TypeOffsetCriteria<EntrySubType> (typeOffsets)
+            )
+        );
+
+        String[] owners = new String[] {
+            "SOE.WAREHOUSES",
+            "SOE.INVENTORIES",
+            "SOE.ORDERS",
+            "SYS.OBJ",
+            "SCOTT.TEST1"
+        };
+        EntrySubType[] subTypes = new EntrySubType[] {
+            EntrySubType.ESTYPE_LCR_INSERT,
+            EntrySubType.ESTYPE_LCR_UPDATE,
+            EntrySubType.ESTYPE_LCR_DDL,
+            EntrySubType.ESTYPE_TRAN_COMMIT,
+            EntrySubType.ESTYPE_DDL_JSON
+        };
+
+        try {
+            for (Criteria<EntrySubType> c : criteria) {
+                Criteria<EntrySubType> compiled = CompiledCriteria.compile (c);
+
+                assertTrue (compiled instanceof CompiledCriteria);
+                assertSame (compiled, CompiledCriteria.compile (compiled));
+                assertSame (c, CompiledCriteria.source (compiled));
+
+                /* twice, first to decide and then from decision table */
+                for (int pass = 0; pass < 2; pass++) {
+                    for (EntrySubType subType : subTypes) {
+                        for (String owner : owners) {
+                            for (long scn = 475290L; scn < 475330L; scn += 5) {
+                                EntryRecord rec = new EntryRecord();
+                                rec.setSubType (subType);
+                                rec.setOwner (
+                                    subType.equals (
+                                        EntrySubType.ESTYPE_TRAN_COMMIT
+                                    )
+                                    ? null
+                                    : owner
+                                );
+                                rec.setSCN (scn);
+                                rec.setUniqueOffset (
+                                    new ReplicateOffset (
+                                        PLOG_UID,
+                                        (scn - 475290L) * 200
+                                    )
+                                );
+
+                                assertEquals (
+                                    "Expecting same result for record: " +
+                                    subType + " " + owner + " " + scn,
+                                    c.meetCriteria (rec),
+                                    compiled.meetCriteria (rec)
+                                );
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    /**
+     * Create a data record of an object, with its SCN as offset
+     *
+     * @param objectId the object ID
+     * @param owner    the schema of object
+     * @param scn      the SCN of record
+     *
+     * @return the entry record
+     */
+    private EntryRecord createRecord (int objectId, String owner, long scn) {
+        EntryRecord rec = new EntryRecord();
+        rec.setSubType (EntrySubType.ESTYPE_LCR_INSERT);
+        rec.setObjectId (objectId);
+        rec.setOwner (owner);
+        rec.setSCN (scn);
+        rec.setUniqueOffset (new ReplicateOffset (PLOG_UID, scn));
+
+        return rec;
+    }
+
+    @Test
+    public void testCompiledCriteriaSeesUpdatedOffsets () {
+        final int OBJECT_ID = 20057;
+        final String OWNER  = "SOE.WAREHOUSES";
+
+        Map<String, ReplicateOffset> schemaOffsets =
+            new HashMap<String, ReplicateOffset>();
+        schemaOffsets.put ("SOE.ORDERS", new ReplicateOffset (PLOG_UID, 100));
+
+        Map<EntrySubType, ReplicateOffset> typeOffsets =
+            new HashMap<EntrySubType, ReplicateOffset>();
+        typeOffsets.put (
+            EntrySubType.ESTYPE_LCR_INSERT,
+            new ReplicateOffset (PLOG_UID, 100)
+        );
+
+        LinkedHashMap<String, Long> scnOffsets =
+            new LinkedHashMap<String, Long>();
+        scnOffsets.put ("SOE.*", 100L);
+
+        Criteria<EntrySubType> schemaOffset = CompiledCriteria.compile (
+            new SchemaOffsetCriteria<EntrySubType> (schemaOffsets)
+        );
+        Criteria<EntrySubType> typeOffset = CompiledCriteria.compile (
+            new TypeOffsetCriteria<EntrySubType> (typeOffsets)
+        );
+        Criteria<EntrySubType> scn = CompiledCriteria.compile (
+            new SystemChangeNumberCriteria<EntrySubType> (scnOffsets)
+        );
+
+        try {
+            EntryRecord rec = createRecord (OBJECT_ID, OWNER, 200);
+
+            /* decided and memoised for schema and type */
+            assertTrue (schemaOffset.meetCriteria (rec));
+            assertTrue (typeOffset.meetCriteria (rec));
+            assertTrue (scn.meetCriteria (rec));
+
+            /* offsets and SCNs updated, and added, after compiling */
+            schemaOffsets.put (OWNER, new ReplicateOffset (PLOG_UID, 300));
+            typeOffsets.put (
+                EntrySubType.ESTYPE_LCR_INSERT,
+                new ReplicateOffset (PLOG_UID, 300)
+            );
+            scnOffsets.put ("SOE.*", 300L);
+
+            assertFalse (
+                "Expecting updated schema offset to apply",
+                schemaOffset.meetCriteria (rec)
+            );
+            assertFalse (
+                "Expecting updated type offset to apply",
+                typeOffset.meetCriteria (rec)
+            );
+            assertFalse (
+                "Expecting updated start SCN to apply",
+                scn.meetCriteria (rec)
+            );
+
+            rec = createRecord (OBJECT_ID, OWNER, 400);
+
+            assertTrue (schemaOffset.meetCriteria (rec));
+            assertTrue (typeOffset.meetCriteria (rec));
+            assertTrue (scn.meetCriteria (rec));
+
+            /* removed, records of schema and type always fail */
+            typeOffsets.remove (EntrySubType.ESTYPE_LCR_INSERT);
+            typeOffsets.put (
+                EntrySubType.ESTYPE_LCR_UPDATE,
+                new ReplicateOffset (PLOG_UID, 100)
+            );
+            scnOffsets.put ("SOE.*", -1L);
+
+            assertFalse (typeOffset.meetCriteria (rec));
+            assertFalse (scn.meetCriteria (rec));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("serial")
+    @Test
+    public void testCompiledCriteriaDecidesPerObject () {
+        Map<String, Boolean> schemas = new HashMap<String, Boolean>() {{
+            put ("SOE.WAREHOUSES", true);
+            put ("SOE.ORDERS", false);
+        }};
+
+        Criteria<EntrySubType> compiled = CompiledCriteria.compile (
+            new SchemaCriteria<EntrySubType> (schemas)
+        );
+
+        try {
+            assertTrue (
+                compiled.meetCriteria (createRecord (1, "SOE.WAREHOUSES", 1))
+            );
+            assertFalse (
+                compiled.meetCriteria (createRecord (2, "SOE.ORDERS", 1))
+            );
+
+            /* object renamed, its decisions are invalidated */
+            assertFalse (
+                compiled.meetCriteria (createRecord (1, "SOE.ORDERS", 2))
+            );
+            assertTrue (
+                compiled.meetCriteria (createRecord (2, "SOE.WAREHOUSES", 2))
+            );
+
+            /* records without object ID are decided by schema */
+            assertTrue (
+                compiled.meetCriteria (createRecord (-1, "SOE.WAREHOUSES", 3))
+            );
+            assertFalse (
+                compiled.meetCriteria (createRecord (-1, "SOE.ORDERS", 3))
+            );
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail (e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCompiledCriteriaKeepsErrors () {
+        Criteria<EntrySubType> compiled = CompiledCriteria.compile (
+            new SchemaCriteria<EntrySubType> (
+                new HashMap<String, Boolean>()
+            )
+        );
+
+        EntryRecord rec = new EntryRecord();
+        rec.setSubType (EntrySubType.ESTYPE_LCR_INSERT);
+        rec.setOwner ("SOE.WAREHOUSES");
+
+        try {
+            compiled.meetCriteria (rec);
+            fail ("Expecting un-initialised criteria to fail");
+        } catch (Exception e) {
+            assertEquals (
+                "Invalid un-initialised schema name criteria",
+                e.getMessage()
+            );
+        }
+
+        assertNull (CompiledCriteria.compile (null));
+    }
+}
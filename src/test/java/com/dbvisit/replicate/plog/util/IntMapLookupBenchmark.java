@@ -0,0 +1,127 @@
+package com.dbvisit.replicate.plog.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark the per LCR lookups of schema by object ID and column meta data
+ * by column ID, using boxed integer keyed hash maps as before versus the
+ * primitive integer keyed hash map. Each operation simulates a batch of LCRs
+ * on a set of tables with object IDs outside the JVM's small integer cache,
+ * run with the GC profiler to report the allocation rate per operation.
+ *
+ * <p>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.dbvisit.replicate.plog.util.IntMapLookupBenchmark
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class IntMapLookupBenchmark {
+    private static final int NUM_TABLES  = 64;
+    private static final int NUM_COLUMNS = 20;
+    private static final int NUM_LCRS    = 1024;
+    /** First object ID, Oracle object IDs are well above 127 */
+    private static final int FIRST_OBJECT_ID = 20000;
+
+    /** Object ID of each simulated LCR */
+    private int[] lcrObjectIds;
+
+    private Map<Integer, String> boxedSchemas;
+    private Map<Integer, String> boxedColumns;
+
+    private IntObjectHashMap<String> schemas;
+    private IntObjectHashMap<String> columns;
+
+    @Setup
+    public void setup () {
+        Random random = new Random (1L);
+
+        boxedSchemas = new HashMap<Integer, String>();
+        boxedColumns = new HashMap<Integer, String>();
+        schemas      = new IntObjectHashMap<String>();
+        columns      = new IntObjectHashMap<String>();
+
+        for (int t = 0; t < NUM_TABLES; t++) {
+            int objectId  = FIRST_OBJECT_ID + t * 7;
+            String schema = "SOE.TABLE" + t;
+
+            boxedSchemas.put (objectId, schema);
+            schemas.put (objectId, schema);
+        }
+
+        /* column IDs are ordinals, within the small integer cache */
+        for (int c = 1; c <= NUM_COLUMNS; c++) {
+            boxedColumns.put (c, "COLUMN" + c);
+            columns.put (c, "COLUMN" + c);
+        }
+
+        lcrObjectIds = new int[NUM_LCRS];
+
+        for (int i = 0; i < NUM_LCRS; i++) {
+            lcrObjectIds[i] = FIRST_OBJECT_ID + random.nextInt (NUM_TABLES) * 7;
+        }
+    }
+
+    @Benchmark
+    public long boxedLookup () {
+        long sum = 0L;
+
+        for (int objectId : lcrObjectIds) {
+            if (boxedSchemas.containsKey (objectId)) {
+                sum += boxedSchemas.get (objectId).length();
+            }
+            for (int c = 1; c <= NUM_COLUMNS; c++) {
+                sum += boxedColumns.get (c).length();
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long primitiveLookup () {
+        long sum = 0L;
+
+        for (int objectId : lcrObjectIds) {
+            String schema = schemas.get (objectId);
+
+            if (schema != null) {
+                sum += schema.length();
+            }
+            for (int c = 1; c <= NUM_COLUMNS; c++) {
+                sum += columns.get (c).length();
+            }
+        }
+
+        return sum;
+    }
+
+    public static void main (String[] args) throws Exception {
+        new Runner (
+            new OptionsBuilder()
+                .include(IntMapLookupBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+}
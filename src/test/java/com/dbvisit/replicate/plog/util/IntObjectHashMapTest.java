@@ -0,0 +1,96 @@
+package com.dbvisit.replicate.plog.util;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/** Test the primitive integer keyed hash map against a boxed hash map */
+public class IntObjectHashMapTest {
+
+    @Test
+    public void testMatchesHashMap() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<String>();
+        Map<Integer, String> expected = new HashMap<Integer, String>();
+        Random random = new Random (1L);
+
+        /* small key range forces collisions, replacements and removals */
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt (512) - 64;
+
+            switch (random.nextInt (3)) {
+                case 0:
+                    assertEquals (
+                        expected.put (key, "V" + i),
+                        map.put (key, "V" + i)
+                    );
+                    break;
+                case 1:
+                    assertEquals (expected.remove (key), map.remove (key));
+                    break;
+                default:
+                    assertEquals (expected.get (key), map.get (key));
+                    assertEquals (
+                        expected.containsKey (key),
+                        map.containsKey (key)
+                    );
+                    break;
+            }
+
+            assertEquals (expected.size(), map.size());
+        }
+
+        assertEquals (expected, map);
+        assertEquals (map, expected);
+    }
+
+    @Test
+    public void testMapCompatibility() {
+        Map<Integer, String> source = new HashMap<Integer, String>();
+
+        for (int id = 1000; id < 1100; id++) {
+            source.put (id, "TABLE" + id);
+        }
+
+        IntObjectHashMap<String> map = new IntObjectHashMap<String>(source);
+
+        assertEquals (source, map);
+        assertEquals ("TABLE1050", map.get (Integer.valueOf (1050)));
+        assertNull (map.get ("1050"));
+        assertFalse (map.containsKey ("1050"));
+        assertNull (map.get (2000));
+
+        /* iteration supports removal and replacing values */
+        Iterator<Map.Entry<Integer, String>> it = map.entrySet().iterator();
+
+        while (it.hasNext()) {
+            Map.Entry<Integer, String> entry = it.next();
+
+            if (entry.getKey() % 2 == 0) {
+                it.remove();
+            }
+            else {
+                entry.setValue ("VIEW" + entry.getKey());
+            }
+        }
+
+        assertEquals (50, map.size());
+        assertNull (map.get (1050));
+        assertEquals ("VIEW1051", map.get (1051));
+
+        int modCount = map.getModCount();
+        map.put (1051, "TABLE1051");
+        assertTrue (
+            "Expecting replacing a value to modify the map",
+            modCount != map.getModCount()
+        );
+
+        map.clear();
+        assertTrue (map.isEmpty());
+        assertNull (map.get (1051));
+    }
+}